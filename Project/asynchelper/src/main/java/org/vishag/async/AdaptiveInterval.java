@@ -0,0 +1,161 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+
+ *   http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vishag.async;
+
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiPredicate;
+
+/**
+ * The AdaptiveInterval class, which is the configuration of a polling
+ * scheduled with
+ * {@link SchedulingSupplier#scheduleLatestValue(int, int, TimeUnit, AdaptiveInterval, java.util.function.Supplier)}
+ * whose interval adapts to how often the polled result changes. <br>
+ * <br>
+ * The interval starts at the base delay of the schedule, and is multiplied by
+ * the backoff factor after each result not changed from the previous one, up
+ * to the max delay. It snaps back to the base delay as soon as a changed result
+ * is seen. A result is changed if it is not equal to the previous one, unless
+ * another change detector is given with
+ * {@link AdaptiveInterval#withChangeDetector(BiPredicate)} or
+ * {@link AdaptiveInterval#withComparator(Comparator)}.
+ *
+ * @param <T>
+ *            the generic type
+ * @author Loganathan.S &lt;https://github.com/loganathan001&gt;
+ */
+public final class AdaptiveInterval<T> {
+
+	/** The default backoff factor. */
+	private static final double DEFAULT_BACKOFF = 2.0;
+
+	/** The max delay in nano seconds. */
+	private final long maxDelayNanos;
+
+	/** The backoff factor. */
+	private final double backoff;
+
+	/** The change detector, telling the previous and new results differ. */
+	private final BiPredicate<? super T, ? super T> changeDetector;
+
+	/**
+	 * Instantiates a new adaptive interval.
+	 *
+	 * @param maxDelayNanos
+	 *            the max delay nanos
+	 * @param backoff
+	 *            the backoff
+	 * @param changeDetector
+	 *            the change detector
+	 */
+	private AdaptiveInterval(long maxDelayNanos, double backoff, BiPredicate<? super T, ? super T> changeDetector) {
+		if (maxDelayNanos <= 0 || !(backoff > 1.0)) {
+			throw new IllegalArgumentException(
+					"Invalid max delay " + maxDelayNanos + "ns or backoff " + backoff + " (above 1)");
+		}
+		this.maxDelayNanos = maxDelayNanos;
+		this.backoff = backoff;
+		this.changeDetector = changeDetector;
+	}
+
+	/**
+	 * Gets the AdaptiveInterval doubling the interval up to the given max
+	 * delay while the results are equal.
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param maxDelay
+	 *            the max delay
+	 * @param unit
+	 *            the unit
+	 * @return the adaptive interval
+	 */
+	public static <T> AdaptiveInterval<T> of(long maxDelay, TimeUnit unit) {
+		return new AdaptiveInterval<>(unit.toNanos(maxDelay), DEFAULT_BACKOFF,
+				(previous, result) -> !Objects.equals(previous, result));
+	}
+
+	/**
+	 * Gets a copy of this AdaptiveInterval with the given backoff factor.
+	 *
+	 * @param factor
+	 *            the factor multiplying the interval for an unchanged result,
+	 *            above 1
+	 * @return the adaptive interval
+	 */
+	public AdaptiveInterval<T> withBackoff(double factor) {
+		return new AdaptiveInterval<>(maxDelayNanos, factor, changeDetector);
+	}
+
+	/**
+	 * Gets a copy of this AdaptiveInterval with the given change detector.
+	 *
+	 * @param detector
+	 *            the detector telling the previous and the new results differ
+	 * @return the adaptive interval
+	 */
+	public AdaptiveInterval<T> withChangeDetector(BiPredicate<? super T, ? super T> detector) {
+		return new AdaptiveInterval<>(maxDelayNanos, backoff, detector);
+	}
+
+	/**
+	 * Gets a copy of this AdaptiveInterval, telling a result is changed if it
+	 * does not compare equal to the previous one with the given comparator.
+	 *
+	 * @param comparator
+	 *            the comparator
+	 * @return the adaptive interval
+	 */
+	public AdaptiveInterval<T> withComparator(Comparator<? super T> comparator) {
+		return withChangeDetector((previous, result) -> comparator.compare(previous, result) != 0);
+	}
+
+	/**
+	 * Gets the next delay after a result.
+	 *
+	 * @param currentDelayNanos
+	 *            the current delay in nano seconds
+	 * @param baseDelayNanos
+	 *            the base delay in nano seconds
+	 * @param changed
+	 *            the flag telling the result is changed
+	 * @return the next delay in nano seconds
+	 */
+	long nextDelay(long currentDelayNanos, long baseDelayNanos, boolean changed) {
+		if (changed) {
+			return baseDelayNanos;
+		}
+		return Math.max(baseDelayNanos, Math.min(maxDelayNanos, (long) (currentDelayNanos * backoff)));
+	}
+
+	/**
+	 * Checks if the result is changed from the previous one.
+	 *
+	 * @param previous
+	 *            the previous
+	 * @param result
+	 *            the result
+	 * @return true, if changed
+	 */
+	boolean isChanged(T previous, T result) {
+		return changeDetector.test(previous, result);
+	}
+}
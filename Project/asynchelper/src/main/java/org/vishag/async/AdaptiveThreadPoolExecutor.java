@@ -0,0 +1,497 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+
+ *   http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vishag.async;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The AdaptiveThreadPoolExecutor class, which is a thread pool that resizes
+ * itself within the configured minimum and maximum pool sizes from the
+ * measured load. This can be used with {@link AsyncSupplier#of(java.util.concurrent.ExecutorService)}
+ * and {@link AsyncTask#of(java.util.concurrent.ExecutorService)} like any other
+ * thread pool. <br>
+ * <br>
+ * On every adjustment interval the pool size is set to the number of tasks
+ * expected in the system by Little's law, that is the arrival rate multiplied
+ * by the mean queue wait plus the mean service time, so that a queueing pool
+ * grows and an oversized pool shrinks. The size is further capped to
+ * <code>cores / (1 - blocking ratio)</code>, where the blocking ratio is the
+ * share of the service time the tasks spend off the CPU; this keeps the pool
+ * at about the number of cores for CPU-bound work for throughput, while
+ * allowing many threads for I/O-bound work for concurrency. <br>
+ * <br>
+ * The adjustments are made as the tasks arrive and complete, so an idle pool
+ * is not adjusted. Instead, its threads idle for an adjustment interval exit,
+ * even below the minimum pool size, and are started again on demand, while
+ * the pool size is adjusted again from the load measured once the tasks
+ * arrive again. <br>
+ * <br>
+ * Note: If the thread CPU time can not be measured in the JVM, or its
+ * measurement is disabled (see
+ * {@link ThreadMXBean#setThreadCpuTimeEnabled(boolean)}), the blocking ratio is
+ * not used to cap the pool size. This does not enable the measurement, which
+ * is a JVM-wide setting.
+ *
+ * @author Loganathan.S &lt;https://github.com/loganathan001&gt;
+ */
+public final class AdaptiveThreadPoolExecutor extends ThreadPoolExecutor {
+
+	/** The default adjustment interval in milliseconds. */
+	private static final long DEFAULT_ADJUSTMENT_INTERVAL_MILLIS = 1000L;
+
+	/** The number of available processors. */
+	private static final int CORES = Runtime.getRuntime().availableProcessors();
+
+	/** The thread MX bean. */
+	private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+	/** The flag of thread CPU time measurement support. */
+	private static final boolean CPU_TIME_SUPPORTED = isCpuTimeSupported();
+
+	/** The thread CPU time at the start of the running task. */
+	private static final ThreadLocal<long[]> TASK_START = ThreadLocal.withInitial(() -> new long[2]);
+
+	/** The min pool size. */
+	private final int minPoolSize;
+
+	/** The max pool size. */
+	private final int maxPoolSize;
+
+	/** The adjustment interval in nano seconds. */
+	private final long adjustmentIntervalNanos;
+
+	/** The arrivals in the current window. */
+	private final LongAdder arrivals = new LongAdder();
+
+	/** The completions in the current window. */
+	private final LongAdder completions = new LongAdder();
+
+	/** The total queue wait in the current window in nano seconds. */
+	private final LongAdder queueWaitNanos = new LongAdder();
+
+	/** The total service time in the current window in nano seconds. */
+	private final LongAdder serviceNanos = new LongAdder();
+
+	/** The total CPU time in the current window in nano seconds. */
+	private final LongAdder cpuNanos = new LongAdder();
+
+	/** The flag set while adjusting. */
+	private final AtomicBoolean adjusting = new AtomicBoolean();
+
+	/** The start of the current window in nano seconds. */
+	private volatile long windowStartNanos = System.nanoTime();
+
+	/** The arrival rate per second measured in the last window. */
+	private volatile double arrivalRate;
+
+	/** The mean queue wait measured in the last window in nano seconds. */
+	private volatile double meanQueueWaitNanos;
+
+	/** The mean service time measured in the last window in nano seconds. */
+	private volatile double meanServiceNanos;
+
+	/** The blocking ratio measured in the last window. */
+	private volatile double blockingRatio;
+
+	/**
+	 * Instantiates a new adaptive thread pool executor.
+	 *
+	 * @param minPoolSize
+	 *            the min pool size
+	 * @param maxPoolSize
+	 *            the max pool size
+	 * @param adjustmentIntervalNanos
+	 *            the adjustment interval nanos
+	 */
+	private AdaptiveThreadPoolExecutor(int minPoolSize, int maxPoolSize, long adjustmentIntervalNanos) {
+		super(minPoolSize, minPoolSize, adjustmentIntervalNanos, TimeUnit.NANOSECONDS, new LinkedBlockingQueue<>(),
+				newThreadFactory());
+		this.minPoolSize = minPoolSize;
+		this.maxPoolSize = maxPoolSize;
+		this.adjustmentIntervalNanos = adjustmentIntervalNanos;
+		// No adjustment is made while idle, so the idle threads exit by themselves
+		allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Gets a new AdaptiveThreadPoolExecutor resizing itself within the given
+	 * pool sizes, adjusted every second.
+	 *
+	 * @param minPoolSize
+	 *            the min pool size
+	 * @param maxPoolSize
+	 *            the max pool size
+	 * @return the adaptive thread pool executor
+	 */
+	public static AdaptiveThreadPoolExecutor of(int minPoolSize, int maxPoolSize) {
+		return of(minPoolSize, maxPoolSize, DEFAULT_ADJUSTMENT_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Gets a new AdaptiveThreadPoolExecutor resizing itself within the given
+	 * pool sizes, adjusted every given interval.
+	 *
+	 * @param minPoolSize
+	 *            the min pool size
+	 * @param maxPoolSize
+	 *            the max pool size
+	 * @param adjustmentInterval
+	 *            the adjustment interval
+	 * @param timeUnit
+	 *            the time unit
+	 * @return the adaptive thread pool executor
+	 */
+	public static AdaptiveThreadPoolExecutor of(int minPoolSize, int maxPoolSize, long adjustmentInterval,
+			TimeUnit timeUnit) {
+		if (minPoolSize < 1 || maxPoolSize < minPoolSize || adjustmentInterval <= 0) {
+			throw new IllegalArgumentException("Invalid pool sizes " + minPoolSize + ".." + maxPoolSize
+					+ " or adjustment interval " + adjustmentInterval);
+		}
+		return new AdaptiveThreadPoolExecutor(minPoolSize, maxPoolSize, timeUnit.toNanos(adjustmentInterval));
+	}
+
+	/**
+	 * New thread factory creating daemon threads.
+	 *
+	 * @return the thread factory
+	 */
+	private static ThreadFactory newThreadFactory() {
+		AtomicInteger threadNumber = new AtomicInteger();
+		return runnable -> {
+			Thread thread = new Thread(runnable, "adaptive-pool-" + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	/**
+	 * Checks if the thread CPU time can be measured and is already enabled.
+	 *
+	 * @return true, if supported
+	 */
+	private static boolean isCpuTimeSupported() {
+		try {
+			return THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported() && THREAD_MX_BEAN.isThreadCpuTimeEnabled();
+		} catch (UnsupportedOperationException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * The Timed interface of the tasks carrying their enqueue time.
+	 */
+	private interface Timed {
+
+		/**
+		 * Gets the enqueue time in nano seconds.
+		 *
+		 * @return the enqueue nanos
+		 */
+		long getEnqueueNanos();
+	}
+
+	/**
+	 * The TimedFutureTask of the submitted tasks.
+	 *
+	 * @param <T>
+	 *            the generic type
+	 */
+	private static final class TimedFutureTask<T> extends FutureTask<T> implements Timed {
+
+		/** The enqueue nanos. */
+		private final long enqueueNanos = System.nanoTime();
+
+		/**
+		 * Instantiates a new timed future task.
+		 *
+		 * @param callable
+		 *            the callable
+		 */
+		private TimedFutureTask(Callable<T> callable) {
+			super(callable);
+		}
+
+		/**
+		 * Instantiates a new timed future task.
+		 *
+		 * @param runnable
+		 *            the runnable
+		 * @param result
+		 *            the result
+		 */
+		private TimedFutureTask(Runnable runnable, T result) {
+			super(runnable, result);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see org.vishag.async.AdaptiveThreadPoolExecutor.Timed#getEnqueueNanos()
+		 */
+		@Override
+		public long getEnqueueNanos() {
+			return enqueueNanos;
+		}
+	}
+
+	/**
+	 * The TimedRunnable of the executed runnables.
+	 */
+	private static final class TimedRunnable implements Runnable, Timed {
+
+		/** The runnable. */
+		private final Runnable runnable;
+
+		/** The enqueue nanos. */
+		private final long enqueueNanos = System.nanoTime();
+
+		/**
+		 * Instantiates a new timed runnable.
+		 *
+		 * @param runnable
+		 *            the runnable
+		 */
+		private TimedRunnable(Runnable runnable) {
+			this.runnable = runnable;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.lang.Runnable#run()
+		 */
+		@Override
+		public void run() {
+			runnable.run();
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see org.vishag.async.AdaptiveThreadPoolExecutor.Timed#getEnqueueNanos()
+		 */
+		@Override
+		public long getEnqueueNanos() {
+			return enqueueNanos;
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.concurrent.AbstractExecutorService#newTaskFor(java.util.concurrent.Callable)
+	 */
+	@Override
+	protected <T> RunnableFuture<T> newTaskFor(Callable<T> callable) {
+		return new TimedFutureTask<>(callable);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.concurrent.AbstractExecutorService#newTaskFor(java.lang.Runnable, java.lang.Object)
+	 */
+	@Override
+	protected <T> RunnableFuture<T> newTaskFor(Runnable runnable, T value) {
+		return new TimedFutureTask<>(runnable, value);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.concurrent.ThreadPoolExecutor#execute(java.lang.Runnable)
+	 */
+	@Override
+	public void execute(Runnable command) {
+		arrivals.increment();
+		super.execute(command instanceof Timed || command == null ? command : new TimedRunnable(command));
+		adjustIfDue();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.concurrent.ThreadPoolExecutor#beforeExecute(java.lang.Thread, java.lang.Runnable)
+	 */
+	@Override
+	protected void beforeExecute(Thread thread, Runnable runnable) {
+		long[] start = TASK_START.get();
+		start[0] = System.nanoTime();
+		start[1] = CPU_TIME_SUPPORTED ? THREAD_MX_BEAN.getCurrentThreadCpuTime() : 0L;
+		if (runnable instanceof Timed) {
+			queueWaitNanos.add(start[0] - ((Timed) runnable).getEnqueueNanos());
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.concurrent.ThreadPoolExecutor#afterExecute(java.lang.Runnable, java.lang.Throwable)
+	 */
+	@Override
+	protected void afterExecute(Runnable runnable, Throwable throwable) {
+		long[] start = TASK_START.get();
+		serviceNanos.add(System.nanoTime() - start[0]);
+		if (CPU_TIME_SUPPORTED) {
+			cpuNanos.add(THREAD_MX_BEAN.getCurrentThreadCpuTime() - start[1]);
+		}
+		completions.increment();
+		adjustIfDue();
+	}
+
+	/**
+	 * Adjusts the pool size if the adjustment interval has elapsed since the
+	 * last adjustment.
+	 */
+	private void adjustIfDue() {
+		long now = System.nanoTime();
+		long elapsedNanos = now - windowStartNanos;
+		if (elapsedNanos < adjustmentIntervalNanos || isShutdown() || !adjusting.compareAndSet(false, true)) {
+			return;
+		}
+		try {
+			windowStartNanos = now;
+			long arrived = arrivals.sumThenReset();
+			long completed = completions.sumThenReset();
+			long queueWait = queueWaitNanos.sumThenReset();
+			long service = serviceNanos.sumThenReset();
+			long cpu = cpuNanos.sumThenReset();
+
+			int poolSize = getCorePoolSize();
+			int targetSize;
+			if (completed == 0) {
+				// Nothing completed in the window: grow only if every thread is
+				// held and work is waiting, and shrink to the running tasks if
+				// nothing is waiting, as after an idle window
+				int active = getActiveCount();
+				if (getQueue().isEmpty()) {
+					targetSize = active;
+				} else {
+					targetSize = active >= poolSize ? poolSize * 2 : poolSize;
+				}
+			} else {
+				arrivalRate = arrived * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+				meanQueueWaitNanos = (double) queueWait / completed;
+				meanServiceNanos = (double) service / completed;
+				blockingRatio = CPU_TIME_SUPPORTED && service > 0
+						? Math.max(0.0, Math.min(1.0, 1.0 - (double) cpu / service)) : 0.0;
+
+				double inSystem = arrivalRate * (meanQueueWaitNanos + meanServiceNanos)
+						/ TimeUnit.SECONDS.toNanos(1);
+				double cap = CPU_TIME_SUPPORTED && blockingRatio < 1.0 ? CORES / (1.0 - blockingRatio)
+						: Double.MAX_VALUE;
+				targetSize = (int) Math.ceil(Math.min(inSystem, cap));
+			}
+			resize(Math.max(minPoolSize, Math.min(maxPoolSize, targetSize)));
+		} finally {
+			adjusting.set(false);
+		}
+	}
+
+	/**
+	 * Resizes the pool.
+	 *
+	 * @param size
+	 *            the size
+	 */
+	private void resize(int size) {
+		if (size > getCorePoolSize()) {
+			setMaximumPoolSize(size);
+			setCorePoolSize(size);
+		} else if (size < getCorePoolSize()) {
+			setCorePoolSize(size);
+			setMaximumPoolSize(size);
+		}
+	}
+
+	/**
+	 * Gets the min pool size.
+	 *
+	 * @return the min pool size
+	 */
+	public int getMinPoolSize() {
+		return minPoolSize;
+	}
+
+	/**
+	 * Gets the max pool size.
+	 *
+	 * @return the max pool size
+	 */
+	public int getMaxPoolSize() {
+		return maxPoolSize;
+	}
+
+	/**
+	 * Gets the arrival rate of the tasks per second measured in the last
+	 * adjustment interval.
+	 *
+	 * @return the arrival rate
+	 */
+	public double getArrivalRate() {
+		return arrivalRate;
+	}
+
+	/**
+	 * Gets the mean time the tasks waited in the queue, measured in the last
+	 * adjustment interval.
+	 *
+	 * @param timeUnit
+	 *            the time unit
+	 * @return the mean queue wait
+	 */
+	public double getMeanQueueWait(TimeUnit timeUnit) {
+		return meanQueueWaitNanos / timeUnit.toNanos(1);
+	}
+
+	/**
+	 * Gets the mean time the tasks took to run, measured in the last
+	 * adjustment interval.
+	 *
+	 * @param timeUnit
+	 *            the time unit
+	 * @return the mean service time
+	 */
+	public double getMeanServiceTime(TimeUnit timeUnit) {
+		return meanServiceNanos / timeUnit.toNanos(1);
+	}
+
+	/**
+	 * Gets the share of the service time the tasks spent off the CPU, measured
+	 * in the last adjustment interval, in the range of <code>0.0</code> for
+	 * CPU-bound to <code>1.0</code> for blocking tasks.
+	 *
+	 * @return the blocking ratio
+	 */
+	public double getBlockingRatio() {
+		return blockingRatio;
+	}
+}
@@ -0,0 +1,532 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+
+ *   http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vishag.async;
+
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+import org.vishag.async.RejectedSubmissionException.Reason;
+
+/**
+ * The AdmissionControl class, which bounds the number of submissions waiting
+ * to be started by the thread pool of an {@link AsyncSupplier} or
+ * {@link AsyncTask} obtained with
+ * <code>AsyncSupplier.of(ExecutorService, AdmissionControl)</code> or
+ * <code>AsyncTask.of(ExecutorService, AdmissionControl)</code>, so that an
+ * overload degrades predictably instead of growing the queue without limit.
+ * <br>
+ * <br>
+ * When the queue is full, a submission is handled based on the
+ * {@link AdmissionControl.Policy}. The submissions which are not admitted are
+ * reported with a {@link RejectedSubmissionException} carrying the reason and
+ * the queue depth, which is thrown to the submitting thread and also passed
+ * to the listener registered with
+ * {@link AdmissionControl#onRejection(Consumer)}.
+ *
+ * @author Loganathan.S &lt;https://github.com/loganathan001&gt;
+ */
+public final class AdmissionControl {
+
+	/** The logger. */
+	private static final Logger logger = Logger.getLogger(AdmissionControl.class.getName());
+
+	/**
+	 * The time in nano seconds a submission parks for a permit, while there
+	 * is no queued submission to drop.
+	 */
+	private static final long DROP_OLDEST_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+	/**
+	 * The Policy to handle a submission when the queue is full.
+	 */
+	public enum Policy {
+
+		/** Reject the submission. */
+		REJECT,
+
+		/** Run the submission in the submitting thread. */
+		CALLER_RUNS,
+
+		/** Block the submitting thread until there is room or the timeout. */
+		BLOCK,
+
+		/**
+		 * Drop the oldest queued submission to make room, suitable for low
+		 * priority work. The dropped submission is cancelled.
+		 */
+		DROP_OLDEST
+	}
+
+	/** The policy. */
+	private final Policy policy;
+
+	/** The queue capacity. */
+	private final int queueCapacity;
+
+	/** The block timeout in nano seconds. */
+	private final long blockTimeoutNanos;
+
+	/** The permits for the queued submissions. */
+	private final Semaphore permits;
+
+	/** The queued submissions in the order of submission, used to drop the oldest. */
+	private final Deque<Admitted<?>> queued = new ConcurrentLinkedDeque<>();
+
+	/** The admitted count. */
+	private final LongAdder admittedCount = new LongAdder();
+
+	/** The caller runs count. */
+	private final LongAdder callerRunsCount = new LongAdder();
+
+	/** The rejected counts by reason. */
+	private final Map<Reason, LongAdder> rejectedCounts = new EnumMap<>(Reason.class);
+
+	/** The rejection listener. */
+	private volatile Consumer<? super RejectedSubmissionException> rejectionListener = e -> {
+	};
+
+	/**
+	 * Instantiates a new admission control.
+	 *
+	 * @param policy
+	 *            the policy
+	 * @param queueCapacity
+	 *            the queue capacity
+	 * @param blockTimeoutNanos
+	 *            the block timeout nanos
+	 */
+	private AdmissionControl(Policy policy, int queueCapacity, long blockTimeoutNanos) {
+		if (queueCapacity < 1) {
+			throw new IllegalArgumentException("Invalid queue capacity " + queueCapacity);
+		}
+		this.policy = policy;
+		this.queueCapacity = queueCapacity;
+		this.blockTimeoutNanos = blockTimeoutNanos;
+		this.permits = new Semaphore(queueCapacity);
+		for (Reason reason : Reason.values()) {
+			rejectedCounts.put(reason, new LongAdder());
+		}
+	}
+
+	/**
+	 * Gets an AdmissionControl which rejects the submissions when the queue is
+	 * full.
+	 *
+	 * @param queueCapacity
+	 *            the queue capacity
+	 * @return the admission control
+	 */
+	public static AdmissionControl reject(int queueCapacity) {
+		return new AdmissionControl(Policy.REJECT, queueCapacity, 0L);
+	}
+
+	/**
+	 * Gets an AdmissionControl which runs the submissions in the submitting
+	 * thread when the queue is full, which slows down the submitter.
+	 *
+	 * @param queueCapacity
+	 *            the queue capacity
+	 * @return the admission control
+	 */
+	public static AdmissionControl callerRuns(int queueCapacity) {
+		return new AdmissionControl(Policy.CALLER_RUNS, queueCapacity, 0L);
+	}
+
+	/**
+	 * Gets an AdmissionControl which blocks the submitting thread up to the
+	 * timeout when the queue is full, and rejects the submission if there is
+	 * still no room.
+	 *
+	 * @param queueCapacity
+	 *            the queue capacity
+	 * @param timeout
+	 *            the timeout
+	 * @param timeUnit
+	 *            the time unit
+	 * @return the admission control
+	 */
+	public static AdmissionControl block(int queueCapacity, long timeout, TimeUnit timeUnit) {
+		return new AdmissionControl(Policy.BLOCK, queueCapacity, timeUnit.toNanos(timeout));
+	}
+
+	/**
+	 * Gets an AdmissionControl which drops and cancels the oldest queued
+	 * submission when the queue is full, suitable for low priority work whose
+	 * latest submissions matter most.
+	 *
+	 * @param queueCapacity
+	 *            the queue capacity
+	 * @return the admission control
+	 */
+	public static AdmissionControl dropOldest(int queueCapacity) {
+		return new AdmissionControl(Policy.DROP_OLDEST, queueCapacity, 0L);
+	}
+
+	/**
+	 * Sets the listener to be notified of every rejected or dropped
+	 * submission.
+	 *
+	 * @param listener
+	 *            the listener
+	 * @return this admission control
+	 */
+	public AdmissionControl onRejection(Consumer<? super RejectedSubmissionException> listener) {
+		this.rejectionListener = listener;
+		return this;
+	}
+
+	/**
+	 * Submits the callable to the thread pool if admitted.
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param threadPool
+	 *            the thread pool
+	 * @param callable
+	 *            the callable
+	 * @return the future
+	 * @throws RejectedSubmissionException
+	 *             if the submission is not admitted
+	 */
+	<T> Future<T> submit(ExecutorService threadPool, Callable<T> callable) {
+		if (!admit()) {
+			callerRunsCount.increment();
+			FutureTask<T> task = new FutureTask<>(callable);
+			task.run();
+			return task;
+		}
+
+		Admitted<T> admitted = new Admitted<>(callable, null);
+		if (policy == Policy.DROP_OLDEST) {
+			queued.offerLast(admitted);
+		}
+		try {
+			admitted.future = threadPool.submit((Callable<T>) admitted);
+		} catch (RejectedExecutionException e) {
+			release(admitted);
+			throw e;
+		}
+		admittedCount.increment();
+		return admitted.future;
+	}
+
+	/**
+	 * Executes the runnable in the thread pool if admitted, so that an
+	 * exception thrown by it reaches the uncaught exception handler of the
+	 * thread pool.
+	 *
+	 * @param threadPool
+	 *            the thread pool
+	 * @param runnable
+	 *            the runnable
+	 * @throws RejectedSubmissionException
+	 *             if the submission is not admitted
+	 */
+	void execute(ExecutorService threadPool, Runnable runnable) {
+		if (!admit()) {
+			callerRunsCount.increment();
+			runnable.run();
+			return;
+		}
+
+		Admitted<Void> admitted = new Admitted<>(null, runnable);
+		if (policy == Policy.DROP_OLDEST) {
+			queued.offerLast(admitted);
+		}
+		try {
+			threadPool.execute(admitted);
+		} catch (RejectedExecutionException e) {
+			release(admitted);
+			throw e;
+		}
+		admittedCount.increment();
+	}
+
+	/**
+	 * Releases the permit of the submission rejected by the thread pool,
+	 * unless it is already dropped.
+	 *
+	 * @param admitted
+	 *            the admitted submission
+	 */
+	private void release(Admitted<?> admitted) {
+		if (admitted.claim()) {
+			queued.remove(admitted);
+			permits.release();
+		}
+	}
+
+	/**
+	 * Takes a permit for a submission based on the policy.
+	 *
+	 * @return true, if admitted to the queue, or false to run it in the
+	 *         submitting thread
+	 * @throws RejectedSubmissionException
+	 *             if the submission is not admitted
+	 */
+	private boolean admit() {
+		if (permits.tryAcquire()) {
+			return true;
+		}
+		switch (policy) {
+		case CALLER_RUNS:
+			return false;
+		case BLOCK:
+			try {
+				if (permits.tryAcquire(blockTimeoutNanos, TimeUnit.NANOSECONDS)) {
+					return true;
+				}
+				throw reject(Reason.TIMED_OUT);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw reject(Reason.INTERRUPTED);
+			}
+		case DROP_OLDEST:
+			try {
+				while (true) {
+					Admitted<?> oldest = queued.pollFirst();
+					if (oldest != null && oldest.claim()) {
+						// The permit of the dropped submission is handed over
+						oldest.cancel();
+						notifyRejection(reject(Reason.DROPPED_OLDEST));
+						return true;
+					}
+					// Parks until a permit is given back, unless a started one is just polled
+					if (oldest == null && permits.tryAcquire(DROP_OLDEST_PARK_NANOS, TimeUnit.NANOSECONDS)) {
+						return true;
+					}
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw reject(Reason.INTERRUPTED);
+			}
+		default:
+			throw reject(Reason.QUEUE_FULL);
+		}
+	}
+
+	/**
+	 * Records a rejection and notifies the listener.
+	 *
+	 * @param reason
+	 *            the reason
+	 * @return the rejected submission exception
+	 */
+	private RejectedSubmissionException reject(Reason reason) {
+		rejectedCounts.get(reason).increment();
+		RejectedSubmissionException exception = new RejectedSubmissionException(reason, getQueueDepth());
+		if (reason != Reason.DROPPED_OLDEST) {
+			notifyRejection(exception);
+		}
+		return exception;
+	}
+
+	/**
+	 * Notifies the rejection listener.
+	 *
+	 * @param exception
+	 *            the exception
+	 */
+	private void notifyRejection(RejectedSubmissionException exception) {
+		try {
+			rejectionListener.accept(exception);
+		} catch (RuntimeException e) {
+			logger.config(e.getClass().getSimpleName() + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * The Admitted submission, which gives back its permit when it is started
+	 * by the thread pool, unless it is dropped before that. It is either a
+	 * submitted callable or an executed runnable.
+	 *
+	 * @param <T>
+	 *            the generic type
+	 */
+	private final class Admitted<T> implements Callable<T>, Runnable {
+
+		/** The callable, or null if executed. */
+		private final Callable<T> callable;
+
+		/** The runnable, or null if submitted. */
+		private final Runnable runnable;
+
+		/** The flag claimed either by starting or by dropping. */
+		private final AtomicBoolean claimed = new AtomicBoolean();
+
+		/** The future. */
+		private volatile Future<T> future;
+
+		/**
+		 * Instantiates a new admitted.
+		 *
+		 * @param callable
+		 *            the callable, or null if executed
+		 * @param runnable
+		 *            the runnable, or null if submitted
+		 */
+		private Admitted(Callable<T> callable, Runnable runnable) {
+			this.callable = callable;
+			this.runnable = runnable;
+		}
+
+		/**
+		 * Claims the submission.
+		 *
+		 * @return true, if successful
+		 */
+		private boolean claim() {
+			return claimed.compareAndSet(false, true);
+		}
+
+		/**
+		 * Cancels the dropped submission.
+		 */
+		private void cancel() {
+			Future<T> submitted = future;
+			if (submitted != null) {
+				submitted.cancel(false);
+			}
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.util.concurrent.Callable#call()
+		 */
+		@Override
+		public T call() throws Exception {
+			if (!start()) {
+				throw new CancellationException("Dropped from the queue");
+			}
+			return callable.call();
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.lang.Runnable#run()
+		 */
+		@Override
+		public void run() {
+			if (start()) {
+				runnable.run();
+			}
+		}
+
+		/**
+		 * Starts the submission, giving back its permit, unless it is dropped.
+		 *
+		 * @return true, if started
+		 */
+		private boolean start() {
+			if (!claim()) {
+				return false;
+			}
+			permits.release();
+			// Clears the started submissions from the head of the queue
+			Admitted<?> head;
+			while ((head = queued.peekFirst()) != null && head.claimed.get()) {
+				queued.remove(head);
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Gets the policy.
+	 *
+	 * @return the policy
+	 */
+	public Policy getPolicy() {
+		return policy;
+	}
+
+	/**
+	 * Gets the queue capacity.
+	 *
+	 * @return the queue capacity
+	 */
+	public int getQueueCapacity() {
+		return queueCapacity;
+	}
+
+	/**
+	 * Gets the number of admitted submissions not yet started.
+	 *
+	 * @return the queue depth
+	 */
+	public int getQueueDepth() {
+		return queueCapacity - permits.availablePermits();
+	}
+
+	/**
+	 * Gets the number of submissions admitted to the queue so far.
+	 *
+	 * @return the admitted count
+	 */
+	public long getAdmittedCount() {
+		return admittedCount.sum();
+	}
+
+	/**
+	 * Gets the number of submissions run in the submitting thread so far.
+	 *
+	 * @return the caller runs count
+	 */
+	public long getCallerRunsCount() {
+		return callerRunsCount.sum();
+	}
+
+	/**
+	 * Gets the number of submissions rejected or dropped so far.
+	 *
+	 * @return the rejected count
+	 */
+	public long getRejectedCount() {
+		return rejectedCounts.values().stream().mapToLong(LongAdder::sum).sum();
+	}
+
+	/**
+	 * Gets the number of submissions rejected or dropped so far for the
+	 * reason.
+	 *
+	 * @param reason
+	 *            the reason
+	 * @return the rejected count
+	 */
+	public long getRejectedCount(Reason reason) {
+		return rejectedCounts.get(reason).sum();
+	}
+}
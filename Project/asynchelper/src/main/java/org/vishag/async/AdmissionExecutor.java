@@ -0,0 +1,82 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+
+ *   http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vishag.async;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * The AdmissionExecutor class, which is an {@link Executor} submitting the
+ * work to its thread pool through an {@link AdmissionControl}.
+ *
+ * @author Loganathan.S &lt;https://github.com/loganathan001&gt;
+ */
+class AdmissionExecutor extends Executor {
+
+	/** The admission control. */
+	private final AdmissionControl admissionControl;
+
+	/**
+	 * Instantiates a new admission executor.
+	 *
+	 * @param threadPool
+	 *            the thread pool
+	 * @param admissionControl
+	 *            the admission control
+	 */
+	AdmissionExecutor(ExecutorService threadPool, AdmissionControl admissionControl) {
+		super(threadPool);
+		this.admissionControl = admissionControl;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.vishag.async.Executor#canRunInline()
+	 */
+	@Override
+	protected boolean canRunInline() {
+		// The work runs only as per the admission control
+		return false;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.vishag.async.Executor#submit(java.util.concurrent.Callable,
+	 * java.lang.Object[])
+	 */
+	@Override
+	protected <T> Future<T> submit(Callable<T> callable, Object... keys) {
+		return admissionControl.submit(getThreadPoolForKeys(keys), callable);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.vishag.async.Executor#execute(java.lang.Runnable,
+	 * java.lang.Object[])
+	 */
+	@Override
+	protected void execute(Runnable runnable, Object... keys) {
+		admissionControl.execute(getThreadPoolForKeys(keys), runnable);
+	}
+}
@@ -20,13 +20,18 @@
 
 package org.vishag.async;
 
-import java.lang.reflect.Array;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
 
@@ -64,6 +69,14 @@ public class AsyncContext implements AutoCloseable{
 	/** The multiple accessed values. */
 	private final Map<ObjectsKey, Object> multipleAccessedValues = new ConcurrentHashMap<>();
 
+	/** The flag bus for the payloads published for the flags. */
+	private final FlagBus flagBus = new FlagBus();
+
+	/** The hierarchical flag names being waited for. */
+	private final FlagTrie flagTrie = new FlagTrie();
+
+	/** The retained results of the schedules running until a flag. */
+	private final Map<ObjectsKey, ResultRing<?>> retainedResults = new ConcurrentHashMap<>();
 	
 	/** The closed flag. */
 	private volatile boolean closed;
@@ -113,6 +126,51 @@ public class AsyncContext implements AutoCloseable{
 		}
 	}
 
+	/**
+	 * Safe get which waits for the task up to the timeout, and cancels it if
+	 * not completed by then.
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param task
+	 *            the task
+	 * @param timeout
+	 *            the timeout
+	 * @param timeUnit
+	 *            the time unit
+	 * @return the optional, which is empty if timed out
+	 */
+	<T> Optional<T> safeGet(Future<T> task, long timeout, TimeUnit timeUnit) {
+		try {
+			return Optional.ofNullable(task.get(timeout, timeUnit));
+		} catch (TimeoutException e) {
+			task.cancel(true);
+			return Optional.empty();
+		} catch (InterruptedException | ExecutionException | CancellationException e) {
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 * Safe call which invokes the callable in the current thread.
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param callable
+	 *            the callable
+	 * @return the optional, which is empty if the callable failed
+	 */
+	<T> Optional<T> safeCall(Callable<T> callable) {
+		try {
+			return Optional.ofNullable(callable.call());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return Optional.empty();
+		} catch (Exception e) {
+			return Optional.empty();
+		}
+	}
+
 	/**
 	 * Safe supplier.
 	 *
@@ -132,6 +190,29 @@ public class AsyncContext implements AutoCloseable{
 		};
 	}
 
+	/**
+	 * Safe supplier which waits for the task through the executor it is
+	 * submitted to, so that the wait does not starve its thread pool.
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param task
+	 *            the task
+	 * @param executor
+	 *            the executor
+	 * @return the supplier
+	 * @see Executor#await(Future)
+	 */
+	static <T> Supplier<T> safeSupplier(Future<T> task, Executor executor) {
+		return () -> {
+			try {
+				return executor.await(task);
+			} catch (InterruptedException | ExecutionException | CancellationException e) {
+			}
+			return null;
+		};
+	}
+
 	/**
 	 * Store supplier.
 	 *
@@ -195,26 +276,16 @@ public class AsyncContext implements AutoCloseable{
 		return Optional.empty();
 	}
 
-	/**
-	 * Array of times.
-	 *
-	 * @param <T>
-	 *            the generic type
-	 * @param t
-	 *            the t
-	 * @param times
-	 *            the times
-	 * @return the t[]
-	 */
-	@SuppressWarnings("unchecked")
-	protected static <T> T[] arrayOfTimes(T t, int times) {
-		return Stream.generate(() -> t).limit(times).toArray(size -> (T[]) Array.newInstance(t.getClass(), size));
-	}
-
 	/**
 	 * Waits for flag, until the flag is notified by either
 	 * {@link AsyncContext#notifyFlag(String...)} or
-	 * {@link AsyncContext#notifyAllFlag(String...)} in another thread.
+	 * {@link AsyncContext#notifyAllFlag(String...)} in another thread. <br>
+	 * A flag made of a single hierarchical name such as
+	 * <code>"tenant-7/orders/poll"</code> is also notified by
+	 * {@link AsyncContext#notifyAllFlag(String...)} with any of its ancestor
+	 * names, such as <code>"tenant-7"</code>. <br>
+	 * If the waiting thread is interrupted and no other thread waits for the
+	 * flag, the flag is forgotten.
 	 *
 	 * @param flag
 	 *            the flag
@@ -223,24 +294,71 @@ public class AsyncContext implements AutoCloseable{
 	 */
 	public void waitForFlag(String... flag) throws InterruptedException {
 		ObjectsKey key = ObjectsKey.of((Object[]) flag);
-		ObjectsKey originalKey = getOriginalKeys().get(key);
+		ObjectsKey originalKey = getOriginalKeys().putIfAbsent(key, key);
 		if (originalKey == null) {
 			originalKey = key;
-			getOriginalKeys().put(key, originalKey);
+		}
+		if (flag.length == 1) {
+			flagTrie.add(flag[0]);
 		}
 		synchronized (originalKey) {
-			originalKey.wait();
+			originalKey.addWaiter();
+			try {
+				originalKey.wait();
+			} catch (InterruptedException e) {
+				if (originalKey.removeWaiter() == 0) {
+					forgetFlag(key, originalKey, flag);
+				}
+				throw e;
+			}
+			originalKey.removeWaiter();
+		}
+	}
+
+	/**
+	 * Forgets the flag no thread waits for any more, unless it is already
+	 * notified.
+	 *
+	 * @param key
+	 *            the key
+	 * @param originalKey
+	 *            the original key waited on
+	 * @param flag
+	 *            the flag
+	 */
+	private void forgetFlag(ObjectsKey key, ObjectsKey originalKey, String... flag) {
+		boolean[] removed = new boolean[1];
+		getOriginalKeys().computeIfPresent(key, (k, v) -> {
+			removed[0] = v == originalKey;
+			return removed[0] ? null : v;
+		});
+		if (removed[0]) {
+			if (flag.length == 1) {
+				flagTrie.remove(flag[0]);
+			}
+			originalKey.close();
 		}
 	}
 
 	/**
 	 * Notify all threads which are waiting for a flag with the invocation of
-	 * {@link AsyncContext#waitForFlag(String...)}
+	 * {@link AsyncContext#waitForFlag(String...)}. <br>
+	 * If the flag is a single name, all threads waiting for the hierarchical
+	 * flag names under it (separated by <code>"/"</code>) are also notified,
+	 * for example <code>notifyAllFlag("tenant-7")</code> notifies the threads
+	 * waiting for <code>"tenant-7/orders"</code> and
+	 * <code>"tenant-7/orders/poll"</code>. The cost of this depends only on the
+	 * number of flags under the name being waited for.
 	 *
 	 * @param flag
 	 *            the flag
 	 */
 	public void notifyAllFlag(String... flag) {
+		if (flag.length == 1) {
+			for (String flagUnder : flagTrie.removeUnder(flag[0])) {
+				this.notify(true, flagUnder);
+			}
+		}
 		this.notify(true, flag);
 	}
 
@@ -255,6 +373,107 @@ public class AsyncContext implements AutoCloseable{
 		notify(false, flag);
 	}
 
+	/**
+	 * Publishes a payload for a flag. The payload is delivered to all the
+	 * subscriptions made for the flag using
+	 * {@link AsyncContext#subscribe(Class, Consumer, String...)} or
+	 * {@link AsyncContext#subscribe(Class, Consumer, int, String...)} whose type
+	 * accepts the payload, and then all threads waiting for the flag with the
+	 * invocation of {@link AsyncContext#waitForFlag(String...)} are notified.
+	 * Only the waiters of the exact flag are notified, not the waiters of the
+	 * hierarchical flags under it, unlike
+	 * {@link AsyncContext#notifyAllFlag(String...)}. <br>
+	 * The delivery does not take any lock, so the payloads can be published
+	 * for the same flag from multiple threads concurrently.
+	 *
+	 * @param payload
+	 *            the payload
+	 * @param flag
+	 *            the flag
+	 * @return the number of subscriptions which accepted the payload
+	 */
+	public int publish(Object payload, String... flag) {
+		assertNotClosed();
+		int accepted = flagBus.publish(payload, flag);
+		notify(true, flag);
+		return accepted;
+	}
+
+	/**
+	 * Subscribes to the payloads published for a flag using
+	 * {@link AsyncContext#publish(Object, String...)}. The consumer is invoked
+	 * directly in the publishing thread for each payload of the given type.
+	 * The returned subscription should be closed to unsubscribe.
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param clazz
+	 *            the type of the payloads to be received
+	 * @param consumer
+	 *            the consumer of the payloads
+	 * @param flag
+	 *            the flag
+	 * @return the flag subscription
+	 */
+	public <T> FlagSubscription<T> subscribe(Class<T> clazz, Consumer<? super T> consumer, String... flag) {
+		return subscribe(clazz, consumer, 0, flag);
+	}
+
+	/**
+	 * Subscribes to the payloads published for a flag using
+	 * {@link AsyncContext#publish(Object, String...)} with a bounded queue. Up
+	 * to <code>queueCapacity</code> payloads are buffered for the subscription
+	 * and the consumer is invoked sequentially for them in a thread of the
+	 * default executor. The payloads published while the queue is full are
+	 * dropped for this subscription. If the <code>queueCapacity</code> is
+	 * <code>0</code> the consumer is invoked directly in the publishing thread.
+	 * The returned subscription should be closed to unsubscribe.
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param clazz
+	 *            the type of the payloads to be received
+	 * @param consumer
+	 *            the consumer of the payloads
+	 * @param queueCapacity
+	 *            the queue capacity
+	 * @param flag
+	 *            the flag
+	 * @return the flag subscription
+	 */
+	public <T> FlagSubscription<T> subscribe(Class<T> clazz, Consumer<? super T> consumer, int queueCapacity,
+			String... flag) {
+		return subscribe(clazz, consumer, queueCapacity, Executor.getDefault().getThreadPool(), flag);
+	}
+
+	/**
+	 * Subscribes to the payloads published for a flag using
+	 * {@link AsyncContext#publish(Object, String...)} with a bounded queue, as
+	 * {@link AsyncContext#subscribe(Class, Consumer, int, String...)} does, but
+	 * the consumer is invoked for the queued payloads in a thread of the given
+	 * executor service, such as the one of the {@link AsyncSupplier} or
+	 * {@link AsyncTask} using this context.
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param clazz
+	 *            the type of the payloads to be received
+	 * @param consumer
+	 *            the consumer of the payloads
+	 * @param queueCapacity
+	 *            the queue capacity
+	 * @param executorService
+	 *            the executor service delivering the queued payloads
+	 * @param flag
+	 *            the flag
+	 * @return the flag subscription
+	 */
+	public <T> FlagSubscription<T> subscribe(Class<T> clazz, Consumer<? super T> consumer, int queueCapacity,
+			ExecutorService executorService, String... flag) {
+		assertNotClosed();
+		return flagBus.subscribe(clazz, consumer, queueCapacity, executorService, flag);
+	}
+
 	/**
 	 * Notify.
 	 *
@@ -264,6 +483,9 @@ public class AsyncContext implements AutoCloseable{
 	 *            the flag
 	 */
 	private void notify(boolean all, String... flag) {
+		if (flag.length == 1) {
+			flagTrie.remove(flag[0]);
+		}
 		ObjectsKey key = ObjectsKey.of((Object[]) flag);
 		ObjectsKey originalKey = getOriginalKeys().get(key);
 		if (originalKey != null) {
@@ -288,6 +510,10 @@ public class AsyncContext implements AutoCloseable{
 	 * {@link SchedulingSupplier#scheduleSupplierUntilFlag(int, int, TimeUnit, boolean, String, Supplier)}
 	 * with the flag passed, and obtains the Stream of results of the type
 	 * passed. <br>
+	 * If the Supplier(s) are scheduled with a retention using
+	 * {@link SchedulingSupplier#scheduleSuppliersUntilFlag(int, int, TimeUnit, boolean, String, int, Supplier...)},
+	 * the retained results not yet drained are obtained, once the schedule is
+	 * done with its last run. <br>
 	 * If no Supplier is scheduled for the flag, returns an empty stream.
 	 * 
 	 * @param <T>
@@ -299,7 +525,17 @@ public class AsyncContext implements AutoCloseable{
 	 * @return the list
 	 */
 	public <T> Stream<T> notifyAndGetForFlag(Class<T> clazz, String... flag) {
+		ResultRing<?> ring = retainedResults.get(ObjectsKey.of((Object[]) flag));
 		this.notifyFlag(flag);
+		if (ring != null) {
+			// The runs in flight when notified append to the ring until the schedule is done
+			try {
+				ring.awaitDone();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return ring.drain().stream().map(clazz::cast);
+		}
 		Stream.Builder<T> builder = Stream.builder();
 		int count = 0;
 		Object[] indexedKey = getIndexedKey(count, (Object[]) flag);
@@ -311,6 +547,63 @@ public class AsyncContext implements AutoCloseable{
 		return builder.build();
 	}
 
+	/**
+	 * Drains the results retained so far by the Supplier(s) scheduled with a
+	 * retention using
+	 * {@link SchedulingSupplier#scheduleSuppliersUntilFlag(int, int, TimeUnit, boolean, String, int, Supplier...)}
+	 * with the flag passed, without notifying the flag. Only the results not
+	 * yet drained, and still retained, are obtained. <br>
+	 * If no Supplier is scheduled with a retention for the flag, returns an
+	 * empty stream.
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param clazz
+	 *            the clazz
+	 * @param flag
+	 *            the flag
+	 * @return the stream of results
+	 */
+	public <T> Stream<T> drainRetainedResults(Class<T> clazz, String... flag) {
+		ResultRing<?> ring = retainedResults.get(ObjectsKey.of((Object[]) flag));
+		if (ring == null) {
+			return Stream.empty();
+		}
+		return ring.drain().stream().map(clazz::cast);
+	}
+
+	/**
+	 * Retains the results of a schedule running until the flag in the ring,
+	 * until the schedule is done.
+	 *
+	 * @param ring
+	 *            the ring
+	 * @param flag
+	 *            the flag
+	 * @throws IllegalStateException
+	 *             if the results of another schedule are already retained for
+	 *             the flag
+	 */
+	void retainResults(ResultRing<?> ring, String... flag) {
+		if (retainedResults.putIfAbsent(ObjectsKey.of((Object[]) flag), ring) != null) {
+			throw new IllegalStateException("Results are already retained for the flag " + Arrays.toString(flag));
+		}
+	}
+
+	/**
+	 * Releases the ring retaining the results of a schedule running until the
+	 * flag, once the schedule is done.
+	 *
+	 * @param ring
+	 *            the ring
+	 * @param flag
+	 *            the flag
+	 */
+	void releaseResults(ResultRing<?> ring, String... flag) {
+		retainedResults.remove(ObjectsKey.of((Object[]) flag), ring);
+		ring.markDone();
+	}
+
 	/**
 	 * Waits and gets the result from a supplier submitted asynchronously
 	 * (using
@@ -416,6 +709,9 @@ public class AsyncContext implements AutoCloseable{
 			originalKeys.clear();
 			multipleAccessedKeys.clear();
 			multipleAccessedValues.clear();
+			flagBus.clear();
+			flagTrie.clear();
+			retainedResults.clear();
 			closed = true;
 		}
 	}
@@ -0,0 +1,540 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+
+ *   http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vishag.async;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * The AsyncScope class, which owns the suppliers and tasks forked inside it,
+ * so that they share a lifetime. The work is run by the executor of the
+ * {@link AsyncSupplier} the scope is opened with, and the keyed work is
+ * stored in its {@link AsyncContext}. <br>
+ * <br>
+ * A scope is opened with one of the policies:
+ * <ul>
+ * <li>{@link AsyncScope#shutdownOnFailure()}: the scope is shut down as soon
+ * as any forked work fails, so that the siblings are cancelled. Use
+ * {@link AsyncScope#throwIfFailed()} after joining.</li>
+ * <li>{@link AsyncScope#shutdownOnSuccess()}: the scope is shut down as soon
+ * as any forked work succeeds, so that the rest are cancelled. Use
+ * {@link AsyncScope#getResult(Class)} after joining.</li>
+ * </ul>
+ * Shutting down cancels all the outstanding work and interrupts the running
+ * one. Closing the scope also shuts it down and drops all the keys of the
+ * work forked in it from the async context. For example:
+ * 
+ * <pre>
+ * try (AsyncScope scope = AsyncScope.shutdownOnFailure()) {
+ * 	Supplier&lt;User&gt; user = scope.fork(() -&gt; findUser(id));
+ * 	Supplier&lt;Order&gt; order = scope.fork(() -&gt; fetchOrder(id));
+ * 	scope.join(2, TimeUnit.SECONDS);
+ * 	scope.throwIfFailed();
+ * 	return new Response(user.get(), order.get());
+ * }
+ * </pre>
+ *
+ * @author Loganathan.S &lt;https://github.com/loganathan001&gt;
+ */
+public final class AsyncScope implements AutoCloseable {
+
+	/** The logger. */
+	private static final Logger logger = Logger.getLogger(AsyncScope.class.getName());
+
+	/** The executor. */
+	private final Executor executor;
+
+	/** The async context. */
+	private final AsyncContext asyncContext;
+
+	/** The flag to shut down on first failure, or else on first success. */
+	private final boolean shutdownOnFailure;
+
+	/** The forks. */
+	private final List<Fork<?>> forks = new CopyOnWriteArrayList<>();
+
+	/** The keys of the forks. */
+	private final List<ObjectsKey> keys = new CopyOnWriteArrayList<>();
+
+	/** The first failure. */
+	private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+	/** The first result, wrapped in an array to allow null. */
+	private final AtomicReference<Object[]> result = new AtomicReference<>();
+
+	/** The shutdown flag. */
+	private volatile boolean shutdown;
+
+	/** The closed flag. */
+	private volatile boolean closed;
+
+	/**
+	 * Instantiates a new async scope.
+	 *
+	 * @param asyncSupplier
+	 *            the async supplier
+	 * @param shutdownOnFailure
+	 *            the shutdown on failure
+	 */
+	private AsyncScope(AsyncSupplier asyncSupplier, boolean shutdownOnFailure) {
+		this.executor = asyncSupplier.getExecutor();
+		this.asyncContext = asyncSupplier.getAsyncContext();
+		this.shutdownOnFailure = shutdownOnFailure;
+	}
+
+	/**
+	 * Opens a new AsyncScope running the work with the default AsyncSupplier,
+	 * which is shut down on the first failure.
+	 *
+	 * @return the async scope
+	 */
+	public static AsyncScope shutdownOnFailure() {
+		return shutdownOnFailure(AsyncSupplier.getDefault());
+	}
+
+	/**
+	 * Opens a new AsyncScope running the work with the given AsyncSupplier,
+	 * which is shut down on the first failure.
+	 *
+	 * @param asyncSupplier
+	 *            the async supplier
+	 * @return the async scope
+	 */
+	public static AsyncScope shutdownOnFailure(AsyncSupplier asyncSupplier) {
+		return new AsyncScope(asyncSupplier, true);
+	}
+
+	/**
+	 * Opens a new AsyncScope running the work with the default AsyncSupplier,
+	 * which is shut down on the first success.
+	 *
+	 * @return the async scope
+	 */
+	public static AsyncScope shutdownOnSuccess() {
+		return shutdownOnSuccess(AsyncSupplier.getDefault());
+	}
+
+	/**
+	 * Opens a new AsyncScope running the work with the given AsyncSupplier,
+	 * which is shut down on the first success.
+	 *
+	 * @param asyncSupplier
+	 *            the async supplier
+	 * @return the async scope
+	 */
+	public static AsyncScope shutdownOnSuccess(AsyncSupplier asyncSupplier) {
+		return new AsyncScope(asyncSupplier, false);
+	}
+
+	/**
+	 * Forks a supplier in the scope and gets a result Supplier handle, which
+	 * gives null if the supplier failed or is cancelled.
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param supplier
+	 *            the supplier
+	 * @return the supplier
+	 */
+	public <T> Supplier<T> fork(Supplier<T> supplier) {
+		return AsyncContext.safeSupplier(doFork(supplier::get), executor);
+	}
+
+	/**
+	 * Forks a supplier in the scope marked by the keys, whose result can be
+	 * obtained with {@link AsyncSupplier#waitAndGetFromSupplier(Class, Object...)}
+	 * of the AsyncSupplier of the scope until the scope is closed.
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param supplier
+	 *            the supplier
+	 * @param keys
+	 *            the keys
+	 * @return true, if successful, or false if a supplier is already submitted
+	 *         with the keys
+	 */
+	public <T> boolean fork(Supplier<T> supplier, Object... keys) {
+		ObjectsKey key = ObjectsKey.of(keys);
+		if (asyncContext.getFutureSuppliers().containsKey(key)) {
+			return false;
+		}
+		Future<T> future = doFork(supplier::get, keys);
+		if (asyncContext.storeSupplier(key, AsyncContext.safeSupplier(future, executor), true)) {
+			this.keys.add(key);
+			return true;
+		}
+		future.cancel(true);
+		return false;
+	}
+
+	/**
+	 * Forks tasks in the scope.
+	 *
+	 * @param runnables
+	 *            the runnables
+	 */
+	public void forkTasks(Runnable... runnables) {
+		for (Runnable runnable : runnables) {
+			doFork(() -> {
+				runnable.run();
+				return null;
+			});
+		}
+	}
+
+	/**
+	 * Forks the callable in the scope.
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param callable
+	 *            the callable
+	 * @param keys
+	 *            the keys
+	 * @return the future
+	 */
+	private <T> Future<T> doFork(Callable<T> callable, Object... keys) {
+		assertNotClosed();
+		Fork<T> fork = new Fork<>(callable);
+		if (shutdown) {
+			fork.future = new CancelledFuture<>();
+			return fork.future;
+		}
+		fork.future = executor.submit(fork, keys);
+		// Added once its future is set, as it may be joined right away
+		forks.add(fork);
+		if (shutdown) {
+			fork.cancel();
+		}
+		return fork.future;
+	}
+
+	/**
+	 * Waits until all the work forked in the scope completes, or the scope is
+	 * shut down. The work forked while joining, such as by the forked work
+	 * itself, is also waited for.
+	 *
+	 * @throws InterruptedException
+	 *             the interrupted exception
+	 */
+	public void join() throws InterruptedException {
+		for (int joined = 0; joined < forks.size();) {
+			List<Fork<?>> joining = getForksAfter(joined);
+			for (Fork<?> fork : joining) {
+				try {
+					executor.await(fork.future);
+				} catch (ExecutionException | CancellationException e) {
+					logger.config(e.getClass().getSimpleName() + ": " + e.getMessage());
+				}
+			}
+			joined += joining.size();
+		}
+	}
+
+	/**
+	 * Waits until all the work forked in the scope completes, or the scope is
+	 * shut down, or the deadline of the timeout passes in which case the scope
+	 * is shut down.
+	 *
+	 * @param timeout
+	 *            the timeout
+	 * @param timeUnit
+	 *            the time unit
+	 * @return true, if all the work completed or the scope is shut down by its
+	 *         policy, or false if the deadline passed
+	 * @throws InterruptedException
+	 *             the interrupted exception
+	 */
+	public boolean join(long timeout, TimeUnit timeUnit) throws InterruptedException {
+		long deadline = System.nanoTime() + timeUnit.toNanos(timeout);
+		for (int joined = 0; joined < forks.size();) {
+			List<Fork<?>> joining = getForksAfter(joined);
+			for (Fork<?> fork : joining) {
+				try {
+					executor.await(fork.future, Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+				} catch (TimeoutException e) {
+					shutdown();
+					return false;
+				} catch (ExecutionException | CancellationException e) {
+					logger.config(e.getClass().getSimpleName() + ": " + e.getMessage());
+				}
+			}
+			joined += joining.size();
+		}
+		return true;
+	}
+
+	/**
+	 * Gets the forks after the given number of forks already joined.
+	 *
+	 * @param joined
+	 *            the number of forks joined
+	 * @return the forks
+	 */
+	private List<Fork<?>> getForksAfter(int joined) {
+		List<Fork<?>> snapshot = new ArrayList<>(forks);
+		return joined < snapshot.size() ? snapshot.subList(joined, snapshot.size()) : Collections.emptyList();
+	}
+
+	/**
+	 * Throws the first failure of the work forked in the scope, if any.
+	 *
+	 * @throws ExecutionException
+	 *             the execution exception with the first failure as the cause
+	 */
+	public void throwIfFailed() throws ExecutionException {
+		Throwable throwable = failure.get();
+		if (throwable != null) {
+			throw new ExecutionException(throwable);
+		}
+	}
+
+	/**
+	 * Gets the first failure of the work forked in the scope.
+	 *
+	 * @return the failure
+	 */
+	public Optional<Throwable> getFailure() {
+		return Optional.ofNullable(failure.get());
+	}
+
+	/**
+	 * Gets the result of the first successful work forked in the scope, if it
+	 * is of the given type.
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param clazz
+	 *            the clazz
+	 * @return the result
+	 */
+	public <T> Optional<T> getResult(Class<T> clazz) {
+		Object[] holder = result.get();
+		if (holder != null && clazz.isInstance(holder[0])) {
+			return Optional.of(clazz.cast(holder[0]));
+		}
+		return Optional.empty();
+	}
+
+	/**
+	 * Shuts down the scope, cancelling all the outstanding work and
+	 * interrupting the running one. The work forked after this is not run.
+	 */
+	public void shutdown() {
+		if (!shutdown) {
+			shutdown = true;
+			forks.forEach(Fork::cancel);
+		}
+	}
+
+	/**
+	 * Checks if the scope is shut down.
+	 *
+	 * @return true, if is shutdown
+	 */
+	public boolean isShutdown() {
+		return shutdown;
+	}
+
+	/**
+	 * Assert not closed.
+	 */
+	private void assertNotClosed() {
+		if (closed) {
+			throw new IllegalStateException("Already closed");
+		}
+	}
+
+	/**
+	 * Closes the scope, which shuts it down and drops the keys of the work
+	 * forked in it from the async context.
+	 */
+	@Override
+	public synchronized void close() {
+		if (!closed) {
+			shutdown();
+			for (ObjectsKey key : keys) {
+				asyncContext.getFutureSuppliers().remove(key);
+				asyncContext.getMultipleAccessedKeys().remove(key);
+				asyncContext.getMultipleAccessedValues().remove(key);
+				asyncContext.getOriginalKeys().remove(key);
+			}
+			keys.clear();
+			forks.clear();
+			closed = true;
+		}
+	}
+
+	/**
+	 * The Fork of work in the scope, which reports its outcome to the scope and
+	 * can be interrupted on shut down whichever thread pool runs it.
+	 *
+	 * @param <T>
+	 *            the generic type
+	 */
+	private final class Fork<T> implements Callable<T> {
+
+		/** The callable. */
+		private final Callable<T> callable;
+
+		/** The future. */
+		private volatile Future<T> future;
+
+		/** The thread running the callable. */
+		private Thread runner;
+
+		/** The flag set if the runner is interrupted by the scope. */
+		private boolean interrupted;
+
+		/**
+		 * Instantiates a new fork.
+		 *
+		 * @param callable
+		 *            the callable
+		 */
+		private Fork(Callable<T> callable) {
+			this.callable = callable;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.util.concurrent.Callable#call()
+		 */
+		@Override
+		public T call() throws Exception {
+			synchronized (this) {
+				if (shutdown) {
+					throw new CancellationException("Scope is shut down");
+				}
+				runner = Thread.currentThread();
+			}
+			try {
+				T value = callable.call();
+				if (!shutdownOnFailure && result.compareAndSet(null, new Object[] { value })) {
+					shutdown();
+				}
+				return value;
+			} catch (Exception | Error e) {
+				if (!shutdown && failure.compareAndSet(null, e) && shutdownOnFailure) {
+					shutdown();
+				}
+				throw e;
+			} finally {
+				synchronized (this) {
+					runner = null;
+					if (interrupted) {
+						// Clears the interrupt of the scope from the pool thread
+						Thread.interrupted();
+					}
+				}
+			}
+		}
+
+		/**
+		 * Cancels the fork, interrupting it if running.
+		 */
+		private void cancel() {
+			Future<T> submitted = future;
+			if (submitted != null) {
+				submitted.cancel(true);
+			}
+			synchronized (this) {
+				if (runner != null && runner != Thread.currentThread()) {
+					interrupted = true;
+					runner.interrupt();
+				}
+			}
+		}
+	}
+
+	/**
+	 * The CancelledFuture of the work forked after the scope is shut down.
+	 *
+	 * @param <T>
+	 *            the generic type
+	 */
+	private static final class CancelledFuture<T> implements Future<T> {
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.util.concurrent.Future#cancel(boolean)
+		 */
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			return false;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.util.concurrent.Future#isCancelled()
+		 */
+		@Override
+		public boolean isCancelled() {
+			return true;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.util.concurrent.Future#isDone()
+		 */
+		@Override
+		public boolean isDone() {
+			return true;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.util.concurrent.Future#get()
+		 */
+		@Override
+		public T get() {
+			throw new CancellationException("Scope is shut down");
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.util.concurrent.Future#get(long,
+		 * java.util.concurrent.TimeUnit)
+		 */
+		@Override
+		public T get(long timeout, TimeUnit unit) {
+			throw new CancellationException("Scope is shut down");
+		}
+	}
+}
@@ -23,6 +23,7 @@ import java.util.Optional;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
 
@@ -95,6 +96,170 @@ public final class AsyncSupplier implements AutoCloseable{
 		return new AsyncSupplier(Executor.ofExecutorService(executorService), context);
 	}
 
+	/**
+	 * Get a new AsyncSupplier instance made of the given executor service, which
+	 * admits the suppliers to its queue through the given admission control. See
+	 * {@link AdmissionControl}.
+	 *
+	 * @param executorService
+	 *            the executor service
+	 * @param admissionControl
+	 *            the admission control
+	 * @return the async supplier
+	 */
+	public static AsyncSupplier of(ExecutorService executorService, AdmissionControl admissionControl) {
+		return of(executorService, admissionControl, AsyncContext.getDefault());
+	}
+
+	/**
+	 * Get a new AsyncSupplier instance made of the given executor service and async
+	 * context, which admits the suppliers to its queue through the given
+	 * admission control. See {@link AdmissionControl}.
+	 *
+	 * @param executorService
+	 *            the executor service
+	 * @param admissionControl
+	 *            the admission control
+	 * @param context
+	 *            the context
+	 * @return the async supplier
+	 */
+	public static AsyncSupplier of(ExecutorService executorService, AdmissionControl admissionControl,
+			AsyncContext context) {
+		return new AsyncSupplier(new AdmissionExecutor(executorService, admissionControl), context);
+	}
+
+	/**
+	 * Get a new AsyncSupplier instance made of the given executor service, which
+	 * runs the suppliers submitted with keys serially in the order of
+	 * submission per shard, chosen by the hash of their keys. So the suppliers
+	 * with the same keys never run concurrently and need no locking between
+	 * them, while the suppliers of different shards run in parallel. The suppliers
+	 * without keys run directly in the executor service.<br>
+	 * <br>
+	 * Note: If a supplier waits for another supplier of its own shard which has not
+	 * started yet, the awaited supplier is run inline by the waiting supplier, out
+	 * of the order of submission.
+	 *
+	 * @param executorService
+	 *            the executor service
+	 * @param shardCount
+	 *            the shard count
+	 * @return the async supplier
+	 */
+	public static AsyncSupplier ofSharded(ExecutorService executorService, int shardCount) {
+		return ofSharded(executorService, shardCount, AsyncContext.getDefault());
+	}
+
+	/**
+	 * Get a new AsyncSupplier instance made of the given executor service and async
+	 * context, which runs the suppliers submitted with keys serially per shard.
+	 * See {@link AsyncSupplier#ofSharded(ExecutorService, int)}.
+	 *
+	 * @param executorService
+	 *            the executor service
+	 * @param shardCount
+	 *            the shard count
+	 * @param context
+	 *            the context
+	 * @return the async supplier
+	 */
+	public static AsyncSupplier ofSharded(ExecutorService executorService, int shardCount, AsyncContext context) {
+		return new AsyncSupplier(new ShardedExecutor(executorService, shardCount, false), context);
+	}
+
+	/**
+	 * Get a new AsyncSupplier instance made of the given executor service, which
+	 * runs the suppliers submitted with keys serially in the order of
+	 * submission per shard, chosen by the hash of their first key, called the
+	 * key tag. So the suppliers with the same first key never run concurrently,
+	 * whatever their other keys are. See
+	 * {@link AsyncSupplier#ofSharded(ExecutorService, int)}.
+	 *
+	 * @param executorService
+	 *            the executor service
+	 * @param shardCount
+	 *            the shard count
+	 * @return the async supplier
+	 */
+	public static AsyncSupplier ofShardedByKeyTag(ExecutorService executorService, int shardCount) {
+		return ofShardedByKeyTag(executorService, shardCount, AsyncContext.getDefault());
+	}
+
+	/**
+	 * Get a new AsyncSupplier instance made of the given executor service and async
+	 * context, which runs the suppliers submitted with keys serially per shard
+	 * chosen by their first key. See
+	 * {@link AsyncSupplier#ofShardedByKeyTag(ExecutorService, int)}.
+	 *
+	 * @param executorService
+	 *            the executor service
+	 * @param shardCount
+	 *            the shard count
+	 * @param context
+	 *            the context
+	 * @return the async supplier
+	 */
+	public static AsyncSupplier ofShardedByKeyTag(ExecutorService executorService, int shardCount,
+			AsyncContext context) {
+		return new AsyncSupplier(new ShardedExecutor(executorService, shardCount, true), context);
+	}
+
+	/**
+	 * Get a new AsyncSupplier instance which routes the suppliers submitted with keys
+	 * to the bulkheads by their first key. See {@link Bulkheads}.
+	 *
+	 * @param bulkheads
+	 *            the bulkheads
+	 * @return the async supplier
+	 */
+	public static AsyncSupplier of(Bulkheads bulkheads) {
+		return of(bulkheads, AsyncContext.getDefault());
+	}
+
+	/**
+	 * Get a new AsyncSupplier instance with the given async context, which routes
+	 * the suppliers submitted with keys to the bulkheads by their first key. See
+	 * {@link Bulkheads}.
+	 *
+	 * @param bulkheads
+	 *            the bulkheads
+	 * @param context
+	 *            the context
+	 * @return the async supplier
+	 */
+	public static AsyncSupplier of(Bulkheads bulkheads, AsyncContext context) {
+		return new AsyncSupplier(new BulkheadExecutor(bulkheads), context);
+	}
+
+	/**
+	 * Get a new AsyncSupplier instance which invokes each supplier in a new
+	 * virtual thread, so that the suppliers blocking on I/O do not hold any
+	 * platform thread. This is suitable for large number of concurrent blocking
+	 * suppliers.<br>
+	 * <br>
+	 * Note: Virtual threads are used on JDK 21 or later. On older versions this
+	 * falls back to a cached thread pool of platform threads.
+	 *
+	 * @return the async supplier
+	 */
+	public static AsyncSupplier ofVirtualThreads() {
+		return ofVirtualThreads(AsyncContext.getDefault());
+	}
+
+	/**
+	 * Get a new AsyncSupplier instance with the given async context, which
+	 * invokes each supplier in a new virtual thread. See
+	 * {@link AsyncSupplier#ofVirtualThreads()}.
+	 *
+	 * @param context
+	 *            the context
+	 * @return the async supplier
+	 */
+	public static AsyncSupplier ofVirtualThreads(AsyncContext context) {
+		return new AsyncSupplier(Executor.ofVirtualThreads(), context);
+	}
+
 	/**
 	 * Submits a supplier to be invoke asynchronously and gets a result Supplier
 	 * handle. The result of the supplier can be obtained by calling the
@@ -109,7 +274,7 @@ public final class AsyncSupplier implements AutoCloseable{
 	 * @return the supplier
 	 */
 	public <T> Supplier<T> submitSupplier(Supplier<T> supplier) {
-		return AsyncContext.safeSupplier(getThreadPool().submit(() -> supplier.get()));
+		return AsyncContext.safeSupplier(getExecutor().submit(() -> supplier.get()), executor);
 	}
 
 	/**
@@ -407,20 +572,21 @@ public final class AsyncSupplier implements AutoCloseable{
 		ObjectsKey key = ObjectsKey.of(keys);
 		AsyncContext async = getAsyncContext();
 		if (!async.getFutureSuppliers().containsKey(key)) {
-			Supplier<T> safeSupplier = AsyncContext.safeSupplier(getThreadPool().submit(() -> supplier.get()));
+			Supplier<T> safeSupplier = AsyncContext.safeSupplier(getExecutor().submit(() -> supplier.get(), keys),
+					executor);
 			return async.storeSupplier(key, safeSupplier, multipleAccess);
 		}
 		return false;
 	}
 
 	/**
-	 * Gets the thread pool.
+	 * Gets the executor.
 	 *
-	 * @return the thread pool
+	 * @return the executor
 	 */
-	private ExecutorService getThreadPool() {
+	Executor getExecutor() {
 		assertNotClosed();
-		return executor.getThreadPool();
+		return executor;
 	}
 
 	/**
@@ -503,9 +669,16 @@ public final class AsyncSupplier implements AutoCloseable{
 	}
 
 	/**
-	 * Submits a supplier asynchronously and gets the value as Optional. If any
-	 * exception occurs during the execution of supplier or due to thread
-	 * interruption it will return empty result.
+	 * Submits a supplier and gets the value as Optional. If any exception
+	 * occurs during the execution of supplier or due to thread interruption it
+	 * will return empty result.<br>
+	 * <br>
+	 * Note: As the calling thread would only wait for the result, the supplier
+	 * is invoked inline in the calling thread when using the default thread
+	 * pool, avoiding the hand-offs to and from the thread pool. Otherwise it
+	 * is run in the given thread pool as per its policies. Use
+	 * {@link AsyncSupplier#submitAndGetSupplier(Supplier, long, TimeUnit)} to
+	 * limit the wait instead.
 	 *
 	 * @param <T>
 	 *            the generic type
@@ -514,8 +687,28 @@ public final class AsyncSupplier implements AutoCloseable{
 	 * @return the optional
 	 */
 	public <T> Optional<T> submitAndGetSupplier(Supplier<T> supplier) {
-		Future<T> task = getThreadPool().submit(() -> supplier.get());
-		return getAsyncContext().safeGet(task);
+		return submitAndGetCallable(supplier::get);
+	}
+
+	/**
+	 * Submits a supplier asynchronously and waits for its value up to the
+	 * timeout, and gets the value as Optional. If the supplier does not
+	 * complete within the timeout, it is cancelled and the result will be
+	 * empty. If any exception occurs during the execution of supplier or due to
+	 * thread interruption it will return empty result.
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param supplier
+	 *            the supplier
+	 * @param timeout
+	 *            the timeout
+	 * @param timeUnit
+	 *            the time unit
+	 * @return the optional
+	 */
+	public <T> Optional<T> submitAndGetSupplier(Supplier<T> supplier, long timeout, TimeUnit timeUnit) {
+		return submitAndGetCallable(supplier::get, timeout, timeUnit);
 	}
 
 	/**
@@ -528,22 +721,53 @@ public final class AsyncSupplier implements AutoCloseable{
 	 * @return the supplier
 	 */
 	public <T> Supplier<T> submitCallable(Callable<T> callable) {
-		return AsyncContext.safeSupplier(getThreadPool().submit(callable));
+		return AsyncContext.safeSupplier(getExecutor().submit(callable), executor);
 	}
 
 	/**
 	 * Submits and callable and waits until it finishes and then returns the
-	 * Optional of result.
+	 * Optional of result.<br>
+	 * <br>
+	 * Note: As the calling thread would only wait for the result, the callable
+	 * is invoked inline in the calling thread when using the default thread
+	 * pool, avoiding the hand-offs to and from the thread pool. Otherwise it
+	 * is run in the given thread pool as per its policies. Use
+	 * {@link AsyncSupplier#submitAndGetCallable(Callable, long, TimeUnit)} to
+	 * limit the wait instead.
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param callable
+	 *            the callable
+	 * @return the optional
+	 */
+	public <T> Optional<T> submitAndGetCallable(Callable<T> callable) {
+		assertNotClosed();
+		if (executor.canRunInline()) {
+			return getAsyncContext().safeCall(callable);
+		}
+		return getAsyncContext().safeCall(() -> executor.await(executor.submit(callable)));
+	}
+
+	/**
+	 * Submits and callable asynchronously and waits until it finishes up to the
+	 * timeout, and then returns the Optional of result. If the callable does
+	 * not complete within the timeout, it is cancelled and the result will be
+	 * empty.
 	 *
 	 * @param <T>
 	 *            the generic type
 	 * @param callable
 	 *            the callable
+	 * @param timeout
+	 *            the timeout
+	 * @param timeUnit
+	 *            the time unit
 	 * @return the optional
 	 */
-	public synchronized <T> Optional<T> submitAndGetCallable(Callable<T> callable) {
-		Future<T> task = getThreadPool().submit(callable);
-		return getAsyncContext().safeGet(task);
+	public <T> Optional<T> submitAndGetCallable(Callable<T> callable, long timeout, TimeUnit timeUnit) {
+		Future<T> task = getExecutor().submit(callable);
+		return getAsyncContext().safeGet(task, timeout, timeUnit);
 	}
 	
 	/* (non-Javadoc)
@@ -630,7 +854,7 @@ public final class AsyncSupplier implements AutoCloseable{
 	 *
 	 * @return the async context
 	 */
-	private AsyncContext getAsyncContext() {
+	AsyncContext getAsyncContext() {
 		return asyncContext;
 	}
 	
@@ -20,9 +20,10 @@
 package org.vishag.async;
 
 import java.util.List;
-import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Supplier;
@@ -104,6 +105,169 @@ public final class AsyncTask implements AutoCloseable{
 		return new AsyncTask(Executor.ofExecutorService(executorService), asyncContext);
 	}
 
+	/**
+	 * Gets a new AsyncTask instance made of the given executor service, which
+	 * admits the tasks to its queue through the given admission control. See
+	 * {@link AdmissionControl}.
+	 *
+	 * @param executorService
+	 *            the executor service
+	 * @param admissionControl
+	 *            the admission control
+	 * @return the async task
+	 */
+	public static AsyncTask of(ExecutorService executorService, AdmissionControl admissionControl) {
+		return of(executorService, admissionControl, AsyncContext.getDefault());
+	}
+
+	/**
+	 * Gets a new AsyncTask instance made of the given executor service and async
+	 * context, which admits the tasks to its queue through the given
+	 * admission control. See {@link AdmissionControl}.
+	 *
+	 * @param executorService
+	 *            the executor service
+	 * @param admissionControl
+	 *            the admission control
+	 * @param asyncContext
+	 *            the async context
+	 * @return the async task
+	 */
+	public static AsyncTask of(ExecutorService executorService, AdmissionControl admissionControl,
+			AsyncContext asyncContext) {
+		return new AsyncTask(new AdmissionExecutor(executorService, admissionControl), asyncContext);
+	}
+
+	/**
+	 * Gets a new AsyncTask instance made of the given executor service, which
+	 * runs the tasks submitted with keys serially in the order of
+	 * submission per shard, chosen by the hash of their keys. So the tasks
+	 * with the same keys never run concurrently and need no locking between
+	 * them, while the tasks of different shards run in parallel. The tasks
+	 * without keys run directly in the executor service.<br>
+	 * <br>
+	 * Note: If a task waits for another task of its own shard which has not
+	 * started yet, the awaited task is run inline by the waiting task, out
+	 * of the order of submission.
+	 *
+	 * @param executorService
+	 *            the executor service
+	 * @param shardCount
+	 *            the shard count
+	 * @return the async task
+	 */
+	public static AsyncTask ofSharded(ExecutorService executorService, int shardCount) {
+		return ofSharded(executorService, shardCount, AsyncContext.getDefault());
+	}
+
+	/**
+	 * Gets a new AsyncTask instance made of the given executor service and async
+	 * context, which runs the tasks submitted with keys serially per shard.
+	 * See {@link AsyncTask#ofSharded(ExecutorService, int)}.
+	 *
+	 * @param executorService
+	 *            the executor service
+	 * @param shardCount
+	 *            the shard count
+	 * @param asyncContext
+	 *            the async context
+	 * @return the async task
+	 */
+	public static AsyncTask ofSharded(ExecutorService executorService, int shardCount, AsyncContext asyncContext) {
+		return new AsyncTask(new ShardedExecutor(executorService, shardCount, false), asyncContext);
+	}
+
+	/**
+	 * Gets a new AsyncTask instance made of the given executor service, which
+	 * runs the tasks submitted with keys serially in the order of
+	 * submission per shard, chosen by the hash of their first key, called the
+	 * key tag. So the tasks with the same first key never run concurrently,
+	 * whatever their other keys are. See
+	 * {@link AsyncTask#ofSharded(ExecutorService, int)}.
+	 *
+	 * @param executorService
+	 *            the executor service
+	 * @param shardCount
+	 *            the shard count
+	 * @return the async task
+	 */
+	public static AsyncTask ofShardedByKeyTag(ExecutorService executorService, int shardCount) {
+		return ofShardedByKeyTag(executorService, shardCount, AsyncContext.getDefault());
+	}
+
+	/**
+	 * Gets a new AsyncTask instance made of the given executor service and async
+	 * context, which runs the tasks submitted with keys serially per shard
+	 * chosen by their first key. See
+	 * {@link AsyncTask#ofShardedByKeyTag(ExecutorService, int)}.
+	 *
+	 * @param executorService
+	 *            the executor service
+	 * @param shardCount
+	 *            the shard count
+	 * @param asyncContext
+	 *            the async context
+	 * @return the async task
+	 */
+	public static AsyncTask ofShardedByKeyTag(ExecutorService executorService, int shardCount,
+			AsyncContext asyncContext) {
+		return new AsyncTask(new ShardedExecutor(executorService, shardCount, true), asyncContext);
+	}
+
+	/**
+	 * Gets a new AsyncTask instance which routes the tasks submitted with keys
+	 * to the bulkheads by their first key. See {@link Bulkheads}.
+	 *
+	 * @param bulkheads
+	 *            the bulkheads
+	 * @return the async task
+	 */
+	public static AsyncTask of(Bulkheads bulkheads) {
+		return of(bulkheads, AsyncContext.getDefault());
+	}
+
+	/**
+	 * Gets a new AsyncTask instance with the given async context, which routes
+	 * the tasks submitted with keys to the bulkheads by their first key. See
+	 * {@link Bulkheads}.
+	 *
+	 * @param bulkheads
+	 *            the bulkheads
+	 * @param asyncContext
+	 *            the async context
+	 * @return the async task
+	 */
+	public static AsyncTask of(Bulkheads bulkheads, AsyncContext asyncContext) {
+		return new AsyncTask(new BulkheadExecutor(bulkheads), asyncContext);
+	}
+
+	/**
+	 * Gets a new AsyncTask instance which invokes each task in a new virtual
+	 * thread, so that the tasks blocking on I/O do not hold any platform
+	 * thread. This is suitable for large number of concurrent blocking
+	 * tasks.<br>
+	 * <br>
+	 * Note: Virtual threads are used on JDK 21 or later. On older versions this
+	 * falls back to a cached thread pool of platform threads.
+	 *
+	 * @return the async task
+	 */
+	public static AsyncTask ofVirtualThreads() {
+		return ofVirtualThreads(AsyncContext.getDefault());
+	}
+
+	/**
+	 * Gets a new AsyncTask instance with the given async context, which invokes
+	 * each task in a new virtual thread. See {@link AsyncTask#ofVirtualThreads()}.
+	 *
+	 * @param asyncContext
+	 *            the async context
+	 * @return the async task
+	 */
+	public static AsyncTask ofVirtualThreads(AsyncContext asyncContext) {
+		return new AsyncTask(Executor.ofVirtualThreads(), asyncContext);
+	}
+
 	/**
 	 * Submits a task (Runnable) to be invoke asynchronously.
 	 *
@@ -111,12 +275,15 @@ public final class AsyncTask implements AutoCloseable{
 	 *            the runnable
 	 */
 	public void submitTask(Runnable runnable) {
-		getThreadPool().execute(runnable);
+		getExecutor().execute(runnable);
 	}
 	
 	
 	/**
-	 * Submit task in new thread.
+	 * Submit task in new thread. The new thread is a platform thread, as
+	 * returned by <code>new Thread(runnable)</code>, on any JDK version. To
+	 * run the tasks in virtual threads use
+	 * {@link AsyncTask#ofVirtualThreads()}.
 	 *
 	 * @param runnable the runnable
 	 */
@@ -133,6 +300,16 @@ public final class AsyncTask implements AutoCloseable{
 		assertNotClosed();
 		return executor.getThreadPool();
 	}
+
+	/**
+	 * Gets the executor.
+	 *
+	 * @return the executor
+	 */
+	private Executor getExecutor() {
+		assertNotClosed();
+		return executor;
+	}
 	
 	/**
 	 * Submits multiple tasks (Runnable) to be invoke asynchronously.
@@ -141,7 +318,63 @@ public final class AsyncTask implements AutoCloseable{
 	 *            the runnables
 	 */
 	public void submitTasks(Runnable... runnables) {
-		Stream.of(runnables).forEach(getThreadPool()::execute);
+		Stream.of(runnables).forEach(getExecutor()::execute);
+	}
+
+	/**
+	 * Submits multiple tasks (Runnable) to be invoke asynchronously and wait
+	 * until the tasks are finished. But this can be cancelled in the middle
+	 * through the cancellation token, on which all the tasks not yet finished
+	 * are cancelled and this returns.<br>
+	 * <br>
+	 * Note: The cancellation is pushed by the token, so unlike
+	 * {@link AsyncTask#submitTasksAndWaitCancellable(Supplier, boolean, Runnable...)}
+	 * this needs no extra thread and does not poll. The cancel condition of the
+	 * token, if any, is evaluated every time a task completes.
+	 *
+	 * @param cancellationToken
+	 *            the cancellation token
+	 * @param cancelCanInterruptRunning
+	 *            the cancel can interrupt running
+	 * @param runnables
+	 *            the runnables
+	 */
+	public void submitTasksAndWaitCancellable(CancellationToken cancellationToken,
+			boolean cancelCanInterruptRunning, Runnable... runnables) {
+		Executor executor = getExecutor();
+		List<Future<Object>> futures = Stream.of(runnables).map(runnable -> executor.submit(() -> {
+			try {
+				runnable.run();
+			} finally {
+				cancellationToken.evaluate();
+			}
+			return null;
+		})).collect(Collectors.toList());
+
+		boolean interrupted = Thread.currentThread().isInterrupted();
+		Runnable canceller = () -> futures.forEach(future -> future.cancel(cancelCanInterruptRunning));
+		cancellationToken.onCancel(canceller);
+		try {
+			for (Future<Object> future : futures) {
+				try {
+					executor.await(future);
+				} catch (InterruptedException e) {
+					logger.config(e.getClass().getSimpleName() + ": " + e.getMessage());
+					// Stops waiting for the rest, keeping the interrupt
+					interrupted = true;
+					Thread.currentThread().interrupt();
+					break;
+				} catch (ExecutionException | CancellationException e) {
+					logger.config(e.getClass().getSimpleName() + ": " + e.getMessage());
+				}
+			}
+		} finally {
+			cancellationToken.removeOnCancel(canceller);
+			if (!interrupted && cancellationToken.isCancelled()) {
+				// Clears the interrupt of a task cancelled while run inline
+				Thread.interrupted();
+			}
+		}
 	}
 
 	/**
@@ -158,8 +391,9 @@ public final class AsyncTask implements AutoCloseable{
 	 */
 	public void submitTasksAndWaitCancellable(Supplier<Boolean> cancelConditionSupplier,
 			boolean cancelCanInterruptRunning, Runnable... runnables) {
-		ExecutorService threadPool = getThreadPool();
-		List<Future<?>> futures = Stream.of(runnables).map(threadPool::submit).collect(Collectors.toList());
+		Executor executor = getExecutor();
+		List<Future<Object>> futures = Stream.of(runnables).map(runnable -> executor.submit(Executors.callable(runnable)))
+				.collect(Collectors.toList());
 		AtomicBoolean allTasksCompleted = new AtomicBoolean(false);
 		this.submitTask(() -> {
 			for (Future<?> future : futures) {
@@ -201,21 +435,20 @@ public final class AsyncTask implements AutoCloseable{
 	 *            the runnables
 	 */
 	public void submitTasksAndWait(Runnable... runnables) {
-		List<Callable<Object>> tasks = Stream.of(runnables).map(runnable -> (Callable<Object>) () -> {
-			runnable.run();
-			return (Object) null;
-		}).collect(Collectors.toList());
-
-		try {
-			getThreadPool().invokeAll(tasks).parallelStream().forEach(future -> {
-				try {
-					future.get();
-				} catch (InterruptedException | ExecutionException e) {
-					logger.config(e.getClass().getSimpleName() + ": " + e.getMessage());
-				}
-			});
-		} catch (InterruptedException e) {
-			logger.config(e.getClass().getSimpleName() + ": " + e.getMessage());
+		Executor executor = getExecutor();
+		List<Future<Object>> futures = Stream.of(runnables).map(runnable -> executor.submit(Executors.callable(runnable)))
+				.collect(Collectors.toList());
+		for (Future<Object> future : futures) {
+			try {
+				executor.await(future);
+			} catch (InterruptedException e) {
+				logger.config(e.getClass().getSimpleName() + ": " + e.getMessage());
+				// Cancels the rest, as on the interruption of invokeAll
+				futures.forEach(pending -> pending.cancel(true));
+				break;
+			} catch (ExecutionException | CancellationException e) {
+				logger.config(e.getClass().getSimpleName() + ": " + e.getMessage());
+			}
 		}
 	}
 
@@ -254,10 +487,10 @@ public final class AsyncTask implements AutoCloseable{
 		ObjectsKey key = ObjectsKey.of(keys);
 		AsyncContext context = getAsyncContect();
 		if (!context.getFutureSuppliers().containsKey(key)) {
-			Supplier<Void> safeSupplier = AsyncContext.safeSupplier(getThreadPool().submit(() -> {
+			Supplier<Void> safeSupplier = AsyncContext.safeSupplier(getExecutor().submit(() -> {
 				runnable.run();
 				return null;
-			}));
+			}, keys), executor);
 			return context.storeSupplier(key, safeSupplier, false);
 		}
 		return false;
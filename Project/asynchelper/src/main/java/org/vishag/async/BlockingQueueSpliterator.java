@@ -0,0 +1,203 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+
+ *   http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vishag.async;
+
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The BlockingQueueSpliterator class. This is internally used to expose the
+ * results produced by a scheduler or an executor as a live {@link Stream}. The
+ * producer offers the results as they are produced and the consumer of the
+ * stream blocks only until the next result is available. Only the results
+ * which are not yet consumed are retained.
+ *
+ * @param <T>
+ *            the generic type
+ *
+ * @author Loganathan.S &lt;https://github.com/loganathan001&gt;
+ */
+class BlockingQueueSpliterator<T> extends Spliterators.AbstractSpliterator<T> {
+
+	/**
+	 * {@code Logger} for this class.
+	 */
+	private static final Logger logger = Logger.getLogger(BlockingQueueSpliterator.class.getName());
+
+	/** The marker for the end of the results. */
+	private static final Object END = new Object();
+
+	/** The marker for a <code>null</code> result. */
+	private static final Object NULL = new Object();
+
+	/**
+	 * The Failure, which is the marker for the end of the results with an
+	 * exception.
+	 */
+	private static final class Failure {
+
+		/** The cause. */
+		private final Throwable cause;
+
+		/**
+		 * Instantiates a new failure.
+		 *
+		 * @param cause
+		 *            the cause
+		 */
+		private Failure(Throwable cause) {
+			this.cause = cause;
+		}
+	}
+
+	/** The queue of results not yet consumed. */
+	private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+
+	/** The flag to yield the <code>null</code> results instead of ignoring them. */
+	private final boolean nullable;
+
+	/** The completed flag, set by the producer. */
+	private volatile boolean completed;
+
+	/** The ended flag, set by the consumer once the end marker is reached. */
+	private boolean ended;
+
+	/**
+	 * Instantiates a new blocking queue spliterator, which ignores the
+	 * <code>null</code> results.
+	 */
+	BlockingQueueSpliterator() {
+		this(false);
+	}
+
+	/**
+	 * Instantiates a new blocking queue spliterator.
+	 *
+	 * @param nullable
+	 *            true to yield the <code>null</code> results, or false to
+	 *            ignore them
+	 */
+	BlockingQueueSpliterator(boolean nullable) {
+		super(Long.MAX_VALUE, nullable ? Spliterator.ORDERED : Spliterator.ORDERED | Spliterator.NONNULL);
+		this.nullable = nullable;
+	}
+
+	/**
+	 * Offers a result to the consumer. Unless this is nullable, the
+	 * <code>null</code> results are ignored, as in
+	 * {@link AsyncContext#notifyAndGetForFlag(Class, String...)}.
+	 *
+	 * @param t
+	 *            the result
+	 * @return true, if the result is accepted
+	 */
+	boolean offer(T t) {
+		if ((t == null && !nullable) || completed) {
+			return false;
+		}
+		return queue.offer(t == null ? NULL : t);
+	}
+
+	/**
+	 * Marks the end of the results. The consumer will get the results offered
+	 * so far and then the stream will end.
+	 */
+	void complete() {
+		if (!completed) {
+			completed = true;
+			queue.offer(END);
+		}
+	}
+
+	/**
+	 * Marks the end of the results with an exception. The consumer will get
+	 * the results offered so far and then a {@link CompletionException} with
+	 * the given cause.
+	 *
+	 * @param cause
+	 *            the cause
+	 */
+	void completeExceptionally(Throwable cause) {
+		if (!completed) {
+			completed = true;
+			queue.offer(new Failure(cause));
+		}
+	}
+
+	/**
+	 * Checks if is completed.
+	 *
+	 * @return true, if is completed
+	 */
+	boolean isCompleted() {
+		return completed;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.util.Spliterator#tryAdvance(java.util.function.Consumer)
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public boolean tryAdvance(Consumer<? super T> action) {
+		if (ended) {
+			return false;
+		}
+		Object next;
+		try {
+			next = queue.take();
+		} catch (InterruptedException e) {
+			logger.config(e.getClass().getSimpleName() + ": " + e.getMessage());
+			ended = true;
+			return false;
+		}
+		if (next == END) {
+			ended = true;
+			return false;
+		}
+		if (next instanceof Failure) {
+			ended = true;
+			Throwable cause = ((Failure) next).cause;
+			throw cause instanceof CompletionException ? (CompletionException) cause
+					: new CompletionException(cause);
+		}
+		action.accept(next == NULL ? null : (T) next);
+		return true;
+	}
+
+	/**
+	 * Gets the sequential stream over this spliterator.
+	 *
+	 * @param onClose
+	 *            the action to be invoked when the stream is closed
+	 * @return the stream
+	 */
+	Stream<T> stream(Runnable onClose) {
+		return StreamSupport.stream(this, false).onClose(onClose);
+	}
+}
@@ -0,0 +1,231 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+
+ *   http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vishag.async;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The Bulkhead class, which is an isolated thread pool of {@link Bulkheads}
+ * serving the work of a single namespace. A bulkhead runs at most
+ * {@link Bulkhead#getMaxConcurrency()} tasks at a time and queues at most
+ * {@link Bulkhead#getQueueCapacity()} more; any further submission is rejected
+ * with a {@link RejectedExecutionException}, so that a slow downstream can only
+ * hold the threads of its own bulkhead. <br>
+ * <br>
+ * The getters of this class report the saturation of the bulkhead.
+ *
+ * @author Loganathan.S &lt;https://github.com/loganathan001&gt;
+ */
+public final class Bulkhead {
+
+	/** The keep alive time of the idle threads in seconds. */
+	private static final long KEEP_ALIVE_SECONDS = 60L;
+
+	/** The namespace. */
+	private final Object namespace;
+
+	/** The max concurrency. */
+	private final int maxConcurrency;
+
+	/** The queue capacity. */
+	private final int queueCapacity;
+
+	/** The active count. */
+	private final AtomicInteger activeCount = new AtomicInteger();
+
+	/** The completed count. */
+	private final AtomicLong completedCount = new AtomicLong();
+
+	/** The rejected count. */
+	private final AtomicLong rejectedCount = new AtomicLong();
+
+	/** The thread pool. */
+	private final ThreadPoolExecutor threadPool;
+
+	/**
+	 * Instantiates a new bulkhead.
+	 *
+	 * @param namespace
+	 *            the namespace
+	 * @param maxConcurrency
+	 *            the max concurrency
+	 * @param queueCapacity
+	 *            the queue capacity
+	 */
+	Bulkhead(Object namespace, int maxConcurrency, int queueCapacity) {
+		if (maxConcurrency < 1 || queueCapacity < 0) {
+			throw new IllegalArgumentException(
+					"Invalid max concurrency " + maxConcurrency + " or queue capacity " + queueCapacity);
+		}
+		this.namespace = namespace;
+		this.maxConcurrency = maxConcurrency;
+		this.queueCapacity = queueCapacity;
+		BlockingQueue<Runnable> queue = queueCapacity == 0 ? new SynchronousQueue<>()
+				: new ArrayBlockingQueue<>(queueCapacity);
+		this.threadPool = new ThreadPoolExecutor(maxConcurrency, maxConcurrency, KEEP_ALIVE_SECONDS,
+				TimeUnit.SECONDS, queue, newThreadFactory(namespace), (runnable, executor) -> {
+					rejectedCount.incrementAndGet();
+					throw new RejectedExecutionException("Bulkhead " + namespace + " is saturated");
+				}) {
+			@Override
+			protected void beforeExecute(Thread thread, Runnable runnable) {
+				activeCount.incrementAndGet();
+			}
+
+			@Override
+			protected void afterExecute(Runnable runnable, Throwable throwable) {
+				activeCount.decrementAndGet();
+				completedCount.incrementAndGet();
+			}
+		};
+		this.threadPool.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * New thread factory creating daemon threads named after the namespace.
+	 *
+	 * @param namespace
+	 *            the namespace
+	 * @return the thread factory
+	 */
+	private static ThreadFactory newThreadFactory(Object namespace) {
+		AtomicInteger threadNumber = new AtomicInteger();
+		return runnable -> {
+			Thread thread = new Thread(runnable, "bulkhead-" + namespace + "-" + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	/**
+	 * Gets the thread pool.
+	 *
+	 * @return the thread pool
+	 */
+	ExecutorService getThreadPool() {
+		return threadPool;
+	}
+
+	/**
+	 * Gets the namespace.
+	 *
+	 * @return the namespace
+	 */
+	public Object getNamespace() {
+		return namespace;
+	}
+
+	/**
+	 * Gets the max number of tasks run at a time.
+	 *
+	 * @return the max concurrency
+	 */
+	public int getMaxConcurrency() {
+		return maxConcurrency;
+	}
+
+	/**
+	 * Gets the max number of tasks waiting in the queue.
+	 *
+	 * @return the queue capacity
+	 */
+	public int getQueueCapacity() {
+		return queueCapacity;
+	}
+
+	/**
+	 * Gets the number of tasks running now.
+	 *
+	 * @return the active count
+	 */
+	public int getActiveCount() {
+		return activeCount.get();
+	}
+
+	/**
+	 * Gets the number of tasks waiting in the queue now.
+	 *
+	 * @return the queued count
+	 */
+	public int getQueuedCount() {
+		return threadPool.getQueue().size();
+	}
+
+	/**
+	 * Gets the number of tasks completed so far.
+	 *
+	 * @return the completed count
+	 */
+	public long getCompletedCount() {
+		return completedCount.get();
+	}
+
+	/**
+	 * Gets the number of submissions rejected so far for the bulkhead being
+	 * saturated.
+	 *
+	 * @return the rejected count
+	 */
+	public long getRejectedCount() {
+		return rejectedCount.get();
+	}
+
+	/**
+	 * Gets the saturation of the bulkhead, which is the ratio of the running
+	 * and queued tasks to the total of max concurrency and queue capacity, in
+	 * the range of <code>0.0</code> to <code>1.0</code>.
+	 *
+	 * @return the saturation
+	 */
+	public double getSaturation() {
+		int occupied = getActiveCount() + getQueuedCount();
+		return Math.min(1.0, (double) occupied / (maxConcurrency + queueCapacity));
+	}
+
+	/**
+	 * Checks if the bulkhead is saturated, so that the next submission will be
+	 * rejected unless a running task completes in the mean time.
+	 *
+	 * @return true, if saturated
+	 */
+	public boolean isSaturated() {
+		return getActiveCount() >= maxConcurrency && getQueuedCount() >= queueCapacity;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "Bulkhead [namespace=" + namespace + ", active=" + getActiveCount() + "/" + maxConcurrency
+				+ ", queued=" + getQueuedCount() + "/" + queueCapacity + ", rejected=" + getRejectedCount() + "]";
+	}
+}
@@ -0,0 +1,81 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+
+ *   http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vishag.async;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * The BulkheadExecutor class, which is an {@link Executor} routing the work
+ * submitted with keys to the {@link Bulkhead} of their key tag. See
+ * {@link Bulkheads}. <br>
+ * <br>
+ * Note: A task queued in a bulkhead is never run inline by a thread waiting
+ * for it, so that the concurrency cap of the bulkhead always holds.
+ *
+ * @author Loganathan.S &lt;https://github.com/loganathan001&gt;
+ */
+class BulkheadExecutor extends Executor {
+
+	/** The bulkheads. */
+	private final Bulkheads bulkheads;
+
+	/**
+	 * Instantiates a new bulkhead executor.
+	 *
+	 * @param bulkheads
+	 *            the bulkheads
+	 */
+	BulkheadExecutor(Bulkheads bulkheads) {
+		super(bulkheads.getFallbackPool());
+		this.bulkheads = bulkheads;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.vishag.async.Executor#getThreadPoolForKeys(java.lang.Object[])
+	 */
+	@Override
+	protected ExecutorService getThreadPoolForKeys(Object... keys) {
+		assertNotClosed();
+		return bulkheads.getThreadPool(keys);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.vishag.async.Executor#canRunInline()
+	 */
+	@Override
+	protected boolean canRunInline() {
+		// The work runs only as per the bulkheads
+		return false;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.vishag.async.Executor#shutdown()
+	 */
+	@Override
+	protected void shutdown() {
+		bulkheads.close();
+	}
+}
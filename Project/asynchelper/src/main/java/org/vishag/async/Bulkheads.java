@@ -0,0 +1,205 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+
+ *   http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vishag.async;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * The Bulkheads class, which isolates the work of different namespaces into
+ * separate {@link Bulkhead} thread pools, so that one slow downstream can not
+ * use up every worker and stall the unrelated fetches. <br>
+ * <br>
+ * The work submitted with keys through an {@link AsyncSupplier} or
+ * {@link AsyncTask} obtained with <code>AsyncSupplier.of(Bulkheads)</code> or
+ * <code>AsyncTask.of(Bulkheads)</code> is routed by its first key, called the
+ * key tag: the work runs in the bulkhead whose namespace is equal to the key
+ * tag, or if the key tag is a hierarchical name like
+ * <code>"inventory/sku-42"</code>, in the bulkhead of its first segment
+ * <code>"inventory"</code>. The work without keys or with an unmatched key tag
+ * runs in the fallback thread pool. <br>
+ * <br>
+ * For example:
+ * 
+ * <pre>
+ * Bulkheads bulkheads = Bulkheads.newInstance().addBulkhead("inventory", 4, 100).addBulkhead("pricing", 2, 50);
+ * AsyncSupplier asyncSupplier = AsyncSupplier.of(bulkheads);
+ * asyncSupplier.submitSupplierForSingleAccess(() -&gt; fetchStock(sku), "inventory", sku);
+ * </pre>
+ *
+ * @author Loganathan.S &lt;https://github.com/loganathan001&gt;
+ */
+public final class Bulkheads implements AutoCloseable {
+
+	/** The bulkheads by namespace. */
+	private final Map<Object, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+
+	/** The fallback thread pool. */
+	private final ExecutorService fallbackPool;
+
+	/** The flag to shut down the fallback thread pool on close. */
+	private final boolean ownsFallbackPool;
+
+	/** The closed flag. */
+	private volatile boolean closed;
+
+	/**
+	 * Instantiates a new bulkheads.
+	 *
+	 * @param fallbackPool
+	 *            the fallback pool
+	 * @param ownsFallbackPool
+	 *            the owns fallback pool
+	 */
+	private Bulkheads(ExecutorService fallbackPool, boolean ownsFallbackPool) {
+		this.fallbackPool = fallbackPool;
+		this.ownsFallbackPool = ownsFallbackPool;
+	}
+
+	/**
+	 * Gets a new Bulkheads instance with the default thread pool as the
+	 * fallback thread pool.
+	 *
+	 * @return the bulkheads
+	 */
+	public static Bulkheads newInstance() {
+		return new Bulkheads(Executor.getDefault().getThreadPool(), false);
+	}
+
+	/**
+	 * Gets a new Bulkheads instance with the given fallback thread pool, which
+	 * will be shut down along with the bulkheads on close.
+	 *
+	 * @param fallbackPool
+	 *            the fallback pool
+	 * @return the bulkheads
+	 */
+	public static Bulkheads of(ExecutorService fallbackPool) {
+		return new Bulkheads(fallbackPool, true);
+	}
+
+	/**
+	 * Adds a bulkhead for the namespace.
+	 *
+	 * @param namespace
+	 *            the namespace
+	 * @param maxConcurrency
+	 *            the max number of tasks run at a time
+	 * @param queueCapacity
+	 *            the max number of tasks waiting in the queue, or
+	 *            <code>0</code> for no queue
+	 * @return this bulkheads
+	 * @throws IllegalArgumentException
+	 *             if a bulkhead is already added for the namespace, or the
+	 *             limits are invalid
+	 */
+	public Bulkheads addBulkhead(Object namespace, int maxConcurrency, int queueCapacity) {
+		assertNotClosed();
+		Bulkhead bulkhead = new Bulkhead(namespace, maxConcurrency, queueCapacity);
+		if (bulkheads.putIfAbsent(namespace, bulkhead) != null) {
+			bulkhead.getThreadPool().shutdown();
+			throw new IllegalArgumentException("Bulkhead already added for namespace " + namespace);
+		}
+		return this;
+	}
+
+	/**
+	 * Gets the bulkhead of the namespace.
+	 *
+	 * @param namespace
+	 *            the namespace
+	 * @return the bulkhead
+	 */
+	public Optional<Bulkhead> getBulkhead(Object namespace) {
+		return Optional.ofNullable(bulkheads.get(namespace));
+	}
+
+	/**
+	 * Gets all the bulkheads.
+	 *
+	 * @return the bulkheads
+	 */
+	public Collection<Bulkhead> getBulkheads() {
+		return Collections.unmodifiableCollection(bulkheads.values());
+	}
+
+	/**
+	 * Gets the thread pool to run the work submitted with the keys.
+	 *
+	 * @param keys
+	 *            the keys
+	 * @return the thread pool
+	 */
+	ExecutorService getThreadPool(Object... keys) {
+		assertNotClosed();
+		if (keys != null && keys.length > 0 && keys[0] != null) {
+			Bulkhead bulkhead = bulkheads.get(keys[0]);
+			if (bulkhead == null && keys[0] instanceof String) {
+				String tag = (String) keys[0];
+				int index = tag.indexOf(FlagTrie.SEPARATOR);
+				if (index > 0) {
+					bulkhead = bulkheads.get(tag.substring(0, index));
+				}
+			}
+			if (bulkhead != null) {
+				return bulkhead.getThreadPool();
+			}
+		}
+		return fallbackPool;
+	}
+
+	/**
+	 * Gets the fallback thread pool.
+	 *
+	 * @return the fallback thread pool
+	 */
+	ExecutorService getFallbackPool() {
+		return fallbackPool;
+	}
+
+	/**
+	 * Assert not closed.
+	 */
+	private void assertNotClosed() {
+		if (closed) {
+			throw new IllegalStateException("Already closed");
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.lang.AutoCloseable#close()
+	 */
+	@Override
+	public synchronized void close() {
+		if (!closed) {
+			closed = true;
+			bulkheads.values().forEach(bulkhead -> bulkhead.getThreadPool().shutdownNow());
+			if (ownsFallbackPool) {
+				fallbackPool.shutdownNow();
+			}
+		}
+	}
+}
@@ -0,0 +1,167 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+
+ *   http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vishag.async;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * The CancellationToken class, which is used to cancel a group of tasks
+ * submitted with
+ * {@link AsyncTask#submitTasksAndWaitCancellable(CancellationToken, boolean, Runnable...)}
+ * by pushing the cancellation instead of polling for it. <br>
+ * <br>
+ * The token is cancelled either by calling {@link CancellationToken#cancel()},
+ * or for a token made with a cancel condition, by calling
+ * {@link CancellationToken#evaluate()} whenever the state the condition
+ * depends on changes. The condition is also evaluated every time a task of a
+ * group using the token completes. On cancellation, the callbacks registered
+ * with {@link CancellationToken#onCancel(Runnable)} are invoked in the
+ * cancelling thread.
+ *
+ * @author Loganathan.S &lt;https://github.com/loganathan001&gt;
+ */
+public final class CancellationToken {
+
+	/** The logger. */
+	private static final Logger logger = Logger.getLogger(CancellationToken.class.getName());
+
+	/** The cancel condition, or null if cancelled only explicitly. */
+	private final Supplier<Boolean> cancelCondition;
+
+	/** The cancelled flag. */
+	private final AtomicBoolean cancelled = new AtomicBoolean();
+
+	/** The callbacks. */
+	private final Queue<Runnable> callbacks = new ConcurrentLinkedQueue<>();
+
+	/**
+	 * Instantiates a new cancellation token.
+	 *
+	 * @param cancelCondition
+	 *            the cancel condition
+	 */
+	private CancellationToken(Supplier<Boolean> cancelCondition) {
+		this.cancelCondition = cancelCondition;
+	}
+
+	/**
+	 * Gets a new CancellationToken which is cancelled only by
+	 * {@link CancellationToken#cancel()}.
+	 *
+	 * @return the cancellation token
+	 */
+	public static CancellationToken newInstance() {
+		return new CancellationToken(null);
+	}
+
+	/**
+	 * Gets a new CancellationToken which is cancelled when the cancel
+	 * condition returns true on evaluation, or by
+	 * {@link CancellationToken#cancel()}.
+	 *
+	 * @param cancelCondition
+	 *            the cancel condition
+	 * @return the cancellation token
+	 */
+	public static CancellationToken of(Supplier<Boolean> cancelCondition) {
+		return new CancellationToken(cancelCondition);
+	}
+
+	/**
+	 * Cancels the token, invoking the registered callbacks.
+	 *
+	 * @return true, if cancelled by this call, or false if already cancelled
+	 */
+	public boolean cancel() {
+		if (!cancelled.compareAndSet(false, true)) {
+			return false;
+		}
+		Runnable callback;
+		while ((callback = callbacks.poll()) != null) {
+			invoke(callback);
+		}
+		return true;
+	}
+
+	/**
+	 * Evaluates the cancel condition, and cancels the token if it returns
+	 * true. This should be called whenever the state the condition depends on
+	 * changes.
+	 *
+	 * @return true, if the token is cancelled
+	 */
+	public boolean evaluate() {
+		if (!cancelled.get() && cancelCondition != null && Boolean.TRUE.equals(cancelCondition.get())) {
+			cancel();
+		}
+		return cancelled.get();
+	}
+
+	/**
+	 * Checks if the token is cancelled.
+	 *
+	 * @return true, if is cancelled
+	 */
+	public boolean isCancelled() {
+		return cancelled.get();
+	}
+
+	/**
+	 * Registers a callback to be invoked once on cancellation. If the token is
+	 * already cancelled, the callback is invoked right away.
+	 *
+	 * @param callback
+	 *            the callback
+	 */
+	public void onCancel(Runnable callback) {
+		callbacks.add(callback);
+		if (cancelled.get() && callbacks.remove(callback)) {
+			invoke(callback);
+		}
+	}
+
+	/**
+	 * Unregisters a callback which is no longer needed.
+	 *
+	 * @param callback
+	 *            the callback
+	 */
+	void removeOnCancel(Runnable callback) {
+		callbacks.remove(callback);
+	}
+
+	/**
+	 * Invokes the callback.
+	 *
+	 * @param callback
+	 *            the callback
+	 */
+	private static void invoke(Runnable callback) {
+		try {
+			callback.run();
+		} catch (RuntimeException e) {
+			logger.config(e.getClass().getSimpleName() + ": " + e.getMessage());
+		}
+	}
+}
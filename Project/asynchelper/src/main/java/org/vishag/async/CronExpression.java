@@ -0,0 +1,547 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+
+ *   http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vishag.async;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The CronExpression class, which is a cron schedule expression in a time
+ * zone, that can be scheduled with
+ * {@link SchedulingTask#scheduleTasks(CronExpression, Runnable...)} and the
+ * other cron variants of {@link SchedulingTask} and {@link SchedulingSupplier}.
+ * <br>
+ * <br>
+ * An expression has 5 fields <code>"minute hour day-of-month month
+ * day-of-week"</code>, or 6 fields with the leading seconds field
+ * <code>"second minute hour day-of-month month day-of-week"</code>. A field
+ * is <code>*</code> (or <code>?</code> for the day fields), a value, a range
+ * <code>a-b</code>, a step <code>*&#47;n</code>, <code>a&#47;n</code> or
+ * <code>a-b&#47;n</code>, or a comma separated list of them. Months can be
+ * given as <code>JAN</code>-<code>DEC</code> and days of week as
+ * <code>SUN</code>-<code>SAT</code> or 0-7, where both 0 and 7 are Sunday. When
+ * both day-of-month and day-of-week are restricted, a day matching either of
+ * them fires, as in cron. The macros <code>@yearly</code>,
+ * <code>@annually</code>, <code>@monthly</code>, <code>@weekly</code>,
+ * <code>@daily</code>, <code>@midnight</code> and <code>@hourly</code> are also
+ * supported. For example, <code>"0 9-17 * * MON-FRI"</code> fires at every
+ * hour of the business hours. <br>
+ * <br>
+ * The fields are kept as bit sets, and the next fire time is found by
+ * skipping over the non matching months, days, hours, minutes and seconds
+ * from the previous fire time, with plain calendar arithmetic on the local
+ * time. The zone offset is cached until its next transition, so that no
+ * object is allocated for computing a fire time, other than when crossing a
+ * zone offset transition. <br>
+ * <br>
+ * Note: A local time falling in a daylight saving gap is skipped, and a local
+ * time falling in a daylight saving overlap fires only once, at its earlier
+ * instant.
+ *
+ * @author Loganathan.S &lt;https://github.com/loganathan001&gt;
+ */
+public final class CronExpression {
+
+	/** The seconds per day. */
+	private static final int SECONDS_PER_DAY = 86400;
+
+	/** The number of years searched for the next fire time. */
+	private static final int SEARCH_YEARS = 8;
+
+	/** The month names. */
+	private static final List<String> MONTHS = Arrays.asList("JAN", "FEB", "MAR", "APR", "MAY", "JUN", "JUL",
+			"AUG", "SEP", "OCT", "NOV", "DEC");
+
+	/** The day of week names. */
+	private static final List<String> DAYS_OF_WEEK = Arrays.asList("SUN", "MON", "TUE", "WED", "THU", "FRI",
+			"SAT");
+
+	/** The expression. */
+	private final String expression;
+
+	/** The zone. */
+	private final ZoneId zone;
+
+	/** The zone rules. */
+	private final ZoneRules rules;
+
+	/** The seconds bits. */
+	private final long seconds;
+
+	/** The minutes bits. */
+	private final long minutes;
+
+	/** The hours bits. */
+	private final long hours;
+
+	/** The days of month bits. */
+	private final long daysOfMonth;
+
+	/** The months bits. */
+	private final long months;
+
+	/** The days of week bits, with Sunday as 0. */
+	private final long daysOfWeek;
+
+	/** The flag telling the day of month field is restricted. */
+	private final boolean daysOfMonthRestricted;
+
+	/** The flag telling the day of week field is restricted. */
+	private final boolean daysOfWeekRestricted;
+
+	/** The cached zone offset window. */
+	private volatile OffsetWindow offsetWindow;
+
+	/**
+	 * The OffsetWindow, which is a period of epoch seconds having the same
+	 * zone offset.
+	 */
+	private static final class OffsetWindow {
+
+		/** The start epoch second, inclusive. */
+		private final long start;
+
+		/** The end epoch second, exclusive. */
+		private final long end;
+
+		/** The offset seconds. */
+		private final int offset;
+
+		/**
+		 * Instantiates a new offset window.
+		 *
+		 * @param start
+		 *            the start
+		 * @param end
+		 *            the end
+		 * @param offset
+		 *            the offset
+		 */
+		private OffsetWindow(long start, long end, int offset) {
+			this.start = start;
+			this.end = end;
+			this.offset = offset;
+		}
+	}
+
+	/**
+	 * Instantiates a new cron expression.
+	 *
+	 * @param expression
+	 *            the expression
+	 * @param zone
+	 *            the zone
+	 */
+	private CronExpression(String expression, ZoneId zone) {
+		this.expression = expression;
+		this.zone = zone;
+		this.rules = zone.getRules();
+		String[] fields = expand(expression.trim()).split("\\s+");
+		if (fields.length != 5 && fields.length != 6) {
+			throw new IllegalArgumentException("Invalid cron expression, expected 5 or 6 fields: " + expression);
+		}
+		int field = 0;
+		this.seconds = fields.length == 6 ? parseField(fields[field++], 0, 59, null) : 1L;
+		this.minutes = parseField(fields[field++], 0, 59, null);
+		this.hours = parseField(fields[field++], 0, 23, null);
+		String dayOfMonthField = fields[field++];
+		this.daysOfMonth = parseField(dayOfMonthField, 1, 31, null);
+		this.months = parseField(fields[field++], 1, 12, MONTHS);
+		String dayOfWeekField = fields[field];
+		long dayOfWeekBits = parseField(dayOfWeekField, 0, 7, DAYS_OF_WEEK);
+		// 7 is also Sunday
+		this.daysOfWeek = (dayOfWeekBits | (dayOfWeekBits >>> 7)) & 0x7FL;
+		this.daysOfMonthRestricted = !isUnrestricted(dayOfMonthField);
+		this.daysOfWeekRestricted = !isUnrestricted(dayOfWeekField);
+	}
+
+	/**
+	 * Gets the CronExpression of the expression in the system default time
+	 * zone.
+	 *
+	 * @param expression
+	 *            the expression
+	 * @return the cron expression
+	 * @throws IllegalArgumentException
+	 *             if the expression is invalid
+	 */
+	public static CronExpression of(String expression) {
+		return of(expression, ZoneId.systemDefault());
+	}
+
+	/**
+	 * Gets the CronExpression of the expression in the given time zone.
+	 *
+	 * @param expression
+	 *            the expression
+	 * @param zone
+	 *            the zone
+	 * @return the cron expression
+	 * @throws IllegalArgumentException
+	 *             if the expression is invalid
+	 */
+	public static CronExpression of(String expression, ZoneId zone) {
+		return new CronExpression(expression, zone);
+	}
+
+	/**
+	 * Expands the macro, if any.
+	 *
+	 * @param expression
+	 *            the expression
+	 * @return the expanded expression
+	 */
+	private static String expand(String expression) {
+		switch (expression.toLowerCase(Locale.ROOT)) {
+		case "@yearly":
+		case "@annually":
+			return "0 0 1 1 *";
+		case "@monthly":
+			return "0 0 1 * *";
+		case "@weekly":
+			return "0 0 * * 0";
+		case "@daily":
+		case "@midnight":
+			return "0 0 * * *";
+		case "@hourly":
+			return "0 * * * *";
+		default:
+			return expression;
+		}
+	}
+
+	/**
+	 * Checks if the field is unrestricted.
+	 *
+	 * @param field
+	 *            the field
+	 * @return true, if unrestricted
+	 */
+	private static boolean isUnrestricted(String field) {
+		return field.equals("*") || field.equals("?");
+	}
+
+	/**
+	 * Parses the field into bits.
+	 *
+	 * @param field
+	 *            the field
+	 * @param min
+	 *            the min value
+	 * @param max
+	 *            the max value
+	 * @param names
+	 *            the names of the values from min, or null
+	 * @return the bits
+	 */
+	private static long parseField(String field, int min, int max, List<String> names) {
+		long bits = 0L;
+		for (String part : field.split(",")) {
+			int step = 1;
+			int slash = part.indexOf('/');
+			String range = part;
+			if (slash >= 0) {
+				step = parseValue(part.substring(slash + 1), 1, max - min + 1, null, field);
+				range = part.substring(0, slash);
+			}
+			int from;
+			int to;
+			if (isUnrestricted(range)) {
+				from = min;
+				to = max;
+			} else {
+				int dash = range.indexOf('-');
+				if (dash > 0) {
+					from = parseValue(range.substring(0, dash), min, max, names, field);
+					to = parseValue(range.substring(dash + 1), min, max, names, field);
+				} else {
+					from = parseValue(range, min, max, names, field);
+					to = slash >= 0 ? max : from;
+				}
+			}
+			if (from > to) {
+				throw new IllegalArgumentException("Invalid cron field range: " + field);
+			}
+			for (int value = from; value <= to; value += step) {
+				bits |= 1L << value;
+			}
+		}
+		return bits;
+	}
+
+	/**
+	 * Parses the value.
+	 *
+	 * @param value
+	 *            the value
+	 * @param min
+	 *            the min
+	 * @param max
+	 *            the max
+	 * @param names
+	 *            the names of the values from min, or null
+	 * @param field
+	 *            the field
+	 * @return the value
+	 */
+	private static int parseValue(String value, int min, int max, List<String> names, String field) {
+		int parsed;
+		int nameIndex = names == null ? -1 : names.indexOf(value.toUpperCase(Locale.ROOT));
+		if (nameIndex >= 0) {
+			parsed = nameIndex + (names == MONTHS ? 1 : 0);
+		} else {
+			try {
+				parsed = Integer.parseInt(value);
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("Invalid cron field value: " + field, e);
+			}
+		}
+		if (parsed < min || parsed > max) {
+			throw new IllegalArgumentException("Invalid cron field value: " + field);
+		}
+		return parsed;
+	}
+
+	/**
+	 * Gets the next fire time after the given time.
+	 *
+	 * @param epochMillis
+	 *            the time in milliseconds since the epoch
+	 * @return the next fire time in milliseconds since the epoch, which is
+	 *         after the given time, or -1 if there is none in the next 8 years
+	 */
+	public long next(long epochMillis) {
+		long after = Math.floorDiv(epochMillis, 1000L);
+		OffsetWindow window = getOffsetWindow(after + 1);
+		long fromLocal = after + 1 + window.offset;
+		while (true) {
+			long local = nextLocal(fromLocal);
+			if (local == Long.MIN_VALUE) {
+				return -1L;
+			}
+			long epochSecond = local - window.offset;
+			if (epochSecond < window.end) {
+				return epochSecond * 1000L;
+			}
+			// Crossed an offset transition, continue in the next offset from
+			// the same local time, so that a gap is skipped and an overlap is
+			// not fired again
+			window = getOffsetWindow(window.end);
+			fromLocal = Math.max(fromLocal, window.start + window.offset);
+		}
+	}
+
+	/**
+	 * Gets the offset window of the epoch second.
+	 *
+	 * @param epochSecond
+	 *            the epoch second
+	 * @return the offset window
+	 */
+	private OffsetWindow getOffsetWindow(long epochSecond) {
+		OffsetWindow window = offsetWindow;
+		if (window != null && epochSecond >= window.start && epochSecond < window.end) {
+			return window;
+		}
+		Instant instant = Instant.ofEpochSecond(epochSecond);
+		int offset = rules.getOffset(instant).getTotalSeconds();
+		if (rules.isFixedOffset()) {
+			window = new OffsetWindow(Long.MIN_VALUE, Long.MAX_VALUE, offset);
+		} else {
+			ZoneOffsetTransition previous = rules.previousTransition(instant.plusSeconds(1));
+			ZoneOffsetTransition next = rules.nextTransition(instant);
+			window = new OffsetWindow(previous == null ? Long.MIN_VALUE : previous.toEpochSecond(),
+					next == null ? Long.MAX_VALUE : next.toEpochSecond(), offset);
+		}
+		offsetWindow = window;
+		return window;
+	}
+
+	/**
+	 * Gets the next matching local time from the given local time.
+	 *
+	 * @param fromLocal
+	 *            the local time in seconds since the local epoch, inclusive
+	 * @return the next matching local time, or {@link Long#MIN_VALUE} if there
+	 *         is none in the search period
+	 */
+	private long nextLocal(long fromLocal) {
+		long days = Math.floorDiv(fromLocal, SECONDS_PER_DAY);
+		int secondOfDay = (int) Math.floorMod(fromLocal, SECONDS_PER_DAY);
+		int hour = secondOfDay / 3600;
+		int minute = secondOfDay / 60 % 60;
+		int second = secondOfDay % 60;
+		long lastDay = days + 366L * SEARCH_YEARS;
+		while (days <= lastDay) {
+			long date = civilFromDays(days);
+			int year = (int) (date / 10000);
+			int month = (int) (date / 100 % 100);
+			int dayOfMonth = (int) (date % 100);
+			if ((months & (1L << month)) == 0) {
+				days = month == 12 ? daysFromCivil(year + 1, 1, 1) : daysFromCivil(year, month + 1, 1);
+				hour = minute = second = 0;
+				continue;
+			}
+			if (!matchesDay(dayOfMonth, (int) Math.floorMod(days + 4, 7L))) {
+				days++;
+				hour = minute = second = 0;
+				continue;
+			}
+			int nextHour = nextBit(hours, hour);
+			if (nextHour < 0) {
+				days++;
+				hour = minute = second = 0;
+				continue;
+			}
+			if (nextHour != hour) {
+				hour = nextHour;
+				minute = second = 0;
+			}
+			int nextMinute = nextBit(minutes, minute);
+			if (nextMinute < 0) {
+				hour++;
+				minute = second = 0;
+				if (hour == 24) {
+					days++;
+					hour = 0;
+				}
+				continue;
+			}
+			if (nextMinute != minute) {
+				minute = nextMinute;
+				second = 0;
+			}
+			int nextSecond = nextBit(seconds, second);
+			if (nextSecond < 0) {
+				minute++;
+				second = 0;
+				if (minute == 60) {
+					hour++;
+					minute = 0;
+					if (hour == 24) {
+						days++;
+						hour = 0;
+					}
+				}
+				continue;
+			}
+			return days * SECONDS_PER_DAY + hour * 3600 + minute * 60 + nextSecond;
+		}
+		return Long.MIN_VALUE;
+	}
+
+	/**
+	 * Checks if the day matches.
+	 *
+	 * @param dayOfMonth
+	 *            the day of month
+	 * @param dayOfWeek
+	 *            the day of week, with Sunday as 0
+	 * @return true, if matches
+	 */
+	private boolean matchesDay(int dayOfMonth, int dayOfWeek) {
+		boolean dayOfMonthMatches = (daysOfMonth & (1L << dayOfMonth)) != 0;
+		boolean dayOfWeekMatches = (daysOfWeek & (1L << dayOfWeek)) != 0;
+		if (daysOfMonthRestricted && daysOfWeekRestricted) {
+			return dayOfMonthMatches || dayOfWeekMatches;
+		}
+		return dayOfMonthMatches && dayOfWeekMatches;
+	}
+
+	/**
+	 * Gets the next set bit from the given index.
+	 *
+	 * @param bits
+	 *            the bits
+	 * @param from
+	 *            the index, inclusive
+	 * @return the next set bit, or -1 if none
+	 */
+	private static int nextBit(long bits, int from) {
+		long remaining = bits & (-1L << from);
+		return remaining == 0 ? -1 : Long.numberOfTrailingZeros(remaining);
+	}
+
+	/**
+	 * Gets the date of the days since the epoch, in the proleptic Gregorian
+	 * calendar.
+	 *
+	 * @param days
+	 *            the days since the epoch
+	 * @return the date packed as <code>year * 10000 + month * 100 + day</code>
+	 */
+	private static long civilFromDays(long days) {
+		long shifted = days + 719468;
+		long era = Math.floorDiv(shifted, 146097);
+		long dayOfEra = shifted - era * 146097;
+		long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+		long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+		long monthFromMarch = (5 * dayOfYear + 2) / 153;
+		long day = dayOfYear - (153 * monthFromMarch + 2) / 5 + 1;
+		long month = monthFromMarch < 10 ? monthFromMarch + 3 : monthFromMarch - 9;
+		long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+		return year * 10000 + month * 100 + day;
+	}
+
+	/**
+	 * Gets the days since the epoch of the date, in the proleptic Gregorian
+	 * calendar.
+	 *
+	 * @param year
+	 *            the year
+	 * @param month
+	 *            the month
+	 * @param day
+	 *            the day
+	 * @return the days since the epoch
+	 */
+	private static long daysFromCivil(long year, int month, int day) {
+		long marchYear = month <= 2 ? year - 1 : year;
+		long era = Math.floorDiv(marchYear, 400);
+		long yearOfEra = marchYear - era * 400;
+		long dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+		long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+		return era * 146097 + dayOfEra - 719468;
+	}
+
+	/**
+	 * Gets the zone.
+	 *
+	 * @return the zone
+	 */
+	public ZoneId getZone() {
+		return zone;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return expression + " " + zone;
+	}
+}
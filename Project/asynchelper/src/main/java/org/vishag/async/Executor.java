@@ -18,8 +18,17 @@
  */
 package org.vishag.async;
 
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * The Executor class that comprises of an executor service and methods used to
@@ -43,8 +52,11 @@ class Executor implements AutoCloseable {
 	/** The default instance of Executor. */
 	private static Executor DEFAULT_INSTANCE = new Executor(DEFAULT_POOL);
 
+	/** The thread pool whose task is running in the current thread, if any. */
+	private static final ThreadLocal<ExecutorService> WORKER_OF = new ThreadLocal<>();
+
 	/** The thread pool. */
-	private ExecutorService threadPool;
+	private final ExecutorService threadPool;
 
 	/** The closed flag. */
 	private volatile boolean closed;
@@ -55,10 +67,54 @@ class Executor implements AutoCloseable {
 	 * @param threadPool
 	 *            the thread pool
 	 */
-	private Executor(ExecutorService threadPool) {
+	Executor(ExecutorService threadPool) {
 		this.threadPool = threadPool;
 	}
 
+	/**
+	 * The PoolTask, which is the future of a callable submitted to a
+	 * {@link ThreadPoolExecutor}, and marks the thread running it as a worker
+	 * of the pool while it runs, so that only such a thread runs the queued
+	 * tasks of the pool inline in {@link Executor#await(Future)}.
+	 *
+	 * @param <T>
+	 *            the generic type
+	 */
+	private static final class PoolTask<T> extends FutureTask<T> {
+
+		/** The pool. */
+		private final ThreadPoolExecutor pool;
+
+		/**
+		 * Instantiates a new pool task.
+		 *
+		 * @param pool
+		 *            the pool
+		 * @param callable
+		 *            the callable
+		 */
+		private PoolTask(ThreadPoolExecutor pool, Callable<T> callable) {
+			super(callable);
+			this.pool = pool;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.util.concurrent.FutureTask#run()
+		 */
+		@Override
+		public void run() {
+			ExecutorService previous = WORKER_OF.get();
+			WORKER_OF.set(pool);
+			try {
+				super.run();
+			} finally {
+				WORKER_OF.set(previous);
+			}
+		}
+	}
+
 	/**
 	 * Gets an Executor instance made of the given executor service.
 	 *
@@ -70,6 +126,17 @@ class Executor implements AutoCloseable {
 		return new Executor(executorService);
 	}
 
+	/**
+	 * Gets an Executor instance which starts a new virtual thread for each task
+	 * on JDK 21 or later, or a new platform thread from a cached thread pool on
+	 * older versions.
+	 *
+	 * @return the executor
+	 */
+	protected static Executor ofVirtualThreads() {
+		return new Executor(VirtualThreads.newThreadPerTaskExecutor());
+	}
+
 	/**
 	 * Gets the default instance of Executor.
 	 *
@@ -89,10 +156,222 @@ class Executor implements AutoCloseable {
 		return threadPool;
 	}
 
+	/**
+	 * Gets the thread pool to run the work submitted with the keys. This
+	 * returns {@link Executor#getThreadPool()} unless overridden to route the
+	 * work to a different pool based on the keys.
+	 *
+	 * @param keys
+	 *            the keys, which may be empty
+	 * @return the thread pool
+	 */
+	protected ExecutorService getThreadPoolForKeys(Object... keys) {
+		return getThreadPool();
+	}
+
+	/**
+	 * Submits the callable to the thread pool for the keys. When this is
+	 * invoked from a worker thread of the same {@link ForkJoinPool}, the task
+	 * is forked into the worker's own queue so that a later
+	 * {@link Executor#await(Future)} from the same worker can take it back and
+	 * run it inline. Likewise, a task submitted to a {@link ThreadPoolExecutor}
+	 * marks the thread running it as a worker of the pool, so that an await
+	 * from it can take a queued task of the pool back and run it inline.
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param callable
+	 *            the callable
+	 * @param keys
+	 *            the keys, which may be empty
+	 * @return the future
+	 */
+	protected <T> Future<T> submit(Callable<T> callable, Object... keys) {
+		ExecutorService pool = getThreadPoolForKeys(keys);
+		if (pool instanceof ForkJoinPool && ForkJoinTask.getPool() == pool) {
+			return ForkJoinTask.adapt(callable).fork();
+		}
+		if (pool instanceof ThreadPoolExecutor) {
+			PoolTask<T> task = new PoolTask<>((ThreadPoolExecutor) pool, callable);
+			pool.execute(task);
+			return task;
+		}
+		return pool.submit(callable);
+	}
+
+	/**
+	 * Executes the runnable in the thread pool for the keys.
+	 *
+	 * @param runnable
+	 *            the runnable
+	 * @param keys
+	 *            the keys, which may be empty
+	 */
+	protected void execute(Runnable runnable, Object... keys) {
+		getThreadPoolForKeys(keys).execute(runnable);
+	}
+
+	/**
+	 * Tells if the work whose submitter only waits for its result can be run
+	 * inline in the submitting thread, avoiding the hand-offs to and from the
+	 * thread pool. This is allowed only for the default thread pool, so that
+	 * the work submitted to a given pool always runs in it. A subclass
+	 * applying a policy to the submitted work vetoes it.
+	 *
+	 * @return true, if the work can be run inline
+	 */
+	protected boolean canRunInline() {
+		return threadPool == DEFAULT_POOL;
+	}
+
+	/**
+	 * Waits for the future submitted to this executor and gets its result,
+	 * without starving the thread pool when the waiting thread is one of its
+	 * workers. <br>
+	 * <br>
+	 * If the awaited task is still queued and the waiting thread is running a
+	 * task submitted to the same thread pool, it is taken out of the queue and
+	 * run inline by the waiting thread. Otherwise the wait is done through a
+	 * {@link ForkJoinPool.ManagedBlocker}, so that a {@link ForkJoinPool}
+	 * activates a spare worker to compensate for the blocked one.
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param future
+	 *            the future
+	 * @return the result
+	 * @throws InterruptedException
+	 *             the interrupted exception
+	 * @throws ExecutionException
+	 *             the execution exception
+	 */
+	protected <T> T await(Future<T> future) throws InterruptedException, ExecutionException {
+		if (!future.isDone()) {
+			runInline(future);
+			if (!future.isDone()) {
+				ForkJoinPool.managedBlock(new FutureBlocker(future, Long.MAX_VALUE));
+			}
+		}
+		return future.get();
+	}
+
+	/**
+	 * Waits for the future submitted to this executor and gets its result, as
+	 * {@link Executor#await(Future)} does, but at most for the given timeout.
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param future
+	 *            the future
+	 * @param timeout
+	 *            the timeout
+	 * @param timeUnit
+	 *            the time unit
+	 * @return the result
+	 * @throws InterruptedException
+	 *             the interrupted exception
+	 * @throws ExecutionException
+	 *             the execution exception
+	 * @throws TimeoutException
+	 *             the timeout exception, if the future is not done in time
+	 */
+	protected <T> T await(Future<T> future, long timeout, TimeUnit timeUnit)
+			throws InterruptedException, ExecutionException, TimeoutException {
+		long deadline = System.nanoTime() + timeUnit.toNanos(timeout);
+		if (!future.isDone()) {
+			runInline(future);
+			if (!future.isDone()) {
+				ForkJoinPool.managedBlock(new FutureBlocker(future, deadline));
+			}
+		}
+		return future.get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Runs the awaited task inline if it is still queued and the waiting
+	 * thread is running a task submitted to the same thread pool, so that it
+	 * does not wait for a thread of the pool it holds.
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param future
+	 *            the future
+	 */
+	@SuppressWarnings("unchecked")
+	protected <T> void runInline(Future<T> future) {
+		if (future instanceof ForkJoinTask) {
+			ForkJoinTask<T> task = (ForkJoinTask<T>) future;
+			if (task.tryUnfork()) {
+				task.quietlyInvoke();
+			}
+		} else if (future instanceof PoolTask) {
+			PoolTask<T> task = (PoolTask<T>) future;
+			if (WORKER_OF.get() == task.pool && task.pool.remove(task)) {
+				task.run();
+			}
+		}
+	}
+
+	/**
+	 * The FutureBlocker to wait for a future in a {@link ForkJoinPool} aware
+	 * manner, until the deadline if any.
+	 */
+	private static final class FutureBlocker implements ForkJoinPool.ManagedBlocker {
+
+		/** The future. */
+		private final Future<?> future;
+
+		/** The deadline in nano seconds, or Long.MAX_VALUE to wait until done. */
+		private final long deadline;
+
+		/**
+		 * Instantiates a new future blocker.
+		 *
+		 * @param future
+		 *            the future
+		 * @param deadline
+		 *            the deadline in nano seconds, or
+		 *            <code>Long.MAX_VALUE</code> to wait until done
+		 */
+		private FutureBlocker(Future<?> future, long deadline) {
+			this.future = future;
+			this.deadline = deadline;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.util.concurrent.ForkJoinPool.ManagedBlocker#block()
+		 */
+		@Override
+		public boolean block() throws InterruptedException {
+			try {
+				if (deadline == Long.MAX_VALUE) {
+					future.get();
+				} else {
+					future.get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+				}
+			} catch (ExecutionException | CancellationException | TimeoutException e) {
+				// The outcome is reported by the subsequent Future.get()
+			}
+			return true;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.util.concurrent.ForkJoinPool.ManagedBlocker#isReleasable()
+		 */
+		@Override
+		public boolean isReleasable() {
+			return future.isDone() || deadline != Long.MAX_VALUE && deadline - System.nanoTime() <= 0L;
+		}
+	}
+
 	/**
 	 * Assert not closed.
 	 */
-	private void assertNotClosed() {
+	protected void assertNotClosed() {
 		if (closed) {
 			throw new IllegalStateException("Already closed");
 		}
@@ -106,9 +385,16 @@ class Executor implements AutoCloseable {
 	@Override
 	public synchronized void close() {
 		if (!closed) {
-			threadPool.shutdownNow();
+			shutdown();
 			closed = true;
 		}
 	}
 
+	/**
+	 * Shuts down the thread pools, which is invoked once on close.
+	 */
+	protected void shutdown() {
+		threadPool.shutdownNow();
+	}
+
 }
@@ -0,0 +1,150 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+
+ *   http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vishag.async;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * The FlagBus class. This is internally used by {@link AsyncContext} to fan
+ * out the payloads published for a flag to its subscriptions. The
+ * subscriptions of a flag are kept in a copy-on-write array which is replaced
+ * with compare-and-set, so that publishing from multiple threads only reads a
+ * snapshot and never takes a lock.
+ *
+ * @author Loganathan.S &lt;https://github.com/loganathan001&gt;
+ */
+class FlagBus {
+
+	/** The empty subscriptions array. */
+	private static final FlagSubscription<?>[] NONE = new FlagSubscription<?>[0];
+
+	/** The subscriptions by flag. */
+	private final Map<ObjectsKey, AtomicReference<FlagSubscription<?>[]>> subscriptions = new ConcurrentHashMap<>();
+
+	/**
+	 * Subscribes to the flag.
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param clazz
+	 *            the clazz
+	 * @param consumer
+	 *            the consumer
+	 * @param queueCapacity
+	 *            the queue capacity, or 0 for direct delivery
+	 * @param executorService
+	 *            the executor service draining the queue
+	 * @param flag
+	 *            the flag
+	 * @return the flag subscription
+	 */
+	<T> FlagSubscription<T> subscribe(Class<T> clazz, Consumer<? super T> consumer, int queueCapacity,
+			ExecutorService executorService, String... flag) {
+		ObjectsKey key = ObjectsKey.of((Object[]) flag);
+		FlagSubscription<T>[] holder = newHolder();
+		holder[0] = new FlagSubscription<>(clazz, consumer, queueCapacity, executorService,
+				() -> unsubscribe(key, holder[0]));
+		while (true) {
+			AtomicReference<FlagSubscription<?>[]> ref = subscriptions.computeIfAbsent(key,
+					k -> new AtomicReference<>(NONE));
+			FlagSubscription<?>[] current = ref.get();
+			FlagSubscription<?>[] updated = Arrays.copyOf(current, current.length + 1);
+			updated[current.length] = holder[0];
+			// Retry if the array is concurrently removed for being empty
+			if (ref.compareAndSet(current, updated) && subscriptions.get(key) == ref) {
+				return holder[0];
+			}
+		}
+	}
+
+	/**
+	 * Unsubscribes from the flag.
+	 *
+	 * @param key
+	 *            the key
+	 * @param subscription
+	 *            the subscription
+	 */
+	private void unsubscribe(ObjectsKey key, FlagSubscription<?> subscription) {
+		AtomicReference<FlagSubscription<?>[]> ref = subscriptions.get(key);
+		if (ref == null) {
+			return;
+		}
+		while (true) {
+			FlagSubscription<?>[] current = ref.get();
+			FlagSubscription<?>[] updated = Arrays.stream(current).filter(sub -> sub != subscription)
+					.toArray(FlagSubscription<?>[]::new);
+			if (ref.compareAndSet(current, updated.length == 0 ? NONE : updated)) {
+				if (updated.length == 0) {
+					// Removes the array only if no subscription is concurrently added to it
+					subscriptions.computeIfPresent(key, (k, r) -> r == ref && r.get().length == 0 ? null : r);
+				}
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Publishes the payload to the subscriptions of the flag.
+	 *
+	 * @param payload
+	 *            the payload
+	 * @param flag
+	 *            the flag
+	 * @return the number of subscriptions which accepted the payload
+	 */
+	int publish(Object payload, String... flag) {
+		AtomicReference<FlagSubscription<?>[]> ref = subscriptions.get(ObjectsKey.of((Object[]) flag));
+		if (ref == null) {
+			return 0;
+		}
+		int accepted = 0;
+		for (FlagSubscription<?> subscription : ref.get()) {
+			if (subscription.deliver(payload)) {
+				accepted++;
+			}
+		}
+		return accepted;
+	}
+
+	/**
+	 * Clears all the subscriptions.
+	 */
+	void clear() {
+		subscriptions.clear();
+	}
+
+	/**
+	 * New holder for a subscription referenced from its own unsubscriber.
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @return the flag subscription[]
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T> FlagSubscription<T>[] newHolder() {
+		return (FlagSubscription<T>[]) new FlagSubscription<?>[1];
+	}
+}
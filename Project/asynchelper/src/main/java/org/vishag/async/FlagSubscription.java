@@ -0,0 +1,237 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+
+ *   http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vishag.async;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * The FlagSubscription class. This is the handle of a subscription made for a
+ * flag using {@link AsyncContext#subscribe(Class, Consumer, String...)} or
+ * {@link AsyncContext#subscribe(Class, Consumer, int, String...)}, which
+ * receives the payloads published for the flag using
+ * {@link AsyncContext#publish(Object, String...)}. <br>
+ * <br>
+ * A direct subscription receives the payloads in the publishing thread. A
+ * queued subscription buffers up to its queue capacity payloads and receives
+ * them sequentially in a thread of its executor service, so that a slow
+ * subscriber does not hold the publisher. When the queue is full the payload
+ * is dropped for that subscription and counted in
+ * {@link FlagSubscription#getDroppedCount()}. <br>
+ * Closing the subscription unsubscribes it from the flag.
+ *
+ * @param <T>
+ *            the generic type
+ *
+ * @author Loganathan.S &lt;https://github.com/loganathan001&gt;
+ */
+public final class FlagSubscription<T> implements AutoCloseable {
+
+	/**
+	 * {@code Logger} for this class.
+	 */
+	private static final Logger logger = Logger.getLogger(FlagSubscription.class.getName());
+
+	/** The type of payloads accepted. */
+	private final Class<T> clazz;
+
+	/** The consumer. */
+	private final Consumer<? super T> consumer;
+
+	/** The queue capacity, or 0 for direct delivery. */
+	private final int queueCapacity;
+
+	/** The queue of payloads pending delivery. */
+	private final Queue<T> queue;
+
+	/** The executor service draining the queue. */
+	private final ExecutorService executorService;
+
+	/** The number of payloads in the queue. */
+	private final AtomicInteger queueSize = new AtomicInteger();
+
+	/** The draining flag. */
+	private final AtomicBoolean draining = new AtomicBoolean();
+
+	/** The delivered count. */
+	private final AtomicLong deliveredCount = new AtomicLong();
+
+	/** The dropped count. */
+	private final AtomicLong droppedCount = new AtomicLong();
+
+	/** The action to unsubscribe. */
+	private final Runnable unsubscriber;
+
+	/** The closed flag. */
+	private volatile boolean closed;
+
+	/**
+	 * Instantiates a new flag subscription.
+	 *
+	 * @param clazz
+	 *            the clazz
+	 * @param consumer
+	 *            the consumer
+	 * @param queueCapacity
+	 *            the queue capacity, or 0 for direct delivery
+	 * @param executorService
+	 *            the executor service draining the queue
+	 * @param unsubscriber
+	 *            the unsubscriber
+	 */
+	FlagSubscription(Class<T> clazz, Consumer<? super T> consumer, int queueCapacity,
+			ExecutorService executorService, Runnable unsubscriber) {
+		if (queueCapacity < 0) {
+			throw new IllegalArgumentException("Invalid queue capacity: " + queueCapacity);
+		}
+		this.clazz = clazz;
+		this.consumer = consumer;
+		this.queueCapacity = queueCapacity;
+		this.queue = queueCapacity > 0 ? new ConcurrentLinkedQueue<>() : null;
+		this.executorService = executorService;
+		this.unsubscriber = unsubscriber;
+	}
+
+	/**
+	 * Delivers a payload to this subscription.
+	 *
+	 * @param payload
+	 *            the payload
+	 * @return true, if the payload is accepted by this subscription
+	 */
+	boolean deliver(Object payload) {
+		if (closed || !clazz.isInstance(payload)) {
+			return false;
+		}
+		T t = clazz.cast(payload);
+		if (queue == null) {
+			accept(t);
+			return true;
+		}
+
+		if (queueSize.incrementAndGet() > queueCapacity) {
+			queueSize.decrementAndGet();
+			droppedCount.incrementAndGet();
+			return false;
+		}
+		queue.offer(t);
+		if (draining.compareAndSet(false, true)) {
+			executorService.execute(this::drain);
+		}
+		return true;
+	}
+
+	/**
+	 * Drains the queued payloads to the consumer.
+	 */
+	private void drain() {
+		do {
+			T t;
+			while ((t = queue.poll()) != null) {
+				queueSize.decrementAndGet();
+				if (!closed) {
+					accept(t);
+				}
+			}
+			draining.set(false);
+		} while (!queue.isEmpty() && draining.compareAndSet(false, true));
+	}
+
+	/**
+	 * Passes the payload to the consumer.
+	 *
+	 * @param t
+	 *            the payload
+	 */
+	private void accept(T t) {
+		try {
+			consumer.accept(t);
+			deliveredCount.incrementAndGet();
+		} catch (RuntimeException e) {
+			logger.config(e.getClass().getSimpleName() + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Gets the number of payloads delivered to the consumer.
+	 *
+	 * @return the delivered count
+	 */
+	public long getDeliveredCount() {
+		return deliveredCount.get();
+	}
+
+	/**
+	 * Gets the number of payloads dropped because the queue was full.
+	 *
+	 * @return the dropped count
+	 */
+	public long getDroppedCount() {
+		return droppedCount.get();
+	}
+
+	/**
+	 * Gets the number of payloads queued and not yet delivered.
+	 *
+	 * @return the pending count
+	 */
+	public int getPendingCount() {
+		return queueSize.get();
+	}
+
+	/**
+	 * Gets the queue capacity. This is <code>0</code> for a direct
+	 * subscription.
+	 *
+	 * @return the queue capacity
+	 */
+	public int getQueueCapacity() {
+		return queueCapacity;
+	}
+
+	/**
+	 * Checks if is closed.
+	 *
+	 * @return true, if is closed
+	 */
+	public boolean isClosed() {
+		return closed;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.AutoCloseable#close()
+	 */
+	@Override
+	public synchronized void close() {
+		if (!closed) {
+			closed = true;
+			unsubscriber.run();
+		}
+	}
+
+}
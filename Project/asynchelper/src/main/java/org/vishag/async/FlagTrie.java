@@ -0,0 +1,172 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+
+ *   http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vishag.async;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The FlagTrie class. This is internally used by {@link AsyncContext} to keep
+ * the hierarchical flag names being waited for, so that all flags under a
+ * namespace can be found by walking only the matching subtree. A hierarchical
+ * flag name is made of segments separated by {@link FlagTrie#SEPARATOR}, for
+ * example <code>"tenant-7/orders/poll"</code>.
+ *
+ * @author Loganathan.S &lt;https://github.com/loganathan001&gt;
+ */
+class FlagTrie {
+
+	/** The separator of the segments of a hierarchical flag name. */
+	static final String SEPARATOR = "/";
+
+	/**
+	 * The Node of the trie.
+	 */
+	private static final class Node {
+
+		/** The parent. */
+		private final Node parent;
+
+		/** The segment. */
+		private final String segment;
+
+		/** The children. */
+		private final Map<String, Node> children = new HashMap<>();
+
+		/** The flag ending at this node, if any is being waited for. */
+		private String flag;
+
+		/**
+		 * Instantiates a new node.
+		 *
+		 * @param parent
+		 *            the parent
+		 * @param segment
+		 *            the segment
+		 */
+		private Node(Node parent, String segment) {
+			this.parent = parent;
+			this.segment = segment;
+		}
+	}
+
+	/** The root. */
+	private final Node root = new Node(null, null);
+
+	/**
+	 * Adds the flag.
+	 *
+	 * @param flag
+	 *            the flag
+	 */
+	synchronized void add(String flag) {
+		Node node = root;
+		for (String segment : flag.split(SEPARATOR)) {
+			Node parent = node;
+			node = node.children.computeIfAbsent(segment, s -> new Node(parent, s));
+		}
+		node.flag = flag;
+	}
+
+	/**
+	 * Removes the flag.
+	 *
+	 * @param flag
+	 *            the flag
+	 */
+	synchronized void remove(String flag) {
+		Node node = find(flag);
+		if (node != null) {
+			node.flag = null;
+			prune(node);
+		}
+	}
+
+	/**
+	 * Removes the flag and all the flags under it, and gets them.
+	 *
+	 * @param flag
+	 *            the flag
+	 * @return the removed flags
+	 */
+	synchronized List<String> removeUnder(String flag) {
+		List<String> flags = new ArrayList<>();
+		Node node = find(flag);
+		if (node == null) {
+			return flags;
+		}
+
+		Deque<Node> pending = new ArrayDeque<>();
+		pending.push(node);
+		while (!pending.isEmpty()) {
+			Node next = pending.pop();
+			if (next.flag != null) {
+				flags.add(next.flag);
+			}
+			next.children.values().forEach(pending::push);
+		}
+		node.flag = null;
+		node.children.clear();
+		prune(node);
+		return flags;
+	}
+
+	/**
+	 * Clears all the flags.
+	 */
+	synchronized void clear() {
+		root.children.clear();
+	}
+
+	/**
+	 * Finds the node of the flag.
+	 *
+	 * @param flag
+	 *            the flag
+	 * @return the node, or null if not found
+	 */
+	private Node find(String flag) {
+		Node node = root;
+		for (String segment : flag.split(SEPARATOR)) {
+			node = node.children.get(segment);
+			if (node == null) {
+				return null;
+			}
+		}
+		return node;
+	}
+
+	/**
+	 * Prunes the node and its ancestors which no longer lead to any flag.
+	 *
+	 * @param node
+	 *            the node
+	 */
+	private void prune(Node node) {
+		while (node != root && node.flag == null && node.children.isEmpty()) {
+			node.parent.children.remove(node.segment);
+			node = node.parent;
+		}
+	}
+}
@@ -0,0 +1,174 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+
+ *   http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vishag.async;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The Jitter class, which spreads the fire times of the schedules made with
+ * {@link SchedulingTask#withJitter(Jitter)} or
+ * {@link SchedulingSupplier#withJitter(Jitter)}, so that many schedules of the
+ * same period, started together, do not fire in lockstep. <br>
+ * <br>
+ * The first fire time can be offset within one period, either randomly with
+ * {@link Jitter#randomOffset()}, or deterministically by the hash of a key
+ * with {@link Jitter#phaseByKey(Object...)}, so that the same schedule gets
+ * the same phase after a restart. Each later fire time can also be delayed
+ * randomly by up to a fraction of the period with
+ * {@link Jitter#withTickJitter(double)}. The tick jitter does not accumulate
+ * for the fixed rate schedules, which keep their nominal fire times. For the
+ * cron schedules the period is the interval up to the next fire time, and the
+ * initial offset does not apply.
+ *
+ * @author Loganathan.S &lt;https://github.com/loganathan001&gt;
+ */
+public final class Jitter {
+
+	/** The none instance. */
+	private static final Jitter NONE = new Jitter(false, false, 0, 0.0);
+
+	/** The random offset flag. */
+	private final boolean randomOffset;
+
+	/** The phase by key flag. */
+	private final boolean phaseByKey;
+
+	/** The hash of the key. */
+	private final int keyHash;
+
+	/** The tick jitter fraction of the period. */
+	private final double tickFraction;
+
+	/**
+	 * Instantiates a new jitter.
+	 *
+	 * @param randomOffset
+	 *            the random offset
+	 * @param phaseByKey
+	 *            the phase by key
+	 * @param keyHash
+	 *            the key hash
+	 * @param tickFraction
+	 *            the tick fraction
+	 */
+	private Jitter(boolean randomOffset, boolean phaseByKey, int keyHash, double tickFraction) {
+		this.randomOffset = randomOffset;
+		this.phaseByKey = phaseByKey;
+		this.keyHash = keyHash;
+		this.tickFraction = tickFraction;
+	}
+
+	/**
+	 * Gets the Jitter which does not spread the fire times.
+	 *
+	 * @return the jitter
+	 */
+	public static Jitter none() {
+		return NONE;
+	}
+
+	/**
+	 * Gets the Jitter offsetting the first fire time randomly within one
+	 * period.
+	 *
+	 * @return the jitter
+	 */
+	public static Jitter randomOffset() {
+		return new Jitter(true, false, 0, 0.0);
+	}
+
+	/**
+	 * Gets the Jitter offsetting the first fire time within one period by the
+	 * hash of the key, so that the schedules of different keys are spread
+	 * evenly over the period and a schedule of the same key always gets the
+	 * same phase.
+	 *
+	 * @param keys
+	 *            the keys
+	 * @return the jitter
+	 */
+	public static Jitter phaseByKey(Object... keys) {
+		return new Jitter(false, true, Arrays.deepHashCode(keys), 0.0);
+	}
+
+	/**
+	 * Gets a copy of this Jitter, which also delays each fire time after the
+	 * first one randomly by up to the given fraction of the period.
+	 *
+	 * @param fraction
+	 *            the fraction of the period, from 0 to 1
+	 * @return the jitter
+	 */
+	public Jitter withTickJitter(double fraction) {
+		if (!(fraction >= 0.0 && fraction <= 1.0)) {
+			throw new IllegalArgumentException("Invalid tick jitter fraction " + fraction);
+		}
+		return new Jitter(randomOffset, phaseByKey, keyHash, fraction);
+	}
+
+	/**
+	 * Gets the offset of the first fire time.
+	 *
+	 * @param periodNanos
+	 *            the period in nano seconds
+	 * @return the offset in nano seconds, from 0 until the period
+	 */
+	long getInitialOffset(long periodNanos) {
+		if (randomOffset) {
+			return (long) (ThreadLocalRandom.current().nextDouble() * periodNanos);
+		}
+		if (phaseByKey) {
+			return (long) (fractionOf(keyHash) * periodNanos);
+		}
+		return 0L;
+	}
+
+	/**
+	 * Gets the random delay of a fire time after the first one.
+	 *
+	 * @param periodNanos
+	 *            the period in nano seconds
+	 * @return the delay in nano seconds, from 0 until the tick jitter fraction
+	 *         of the period
+	 */
+	long getTickJitter(long periodNanos) {
+		if (tickFraction == 0.0) {
+			return 0L;
+		}
+		return (long) (ThreadLocalRandom.current().nextDouble() * tickFraction * periodNanos);
+	}
+
+	/**
+	 * Gets a fraction from 0 until 1, spread uniformly over the hashes.
+	 *
+	 * @param hash
+	 *            the hash
+	 * @return the fraction
+	 */
+	private static double fractionOf(int hash) {
+		// Mix the bits, as the hashes of similar keys differ only in few bits
+		long mixed = hash * 0x9E3779B97F4A7C15L;
+		mixed ^= mixed >>> 32;
+		mixed *= 0xBF58476D1CE4E5B9L;
+		mixed ^= mixed >>> 29;
+		return (mixed >>> 11) * 0x1.0p-53;
+	}
+}
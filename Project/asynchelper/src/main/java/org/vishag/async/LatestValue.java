@@ -0,0 +1,164 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+
+ *   http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vishag.async;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * The LatestValue class, which is the handle of a supplier scheduled with
+ * {@link SchedulingSupplier#scheduleLatestValue(int, int, java.util.concurrent.TimeUnit, boolean, Supplier)}
+ * to poll a value, such as a configuration or a health status, where only the
+ * newest result is of interest. <br>
+ * <br>
+ * Each poll only writes the result into an atomic reference, and
+ * {@link LatestValue#get()} only reads it, so that reading never waits. The
+ * change listeners added with {@link LatestValue#onChange(BiConsumer)} are
+ * invoked in the polling thread when a result is not equal to the previous
+ * one. The polling runs until the handle is closed.
+ *
+ * @param <T>
+ *            the generic type
+ * @author Loganathan.S &lt;https://github.com/loganathan001&gt;
+ */
+public final class LatestValue<T> implements Supplier<T>, AutoCloseable {
+
+	/**
+	 * {@code Logger} for this class.
+	 */
+	private static final Logger logger = Logger.getLogger(LatestValue.class.getName());
+
+	/** The empty listeners array. */
+	private static final BiConsumer<?, ?>[] NONE = new BiConsumer<?, ?>[0];
+
+	/** The value. */
+	private final AtomicReference<T> value = new AtomicReference<>();
+
+	/** The change listeners, replaced as a copy on write. */
+	private final AtomicReference<BiConsumer<?, ?>[]> listeners = new AtomicReference<>(NONE);
+
+	/** The closed flag. */
+	private volatile boolean closed;
+
+	/** The scheduled future. */
+	private volatile ScheduledFuture<?> scheduledFuture;
+
+	/**
+	 * Instantiates a new latest value.
+	 */
+	LatestValue() {
+	}
+
+	/**
+	 * Gets the newest result polled so far.
+	 *
+	 * @return the newest result, or null if none is polled yet
+	 */
+	@Override
+	public T get() {
+		return value.get();
+	}
+
+	/**
+	 * Adds the listener invoked with the previous and the new result, when a
+	 * polled result is not equal to the previous one. The previous result is
+	 * null for the first result.
+	 *
+	 * @param listener
+	 *            the listener
+	 * @return this latest value
+	 */
+	public LatestValue<T> onChange(BiConsumer<? super T, ? super T> listener) {
+		BiConsumer<?, ?>[] current;
+		BiConsumer<?, ?>[] updated;
+		do {
+			current = listeners.get();
+			updated = Arrays.copyOf(current, current.length + 1);
+			updated[current.length] = listener;
+		} while (!listeners.compareAndSet(current, updated));
+		return this;
+	}
+
+	/**
+	 * Updates the value with the polled result.
+	 *
+	 * @param result
+	 *            the result
+	 */
+	@SuppressWarnings("unchecked")
+	void update(T result) {
+		BiConsumer<?, ?>[] changeListeners = listeners.get();
+		if (changeListeners.length == 0) {
+			value.set(result);
+			return;
+		}
+		T previous = value.getAndSet(result);
+		if (!Objects.equals(previous, result)) {
+			for (BiConsumer<?, ?> listener : changeListeners) {
+				try {
+					((BiConsumer<? super T, ? super T>) listener).accept(previous, result);
+				} catch (RuntimeException e) {
+					logger.config(e.getClass().getSimpleName() + ": " + e.getMessage());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Sets the scheduled future polling the value.
+	 *
+	 * @param scheduledFuture
+	 *            the scheduled future
+	 */
+	void setScheduledFuture(ScheduledFuture<?> scheduledFuture) {
+		this.scheduledFuture = scheduledFuture;
+		if (closed) {
+			scheduledFuture.cancel(false);
+		}
+	}
+
+	/**
+	 * Checks if closed, which stops the polling.
+	 *
+	 * @return true, if closed
+	 */
+	public boolean isClosed() {
+		return closed;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.lang.AutoCloseable#close()
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		ScheduledFuture<?> future = scheduledFuture;
+		if (future != null) {
+			future.cancel(false);
+		}
+	}
+}
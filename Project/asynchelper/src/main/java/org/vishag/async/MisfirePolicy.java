@@ -0,0 +1,174 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+
+ *   http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vishag.async;
+
+/**
+ * The MisfirePolicy class, which tells what a schedule does with the runs it
+ * missed. A fixed rate or cron schedule misses its fire times while its
+ * previous run is overrunning, and any schedule misses them while the
+ * application is down, when it is restored from a {@link ScheduleJournal}.
+ * The policy is set with the <code>withMisfirePolicy</code> methods of
+ * {@link SchedulingTask} and {@link SchedulingSupplier}, which also report the
+ * numbers of the skipped and coalesced runs. The default policy fires all the
+ * missed runs.
+ *
+ * @author Loganathan.S &lt;https://github.com/loganathan001&gt;
+ */
+public final class MisfirePolicy {
+
+	/**
+	 * The Kind of the policy.
+	 */
+	enum Kind {
+
+		/** Skip the missed runs, and continue at the next fire time. */
+		SKIP,
+
+		/** Coalesce the missed runs into a single run. */
+		COALESCE,
+
+		/** Fire all the missed runs back-to-back. */
+		FIRE_ALL,
+
+		/** Run overlapping, up to a number of concurrent runs. */
+		CONCURRENT
+	}
+
+	/** The policy skipping the missed runs. */
+	private static final MisfirePolicy SKIP = new MisfirePolicy(Kind.SKIP);
+
+	/** The policy coalescing the missed runs. */
+	private static final MisfirePolicy COALESCE = new MisfirePolicy(Kind.COALESCE);
+
+	/** The policy firing all the missed runs. */
+	private static final MisfirePolicy FIRE_ALL = new MisfirePolicy(Kind.FIRE_ALL);
+
+	/** The kind. */
+	private final Kind kind;
+
+	/** The max number of concurrent runs. */
+	private final int maxConcurrentRuns;
+
+	/**
+	 * Instantiates a new misfire policy.
+	 *
+	 * @param kind
+	 *            the kind
+	 */
+	private MisfirePolicy(Kind kind) {
+		this(kind, 1);
+	}
+
+	/**
+	 * Instantiates a new misfire policy.
+	 *
+	 * @param kind
+	 *            the kind
+	 * @param maxConcurrentRuns
+	 *            the max concurrent runs
+	 */
+	private MisfirePolicy(Kind kind, int maxConcurrentRuns) {
+		this.kind = kind;
+		this.maxConcurrentRuns = maxConcurrentRuns;
+	}
+
+	/**
+	 * Gets the policy skipping the missed runs: the schedule continues at its
+	 * next fire time after now, as if the missed runs had happened. The fire
+	 * times passing while a run is overrunning are skipped.
+	 *
+	 * @return the misfire policy
+	 */
+	public static MisfirePolicy skip() {
+		return SKIP;
+	}
+
+	/**
+	 * Gets the policy coalescing the missed runs: the schedule runs once
+	 * immediately, however many runs were missed, and then continues. The fire
+	 * times passing while a run is overrunning are coalesced into a single run
+	 * after it.
+	 *
+	 * @return the misfire policy
+	 */
+	public static MisfirePolicy coalesce() {
+		return COALESCE;
+	}
+
+	/**
+	 * Gets the policy firing all the missed runs: the schedule runs once for
+	 * each missed run back-to-back immediately, and then continues. The fire
+	 * times passing while a run is overrunning are queued up, and run
+	 * back-to-back after it.
+	 *
+	 * @return the misfire policy
+	 */
+	public static MisfirePolicy fireAll() {
+		return FIRE_ALL;
+	}
+
+	/**
+	 * Gets the policy running the fixed rate and cron schedules overlapping:
+	 * each fire time starts a run even if the previous ones are still running,
+	 * up to the given number of concurrent runs, and the fire times beyond it
+	 * are skipped. The runs missed while the application is down are coalesced
+	 * into a single run. The fixed delay schedules are not affected. <br>
+	 * <br>
+	 * Note: The tasks or suppliers of the schedule must be thread-safe, as
+	 * they may be invoked concurrently.
+	 *
+	 * @param maxConcurrentRuns
+	 *            the max number of concurrent runs
+	 * @return the misfire policy
+	 */
+	public static MisfirePolicy concurrent(int maxConcurrentRuns) {
+		if (maxConcurrentRuns <= 0) {
+			throw new IllegalArgumentException("Invalid max concurrent runs " + maxConcurrentRuns);
+		}
+		return new MisfirePolicy(Kind.CONCURRENT, maxConcurrentRuns);
+	}
+
+	/**
+	 * Gets the kind.
+	 *
+	 * @return the kind
+	 */
+	Kind getKind() {
+		return kind;
+	}
+
+	/**
+	 * Gets the max number of concurrent runs.
+	 *
+	 * @return the max concurrent runs
+	 */
+	int getMaxConcurrentRuns() {
+		return maxConcurrentRuns;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return kind == Kind.CONCURRENT ? "MisfirePolicy[" + kind + " " + maxConcurrentRuns + "]"
+				: "MisfirePolicy[" + kind + "]";
+	}
+}
@@ -39,6 +39,9 @@ class ObjectsKey implements AutoCloseable{
 	/** The closed. */
 	private volatile boolean closed;
 
+	/** The number of threads waiting for this key as a flag, guarded by this. */
+	private int waiters;
+
 	/**
 	 * Instantiates a new objects key.
 	 *
@@ -121,6 +124,24 @@ class ObjectsKey implements AutoCloseable{
 		}
 	}
 	
+	/**
+	 * Adds a thread waiting for this key as a flag. This should be invoked
+	 * while holding the lock of this key.
+	 */
+	void addWaiter() {
+		waiters++;
+	}
+
+	/**
+	 * Removes a thread waiting for this key as a flag. This should be invoked
+	 * while holding the lock of this key.
+	 *
+	 * @return the number of the threads still waiting
+	 */
+	int removeWaiter() {
+		return --waiters;
+	}
+
 	/**
 	 * Assert not closed.
 	 */
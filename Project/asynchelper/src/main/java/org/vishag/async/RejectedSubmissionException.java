@@ -0,0 +1,92 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+
+ *   http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vishag.async;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * The RejectedSubmissionException thrown when a submission is not admitted by
+ * the {@link AdmissionControl}, or reported to its rejection listener when an
+ * already queued submission is dropped. This carries the reason of the
+ * rejection and the queue depth at that time.
+ *
+ * @author Loganathan.S &lt;https://github.com/loganathan001&gt;
+ */
+public class RejectedSubmissionException extends RejectedExecutionException {
+
+	/** The Constant serialVersionUID. */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The Reason of the rejection.
+	 */
+	public enum Reason {
+
+		/** The queue is full. */
+		QUEUE_FULL,
+
+		/** The queue did not have room within the timeout. */
+		TIMED_OUT,
+
+		/** The submitting thread was interrupted while waiting for room. */
+		INTERRUPTED,
+
+		/** The oldest queued submission was dropped to make room. */
+		DROPPED_OLDEST
+	}
+
+	/** The reason. */
+	private final Reason reason;
+
+	/** The queue depth. */
+	private final int queueDepth;
+
+	/**
+	 * Instantiates a new rejected submission exception.
+	 *
+	 * @param reason
+	 *            the reason
+	 * @param queueDepth
+	 *            the queue depth
+	 */
+	RejectedSubmissionException(Reason reason, int queueDepth) {
+		super("Submission rejected: " + reason + " at queue depth " + queueDepth);
+		this.reason = reason;
+		this.queueDepth = queueDepth;
+	}
+
+	/**
+	 * Gets the reason.
+	 *
+	 * @return the reason
+	 */
+	public Reason getReason() {
+		return reason;
+	}
+
+	/**
+	 * Gets the queue depth at the time of rejection.
+	 *
+	 * @return the queue depth
+	 */
+	public int getQueueDepth() {
+		return queueDepth;
+	}
+}
@@ -0,0 +1,134 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+
+ *   http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vishag.async;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The ResultRing class. This is internally used by {@link SchedulingSupplier}
+ * to retain only the last results of a schedule running until a flag, in a
+ * bounded ring buffer. A single producer appends the results without any lock
+ * or allocation, overwriting the oldest ones when full, and the consumers
+ * drain the results appended since the previous drain. A slot read while the
+ * producer may be overwriting it is discarded as already overwritten. The
+ * ring is marked done once its schedule is done, after which nothing more is
+ * appended.
+ *
+ * @param <T>
+ *            the generic type
+ * @author Loganathan.S &lt;https://github.com/loganathan001&gt;
+ */
+class ResultRing<T> {
+
+	/** The slots. */
+	private final AtomicReferenceArray<T> slots;
+
+	/** The capacity. */
+	private final int capacity;
+
+	/** The number of results appended so far. */
+	private final AtomicLong tail = new AtomicLong();
+
+	/** The number of results drained or skipped so far, guarded by this. */
+	private long head;
+
+	/** The latch released once the schedule appending the results is done. */
+	private final CountDownLatch done = new CountDownLatch(1);
+
+	/**
+	 * Instantiates a new result ring.
+	 *
+	 * @param capacity
+	 *            the number of last results retained
+	 */
+	ResultRing(int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("Invalid retention " + capacity);
+		}
+		this.capacity = capacity;
+		this.slots = new AtomicReferenceArray<>(capacity);
+	}
+
+	/**
+	 * Appends the result, overwriting the oldest one when full. This should be
+	 * invoked by a single producer at a time.
+	 *
+	 * @param result
+	 *            the result
+	 */
+	void append(T result) {
+		long index = tail.get();
+		slots.lazySet((int) (index % capacity), result);
+		tail.lazySet(index + 1);
+	}
+
+	/**
+	 * Drains the retained results appended since the previous drain, in the
+	 * order of appending.
+	 *
+	 * @return the results
+	 */
+	synchronized List<T> drain() {
+		long end = tail.get();
+		long index = Math.max(head, end - capacity);
+		List<T> results = new ArrayList<>((int) (end - index));
+		for (; index < end; index++) {
+			T result = slots.get((int) (index % capacity));
+			// The slot is being overwritten once the producer has reached
+			// the next round of it
+			if (index > tail.get() - capacity) {
+				results.add(result);
+			}
+		}
+		head = end;
+		return results;
+	}
+
+	/**
+	 * Marks the ring done, once the schedule appending the results is done.
+	 */
+	void markDone() {
+		done.countDown();
+	}
+
+	/**
+	 * Waits until the ring is marked done, so that a drain after it gets the
+	 * results of all the runs.
+	 *
+	 * @throws InterruptedException
+	 *             the interrupted exception
+	 */
+	void awaitDone() throws InterruptedException {
+		done.await();
+	}
+
+	/**
+	 * Gets the number of results appended so far.
+	 *
+	 * @return the appended count
+	 */
+	long getAppendedCount() {
+		return tail.get();
+	}
+}
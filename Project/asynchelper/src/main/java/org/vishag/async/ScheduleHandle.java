@@ -0,0 +1,133 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+
+ *   http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vishag.async;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The ScheduleHandle interface, which is the handle of a schedule made with a
+ * {@link SchedulingTask} or a {@link SchedulingSupplier}, to control the
+ * schedule while it is running and to get its run statistics. As a
+ * {@link ScheduledFuture}, it completes when the schedule completes, and its
+ * delay is the time until the next fire time.
+ *
+ * @author Loganathan.S &lt;https://github.com/loganathan001&gt;
+ */
+public interface ScheduleHandle extends ScheduledFuture<Void> {
+
+	/**
+	 * Pauses the schedule. The run in progress, if any, completes, and no more
+	 * runs are fired until the schedule is resumed.
+	 */
+	void pause();
+
+	/**
+	 * Resumes the paused schedule, which fires next after its period from
+	 * now, or at its next cron fire time.
+	 */
+	void resume();
+
+	/**
+	 * Checks if the schedule is paused.
+	 *
+	 * @return true, if paused
+	 */
+	boolean isPaused();
+
+	/**
+	 * Sets the period of a fixed rate schedule, or the delay of a fixed delay
+	 * schedule, which takes effect from the next tick.
+	 *
+	 * @param period
+	 *            the period
+	 * @param unit
+	 *            the unit
+	 * @throws UnsupportedOperationException
+	 *             if the schedule is a cron schedule
+	 */
+	void setPeriod(long period, TimeUnit unit);
+
+	/**
+	 * Gets the period of a fixed rate schedule, or the delay of a fixed delay
+	 * schedule.
+	 *
+	 * @param unit
+	 *            the unit
+	 * @return the period, or 0 for a cron schedule
+	 */
+	long getPeriod(TimeUnit unit);
+
+	/**
+	 * Runs the schedule once now, in addition to its fire times, even if it
+	 * is paused. A fixed delay schedule fires next after its delay from the
+	 * completion of this run.
+	 */
+	void runNow();
+
+	/**
+	 * Cancels the schedule.
+	 *
+	 * @return true, if cancelled by this
+	 */
+	default boolean cancel() {
+		return cancel(false);
+	}
+
+	/**
+	 * Gets the number of the runs completed so far.
+	 *
+	 * @return the run count
+	 */
+	long getRunCount();
+
+	/**
+	 * Gets the number of the runs skipped by the misfire policy.
+	 *
+	 * @return the skipped run count
+	 */
+	long getSkippedRunCount();
+
+	/**
+	 * Gets the number of the runs coalesced into another run by the misfire
+	 * policy.
+	 *
+	 * @return the coalesced run count
+	 */
+	long getCoalescedRunCount();
+
+	/**
+	 * Gets the duration of the last run.
+	 *
+	 * @param unit
+	 *            the unit
+	 * @return the last run time, or 0 if not run yet
+	 */
+	long getLastRunTime(TimeUnit unit);
+
+	/**
+	 * Gets the duration of the longest run.
+	 *
+	 * @param unit
+	 *            the unit
+	 * @return the max run time, or 0 if not run yet
+	 */
+	long getMaxRunTime(TimeUnit unit);
+}
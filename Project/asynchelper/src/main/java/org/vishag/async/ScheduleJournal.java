@@ -0,0 +1,366 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+
+ *   http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vishag.async;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * The ScheduleJournal class, which is a durable file backed journal of the
+ * schedules, so that they can be restored after a restart of the application
+ * instead of starting again from their initial delay. A schedule is journaled
+ * under a schedule id when it is scheduled with a {@link SchedulingTask} or a
+ * {@link SchedulingSupplier} got from their <code>withJournal</code> methods,
+ * and when it is scheduled again under the same id, for example after the
+ * restart, it continues from the journaled next fire time, running its missed
+ * runs as per the given {@link MisfirePolicy}. <br>
+ * <br>
+ * The journal is an append-only memory mapped file: each run of a schedule
+ * appends a checksummed record of its next fire time and run count, and the
+ * latest record of each schedule id wins when the journal is opened. A torn
+ * record at the end, for example after a crash, is ignored. The file is
+ * compacted to the latest records when it is full. The records are written to
+ * the mapped memory, so they survive a crash of the application; use
+ * {@link ScheduleJournal#sync()} to also force them to the storage device.
+ *
+ * @author Loganathan.S &lt;https://github.com/loganathan001&gt;
+ */
+public final class ScheduleJournal implements AutoCloseable {
+
+	/**
+	 * {@code Logger} for this class.
+	 */
+	private static final Logger logger = Logger.getLogger(ScheduleJournal.class.getName());
+
+	/** The magic number at the start of the file. */
+	private static final int MAGIC = 0x41534A31;
+
+	/** The size of the header. */
+	private static final int HEADER_SIZE = 4;
+
+	/** The size of a record besides the schedule id: length, next fire time, run count and checksum. */
+	private static final int RECORD_OVERHEAD = 4 + 8 + 8 + 4;
+
+	/** The default capacity in bytes. */
+	private static final int DEFAULT_CAPACITY = 64 * 1024;
+
+	/** The next fire time of a removed schedule. */
+	private static final long REMOVED = -1L;
+
+	/** The file. */
+	private final Path file;
+
+	/** The latest next fire time and run count of the schedule ids. */
+	private final Map<String, long[]> entries = new LinkedHashMap<>();
+
+	/** The channel. */
+	private FileChannel channel;
+
+	/** The mapped buffer, positioned at the end of the records. */
+	private MappedByteBuffer buffer;
+
+	/** The closed. */
+	private boolean closed;
+
+	/**
+	 * Instantiates a new schedule journal.
+	 *
+	 * @param file
+	 *            the file
+	 * @param capacity
+	 *            the capacity
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private ScheduleJournal(Path file, int capacity) throws IOException {
+		this.file = file;
+		channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		try {
+			long size = channel.size();
+			buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+					Math.max(size, Math.max(capacity, HEADER_SIZE + RECORD_OVERHEAD)));
+			if (size == 0) {
+				buffer.putInt(0, MAGIC);
+			} else if (size < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+				throw new IOException("Not a schedule journal: " + file);
+			}
+			replay();
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Opens the schedule journal in the given file, creating it if it does not
+	 * exist.
+	 *
+	 * @param file
+	 *            the file
+	 * @return the schedule journal
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred, or the file is
+	 *             not a schedule journal.
+	 */
+	public static ScheduleJournal open(Path file) throws IOException {
+		return new ScheduleJournal(file, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Opens the schedule journal in the given file, creating it with the given
+	 * initial capacity if it does not exist.
+	 *
+	 * @param file
+	 *            the file
+	 * @param capacity
+	 *            the initial capacity in bytes
+	 * @return the schedule journal
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred, or the file is
+	 *             not a schedule journal.
+	 */
+	public static ScheduleJournal open(Path file, int capacity) throws IOException {
+		return new ScheduleJournal(file, capacity);
+	}
+
+	/**
+	 * Replays the records, up to the end or the first torn record.
+	 */
+	private void replay() {
+		int position = HEADER_SIZE;
+		while (buffer.capacity() - position >= RECORD_OVERHEAD) {
+			int length = buffer.getInt(position);
+			if (length <= 0 || length > buffer.capacity() - position - RECORD_OVERHEAD
+					|| buffer.getInt(position + RECORD_OVERHEAD - 4 + length) != checksum(buffer, position, length)) {
+				break;
+			}
+			byte[] id = new byte[length];
+			ByteBuffer record = buffer.duplicate();
+			record.position(position + 4);
+			record.get(id);
+			apply(new String(id, StandardCharsets.UTF_8), record.getLong(), record.getLong());
+			position += RECORD_OVERHEAD + length;
+		}
+		buffer.position(position);
+	}
+
+	/**
+	 * Applies a record to the entries.
+	 *
+	 * @param scheduleId
+	 *            the schedule id
+	 * @param nextFireTime
+	 *            the next fire time
+	 * @param runCount
+	 *            the run count
+	 */
+	private void apply(String scheduleId, long nextFireTime, long runCount) {
+		if (nextFireTime == REMOVED) {
+			entries.remove(scheduleId);
+		} else {
+			entries.put(scheduleId, new long[] { nextFireTime, runCount });
+		}
+	}
+
+	/**
+	 * Gets the checksum of the record at the given position.
+	 *
+	 * @param buffer
+	 *            the buffer
+	 * @param position
+	 *            the position
+	 * @param length
+	 *            the length of the schedule id
+	 * @return the checksum
+	 */
+	private static int checksum(ByteBuffer buffer, int position, int length) {
+		ByteBuffer record = buffer.duplicate();
+		record.limit(position + RECORD_OVERHEAD - 4 + length).position(position + 4);
+		CRC32 crc = new CRC32();
+		crc.update(record);
+		return (int) crc.getValue();
+	}
+
+	/**
+	 * Appends a record to the buffer at its position. The length is written
+	 * last, after clearing the length of the following record, so that a torn
+	 * record is never read as complete.
+	 *
+	 * @param buffer
+	 *            the buffer, with room for the record and the following length
+	 * @param id
+	 *            the schedule id
+	 * @param nextFireTime
+	 *            the next fire time
+	 * @param runCount
+	 *            the run count
+	 */
+	private static void append(ByteBuffer buffer, byte[] id, long nextFireTime, long runCount) {
+		int position = buffer.position();
+		buffer.position(position + 4);
+		buffer.put(id).putLong(nextFireTime).putLong(runCount);
+		buffer.putInt(checksum(buffer, position, id.length));
+		buffer.putInt(buffer.position(), 0);
+		buffer.putInt(position, id.length);
+	}
+
+	/**
+	 * Makes room for appending the given number of bytes, compacting the file
+	 * to the latest records into a bigger file if needed.
+	 *
+	 * @param needed
+	 *            the needed bytes
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private void makeRoom(int needed) throws IOException {
+		int live = HEADER_SIZE;
+		for (String scheduleId : entries.keySet()) {
+			live += RECORD_OVERHEAD + scheduleId.getBytes(StandardCharsets.UTF_8).length;
+		}
+		int capacity = Math.max(buffer.capacity(), 2 * (live + needed));
+		Path compacted = file.resolveSibling(file.getFileName() + ".tmp");
+		try (FileChannel compactedChannel = FileChannel.open(compacted, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			MappedByteBuffer compactedBuffer = compactedChannel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+			compactedBuffer.putInt(MAGIC);
+			entries.forEach((scheduleId, entry) -> append(compactedBuffer,
+					scheduleId.getBytes(StandardCharsets.UTF_8), entry[0], entry[1]));
+			compactedBuffer.force();
+			int position = compactedBuffer.position();
+			Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			channel.close();
+			channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+			buffer.position(position);
+		}
+	}
+
+	/**
+	 * Records the next fire time and the run count of a schedule.
+	 *
+	 * @param scheduleId
+	 *            the schedule id
+	 * @param nextFireTime
+	 *            the next fire time in milliseconds since the epoch, or -1 to
+	 *            remove the schedule
+	 * @param runCount
+	 *            the run count
+	 */
+	synchronized void record(String scheduleId, long nextFireTime, long runCount) {
+		if (closed) {
+			return;
+		}
+		byte[] id = scheduleId.getBytes(StandardCharsets.UTF_8);
+		try {
+			if (buffer.remaining() < RECORD_OVERHEAD + id.length + 4) {
+				makeRoom(RECORD_OVERHEAD + id.length + 4);
+			}
+			append(buffer, id, nextFireTime, runCount);
+			apply(scheduleId, nextFireTime, runCount);
+		} catch (IOException e) {
+			logger.config(e.getClass().getSimpleName() + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Gets the ids of the journaled schedules.
+	 *
+	 * @return the schedule ids
+	 */
+	public synchronized Set<String> getScheduleIds() {
+		return Collections.unmodifiableSet(new LinkedHashSet<>(entries.keySet()));
+	}
+
+	/**
+	 * Gets the journaled next fire time of the schedule.
+	 *
+	 * @param scheduleId
+	 *            the schedule id
+	 * @return the next fire time in milliseconds since the epoch, or -1 if
+	 *         the schedule is not journaled
+	 */
+	public synchronized long getNextFireTime(String scheduleId) {
+		long[] entry = entries.get(scheduleId);
+		return entry == null ? REMOVED : entry[0];
+	}
+
+	/**
+	 * Gets the journaled run count of the schedule.
+	 *
+	 * @param scheduleId
+	 *            the schedule id
+	 * @return the run count, or 0 if the schedule is not journaled
+	 */
+	public synchronized long getRunCount(String scheduleId) {
+		long[] entry = entries.get(scheduleId);
+		return entry == null ? 0L : entry[1];
+	}
+
+	/**
+	 * Removes the schedule from the journal, so that it starts again from its
+	 * initial delay when it is scheduled next time.
+	 *
+	 * @param scheduleId
+	 *            the schedule id
+	 */
+	public synchronized void remove(String scheduleId) {
+		if (entries.containsKey(scheduleId)) {
+			record(scheduleId, REMOVED, 0L);
+		}
+	}
+
+	/**
+	 * Forces the records to the storage device.
+	 */
+	public synchronized void sync() {
+		if (!closed) {
+			buffer.force();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.AutoCloseable#close()
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		if (!closed) {
+			closed = true;
+			buffer.force();
+			buffer = null;
+			channel.close();
+		}
+	}
+}
@@ -18,30 +18,81 @@
  */
 package org.vishag.async;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * The Scheduler class that comprises of an executor service and methods used to
  * submit tasks and suppliers.
  * 
+ * <br>
+ * <br>
+ * Note: The scheduling is split into a timer, which only fires the triggers,
+ * and a work executor, which runs the scheduled functions, so that a slow
+ * function does not delay the other triggers on the timer. The default
+ * instance uses a single timer thread and a fixed pool of as many worker
+ * threads as the parallelism of the common pool, so that the scheduled work
+ * stays bounded however slow or overlapping it is. An unbounded work executor,
+ * such as a cached thread pool, can be given explicitly with
+ * {@link Scheduler#of(ScheduledExecutorService, ExecutorService)}.
+ * 
  * @author Loganathan.S &lt;https://github.com/loganathan001&gt;
  */
 class Scheduler implements AutoCloseable {
 
-	/** The default scheduled executor service. */
-	static private ScheduledExecutorService defaultScheduledExecutorService = Executors
-			.newScheduledThreadPool(ForkJoinPool.getCommonPoolParallelism());
+	/** The default timer. */
+	static private ScheduledExecutorService defaultTimer = Executors
+			.newSingleThreadScheduledExecutor(newThreadFactory("scheduler-timer"));
+
+	/** The default work executor. */
+	static private ExecutorService defaultWorkExecutor = Executors
+			.newFixedThreadPool(ForkJoinPool.getCommonPoolParallelism(), newThreadFactory("scheduler-worker"));
 	
 	/** The default instance of Scheduler. */
-	private static Scheduler DEFAULT_INSTANCE = new Scheduler(defaultScheduledExecutorService);
+	private static Scheduler DEFAULT_INSTANCE = new Scheduler(defaultTimer, defaultWorkExecutor);
 
-	/** The scheduled executor service. */
+	/** The timer, firing the triggers. */
 	private ScheduledExecutorService scheduledExecutorService;
 
+	/** The work executor, running the scheduled functions. */
+	private ExecutorService workExecutor;
+
+	/** The jitter spreading the fire times. */
+	private final Jitter jitter;
+
+	/** The flag telling the executors are shut down when closed. */
+	private final boolean ownsExecutors;
+
+	/** The journal of the schedules, or null if not journaled. */
+	private final ScheduleJournal journal;
+
+	/** The schedule id in the journal. */
+	private final String scheduleId;
+
+	/** The flag telling the journaled schedule id is taken by a schedule. */
+	private final AtomicBoolean journalClaimed;
+
+	/** The misfire policy. */
+	private final MisfirePolicy misfirePolicy;
+
+	/** The number of the runs skipped by the misfire policy. */
+	private final LongAdder skippedRuns = new LongAdder();
+
+	/** The number of the runs coalesced by the misfire policy. */
+	private final LongAdder coalescedRuns = new LongAdder();
+
 	/** The closed. */
 	private volatile boolean closed;
 	
@@ -84,15 +135,632 @@ class Scheduler implements AutoCloseable {
 		 *            the r
 		 */
 		void consumeResult(R r);
+
+		/**
+		 * Gets the delay until the next invocation, which is the delay of the
+		 * schedule unless adapted by the function.
+		 *
+		 * @param delayNanos
+		 *            the delay of the schedule in nano seconds
+		 * @return the delay in nano seconds
+		 */
+		default long nextDelayNanos(long delayNanos) {
+			return delayNanos;
+		}
+
+		/**
+		 * Invoked once the schedule is done, either completed or cancelled.
+		 */
+		default void onDone() {
+			// Does nothing by default
+		}
+
+		/**
+		 * Restores the number of the runs already made before the schedule is
+		 * restored from the journal, so that a function making a number of
+		 * runs makes only the remaining ones.
+		 *
+		 * @param runCount
+		 *            the journaled run count
+		 */
+		default void restoreRunCount(long runCount) {
+			// Does nothing by default
+		}
 	}
 	
+	/**
+	 * The ScheduledRun, which is the future and the handle of a scheduled
+	 * function. Each trigger fired by the timer hands the function over to the
+	 * work executor, and the function is not run concurrently with itself: the
+	 * triggers fired while it is running are counted and run back-to-back, up
+	 * to the limit of the misfire policy, unless the policy lets the fixed rate
+	 * runs overlap. A fixed rate or cron trigger re-arms itself on the timer,
+	 * and a fixed delay trigger is re-armed after the function completes. Each
+	 * trigger is armed for a generation, which is advanced when the schedule
+	 * is paused, resumed or run now, so that a stale trigger neither runs nor
+	 * re-arms. The future completes when the function can be cancelled, or
+	 * exceptionally if it throws. If the scheduler has a journal, the next
+	 * fire time and the run count are recorded after each run.
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param <R>
+	 *            the generic type
+	 */
+	private final class ScheduledRun<T, R> extends CompletableFuture<Void>
+			implements ScheduleHandle, Runnable {
+
+		/** The scheduling function. */
+		private final SchedulingFunction<T, R> schedulingFunction;
+
+		/** The delay or period in nano seconds. */
+		private volatile long delayNanos;
+
+		/** The fixed rate flag. */
+		private final boolean fixedRate;
+
+		/** The cron expression, or null if not a cron schedule. */
+		private final CronExpression cronExpression;
+
+		/** The last cron fire time in milliseconds since the epoch. */
+		private volatile long cronFireMillis;
+
+		/** The number of the missed runs to catch up on the next fire, guarded by this. */
+		private int catchUpRuns;
+
+		/** The run count. */
+		private final AtomicLong runCount = new AtomicLong();
+
+		/** The number of the runs skipped by the misfire policy. */
+		private final AtomicLong skippedRunCount = new AtomicLong();
+
+		/** The number of the runs coalesced by the misfire policy. */
+		private final AtomicLong coalescedRunCount = new AtomicLong();
+
+		/** The duration of the last run in nano seconds. */
+		private volatile long lastRunNanos;
+
+		/** The duration of the longest run in nano seconds. */
+		private final AtomicLong maxRunNanos = new AtomicLong();
+
+		/** The number of the overlapping runs. */
+		private final AtomicInteger concurrentRuns = new AtomicInteger();
+
+		/** The overlapping run. */
+		private final Runnable concurrentRun = this::runConcurrently;
+
+		/** The number of the triggers fired but not yet run. */
+		private final AtomicInteger pendingTriggers = new AtomicInteger();
+
+		/** The next fire time in nano seconds. */
+		private volatile long nextFireNanos;
+
+		/** The next nominal fire time of a fixed rate trigger, before jitter, guarded by this. */
+		private long nominalFireNanos;
+
+		/** The armed trigger. */
+		private volatile ScheduledFuture<?> trigger;
+
+		/** The generation of the triggers, guarded by this. */
+		private long generation;
+
+		/** The generation of the last fired trigger, re-armed after a fixed delay run. */
+		private volatile long firedGeneration;
+
+		/** The paused flag. */
+		private volatile boolean paused;
+
+		/** The flag telling the armed trigger is a period after the previous run or resume. */
+		private volatile boolean periodArmed;
+
+		/**
+		 * Instantiates a new scheduled run.
+		 *
+		 * @param schedulingFunction
+		 *            the scheduling function
+		 * @param delayNanos
+		 *            the delay nanos
+		 * @param fixedRate
+		 *            the fixed rate
+		 * @param cronExpression
+		 *            the cron expression, or null
+		 */
+		private ScheduledRun(SchedulingFunction<T, R> schedulingFunction, long delayNanos, boolean fixedRate,
+				CronExpression cronExpression) {
+			this.schedulingFunction = schedulingFunction;
+			this.delayNanos = delayNanos;
+			this.fixedRate = fixedRate;
+			this.cronExpression = cronExpression;
+			whenComplete((v, e) -> schedulingFunction.onDone());
+		}
+
+		/**
+		 * Arms the trigger on the timer for the next cron fire time, or
+		 * completes if there is none.
+		 *
+		 * @param armGeneration
+		 *            the generation of the trigger
+		 */
+		private synchronized void armCron(long armGeneration) {
+			long now = System.currentTimeMillis();
+			cronFireMillis = cronExpression.next(Math.max(now, cronFireMillis));
+			if (cronFireMillis < 0) {
+				complete(null);
+				return;
+			}
+			long delay = TimeUnit.MILLISECONDS.toNanos(cronFireMillis - now);
+			arm(System.nanoTime() + delay + jitter.getTickJitter(delay), armGeneration);
+		}
+
+		/**
+		 * Arms the trigger on the timer, unless the generation is stale, or
+		 * the schedule is paused or done.
+		 *
+		 * @param fireNanos
+		 *            the fire time in nano seconds
+		 * @param armGeneration
+		 *            the generation of the trigger
+		 */
+		private synchronized void arm(long fireNanos, long armGeneration) {
+			if (armGeneration != generation || paused || isDone()) {
+				return;
+			}
+			nextFireNanos = fireNanos;
+			try {
+				trigger = scheduledExecutorService.schedule(() -> fire(armGeneration),
+						fireNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+			} catch (RejectedExecutionException e) {
+				cancel(false);
+			}
+			if (isDone()) {
+				disarm();
+			}
+		}
+
+		/**
+		 * Disarms the trigger.
+		 */
+		private void disarm() {
+			ScheduledFuture<?> armed = trigger;
+			if (armed != null) {
+				armed.cancel(false);
+			}
+		}
+
+		/**
+		 * Fires the trigger on the timer, re-arming a fixed rate or cron
+		 * trigger, and dispatches the run.
+		 *
+		 * @param armGeneration
+		 *            the generation of the trigger
+		 */
+		private void fire(long armGeneration) {
+			int triggers;
+			synchronized (this) {
+				if (armGeneration != generation || paused || isDone()) {
+					return;
+				}
+				firedGeneration = armGeneration;
+				if (cronExpression != null) {
+					armCron(armGeneration);
+				} else if (fixedRate) {
+					long period = schedulingFunction.nextDelayNanos(delayNanos);
+					nominalFireNanos += period;
+					periodArmed = true;
+					arm(nominalFireNanos + jitter.getTickJitter(period), armGeneration);
+				}
+				triggers = 1 + catchUpRuns;
+				catchUpRuns = 0;
+			}
+			dispatch(triggers);
+		}
+
+		/**
+		 * Dispatches the triggered runs to the work executor unless the
+		 * function is already running, as per the misfire policy.
+		 *
+		 * @param triggers
+		 *            the number of the triggered runs
+		 */
+		private void dispatch(int triggers) {
+			MisfirePolicy.Kind kind = misfirePolicy.getKind();
+			if (kind == MisfirePolicy.Kind.CONCURRENT && fixedRate) {
+				dispatchConcurrently();
+				return;
+			}
+
+			int limit = kind == MisfirePolicy.Kind.SKIP ? 1
+					: kind == MisfirePolicy.Kind.COALESCE ? 2 : Integer.MAX_VALUE;
+			int pending;
+			int next;
+			do {
+				pending = pendingTriggers.get();
+				next = (int) Math.min(limit, (long) pending + triggers);
+			} while (!pendingTriggers.compareAndSet(pending, next));
+			long dropped = (long) pending + triggers - next;
+			if (dropped > 0) {
+				if (kind == MisfirePolicy.Kind.SKIP) {
+					skippedRuns.add(dropped);
+					skippedRunCount.addAndGet(dropped);
+				} else {
+					coalescedRuns.add(dropped);
+					coalescedRunCount.addAndGet(dropped);
+				}
+			}
+			if (pending == 0) {
+				try {
+					workExecutor.execute(this);
+				} catch (RejectedExecutionException e) {
+					cancel(false);
+				}
+			}
+		}
+
+		/**
+		 * Dispatches an overlapping run, unless the max number of concurrent
+		 * runs are already running.
+		 */
+		private void dispatchConcurrently() {
+			if (concurrentRuns.incrementAndGet() > misfirePolicy.getMaxConcurrentRuns()) {
+				concurrentRuns.decrementAndGet();
+				skippedRuns.increment();
+				skippedRunCount.incrementAndGet();
+				return;
+			}
+			try {
+				workExecutor.execute(concurrentRun);
+			} catch (RejectedExecutionException e) {
+				concurrentRuns.decrementAndGet();
+				cancel(false);
+			}
+		}
+
+		/**
+		 * Runs the function once, overlapping with the other runs.
+		 */
+		private void runConcurrently() {
+			try {
+				if (!isDone() && runOnce()) {
+					record();
+				}
+			} finally {
+				concurrentRuns.decrementAndGet();
+			}
+		}
+
+		/**
+		 * Runs the function once, and completes if it can be cancelled or
+		 * throws.
+		 *
+		 * @return true, if not completed
+		 */
+		private boolean runOnce() {
+			try {
+				if (schedulingFunction.canRun()) {
+					long start = System.nanoTime();
+					schedulingFunction.consumeResult(schedulingFunction.invokeNextFunction());
+					long runNanos = System.nanoTime() - start;
+					lastRunNanos = runNanos;
+					maxRunNanos.accumulateAndGet(runNanos, Math::max);
+					runCount.incrementAndGet();
+				}
+				if (schedulingFunction.canCancel()) {
+					synchronized (this) {
+						// Removed before completing, so that the journal is up to date once done
+						if (journal != null) {
+							journal.remove(scheduleId);
+						}
+						complete(null);
+					}
+					disarm();
+					return false;
+				}
+				return true;
+			} catch (RuntimeException | Error e) {
+				completeExceptionally(e);
+				disarm();
+				return false;
+			}
+		}
+
+		/**
+		 * Records the next fire time and the run count in the journal, if
+		 * any, unless the schedule is completed.
+		 */
+		private synchronized void record() {
+			if (journal != null && (!isDone() || isCancelled())) {
+				journal.record(scheduleId, cronExpression != null ? cronFireMillis
+						: System.currentTimeMillis()
+								+ TimeUnit.NANOSECONDS.toMillis(nextFireNanos - System.nanoTime()),
+						runCount.get());
+			}
+		}
+
+		/* (non-Javadoc)
+		 * @see java.lang.Runnable#run()
+		 */
+		@Override
+		public void run() {
+			do {
+				if (isDone() || !runOnce()) {
+					return;
+				}
+			} while (pendingTriggers.decrementAndGet() > 0);
+
+			if (!fixedRate) {
+				long delay = schedulingFunction.nextDelayNanos(delayNanos);
+				periodArmed = true;
+				arm(System.nanoTime() + delay + jitter.getTickJitter(delay), firedGeneration);
+			}
+			record();
+		}
+
+		/**
+		 * Arms the first trigger at the initial fire time.
+		 *
+		 * @param fireNanos
+		 *            the initial fire time in nano seconds
+		 */
+		private synchronized void start(long fireNanos) {
+			nominalFireNanos = fireNanos;
+			arm(fireNanos, generation);
+		}
+
+		/**
+		 * Restores the schedule from the journal, arming the trigger at the
+		 * journaled next fire time, or as per the misfire policy if it is
+		 * missed.
+		 *
+		 * @param nextFireMillis
+		 *            the journaled next fire time in milliseconds since the
+		 *            epoch
+		 */
+		private synchronized void restore(long nextFireMillis) {
+			long restoredRuns = journal.getRunCount(scheduleId);
+			runCount.set(restoredRuns);
+			schedulingFunction.restoreRunCount(restoredRuns);
+			if (schedulingFunction.canCancel()) {
+				journal.remove(scheduleId);
+				complete(null);
+				return;
+			}
+			long now = System.currentTimeMillis();
+			if (nextFireMillis >= now) {
+				if (cronExpression != null) {
+					cronFireMillis = nextFireMillis;
+				}
+				start(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(nextFireMillis - now));
+				return;
+			}
+
+			long missed;
+			if (cronExpression != null) {
+				missed = 1;
+				for (long fire = cronExpression.next(nextFireMillis); fire >= 0 && fire <= now
+						&& missed < Integer.MAX_VALUE; fire = cronExpression.next(fire)) {
+					missed++;
+				}
+			} else {
+				missed = 1 + TimeUnit.MILLISECONDS.toNanos(now - nextFireMillis) / delayNanos;
+			}
+			switch (misfirePolicy.getKind()) {
+			case SKIP:
+				skippedRuns.add(missed);
+				skippedRunCount.addAndGet(missed);
+				if (cronExpression != null) {
+					armCron(generation);
+				} else {
+					start(System.nanoTime() + delayNanos
+							- TimeUnit.MILLISECONDS.toNanos(now - nextFireMillis) % delayNanos);
+				}
+				break;
+			case FIRE_ALL:
+				catchUpRuns = (int) Math.min(Integer.MAX_VALUE - 1, missed - 1);
+				start(System.nanoTime());
+				break;
+			default:
+				// A single run for the missed ones
+				coalescedRuns.add(missed - 1);
+				coalescedRunCount.addAndGet(missed - 1);
+				start(System.nanoTime());
+			}
+		}
+
+		/* (non-Javadoc)
+		 * @see org.vishag.async.ScheduleHandle#pause()
+		 */
+		@Override
+		public synchronized void pause() {
+			if (!paused) {
+				paused = true;
+				generation++;
+				disarm();
+			}
+		}
+
+		/* (non-Javadoc)
+		 * @see org.vishag.async.ScheduleHandle#resume()
+		 */
+		@Override
+		public synchronized void resume() {
+			if (paused) {
+				paused = false;
+				generation++;
+				if (cronExpression != null) {
+					armCron(generation);
+				} else {
+					periodArmed = true;
+					start(System.nanoTime() + delayNanos);
+				}
+			}
+		}
+
+		/* (non-Javadoc)
+		 * @see org.vishag.async.ScheduleHandle#isPaused()
+		 */
+		@Override
+		public boolean isPaused() {
+			return paused;
+		}
+
+		/* (non-Javadoc)
+		 * @see org.vishag.async.ScheduleHandle#setPeriod(long, java.util.concurrent.TimeUnit)
+		 */
+		@Override
+		public synchronized void setPeriod(long period, TimeUnit unit) {
+			if (cronExpression != null) {
+				throw new UnsupportedOperationException("The period of a cron schedule can not be set");
+			}
+			if (period <= 0) {
+				throw new IllegalArgumentException("Invalid period " + period);
+			}
+			long oldPeriod = delayNanos;
+			delayNanos = unit.toNanos(period);
+			// Re-arms the trigger not yet fired at the new period, unless it is
+			// for the initial delay. A trigger already fired re-arms itself at
+			// the new period.
+			ScheduledFuture<?> armed = trigger;
+			if (!periodArmed || paused || isDone() || armed == null || !armed.cancel(false)) {
+				return;
+			}
+			long fireNanos;
+			if (fixedRate) {
+				nominalFireNanos += delayNanos - oldPeriod;
+				fireNanos = nominalFireNanos;
+			} else {
+				fireNanos = System.nanoTime() + delayNanos;
+			}
+			arm(fireNanos + jitter.getTickJitter(delayNanos), generation);
+		}
+
+		/* (non-Javadoc)
+		 * @see org.vishag.async.ScheduleHandle#getPeriod(java.util.concurrent.TimeUnit)
+		 */
+		@Override
+		public long getPeriod(TimeUnit unit) {
+			return unit.convert(delayNanos, TimeUnit.NANOSECONDS);
+		}
+
+		/* (non-Javadoc)
+		 * @see org.vishag.async.ScheduleHandle#runNow()
+		 */
+		@Override
+		public void runNow() {
+			if (isDone()) {
+				return;
+			}
+			if (!fixedRate) {
+				// The run re-arms the fixed delay trigger, in place of the armed one
+				synchronized (this) {
+					generation++;
+					firedGeneration = generation;
+					disarm();
+				}
+			}
+			dispatch(1);
+		}
+
+		/* (non-Javadoc)
+		 * @see org.vishag.async.ScheduleHandle#getRunCount()
+		 */
+		@Override
+		public long getRunCount() {
+			return runCount.get();
+		}
+
+		/* (non-Javadoc)
+		 * @see org.vishag.async.ScheduleHandle#getSkippedRunCount()
+		 */
+		@Override
+		public long getSkippedRunCount() {
+			return skippedRunCount.get();
+		}
+
+		/* (non-Javadoc)
+		 * @see org.vishag.async.ScheduleHandle#getCoalescedRunCount()
+		 */
+		@Override
+		public long getCoalescedRunCount() {
+			return coalescedRunCount.get();
+		}
+
+		/* (non-Javadoc)
+		 * @see org.vishag.async.ScheduleHandle#getLastRunTime(java.util.concurrent.TimeUnit)
+		 */
+		@Override
+		public long getLastRunTime(TimeUnit unit) {
+			return unit.convert(lastRunNanos, TimeUnit.NANOSECONDS);
+		}
+
+		/* (non-Javadoc)
+		 * @see org.vishag.async.ScheduleHandle#getMaxRunTime(java.util.concurrent.TimeUnit)
+		 */
+		@Override
+		public long getMaxRunTime(TimeUnit unit) {
+			return unit.convert(maxRunNanos.get(), TimeUnit.NANOSECONDS);
+		}
+
+		/* (non-Javadoc)
+		 * @see java.util.concurrent.CompletableFuture#cancel(boolean)
+		 */
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			boolean cancelled = super.cancel(mayInterruptIfRunning);
+			disarm();
+			return cancelled;
+		}
+
+		/* (non-Javadoc)
+		 * @see java.util.concurrent.Delayed#getDelay(java.util.concurrent.TimeUnit)
+		 */
+		@Override
+		public long getDelay(TimeUnit unit) {
+			return unit.convert(nextFireNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+		}
+
+		/* (non-Javadoc)
+		 * @see java.lang.Comparable#compareTo(java.lang.Object)
+		 */
+		@Override
+		public int compareTo(Delayed other) {
+			return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+		}
+	}
+
 	/**
 	 * Instantiates a new scheduler.
 	 *
-	 * @param scheduledExecutorService the scheduled executor service
+	 * @param scheduledExecutorService the scheduled executor service used as the timer
+	 * @param workExecutor the work executor
 	 */
-	private Scheduler(ScheduledExecutorService scheduledExecutorService) {
+	private Scheduler(ScheduledExecutorService scheduledExecutorService, ExecutorService workExecutor) {
+		this(scheduledExecutorService, workExecutor, Jitter.none(), true, null, null, new AtomicBoolean(),
+				MisfirePolicy.fireAll());
+	}
+
+	/**
+	 * Instantiates a new scheduler.
+	 *
+	 * @param scheduledExecutorService the scheduled executor service used as the timer
+	 * @param workExecutor the work executor
+	 * @param jitter the jitter
+	 * @param ownsExecutors the flag telling the executors are shut down when closed
+	 * @param journal the journal, or null
+	 * @param scheduleId the schedule id in the journal
+	 * @param journalClaimed the flag telling the journaled schedule id is taken by a schedule
+	 * @param misfirePolicy the misfire policy
+	 */
+	private Scheduler(ScheduledExecutorService scheduledExecutorService, ExecutorService workExecutor,
+			Jitter jitter, boolean ownsExecutors, ScheduleJournal journal, String scheduleId,
+			AtomicBoolean journalClaimed, MisfirePolicy misfirePolicy) {
 		this.scheduledExecutorService = scheduledExecutorService;
+		this.workExecutor = workExecutor;
+		this.jitter = jitter;
+		this.ownsExecutors = ownsExecutors;
+		this.journal = journal;
+		this.scheduleId = scheduleId;
+		this.journalClaimed = journalClaimed;
+		this.misfirePolicy = misfirePolicy;
 	}
 	
 	/**
@@ -104,6 +772,22 @@ class Scheduler implements AutoCloseable {
 		return DEFAULT_INSTANCE;
 	}
 
+	/**
+	 * New thread factory creating daemon threads.
+	 *
+	 * @param name
+	 *            the name prefix of the threads
+	 * @return the thread factory
+	 */
+	private static ThreadFactory newThreadFactory(String name) {
+		AtomicInteger threadNumber = new AtomicInteger();
+		return runnable -> {
+			Thread thread = new Thread(runnable, name + "-" + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
 	/**
 	 * Do schedule function.
 	 *
@@ -121,33 +805,65 @@ class Scheduler implements AutoCloseable {
 	 *            the wait for previous function
 	 * @param schedulingFunction
 	 *            the scheduling function
-	 * @return the scheduled future
+	 * @return the schedule handle, which completes when the scheduling
+	 *         function can be cancelled
 	 */
-	protected <T, R> ScheduledFuture<?> doScheduleFunction(int initialDelay, int delay, TimeUnit unit,
+	protected <T, R> ScheduleHandle doScheduleFunction(int initialDelay, int delay, TimeUnit unit,
 			boolean waitForPreviousFunction, Scheduler.SchedulingFunction<T, R> schedulingFunction) {
-		final ScheduledFuture<?>[] scheduleFuture = new ScheduledFuture<?>[1];
-		Runnable seq = new Runnable() {
-			@Override
-			public void run() {
-				synchronized (schedulingFunction) {
-					if (schedulingFunction.canRun()) {
-						R res = schedulingFunction.invokeNextFunction();
-						schedulingFunction.consumeResult(res);
-						if (schedulingFunction.canCancel() && scheduleFuture[0] != null) {
-							scheduleFuture[0].cancel(true);
-						}
-					}
-				}
-			}
-		};
-	
-		if (waitForPreviousFunction) {
-			scheduleFuture[0] = scheduledExecutorService.scheduleWithFixedDelay(seq, initialDelay, delay, unit);
-		} else {
-			scheduleFuture[0] = scheduledExecutorService.scheduleAtFixedRate(seq, initialDelay, delay, unit);
+		if (delay <= 0) {
+			throw new IllegalArgumentException("Invalid delay " + delay);
+		}
+		claimJournal();
+		ScheduledRun<T, R> scheduledRun = new ScheduledRun<>(schedulingFunction, unit.toNanos(delay),
+				!waitForPreviousFunction, null);
+		long nextFireMillis = journal == null ? -1L : journal.getNextFireTime(scheduleId);
+		if (nextFireMillis >= 0) {
+			scheduledRun.restore(nextFireMillis);
+			return scheduledRun;
+		}
+		scheduledRun.start(System.nanoTime() + unit.toNanos(Math.max(0, initialDelay))
+				+ jitter.getInitialOffset(scheduledRun.delayNanos));
+		return scheduledRun;
+	}
+
+	/**
+	 * Do schedule function at the fire times of the cron expression.
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param <R>
+	 *            the generic type
+	 * @param cronExpression
+	 *            the cron expression
+	 * @param schedulingFunction
+	 *            the scheduling function
+	 * @return the schedule handle, which completes when the scheduling
+	 *         function can be cancelled
+	 */
+	protected <T, R> ScheduleHandle doScheduleFunction(CronExpression cronExpression,
+			Scheduler.SchedulingFunction<T, R> schedulingFunction) {
+		claimJournal();
+		ScheduledRun<T, R> scheduledRun = new ScheduledRun<>(schedulingFunction, 0L, true, cronExpression);
+		long nextFireMillis = journal == null ? -1L : journal.getNextFireTime(scheduleId);
+		if (nextFireMillis >= 0) {
+			scheduledRun.restore(nextFireMillis);
+			return scheduledRun;
+		}
+		scheduledRun.armCron(0L);
+		return scheduledRun;
+	}
+
+	/**
+	 * Claims the journaled schedule id for a schedule, if journaled, as the
+	 * schedule id is restored by a single schedule.
+	 *
+	 * @throws IllegalStateException
+	 *             if the schedule id is already taken by a schedule
+	 */
+	private void claimJournal() {
+		if (journal != null && !journalClaimed.compareAndSet(false, true)) {
+			throw new IllegalStateException("Schedule id " + scheduleId + " is already taken by a schedule");
 		}
-	
-		return scheduleFuture[0];
 	}
 
 	/* (non-Javadoc)
@@ -156,19 +872,109 @@ class Scheduler implements AutoCloseable {
 	@Override
 	public synchronized void close() {
 		if(!closed) {
-			scheduledExecutorService.shutdownNow();
+			if (ownsExecutors) {
+				scheduledExecutorService.shutdownNow();
+				if (workExecutor != scheduledExecutorService) {
+					workExecutor.shutdownNow();
+				}
+			}
 			closed = true;
 		}
 	}
 
 	/**
-	 * Of scheduled executor service.
+	 * Gets a scheduler sharing the executors of this, which spreads the fire
+	 * times with the given jitter. Closing it does not shut down the shared
+	 * executors.
+	 *
+	 * @param jitter the jitter
+	 * @return the scheduler
+	 */
+	Scheduler withJitter(Jitter jitter) {
+		return new Scheduler(scheduledExecutorService, workExecutor, jitter, false, journal, scheduleId,
+				journalClaimed, misfirePolicy);
+	}
+
+	/**
+	 * Gets a scheduler sharing the executors of this, which journals a single
+	 * schedule under the given schedule id, and restores it from the journal
+	 * as per the misfire policy. Making a second schedule with it, or with the
+	 * schedulers derived from it, fails. Closing it does not shut down the
+	 * shared executors.
+	 *
+	 * @param journal the journal
+	 * @param scheduleId the schedule id
+	 * @param misfirePolicy the misfire policy
+	 * @return the scheduler
+	 */
+	Scheduler withJournal(ScheduleJournal journal, String scheduleId, MisfirePolicy misfirePolicy) {
+		return new Scheduler(scheduledExecutorService, workExecutor, jitter, false, journal, scheduleId,
+				new AtomicBoolean(), misfirePolicy);
+	}
+
+	/**
+	 * Gets a scheduler sharing the executors of this, whose schedules handle
+	 * their missed runs as per the given misfire policy. Closing it does not
+	 * shut down the shared executors.
+	 *
+	 * @param misfirePolicy the misfire policy
+	 * @return the scheduler
+	 */
+	Scheduler withMisfirePolicy(MisfirePolicy misfirePolicy) {
+		return new Scheduler(scheduledExecutorService, workExecutor, jitter, false, journal, scheduleId,
+				journalClaimed, misfirePolicy);
+	}
+
+	/**
+	 * Gets the number of the runs of the schedules of this, skipped by the
+	 * misfire policy.
+	 *
+	 * @return the skipped run count
+	 */
+	long getSkippedRunCount() {
+		return skippedRuns.sum();
+	}
+
+	/**
+	 * Gets the number of the runs of the schedules of this, coalesced by the
+	 * misfire policy.
+	 *
+	 * @return the coalesced run count
+	 */
+	long getCoalescedRunCount() {
+		return coalescedRuns.sum();
+	}
+
+	/**
+	 * Gets the misfire policy of the schedules of this.
+	 *
+	 * @return the misfire policy
+	 */
+	MisfirePolicy getMisfirePolicy() {
+		return misfirePolicy;
+	}
+
+	/**
+	 * Of scheduled executor service, which is used both as the timer and the
+	 * work executor.
 	 *
 	 * @param scheduledExecutorService the scheduled executor service
 	 * @return the scheduler
 	 */
 	public static Scheduler ofScheduledExecutorService(ScheduledExecutorService scheduledExecutorService) {
-		return new Scheduler(scheduledExecutorService);
+		return new Scheduler(scheduledExecutorService, scheduledExecutorService);
+	}
+
+	/**
+	 * Of scheduled executor service used as the timer, and a separate work
+	 * executor running the scheduled functions.
+	 *
+	 * @param scheduledExecutorService the scheduled executor service used as the timer
+	 * @param workExecutor the work executor
+	 * @return the scheduler
+	 */
+	public static Scheduler of(ScheduledExecutorService scheduledExecutorService, ExecutorService workExecutor) {
+		return new Scheduler(scheduledExecutorService, workExecutor);
 	}
 
 }
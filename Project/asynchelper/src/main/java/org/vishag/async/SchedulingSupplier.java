@@ -21,15 +21,22 @@ package org.vishag.async;
 
 import java.util.LinkedList;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
 import java.util.function.Supplier;
 import java.util.logging.Logger;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * The SchedulingSupplier Helper class with methods for scheduling Suppliers and
@@ -39,11 +46,14 @@ import java.util.stream.Stream;
  * <br>
  * Note: In most of the cases default instance obtained with
  * ({@link SchedulingSupplier#getDefault()}) is sufficient, which internally
- * creates a {@link ScheduledThreadPoolExecutor} and uses it. But it is possible
+ * creates a timer thread firing the schedules and a separate pool of worker threads
+ * running the scheduled code. But it is possible
  * to use {@link SchedulingSupplier#of(ScheduledExecutorService)}) or
  * {@link SchedulingSupplier#of(ScheduledExecutorService, AsyncContext)} where
  * an instance of {@code ScheduledThreadPoolExecutor} can be passed explicitly
- * if required.
+ * if required. The timer can also be separated from the work executor running
+ * the scheduled code with
+ * {@link SchedulingSupplier#of(ScheduledExecutorService, ExecutorService)}.
  * 
  * @author Loganathan.S &lt;https://github.com/loganathan001&gt;
  */
@@ -107,6 +117,115 @@ public final class SchedulingSupplier implements AutoCloseable{
 		return new SchedulingSupplier(Scheduler.ofScheduledExecutorService(scheduledExecutorService), asyncContext);
 	}
 
+	/**
+	 * Gets a new instance of SchedulingSupplier with the given scheduled executor service
+	 * used only as the timer firing the schedules, and the given work executor
+	 * running the scheduled code, so that a slow scheduled code does not delay
+	 * the other schedules.
+	 *
+	 * @param scheduledExecutorService the scheduled executor service used as the timer
+	 * @param workExecutor the work executor
+	 * @return the scheduling supplier
+	 */
+	public static SchedulingSupplier of(ScheduledExecutorService scheduledExecutorService, ExecutorService workExecutor) {
+		return of(scheduledExecutorService, workExecutor, AsyncContext.getDefault());
+	}
+
+	/**
+	 * Gets a new instance of SchedulingSupplier with the given scheduled executor service
+	 * used only as the timer firing the schedules, the given work executor
+	 * running the scheduled code and the given async context.
+	 *
+	 * @param scheduledExecutorService the scheduled executor service used as the timer
+	 * @param workExecutor the work executor
+	 * @param asyncContext the async context
+	 * @return the scheduling supplier
+	 */
+	public static SchedulingSupplier of(ScheduledExecutorService scheduledExecutorService, ExecutorService workExecutor,
+			AsyncContext asyncContext) {
+		return new SchedulingSupplier(Scheduler.of(scheduledExecutorService, workExecutor), asyncContext);
+	}
+
+	/**
+	 * Gets a new instance of SchedulingSupplier sharing the executors and the async
+	 * context of this, which spreads the fire times of its schedules with the
+	 * given jitter, so that many schedules of the same period do not fire in
+	 * lockstep. Closing the new instance does not shut down the shared
+	 * executors.
+	 *
+	 * @param jitter the jitter
+	 * @return the scheduling supplier
+	 */
+	public SchedulingSupplier withJitter(Jitter jitter) {
+		assertNotClosed();
+		return new SchedulingSupplier(scheduler.withJitter(jitter), asyncContext);
+	}
+
+	/**
+	 * Gets a new instance of SchedulingSupplier sharing the executors and the
+	 * async context of this, whose schedule is journaled under the given
+	 * schedule id in the given {@link ScheduleJournal}. The schedule starts at
+	 * the journaled next fire time if the schedule id is already in the
+	 * journal, for example after a restart of the application, and the runs
+	 * missed meanwhile are run as per the given {@link MisfirePolicy}. A
+	 * schedule of a number of runs makes only the runs remaining after the
+	 * journaled run count, and the results of the runs made before the restore
+	 * are cancelled. The schedule is removed from the journal when it
+	 * completes. Closing the new instance does not shut down the shared
+	 * executors. <br>
+	 * <br>
+	 * Note: The new instance makes a single schedule, as the schedule id is
+	 * restored by one schedule, and a second schedule made with it fails with
+	 * an {@link IllegalStateException}.
+	 *
+	 * @param journal the journal
+	 * @param scheduleId the schedule id
+	 * @param misfirePolicy the misfire policy
+	 * @return the scheduling supplier
+	 */
+	public SchedulingSupplier withJournal(ScheduleJournal journal, String scheduleId, MisfirePolicy misfirePolicy) {
+		assertNotClosed();
+		return new SchedulingSupplier(scheduler.withJournal(journal, scheduleId, misfirePolicy), asyncContext);
+	}
+
+	/**
+	 * Gets a new instance of SchedulingSupplier sharing the executors and the async
+	 * context of this, whose fixed rate and cron schedules handle the fire
+	 * times missed while a run is overrunning as per the given
+	 * {@link MisfirePolicy}, instead of running them all back-to-back. The
+	 * runs skipped and coalesced by the policy are counted in
+	 * {@link SchedulingSupplier#getSkippedRunCount()} and
+	 * {@link SchedulingSupplier#getCoalescedRunCount()} of the new instance. Closing
+	 * the new instance does not shut down the shared executors.
+	 *
+	 * @param misfirePolicy the misfire policy
+	 * @return the scheduling supplier
+	 */
+	public SchedulingSupplier withMisfirePolicy(MisfirePolicy misfirePolicy) {
+		assertNotClosed();
+		return new SchedulingSupplier(scheduler.withMisfirePolicy(misfirePolicy), asyncContext);
+	}
+
+	/**
+	 * Gets the number of the runs of the schedules of this, skipped by the
+	 * misfire policy.
+	 *
+	 * @return the skipped run count
+	 */
+	public long getSkippedRunCount() {
+		return scheduler.getSkippedRunCount();
+	}
+
+	/**
+	 * Gets the number of the runs of the schedules of this, coalesced into
+	 * another run by the misfire policy.
+	 *
+	 * @return the coalesced run count
+	 */
+	public long getCoalescedRunCount() {
+		return scheduler.getCoalescedRunCount();
+	}
+
 	/**
 	 * Schedules multiple suppliers to be invoked sequentially (as per the
 	 * <code>initialDelay</code>, <code>delay</code> and
@@ -147,6 +266,147 @@ public final class SchedulingSupplier implements AutoCloseable{
 		return doScheduleSupplier(initialDelay, delay, unit, waitForPreviousTask, suppliers);
 	}
 
+	/**
+	 * Schedules multiple suppliers to be invoked sequentially (as per the
+	 * <code>initialDelay</code>, <code>delay</code> and
+	 * <code>waitForPreviousTask</code> arguments) and gets an array of result
+	 * futures, one per supplier, which complete when the scheduled Supplier
+	 * code execution completes. The results can be composed without waiting,
+	 * for example using {@link CompletableFuture#thenApply(Function)} or
+	 * {@link CompletableFuture#allOf(CompletableFuture...)}. If a supplier
+	 * throws, the schedule stops and its future and the ones of the remaining
+	 * suppliers complete exceptionally.
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param initialDelay
+	 *            the initial delay for the first Supplier invocation
+	 * @param delay
+	 *            if<code>waitForPreviousTask</code> argument is
+	 *            <code>true</code> this is the delay between the completion of
+	 *            the predecessor supplier code execution and its succeeding
+	 *            supplier code start. Otherwise, the delay will be periodic
+	 *            from the start of the initial task (not related to the
+	 *            completion of the suppliers' code execution).
+	 * @param unit
+	 *            the {@link TimeUnit} for which the <code>initialDelay</code>
+	 *            and <code>delay</code> arguments are to be used.
+	 * @param waitForPreviousTask
+	 *            Set it to <code>true</code> argument is.... <code>true</code>
+	 *            this is the delay between the completion of the predecessor
+	 *            supplier code execution and its succeeding supplier code
+	 *            start. Otherwise, the delay will be periodic from the start of
+	 *            the initial task (not related to the completion of the
+	 *            suppliers' code execution).
+	 * @param suppliers
+	 *            the suppliers to be scheduled sequentially
+	 * @return the array of result futures
+	 */
+	public <T> CompletableFuture<T>[] scheduleSuppliersAsFutures(int initialDelay, int delay, TimeUnit unit,
+			boolean waitForPreviousTask, @SuppressWarnings("unchecked") Supplier<T>... suppliers) {
+		assertNotClosed();
+		return doScheduleSupplierAsFutures(schedulingSuppliers -> getScheduler().doScheduleFunction(initialDelay,
+				delay, unit, waitForPreviousTask, schedulingSuppliers), suppliers);
+	}
+
+	/**
+	 * Schedules multiple suppliers to be invoked sequentially, one at each
+	 * fire time of the cron expression, and gets an array of result Suppliers
+	 * handles. The result of each suppliers can be obtained by calling the
+	 * {@link Supplier#get()} from the returning suppliers which will wait until
+	 * the scheduled Supplier code execution completes.
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param cronExpression
+	 *            the cron expression giving the fire times
+	 * @param suppliers
+	 *            the suppliers to be scheduled sequentially
+	 * @return the array of result supplier, whose result can be obtained using
+	 *         {@link Supplier#get()}, which may wait until the completion of
+	 *         Supplier code execution.
+	 */
+	public <T> Supplier<T>[] scheduleSuppliers(CronExpression cronExpression,
+			@SuppressWarnings("unchecked") Supplier<T>... suppliers) {
+		return doScheduleSupplier(
+				schedulingSuppliers -> getScheduler().doScheduleFunction(cronExpression, schedulingSuppliers),
+				suppliers);
+	}
+
+	/**
+	 * Schedules multiple suppliers to be invoked sequentially, one at each
+	 * fire time of the cron expression, and this scheduling suppliers will be
+	 * rotated until a flag is notified using
+	 * {@link AsyncContext#notifyAndGetForFlag(Class, String...)} invocation
+	 * with the same flag, in same thread or different thread, which will also
+	 * return a stream of results.
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param cronExpression
+	 *            the cron expression giving the fire times
+	 * @param flag
+	 *            the flag with which the suppliers will be rotated for
+	 *            scheduling, until notified using
+	 *            {@link AsyncContext#notifyAndGetForFlag(Class, String...)}
+	 * @param suppliers
+	 *            the suppliers to be scheduled sequentially and rotated until
+	 *            notified using
+	 *            {@link AsyncContext#notifyAndGetForFlag(Class, String...)}
+	 * @return the schedule handle
+	 */
+	public <T> ScheduleHandle scheduleSuppliersUntilFlag(CronExpression cronExpression, String flag,
+			@SuppressWarnings("unchecked") Supplier<T>... suppliers) {
+		return doScheduleSupplierUntilFlag(
+				schedulingSuppliers -> getScheduler().doScheduleFunction(cronExpression, schedulingSuppliers),
+				suppliers, flag);
+	}
+
+	/**
+	 * Schedules multiple suppliers to be invoked sequentially (as per the
+	 * <code>initialDelay</code>, <code>delay</code> and
+	 * <code>waitForPreviousTask</code> arguments), and this scheduling
+	 * suppliers will be rotated until a flag is notified using
+	 * {@link AsyncContext#notifyAndGetForFlag(Class, String...)} invocation with the
+	 * same flag, in same thread or different thread, which will also return a
+	 * stream of results.
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param initialDelay
+	 *            the initial delay for the first Supplier invocation
+	 * @param delay
+	 *            if<code>waitForPreviousTask</code> argument is
+	 *            <code>true</code> this is the delay between the completion of
+	 *            the predecessor supplier code execution and its succeeding
+	 *            supplier code start. Otherwise, the delay will be periodic
+	 *            from the start of the initial task (not related to the
+	 *            completion of the suppliers' code execution).
+	 * @param unit
+	 *            the {@link TimeUnit} for which the <code>initialDelay</code>
+	 *            and <code>delay</code> arguments are to be used.
+	 * @param waitForPreviousTask
+	 *            Set it to <code>true</code> argument is.... <code>true</code>
+	 *            this is the delay between the completion of the predecessor
+	 *            supplier code execution and its succeeding supplier code
+	 *            start. Otherwise, the delay will be periodic from the start of
+	 *            the initial task (not related to the completion of the
+	 *            suppliers' code execution).
+	 * @param flag
+	 *            the flag with which the suppliers will be rotated for
+	 *            scheduling, until notified using
+	 *            {@link AsyncContext#notifyAndGetForFlag(Class, String...)}
+	 * @param suppliers
+	 *            the suppliers to be scheduled sequentially and rotated until
+	 *            notified using
+	 *            {@link AsyncContext#notifyAndGetForFlag(Class, String...)}
+	 * @return the schedule handle
+	 */
+	public <T> ScheduleHandle scheduleSuppliersUntilFlag(int initialDelay, int delay, TimeUnit unit,
+			boolean waitForPreviousTask, String flag, @SuppressWarnings("unchecked") Supplier<T>... suppliers) {
+		return doScheduleSupplierUntilFlag(initialDelay, delay, unit, waitForPreviousTask, suppliers, flag);
+	}
+
 	/**
 	 * Schedules multiple suppliers to be invoked sequentially (as per the
 	 * <code>initialDelay</code>, <code>delay</code> and
@@ -154,6 +414,65 @@ public final class SchedulingSupplier implements AutoCloseable{
 	 * suppliers will be rotated until a flag is notified using
 	 * {@link AsyncContext#notifyAndGetForFlag(Class, String...)} invocation with the
 	 * same flag, in same thread or different thread, which will also return a
+	 * stream of the retained results. <br>
+	 * Only the last <code>retention</code> results are retained in a bounded
+	 * ring buffer, so that the memory stays constant for a long running
+	 * schedule. The retained results can also be drained while the schedule
+	 * keeps running, using
+	 * {@link AsyncContext#drainRetainedResults(Class, String...)}. The results
+	 * are retained until the schedule is done, however it ends, and only one
+	 * schedule at a time retains the results for the flag: scheduling another
+	 * one fails with an {@link IllegalStateException}.
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param initialDelay
+	 *            the initial delay for the first Supplier invocation
+	 * @param delay
+	 *            if<code>waitForPreviousTask</code> argument is
+	 *            <code>true</code> this is the delay between the completion of
+	 *            the predecessor supplier code execution and its succeeding
+	 *            supplier code start. Otherwise, the delay will be periodic
+	 *            from the start of the initial task (not related to the
+	 *            completion of the suppliers' code execution).
+	 * @param unit
+	 *            the {@link TimeUnit} for which the <code>initialDelay</code>
+	 *            and <code>delay</code> arguments are to be used.
+	 * @param waitForPreviousTask
+	 *            Set it to <code>true</code> argument is.... <code>true</code>
+	 *            this is the delay between the completion of the predecessor
+	 *            supplier code execution and its succeeding supplier code
+	 *            start. Otherwise, the delay will be periodic from the start of
+	 *            the initial task (not related to the completion of the
+	 *            suppliers' code execution).
+	 * @param flag
+	 *            the flag with which the suppliers will be rotated for
+	 *            scheduling, until notified using
+	 *            {@link AsyncContext#notifyAndGetForFlag(Class, String...)}
+	 * @param retention
+	 *            the number of last results retained
+	 * @param suppliers
+	 *            the suppliers to be scheduled sequentially and rotated until
+	 *            notified using
+	 *            {@link AsyncContext#notifyAndGetForFlag(Class, String...)}
+	 * @return the schedule handle
+	 */
+	public <T> ScheduleHandle scheduleSuppliersUntilFlag(int initialDelay, int delay, TimeUnit unit,
+			boolean waitForPreviousTask, String flag, int retention,
+			@SuppressWarnings("unchecked") Supplier<T>... suppliers) {
+		assertNotClosed();
+		return doScheduleSupplierUntilFlagRetaining(schedulingSuppliers -> getScheduler()
+				.doScheduleFunction(initialDelay, delay, unit, waitForPreviousTask, schedulingSuppliers), suppliers,
+				flag, retention);
+	}
+
+	/**
+	 * Schedules a single suppliers to be invoked repeatedly (as per the
+	 * <code>initialDelay</code>, <code>delay</code> and
+	 * <code>waitForPreviousTask</code> arguments), and this scheduling supplier
+	 * will be repeatedly until a flag is notified using
+	 * {@link AsyncContext#notifyAndGetForFlag(Class, String...)} invocation with the
+	 * same flag, in same thread or different thread, which will also return a
 	 * stream of results.
 	 *
 	 * @param <T>
@@ -181,67 +500,674 @@ public final class SchedulingSupplier implements AutoCloseable{
 	 *            the flag with which the suppliers will be rotated for
 	 *            scheduling, until notified using
 	 *            {@link AsyncContext#notifyAndGetForFlag(Class, String...)}
+	 * @param supplier
+	 *            the single supplier to be scheduled sequentially and rotated
+	 *            until notified using
+	 *            {@link AsyncContext#notifyAndGetForFlag(Class, String...)}
+	 * @return the schedule handle
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> ScheduleHandle scheduleSupplierUntilFlag(int initialDelay, int delay, TimeUnit unit,
+			boolean waitForPreviousTask, String flag, Supplier<T> supplier) {
+		return scheduleSuppliersUntilFlag(initialDelay, delay, unit, waitForPreviousTask, flag, supplier);
+	}
+
+	/**
+	 * Schedules multiple suppliers to be invoked sequentially (as per the
+	 * <code>initialDelay</code>, <code>delay</code> and
+	 * <code>waitForPreviousTask</code> arguments), and this scheduling
+	 * suppliers will be rotated until a flag is notified using
+	 * {@link AsyncContext#notifyFlag(String...)} or
+	 * {@link AsyncContext#notifyAllFlag(String...)} invocation with the same
+	 * flag, in same thread or different thread. <br>
+	 * <br>
+	 * Unlike
+	 * {@link SchedulingSupplier#scheduleSuppliersUntilFlag(int, int, TimeUnit, boolean, String, Supplier...)},
+	 * the results are not stored in the {@link AsyncContext}, instead they are
+	 * returned as a live {@link Stream} which yields each result as soon as it
+	 * is produced and ends once the flag is notified. Only the results which
+	 * are not yet consumed from the stream are retained. Closing the stream
+	 * stops the scheduling.
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param initialDelay
+	 *            the initial delay for the first Supplier invocation
+	 * @param delay
+	 *            if<code>waitForPreviousTask</code> argument is
+	 *            <code>true</code> this is the delay between the completion of
+	 *            the predecessor supplier code execution and its succeeding
+	 *            supplier code start. Otherwise, the delay will be periodic
+	 *            from the start of the initial task (not related to the
+	 *            completion of the suppliers' code execution).
+	 * @param unit
+	 *            the {@link TimeUnit} for which the <code>initialDelay</code>
+	 *            and <code>delay</code> arguments are to be used.
+	 * @param waitForPreviousTask
+	 *            Set it to <code>true</code> argument is.... <code>true</code>
+	 *            this is the delay between the completion of the predecessor
+	 *            supplier code execution and its succeeding supplier code
+	 *            start. Otherwise, the delay will be periodic from the start of
+	 *            the initial task (not related to the completion of the
+	 *            suppliers' code execution).
+	 * @param flag
+	 *            the flag with which the suppliers will be rotated for
+	 *            scheduling, until notified using
+	 *            {@link AsyncContext#notifyFlag(String...)} or
+	 *            {@link AsyncContext#notifyAllFlag(String...)}
+	 * @param suppliers
+	 *            the suppliers to be scheduled sequentially and rotated until
+	 *            the flag is notified
+	 * @return the live {@link Stream} of results
+	 */
+	public <T> Stream<T> scheduleSuppliersUntilFlagAsStream(int initialDelay, int delay, TimeUnit unit,
+			boolean waitForPreviousTask, String flag, @SuppressWarnings("unchecked") Supplier<T>... suppliers) {
+		return doScheduleSupplierUntilFlagAsStream(initialDelay, delay, unit, waitForPreviousTask, suppliers, flag);
+	}
+
+	/**
+	 * Schedules a single supplier to be invoked repeatedly (as per the
+	 * <code>initialDelay</code>, <code>delay</code> and
+	 * <code>waitForPreviousTask</code> arguments) until a flag is notified
+	 * using {@link AsyncContext#notifyFlag(String...)} or
+	 * {@link AsyncContext#notifyAllFlag(String...)}, and gets the live
+	 * {@link Stream} of results. See
+	 * {@link SchedulingSupplier#scheduleSuppliersUntilFlagAsStream(int, int, TimeUnit, boolean, String, Supplier...)}.
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param initialDelay
+	 *            the initial delay for the first Supplier invocation
+	 * @param delay
+	 *            if<code>waitForPreviousTask</code> argument is
+	 *            <code>true</code> this is the delay between the completion of
+	 *            the predecessor supplier code execution and its succeeding
+	 *            supplier code start. Otherwise, the delay will be periodic
+	 *            from the start of the initial task (not related to the
+	 *            completion of the suppliers' code execution).
+	 * @param unit
+	 *            the {@link TimeUnit} for which the <code>initialDelay</code>
+	 *            and <code>delay</code> arguments are to be used.
+	 * @param waitForPreviousTask
+	 *            Set it to <code>true</code> argument is.... <code>true</code>
+	 *            this is the delay between the completion of the predecessor
+	 *            supplier code execution and its succeeding supplier code
+	 *            start. Otherwise, the delay will be periodic from the start of
+	 *            the initial task (not related to the completion of the
+	 *            suppliers' code execution).
+	 * @param flag
+	 *            the flag with which the supplier will be scheduled, until
+	 *            notified using {@link AsyncContext#notifyFlag(String...)} or
+	 *            {@link AsyncContext#notifyAllFlag(String...)}
+	 * @param supplier
+	 *            the single supplier to be scheduled repeatedly until the flag
+	 *            is notified
+	 * @return the live {@link Stream} of results
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> Stream<T> scheduleSupplierUntilFlagAsStream(int initialDelay, int delay, TimeUnit unit,
+			boolean waitForPreviousTask, String flag, Supplier<T> supplier) {
+		return scheduleSuppliersUntilFlagAsStream(initialDelay, delay, unit, waitForPreviousTask, flag, supplier);
+	}
+
+	/**
+	 * Schedules multiple suppliers to be invoked sequentially (as per the
+	 * <code>initialDelay</code>, <code>delay</code> and
+	 * <code>waitForPreviousTask</code> arguments), waits for the completion of
+	 * execution of all scheduled Suppliers and gets a {@link Stream} of
+	 * results.
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param initialDelay
+	 *            the initial delay for the first Supplier invocation
+	 * @param delay
+	 *            if<code>waitForPreviousTask</code> argument is
+	 *            <code>true</code> this is the delay between the completion of
+	 *            the predecessor supplier code execution and its succeeding
+	 *            supplier code start. Otherwise, the delay will be periodic
+	 *            from the start of the initial task (not related to the
+	 *            completion of the suppliers' code execution).
+	 * @param unit
+	 *            the {@link TimeUnit} for which the <code>initialDelay</code>
+	 *            and <code>delay</code> arguments are to be used.
+	 * @param waitForPreviousTask
+	 *            Set it to <code>true</code> argument is.... <code>true</code>
+	 *            this is the delay between the completion of the predecessor
+	 *            supplier code execution and its succeeding supplier code
+	 *            start. Otherwise, the delay will be periodic from the start of
+	 *            the initial task (not related to the completion of the
+	 *            suppliers' code execution).
+	 * @param suppliers
+	 *            the suppliers to be scheduled sequentially
+	 * @return the {@link Stream} of results, in the order of the suppliers,
+	 *         which retains only the results completed but not yet consumed
+	 */
+	public <T> Stream<T> scheduleSuppliersAndWait(int initialDelay, int delay, TimeUnit unit,
+			boolean waitForPreviousTask, @SuppressWarnings("unchecked") Supplier<T>... suppliers) {
+		assertNotClosed();
+		return streamInOrder(doScheduleSupplierAsFutures(schedulingSuppliers -> getScheduler()
+				.doScheduleFunction(initialDelay, delay, unit, waitForPreviousTask, schedulingSuppliers), suppliers));
+	}
+
+	/**
+	 * Schedules multiple suppliers to be invoked sequentially (as per the
+	 * <code>initialDelay</code>, <code>delay</code> and
+	 * <code>waitForPreviousTask</code> arguments), and gets a {@link Stream} of
+	 * results in the order of their completion, so that the downstream
+	 * processing starts on the first available result. This differs from
+	 * {@link SchedulingSupplier#scheduleSuppliersAndWait(int, int, TimeUnit, boolean, Supplier...)}
+	 * when the runs overlap, for example with
+	 * {@link MisfirePolicy#concurrent(int)}. If a supplier throws, the stream
+	 * ends with a {@link java.util.concurrent.CompletionException} after the
+	 * results completed before it.
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param initialDelay
+	 *            the initial delay for the first Supplier invocation
+	 * @param delay
+	 *            if<code>waitForPreviousTask</code> argument is
+	 *            <code>true</code> this is the delay between the completion of
+	 *            the predecessor supplier code execution and its succeeding
+	 *            supplier code start. Otherwise, the delay will be periodic
+	 *            from the start of the initial task (not related to the
+	 *            completion of the suppliers' code execution).
+	 * @param unit
+	 *            the {@link TimeUnit} for which the <code>initialDelay</code>
+	 *            and <code>delay</code> arguments are to be used.
+	 * @param waitForPreviousTask
+	 *            Set it to <code>true</code> argument is.... <code>true</code>
+	 *            this is the delay between the completion of the predecessor
+	 *            supplier code execution and its succeeding supplier code
+	 *            start. Otherwise, the delay will be periodic from the start of
+	 *            the initial task (not related to the completion of the
+	 *            suppliers' code execution).
+	 * @param suppliers
+	 *            the suppliers to be scheduled sequentially
+	 * @return the {@link Stream} of results in the order of their completion
+	 */
+	public <T> Stream<T> scheduleSuppliersAndWaitInCompletionOrder(int initialDelay, int delay, TimeUnit unit,
+			boolean waitForPreviousTask, @SuppressWarnings("unchecked") Supplier<T>... suppliers) {
+		assertNotClosed();
+		return streamInCompletionOrder(doScheduleSupplierAsFutures(schedulingSuppliers -> getScheduler()
+				.doScheduleFunction(initialDelay, delay, unit, waitForPreviousTask, schedulingSuppliers), suppliers));
+	}
+
+	/**
+	 * Gets the stream of the results of the futures in their order, which
+	 * waits for each result when it is consumed, and releases the futures
+	 * consumed.
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param results
+	 *            the result futures
+	 * @return the stream
+	 */
+	private static <T> Stream<T> streamInOrder(CompletableFuture<T>[] results) {
+		return StreamSupport.stream(new Spliterators.AbstractSpliterator<T>(results.length, Spliterator.ORDERED) {
+			private int index;
+
+			@Override
+			public boolean tryAdvance(Consumer<? super T> action) {
+				if (index == results.length) {
+					return false;
+				}
+				CompletableFuture<T> next = results[index];
+				results[index++] = null;
+				action.accept(next.join());
+				return true;
+			}
+		}, false);
+	}
+
+	/**
+	 * Gets the stream of the results of the futures in the order of their
+	 * completion, backed by a completion queue retaining only the results not
+	 * yet consumed.
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param results
+	 *            the result futures
+	 * @return the stream
+	 */
+	private static <T> Stream<T> streamInCompletionOrder(CompletableFuture<T>[] results) {
+		BlockingQueueSpliterator<T> completions = new BlockingQueueSpliterator<>(true);
+		AtomicInteger remaining = new AtomicInteger(results.length);
+		if (results.length == 0) {
+			completions.complete();
+		}
+		for (CompletableFuture<T> result : results) {
+			result.whenComplete((t, e) -> {
+				if (e != null) {
+					completions.completeExceptionally(e);
+				} else {
+					completions.offer(t);
+				}
+				if (remaining.decrementAndGet() == 0) {
+					completions.complete();
+				}
+			});
+		}
+		return completions.stream(() -> {
+		});
+	}
+
+	/**
+	 * Schedules multiple suppliers to be invoked sequentially (as per the
+	 * <code>initialDelay</code>, <code>delay</code> and
+	 * <code>waitForPreviousTask</code> arguments). The result can be obtained
+	 * only once as a {@link Stream} by invoking
+	 * {@link AsyncSupplier#waitAndGetFromSuppliers(Class, Object...)} with the
+	 * same <code>keys</code> argument used in this method call, from any
+	 * thread, which will wait until the supplier code execution completes. <br>
+	 * <br>
+	 * The submission will fail if any exception occurs during the execution of
+	 * supplier or due to thread interruption, or, if any supplier is already
+	 * submitted with the same keys and the result is not yet obtained using
+	 * {@link AsyncSupplier#waitAndGetFromSuppliers(Class, Object...)} at-least
+	 * once.
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param initialDelay
+	 *            the initial delay for the first Supplier invocation
+	 * @param delay
+	 *            if<code>waitForPreviousTask</code> argument is
+	 *            <code>true</code> this is the delay between the completion of
+	 *            the predecessor supplier code execution and its succeeding
+	 *            supplier code start. Otherwise, the delay will be periodic
+	 *            from the start of the initial task (not related to the
+	 *            completion of the suppliers' code execution).
+	 * @param unit
+	 *            the {@link TimeUnit} for which the <code>initialDelay</code>
+	 *            and <code>delay</code> arguments are to be used.
+	 * @param waitForPreviousTask
+	 *            Set it to <code>true</code> argument is.... <code>true</code>
+	 *            this is the delay between the completion of the predecessor
+	 *            supplier code execution and its succeeding supplier code
+	 *            start. Otherwise, the delay will be periodic from the start of
+	 *            the initial task (not related to the completion of the
+	 *            suppliers' code execution).
+	 * @param suppliers
+	 *            the suppliers to be scheduled sequentially
+	 * @param keys
+	 *            the keys which will be used to obtain the {@link Stream} of
+	 *            results by invoking the method
+	 *            {@link AsyncSupplier#waitAndGetFromSuppliers(Class, Object...)}.
+	 * @return true, if scheduling the supplier is successful
+	 */
+	public <T> boolean scheduleSuppliersForSingleAccess(int initialDelay, int delay, TimeUnit unit,
+			boolean waitForPreviousTask, Supplier<T>[] suppliers, Object... keys) {
+		return storeForSingleAccess(doScheduleSupplier(initialDelay, delay, unit, waitForPreviousTask, suppliers), keys);
+	}
+
+	/**
+	 * Stores the result suppliers for single access with the keys, indexed if
+	 * there are more than one.
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param resultSuppliers
+	 *            the result suppliers
+	 * @param keys
+	 *            the keys
+	 * @return true, if storing all the suppliers is successful
+	 */
+	private <T> boolean storeForSingleAccess(Supplier<T>[] resultSuppliers, Object... keys) {
+		boolean result = true;
+		if (resultSuppliers.length == 1) {
+			Supplier<T> resSupplier = resultSuppliers[0];
+			result &= getAsyncContext().storeSupplier(ObjectsKey.of(keys), resSupplier, false);
+		} else {
+			for (int i = 0; i < resultSuppliers.length; i++) {
+				Supplier<T> resSupplier = resultSuppliers[i];
+				Object[] indexedKey = AsyncContext.getIndexedKey(i, keys);
+				result &= getAsyncContext().storeSupplier(ObjectsKey.of(indexedKey), resSupplier, false);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Do schedule supplier.
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param initialDelay
+	 *            the initial delay
+	 * @param delay
+	 *            the delay
+	 * @param unit
+	 *            the unit
+	 * @param waitForPreviousTask
+	 *            the wait for previous task
+	 * @param suppliers
+	 *            the suppliers
+	 * @return the supplier[]
+	 */
+	private <T> Supplier<T>[] doScheduleSupplier(int initialDelay, int delay, TimeUnit unit,
+			boolean waitForPreviousTask, @SuppressWarnings("unchecked") Supplier<T>... suppliers) {
+		return doScheduleSupplier(schedulingSuppliers -> getScheduler().doScheduleFunction(initialDelay, delay, unit,
+				waitForPreviousTask, schedulingSuppliers), suppliers);
+	}
+
+	/**
+	 * Do schedule supplier with the given scheduling.
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param scheduling
+	 *            the scheduling of the function invoking the suppliers
+	 * @param suppliers
+	 *            the suppliers
+	 * @return the supplier[]
+	 */
+	private <T> Supplier<T>[] doScheduleSupplier(
+			Function<Scheduler.SchedulingFunction<Supplier<T>, T>, ScheduleHandle> scheduling,
+			@SuppressWarnings("unchecked") Supplier<T>... suppliers) {
+		return doScheduleSupplier(scheduling, suppliers.length, index -> suppliers[index]);
+	}
+
+	/**
+	 * Do schedule supplier with the given scheduling, invoking the supplier at
+	 * each index up to the given count.
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param scheduling
+	 *            the scheduling of the function invoking the suppliers
+	 * @param count
+	 *            the number of runs
+	 * @param supplierAt
+	 *            the function giving the supplier for a run index
+	 * @return the supplier[]
+	 */
+	private <T> Supplier<T>[] doScheduleSupplier(
+			Function<Scheduler.SchedulingFunction<Supplier<T>, T>, ScheduleHandle> scheduling, int count,
+			IntFunction<Supplier<T>> supplierAt) {
+		CompletableFuture<T>[] results = doScheduleSupplierAsFutures(scheduling, count, supplierAt);
+		@SuppressWarnings("unchecked")
+		Supplier<T>[] blockingResultSupplier = (Supplier<T>[]) new Supplier<?>[results.length];
+		for (int i = 0; i < blockingResultSupplier.length; i++) {
+			blockingResultSupplier[i] = results[i]::join;
+		}
+		return blockingResultSupplier;
+	}
+
+	/**
+	 * Do schedule supplier with the given scheduling, completing a future per
+	 * supplier, so that each result wakes up only its own waiters.
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param scheduling
+	 *            the scheduling of the function invoking the suppliers
+	 * @param suppliers
+	 *            the suppliers
+	 * @return the result futures
+	 */
+	private <T> CompletableFuture<T>[] doScheduleSupplierAsFutures(
+			Function<Scheduler.SchedulingFunction<Supplier<T>, T>, ScheduleHandle> scheduling,
+			Supplier<T>[] suppliers) {
+		return doScheduleSupplierAsFutures(scheduling, suppliers.length, index -> suppliers[index]);
+	}
+
+	/**
+	 * Do schedule supplier with the given scheduling, invoking the supplier at
+	 * each index up to the given count and completing a future per run.
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param scheduling
+	 *            the scheduling of the function invoking the suppliers
+	 * @param count
+	 *            the number of runs
+	 * @param supplierAt
+	 *            the function giving the supplier for a run index
+	 * @return the result futures
+	 */
+	private <T> CompletableFuture<T>[] doScheduleSupplierAsFutures(
+			Function<Scheduler.SchedulingFunction<Supplier<T>, T>, ScheduleHandle> scheduling, int count,
+			IntFunction<Supplier<T>> supplierAt) {
+		@SuppressWarnings("unchecked")
+		CompletableFuture<T>[] results = (CompletableFuture<T>[]) new CompletableFuture<?>[count];
+		for (int i = 0; i < results.length; i++) {
+			results[i] = new CompletableFuture<>();
+		}
+		// The futures not yet completed, so that the completed ones are retained only by their consumers
+		CompletableFuture<T>[] pending = results.clone();
+		Scheduler.SchedulingFunction<Supplier<T>, T> schedulingSuppliers = new Scheduler.SchedulingFunction<Supplier<T>, T>() {
+			private AtomicInteger index = new AtomicInteger(0);
+
+			@Override
+			public boolean canRun() {
+				return index.get() < count;
+			}
+
+			@Override
+			public boolean canCancel() {
+				return index.get() >= count;
+			}
+
+			@Override
+			public T invokeNextFunction() {
+				// Claims the next index and completes its future, as the runs may overlap
+				int next = index.getAndIncrement();
+				if (next < count) {
+					CompletableFuture<T> result = pending[next];
+					pending[next] = null;
+					try {
+						result.complete(supplierAt.apply(next).get());
+					} catch (RuntimeException | Error e) {
+						// The schedule stops, so none of the remaining results would complete
+						result.completeExceptionally(e);
+						for (int i = next + 1; i < pending.length; i++) {
+							if (pending[i] != null) {
+								pending[i].completeExceptionally(e);
+							}
+						}
+						throw e;
+					}
+				}
+				return null;
+			}
+
+			@Override
+			public void consumeResult(T t) {
+				// Already completed in its future
+			}
+
+			@Override
+			public void restoreRunCount(long runCount) {
+				// The results of the runs made before the restore are lost
+				int restored = (int) Math.min(count, runCount);
+				index.set(restored);
+				for (int i = 0; i < restored; i++) {
+					pending[i].cancel(false);
+					pending[i] = null;
+				}
+			}
+
+		};
+		scheduling.apply(schedulingSuppliers);
+		return results;
+	}
+
+	/**
+	 * Do schedule supplier repeatedly for the given times as a stream. Only the
+	 * counts of the runs claimed and completed are kept, and each result is
+	 * streamed as soon as it is produced, so that repeating a supplier any
+	 * number of times retains only the results not yet consumed.
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param initialDelay
+	 *            the initial delay
+	 * @param delay
+	 *            the delay
+	 * @param unit
+	 *            the unit
+	 * @param waitForPreviousTask
+	 *            the wait for previous task
+	 * @param supplier
+	 *            the supplier
+	 * @param times
+	 *            the times
+	 * @return the stream
+	 */
+	private <T> Stream<T> doScheduleSupplierAsStream(int initialDelay, int delay, TimeUnit unit,
+			boolean waitForPreviousTask, Supplier<T> supplier, int times) {
+		BlockingQueueSpliterator<T> results = new BlockingQueueSpliterator<>(true);
+		AtomicInteger completed = new AtomicInteger(0);
+		if (times <= 0) {
+			results.complete();
+		}
+		Scheduler.SchedulingFunction<Supplier<T>, T> schedulingSupplier = new Scheduler.SchedulingFunction<Supplier<T>, T>() {
+			private AtomicInteger index = new AtomicInteger(0);
+
+			@Override
+			public boolean canRun() {
+				return index.get() < times;
+			}
+
+			@Override
+			public boolean canCancel() {
+				return index.get() >= times;
+			}
+
+			@Override
+			public T invokeNextFunction() {
+				// Claims the next run, as the runs may overlap
+				if (index.getAndIncrement() < times) {
+					try {
+						results.offer(supplier.get());
+					} catch (RuntimeException | Error e) {
+						// The schedule stops, so none of the remaining results would be produced
+						results.completeExceptionally(e);
+						throw e;
+					}
+					if (completed.incrementAndGet() == times) {
+						results.complete();
+					}
+				}
+				return null;
+			}
+
+			@Override
+			public void consumeResult(T t) {
+				// Already offered to the stream
+			}
+
+			@Override
+			public void restoreRunCount(long runCount) {
+				int restored = (int) Math.max(0, Math.min(times, runCount));
+				index.set(restored);
+				if (restored > 0 && completed.addAndGet(restored) == times) {
+					results.complete();
+				}
+			}
+
+		};
+		ScheduleHandle handle = getScheduler().doScheduleFunction(initialDelay, delay, unit, waitForPreviousTask,
+				schedulingSupplier);
+		return results.stream(() -> {
+			if (!results.isCompleted()) {
+				handle.cancel();
+				results.complete();
+			}
+		});
+	}
+
+	/**
+	 * Do schedule supplier until flag.
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param initialDelay
+	 *            the initial delay
+	 * @param delay
+	 *            the delay
+	 * @param unit
+	 *            the unit
+	 * @param waitForPreviousTask
+	 *            the wait for previous task
 	 * @param suppliers
-	 *            the suppliers to be scheduled sequentially and rotated until
-	 *            notified using
-	 *            {@link AsyncContext#notifyAndGetForFlag(Class, String...)}
+	 *            the suppliers
+	 * @param flag
+	 *            the flag
+	 * @return the schedule handle
 	 */
-	public <T> void scheduleSuppliersUntilFlag(int initialDelay, int delay, TimeUnit unit,
-			boolean waitForPreviousTask, String flag, @SuppressWarnings("unchecked") Supplier<T>... suppliers) {
-		doScheduleSupplierUntilFlag(initialDelay, delay, unit, waitForPreviousTask, suppliers, flag);
+	private <T> ScheduleHandle doScheduleSupplierUntilFlag(int initialDelay, int delay, TimeUnit unit,
+			boolean waitForPreviousTask, Supplier<T>[] suppliers, String flag) {
+		return doScheduleSupplierUntilFlag(schedulingSuppliers -> getScheduler().doScheduleFunction(initialDelay,
+				delay, unit, waitForPreviousTask, schedulingSuppliers), suppliers, flag);
 	}
 
 	/**
-	 * Schedules a single suppliers to be invoked repeatedly (as per the
-	 * <code>initialDelay</code>, <code>delay</code> and
-	 * <code>waitForPreviousTask</code> arguments), and this scheduling supplier
-	 * will be repeatedly until a flag is notified using
-	 * {@link AsyncContext#notifyAndGetForFlag(Class, String...)} invocation with the
-	 * same flag, in same thread or different thread, which will also return a
-	 * stream of results.
+	 * Do schedule supplier until flag with the given scheduling.
 	 *
 	 * @param <T>
 	 *            the generic type
-	 * @param initialDelay
-	 *            the initial delay for the first Supplier invocation
-	 * @param delay
-	 *            if<code>waitForPreviousTask</code> argument is
-	 *            <code>true</code> this is the delay between the completion of
-	 *            the predecessor supplier code execution and its succeeding
-	 *            supplier code start. Otherwise, the delay will be periodic
-	 *            from the start of the initial task (not related to the
-	 *            completion of the suppliers' code execution).
-	 * @param unit
-	 *            the {@link TimeUnit} for which the <code>initialDelay</code>
-	 *            and <code>delay</code> arguments are to be used.
-	 * @param waitForPreviousTask
-	 *            Set it to <code>true</code> argument is.... <code>true</code>
-	 *            this is the delay between the completion of the predecessor
-	 *            supplier code execution and its succeeding supplier code
-	 *            start. Otherwise, the delay will be periodic from the start of
-	 *            the initial task (not related to the completion of the
-	 *            suppliers' code execution).
+	 * @param scheduling
+	 *            the scheduling of the function invoking the suppliers
+	 * @param suppliers
+	 *            the suppliers
 	 * @param flag
-	 *            the flag with which the suppliers will be rotated for
-	 *            scheduling, until notified using
-	 *            {@link AsyncContext#notifyAndGetForFlag(Class, String...)}
-	 * @param supplier
-	 *            the single supplier to be scheduled sequentially and rotated
-	 *            until notified using
-	 *            {@link AsyncContext#notifyAndGetForFlag(Class, String...)}
+	 *            the flag
+	 * @return the schedule handle
 	 */
-	@SuppressWarnings("unchecked")
-	public <T> void scheduleSupplierUntilFlag(int initialDelay, int delay, TimeUnit unit,
-			boolean waitForPreviousTask, String flag, Supplier<T> supplier) {
-		scheduleSuppliersUntilFlag(initialDelay, delay, unit, waitForPreviousTask, flag, supplier);
+	private <T> ScheduleHandle doScheduleSupplierUntilFlag(
+			Function<Scheduler.SchedulingFunction<Supplier<T>, T>, ScheduleHandle> scheduling,
+			Supplier<T>[] suppliers, String flag) {
+		AtomicBoolean canCancel = new AtomicBoolean(false);
+		LinkedList<Supplier<T>> resultSuppliers = new LinkedList<Supplier<T>>();
+		Scheduler.SchedulingFunction<Supplier<T>, T> schedulingSuppliers = new Scheduler.SchedulingFunction<Supplier<T>, T>() {
+			private AtomicInteger index = new AtomicInteger(0);
+
+			@Override
+			public boolean canRun() {
+				return !canCancel.get();
+			}
+
+			@Override
+			public boolean canCancel() {
+				return canCancel.get();
+			}
+
+			@Override
+			public T invokeNextFunction() {
+				// Cycle again after the last one
+				return suppliers[index.getAndUpdate(i -> (i + 1) % suppliers.length)].get();
+			}
+
+			@Override
+			public void consumeResult(T t) {
+				synchronized (resultSuppliers) {
+					Supplier<T> resSupplier = () -> t;
+					resultSuppliers.add(resSupplier);
+					Object[] indexedKey = AsyncContext.getIndexedKey(resultSuppliers.size() - 1, flag);
+					getAsyncContext().storeSupplier(ObjectsKey.of(indexedKey), resSupplier, false);
+				}
+			}
+
+		};
+
+		return scheduling.apply(schedulingSuppliers);
+
 	}
 
 	/**
-	 * Schedules multiple suppliers to be invoked sequentially (as per the
+	 * Schedules a supplier to be invoked repeatedly (as per the
 	 * <code>initialDelay</code>, <code>delay</code> and
-	 * <code>waitForPreviousTask</code> arguments), waits for the completion of
-	 * execution of all scheduled Suppliers and gets a {@link Stream} of
-	 * results.
+	 * <code>waitForPreviousTask</code> arguments) to poll a value, keeping only
+	 * the newest result, and gets the {@link LatestValue} handle. Each poll
+	 * only writes the result into an atomic reference, which can be read
+	 * without waiting using {@link LatestValue#get()}, and the change listeners
+	 * can be added using {@link LatestValue#onChange(java.util.function.BiConsumer)}.
+	 * The polling runs until the handle is closed.
 	 *
 	 * @param <T>
 	 *            the generic type
@@ -264,155 +1190,195 @@ public final class SchedulingSupplier implements AutoCloseable{
 	 *            start. Otherwise, the delay will be periodic from the start of
 	 *            the initial task (not related to the completion of the
 	 *            suppliers' code execution).
-	 * @param suppliers
-	 *            the suppliers to be scheduled sequentially
-	 * @return the {@link Stream} of results
+	 * @param supplier
+	 *            the supplier polling the value
+	 * @return the latest value handle
 	 */
-	public <T> Stream<T> scheduleSuppliersAndWait(int initialDelay, int delay, TimeUnit unit,
-			boolean waitForPreviousTask, @SuppressWarnings("unchecked") Supplier<T>... suppliers) {
-		Supplier<T>[] scheduleSupplier = doScheduleSupplier(initialDelay, delay, unit, waitForPreviousTask, suppliers);
-		return Stream.of(scheduleSupplier).map(Supplier::get);
+	public <T> LatestValue<T> scheduleLatestValue(int initialDelay, int delay, TimeUnit unit,
+			boolean waitForPreviousTask, Supplier<T> supplier) {
+		assertNotClosed();
+		LatestValue<T> latestValue = new LatestValue<>();
+		Scheduler.SchedulingFunction<Supplier<T>, T> schedulingSupplier = new Scheduler.SchedulingFunction<Supplier<T>, T>() {
+
+			@Override
+			public boolean canRun() {
+				return !latestValue.isClosed();
+			}
+
+			@Override
+			public boolean canCancel() {
+				return latestValue.isClosed();
+			}
+
+			@Override
+			public T invokeNextFunction() {
+				return supplier.get();
+			}
+
+			@Override
+			public void consumeResult(T t) {
+				latestValue.update(t);
+			}
+
+		};
+		latestValue.setScheduledFuture(getScheduler().doScheduleFunction(initialDelay, delay, unit,
+				waitForPreviousTask, schedulingSupplier));
+		return latestValue;
 	}
 
 	/**
-	 * Schedules multiple suppliers to be invoked sequentially (as per the
-	 * <code>initialDelay</code>, <code>delay</code> and
-	 * <code>waitForPreviousTask</code> arguments). The result can be obtained
-	 * only once as a {@link Stream} by invoking
-	 * {@link AsyncSupplier#waitAndGetFromSuppliers(Class, Object...)} with the
-	 * same <code>keys</code> argument used in this method call, from any
-	 * thread, which will wait until the supplier code execution completes. <br>
-	 * <br>
-	 * The submission will fail if any exception occurs during the execution of
-	 * supplier or due to thread interruption, or, if any supplier is already
-	 * submitted with the same keys and the result is not yet obtained using
-	 * {@link AsyncSupplier#waitAndGetFromSuppliers(Class, Object...)} at-least
-	 * once.
+	 * Schedules a supplier to poll a value as
+	 * {@link SchedulingSupplier#scheduleLatestValue(int, int, TimeUnit, boolean, Supplier)}
+	 * does, but with an adaptive interval: the delay between the completion of
+	 * a poll and the start of the next one is lengthened (up to the max delay
+	 * of the {@link AdaptiveInterval}) while the consecutive results are not
+	 * changed, and snaps back to the base <code>delay</code> as soon as a
+	 * changed result is seen.
 	 *
 	 * @param <T>
 	 *            the generic type
 	 * @param initialDelay
 	 *            the initial delay for the first Supplier invocation
 	 * @param delay
-	 *            if<code>waitForPreviousTask</code> argument is
-	 *            <code>true</code> this is the delay between the completion of
-	 *            the predecessor supplier code execution and its succeeding
-	 *            supplier code start. Otherwise, the delay will be periodic
-	 *            from the start of the initial task (not related to the
-	 *            completion of the suppliers' code execution).
+	 *            the base delay between the completion of a poll and the start
+	 *            of the next one
 	 * @param unit
 	 *            the {@link TimeUnit} for which the <code>initialDelay</code>
 	 *            and <code>delay</code> arguments are to be used.
-	 * @param waitForPreviousTask
-	 *            Set it to <code>true</code> argument is.... <code>true</code>
-	 *            this is the delay between the completion of the predecessor
-	 *            supplier code execution and its succeeding supplier code
-	 *            start. Otherwise, the delay will be periodic from the start of
-	 *            the initial task (not related to the completion of the
-	 *            suppliers' code execution).
-	 * @param suppliers
-	 *            the suppliers to be scheduled sequentially
-	 * @param keys
-	 *            the keys which will be used to obtain the {@link Stream} of
-	 *            results by invoking the method
-	 *            {@link AsyncSupplier#waitAndGetFromSuppliers(Class, Object...)}.
-	 * @return true, if scheduling the supplier is successful
+	 * @param adaptiveInterval
+	 *            the adaptive interval
+	 * @param supplier
+	 *            the supplier polling the value
+	 * @return the latest value handle
 	 */
-	public <T> boolean scheduleSuppliersForSingleAccess(int initialDelay, int delay, TimeUnit unit,
-			boolean waitForPreviousTask, Supplier<T>[] suppliers, Object... keys) {
-		Supplier<T>[] resultSuppliers = doScheduleSupplier(initialDelay, delay, unit, waitForPreviousTask, suppliers);
-		boolean result = true;
-		if (resultSuppliers.length == 1) {
-			Supplier<T> resSupplier = resultSuppliers[0];
-			result &= getAsyncContext().storeSupplier(ObjectsKey.of(keys), resSupplier, false);
-		} else {
-			for (int i = 0; i < resultSuppliers.length; i++) {
-				Supplier<T> resSupplier = resultSuppliers[i];
-				Object[] indexedKey = AsyncContext.getIndexedKey(i, keys);
-				result &= getAsyncContext().storeSupplier(ObjectsKey.of(indexedKey), resSupplier, false);
+	public <T> LatestValue<T> scheduleLatestValue(int initialDelay, int delay, TimeUnit unit,
+			AdaptiveInterval<? super T> adaptiveInterval, Supplier<T> supplier) {
+		assertNotClosed();
+		LatestValue<T> latestValue = new LatestValue<>();
+		Scheduler.SchedulingFunction<Supplier<T>, T> schedulingSupplier = new Scheduler.SchedulingFunction<Supplier<T>, T>() {
+			// Accessed only by the polls, which run one after the other
+			private boolean polled;
+			private T previous;
+			private long currentDelayNanos = unit.toNanos(delay);
+
+			@Override
+			public boolean canRun() {
+				return !latestValue.isClosed();
 			}
-		}
-		return result;
+
+			@Override
+			public boolean canCancel() {
+				return latestValue.isClosed();
+			}
+
+			@Override
+			public T invokeNextFunction() {
+				return supplier.get();
+			}
+
+			@Override
+			public void consumeResult(T t) {
+				boolean changed = !polled || adaptiveInterval.isChanged(previous, t);
+				polled = true;
+				previous = t;
+				currentDelayNanos = adaptiveInterval.nextDelay(currentDelayNanos, unit.toNanos(delay), changed);
+				latestValue.update(t);
+			}
+
+			@Override
+			public long nextDelayNanos(long delayNanos) {
+				return currentDelayNanos;
+			}
+
+		};
+		latestValue.setScheduledFuture(
+				getScheduler().doScheduleFunction(initialDelay, delay, unit, true, schedulingSupplier));
+		return latestValue;
 	}
 
 	/**
-	 * Do schedule supplier.
+	 * Do schedule supplier until flag, retaining the last results in a ring
+	 * buffer.
 	 *
 	 * @param <T>
 	 *            the generic type
-	 * @param initialDelay
-	 *            the initial delay
-	 * @param delay
-	 *            the delay
-	 * @param unit
-	 *            the unit
-	 * @param waitForPreviousTask
-	 *            the wait for previous task
+	 * @param scheduling
+	 *            the scheduling of the function invoking the suppliers
 	 * @param suppliers
 	 *            the suppliers
-	 * @return the supplier[]
+	 * @param flag
+	 *            the flag
+	 * @param retention
+	 *            the number of last results retained
+	 * @return the schedule handle
 	 */
-	private <T> Supplier<T>[] doScheduleSupplier(int initialDelay, int delay, TimeUnit unit,
-			boolean waitForPreviousTask, @SuppressWarnings("unchecked") Supplier<T>... suppliers) {
-		@SuppressWarnings("unchecked")
-		Supplier<T>[] resultSuppliers = new Supplier[suppliers.length];
+	private <T> ScheduleHandle doScheduleSupplierUntilFlagRetaining(
+			Function<Scheduler.SchedulingFunction<Supplier<T>, T>, ScheduleHandle> scheduling,
+			Supplier<T>[] suppliers, String flag, int retention) {
+		AtomicBoolean canCancel = new AtomicBoolean(false);
+		// The thread waiting for the flag, which is interrupted once the schedule is done without it
+		Thread waiter = VirtualThreads.newThread(() -> {
+			try {
+				getAsyncContext().waitForFlag(flag);
+			} catch (InterruptedException e) {
+				logger.config(e.getClass().getSimpleName() + ": " + e.getMessage());
+			}
+			canCancel.set(true);
+		});
+		ResultRing<T> results = new ResultRing<>(retention);
+		// The ring takes a single producer at a time, and only the concurrent runs overlap
+		boolean overlapping = getScheduler().getMisfirePolicy().getKind() == MisfirePolicy.Kind.CONCURRENT;
 		Scheduler.SchedulingFunction<Supplier<T>, T> schedulingSuppliers = new Scheduler.SchedulingFunction<Supplier<T>, T>() {
 			private AtomicInteger index = new AtomicInteger(0);
 
 			@Override
 			public boolean canRun() {
-				return index.get() < suppliers.length;
+				return !canCancel.get();
 			}
 
 			@Override
 			public boolean canCancel() {
-				return index.get() == suppliers.length;
+				return canCancel.get();
 			}
 
 			@Override
 			public T invokeNextFunction() {
-				return suppliers[index.getAndIncrement()].get();
+				// Cycle again after the last one
+				return suppliers[index.getAndUpdate(i -> (i + 1) % suppliers.length)].get();
 			}
 
 			@Override
 			public void consumeResult(T t) {
-				synchronized (resultSuppliers) {
-					resultSuppliers[index.get() - 1] = () -> t;
-					resultSuppliers.notifyAll();
+				if (overlapping) {
+					synchronized (this) {
+						results.append(t);
+					}
+				} else {
+					results.append(t);
 				}
 			}
 
-		};
-		getScheduler().doScheduleFunction(initialDelay, delay, unit, waitForPreviousTask, schedulingSuppliers);
+			@Override
+			public void onDone() {
+				waiter.interrupt();
+				getAsyncContext().releaseResults(results, flag);
+			}
 
-		@SuppressWarnings("unchecked")
-		Supplier<T>[] blockingResultSupplier = new Supplier[suppliers.length];
-		for (int i = 0; i < blockingResultSupplier.length; i++) {
-			final int index = i;
-			blockingResultSupplier[i] = new Supplier<T>() {
-				@Override
-				public synchronized T get() {
-					synchronized (resultSuppliers) {
-						while (resultSuppliers[index] == null) {
-							try {
-								resultSuppliers.wait();
-							} catch (InterruptedException e) {
-								logger.config(e.getClass().getSimpleName() + ": " + e.getMessage());
-							}
-						}
-					}
+		};
 
-					return resultSuppliers[index].get();
-				}
-			};
+		getAsyncContext().retainResults(results, flag);
+		waiter.start();
 
+		try {
+			return scheduling.apply(schedulingSuppliers);
+		} catch (RuntimeException e) {
+			schedulingSuppliers.onDone();
+			throw e;
 		}
-
-		return blockingResultSupplier;
 	}
 
 	/**
-	 * Do schedule supplier until flag.
+	 * Do schedule supplier until flag as stream.
 	 *
 	 * @param <T>
 	 *            the generic type
@@ -428,12 +1394,22 @@ public final class SchedulingSupplier implements AutoCloseable{
 	 *            the suppliers
 	 * @param flag
 	 *            the flag
-	 * @return the scheduled future
+	 * @return the stream
 	 */
-	private <T> ScheduledFuture<?> doScheduleSupplierUntilFlag(int initialDelay, int delay, TimeUnit unit,
+	private <T> Stream<T> doScheduleSupplierUntilFlagAsStream(int initialDelay, int delay, TimeUnit unit,
 			boolean waitForPreviousTask, Supplier<T>[] suppliers, String flag) {
 		AtomicBoolean canCancel = new AtomicBoolean(false);
-		LinkedList<Supplier<T>> resultSuppliers = new LinkedList<Supplier<T>>();
+		BlockingQueueSpliterator<T> results = new BlockingQueueSpliterator<>();
+		// The thread waiting for the flag, which is interrupted once the schedule is done without it
+		Thread waiter = VirtualThreads.newThread(() -> {
+			try {
+				getAsyncContext().waitForFlag(flag);
+			} catch (InterruptedException e) {
+				logger.config(e.getClass().getSimpleName() + ": " + e.getMessage());
+			}
+			canCancel.set(true);
+			results.complete();
+		});
 		Scheduler.SchedulingFunction<Supplier<T>, T> schedulingSuppliers = new Scheduler.SchedulingFunction<Supplier<T>, T>() {
 			private AtomicInteger index = new AtomicInteger(0);
 
@@ -449,27 +1425,32 @@ public final class SchedulingSupplier implements AutoCloseable{
 
 			@Override
 			public T invokeNextFunction() {
-				if (index.get() == suppliers.length) {
-					// Cycle again
-					index.set(0);
-				}
-				return suppliers[index.getAndIncrement()].get();
+				// Cycle again after the last one
+				return suppliers[index.getAndUpdate(i -> (i + 1) % suppliers.length)].get();
 			}
 
 			@Override
 			public void consumeResult(T t) {
-				synchronized (resultSuppliers) {
-					Supplier<T> resSupplier = () -> t;
-					resultSuppliers.add(resSupplier);
-					Object[] indexedKey = AsyncContext.getIndexedKey(resultSuppliers.size() - 1, flag);
-					getAsyncContext().storeSupplier(ObjectsKey.of(indexedKey), resSupplier, false);
-				}
+				results.offer(t);
+			}
+
+			@Override
+			public void onDone() {
+				waiter.interrupt();
 			}
 
 		};
 
-		return getScheduler().doScheduleFunction(initialDelay, delay, unit, waitForPreviousTask, schedulingSuppliers);
+		waiter.start();
 
+		ScheduleHandle handle = getScheduler().doScheduleFunction(initialDelay, delay, unit, waitForPreviousTask,
+				schedulingSuppliers);
+		return results.stream(() -> {
+			if (!results.isCompleted()) {
+				results.complete();
+				handle.cancel();
+			}
+		});
 	}
 
 	/**
@@ -479,7 +1460,13 @@ public final class SchedulingSupplier implements AutoCloseable{
 	 * gets an array of result Suppliers handles. The result of each supplier
 	 * execution can be obtained by calling the {@link Supplier#get()} from the
 	 * returning suppliers which will wait until the scheduled Supplier code
-	 * execution completes.
+	 * execution completes. <br>
+	 * <br>
+	 * Note: A result handle is created upfront for each of the
+	 * <code>times</code> runs, so the memory taken is proportional to the
+	 * <code>times</code>. Use
+	 * {@link SchedulingSupplier#scheduleSupplierAndWait(int, int, TimeUnit, boolean, Supplier, int)}
+	 * to retain only the results not yet consumed.
 	 *
 	 * @param <T>
 	 *            the generic type
@@ -513,15 +1500,20 @@ public final class SchedulingSupplier implements AutoCloseable{
 	 */
 	public <T> Supplier<T>[] scheduleSupplier(int initialDelay, int delay, TimeUnit unit,
 			boolean waitForPreviousTask, Supplier<T> supplier, int times) {
-		return scheduleSuppliers(initialDelay, delay, unit, waitForPreviousTask, AsyncContext.arrayOfTimes(supplier, times));
+		return doScheduleSupplier(schedulingSuppliers -> getScheduler().doScheduleFunction(initialDelay, delay, unit,
+				waitForPreviousTask, schedulingSuppliers), times, index -> supplier);
 	}
 
 	/**
 	 * Schedules a single supplier to be invoked multiple times (as per the
 	 * <code>initialDelay</code>, <code>delay</code>,
-	 * <code>waitForPreviousTask</code> and <code>times</code> arguments), waits
-	 * for the completion of execution of all scheduled Suppliers and gets a
-	 * {@link Stream} of results.
+	 * <code>waitForPreviousTask</code> and <code>times</code> arguments), and
+	 * gets a {@link Stream} of results, which yields each result as soon as it
+	 * is produced and ends after the last run. Only the results not yet
+	 * consumed are retained, whatever the <code>times</code> is. If the
+	 * supplier throws, the stream ends with a
+	 * {@link java.util.concurrent.CompletionException}. Closing the stream
+	 * stops the scheduling.
 	 *
 	 * @param <T>
 	 *            the generic type
@@ -549,12 +1541,12 @@ public final class SchedulingSupplier implements AutoCloseable{
 	 * @param times
 	 *            the number of times the scheduling should be done for the
 	 *            supplier
-	 * @return the {@link Stream} of results
+	 * @return the {@link Stream} of results, in the order of their completion
 	 */
 	public <T> Stream<T> scheduleSupplierAndWait(int initialDelay, int delay, TimeUnit unit,
 			boolean waitForPreviousTask, Supplier<T> supplier, int times) {
-		return scheduleSuppliersAndWait(initialDelay, delay, unit, waitForPreviousTask,
-				AsyncContext.arrayOfTimes(supplier, times));
+		assertNotClosed();
+		return doScheduleSupplierAsStream(initialDelay, delay, unit, waitForPreviousTask, supplier, times);
 	}
 
 	/**
@@ -570,7 +1562,11 @@ public final class SchedulingSupplier implements AutoCloseable{
 	 * supplier or due to thread interruption, or, if any supplier is already
 	 * submitted with the same keys and the result is not yet obtained using
 	 * {@link AsyncSupplier#waitAndGetFromSuppliers(Class, Object...)} at-least
-	 * once.
+	 * once. <br>
+	 * <br>
+	 * Note: A result handle is created upfront for each of the
+	 * <code>times</code> runs, so the memory taken is proportional to the
+	 * <code>times</code>.
 	 *
 	 * @param <T>
 	 *            the generic type
@@ -606,8 +1602,8 @@ public final class SchedulingSupplier implements AutoCloseable{
 	 */
 	public <T> boolean scheduleSupplierForSingleAccess(int initialDelay, int delay, TimeUnit unit,
 			boolean waitForPreviousTask, Supplier<T> supplier, int times, Object... keys) {
-		return scheduleSuppliersForSingleAccess(initialDelay, delay, unit, waitForPreviousTask,
-				AsyncContext.arrayOfTimes(supplier, times), keys);
+		return storeForSingleAccess(doScheduleSupplier(schedulingSuppliers -> getScheduler().doScheduleFunction(
+				initialDelay, delay, unit, waitForPreviousTask, schedulingSuppliers), times, index -> supplier), keys);
 	}
 
 	/**
@@ -799,7 +1795,48 @@ public final class SchedulingSupplier implements AutoCloseable{
 	public <T> Stream<T> notifyAndGetForFlag(Class<T> clazz, String... flag) {
 		return getAsyncContext().notifyAndGetForFlag(clazz, flag);
 	}
-	
+
+	/**
+	 * Drains the results retained so far by the Supplier(s) scheduled with a
+	 * retention using
+	 * {@link SchedulingSupplier#scheduleSuppliersUntilFlag(int, int, TimeUnit, boolean, String, int, Supplier...)}
+	 * with the flag passed, without notifying the flag.
+	 *
+	 * @param <T>
+	 *            the generic type
+	 * @param clazz
+	 *            the clazz
+	 * @param flag
+	 *            the flag
+	 * @return the stream of results
+	 * @see AsyncContext#drainRetainedResults(Class, String...)
+	 */
+	public <T> Stream<T> drainRetainedResults(Class<T> clazz, String... flag) {
+		return getAsyncContext().drainRetainedResults(clazz, flag);
+	}
+
+	/**
+	 * Notify all threads which are waiting for a flag with the invocation of
+	 * {@link AsyncContext#waitForFlag(String...)}
+	 *
+	 * @param flag
+	 *            the flag
+	 */
+	public void notifyAllFlag(String... flag) {
+		getAsyncContext().notifyAllFlag(flag);
+	}
+
+	/**
+	 * Notify a thread that is waiting for a flag with the invocation of
+	 * {@link AsyncContext#waitForFlag(String...)}
+	 *
+	 * @param flag
+	 *            the flag
+	 */
+	public void notifyFlag(String... flag) {
+		getAsyncContext().notifyFlag(flag);
+	}
+
 	/**
 	 * Gets the scheduler.
 	 *
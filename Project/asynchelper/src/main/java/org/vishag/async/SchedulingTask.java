@@ -21,12 +21,14 @@ package org.vishag.async;
 
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.IntFunction;
 import java.util.logging.Logger;
 
 /**
@@ -37,11 +39,14 @@ import java.util.logging.Logger;
  * <br>
  * Note: In most of the cases default instance obtained with
  * ({@link SchedulingTask#getDefault()}) is sufficient, which internally creates
- * a {@link ScheduledThreadPoolExecutor} and uses it. But it is possible to use
+ * a timer thread firing the schedules and a separate pool of worker threads
+ * running the scheduled code. But it is possible to use
  * {@link SchedulingTask#of(ScheduledExecutorService)}) or
  * {@link SchedulingTask#of(ScheduledExecutorService, AsyncContext)} where an
  * instance of {@code ScheduledThreadPoolExecutor} can be passed explicitly if
- * required.
+ * required. The timer can also be separated from the work executor running
+ * the scheduled code with
+ * {@link SchedulingTask#of(ScheduledExecutorService, ExecutorService)}.
  * 
  * @author Loganathan.S &lt;https://github.com/loganathan001&gt;
  */
@@ -105,6 +110,113 @@ public final class SchedulingTask implements AutoCloseable{
 		return new SchedulingTask(Scheduler.ofScheduledExecutorService(scheduledExecutorService), asyncContext);
 	}
 
+	/**
+	 * Gets a new instance of SchedulingTask with the given scheduled executor service
+	 * used only as the timer firing the schedules, and the given work executor
+	 * running the scheduled code, so that a slow scheduled code does not delay
+	 * the other schedules.
+	 *
+	 * @param scheduledExecutorService the scheduled executor service used as the timer
+	 * @param workExecutor the work executor
+	 * @return the scheduling task
+	 */
+	public static SchedulingTask of(ScheduledExecutorService scheduledExecutorService, ExecutorService workExecutor) {
+		return of(scheduledExecutorService, workExecutor, AsyncContext.getDefault());
+	}
+
+	/**
+	 * Gets a new instance of SchedulingTask with the given scheduled executor service
+	 * used only as the timer firing the schedules, the given work executor
+	 * running the scheduled code and the given async context.
+	 *
+	 * @param scheduledExecutorService the scheduled executor service used as the timer
+	 * @param workExecutor the work executor
+	 * @param asyncContext the async context
+	 * @return the scheduling task
+	 */
+	public static SchedulingTask of(ScheduledExecutorService scheduledExecutorService, ExecutorService workExecutor,
+			AsyncContext asyncContext) {
+		return new SchedulingTask(Scheduler.of(scheduledExecutorService, workExecutor), asyncContext);
+	}
+
+	/**
+	 * Gets a new instance of SchedulingTask sharing the executors and the async
+	 * context of this, which spreads the fire times of its schedules with the
+	 * given jitter, so that many schedules of the same period do not fire in
+	 * lockstep. Closing the new instance does not shut down the shared
+	 * executors.
+	 *
+	 * @param jitter the jitter
+	 * @return the scheduling task
+	 */
+	public SchedulingTask withJitter(Jitter jitter) {
+		assertNotClosed();
+		return new SchedulingTask(scheduler.withJitter(jitter), asyncContext);
+	}
+
+	/**
+	 * Gets a new instance of SchedulingTask sharing the executors and the async
+	 * context of this, whose schedule is journaled under the given schedule id
+	 * in the given {@link ScheduleJournal}. The schedule starts at the
+	 * journaled next fire time if the schedule id is already in the journal,
+	 * for example after a restart of the application, and the runs missed
+	 * meanwhile are run as per the given {@link MisfirePolicy}. A schedule of
+	 * a number of runs makes only the runs remaining after the journaled run
+	 * count. The schedule is removed from the journal when it completes.
+	 * Closing the new instance does not shut down the shared executors. <br>
+	 * <br>
+	 * Note: The new instance makes a single schedule, as the schedule id is
+	 * restored by one schedule, and a second schedule made with it fails with
+	 * an {@link IllegalStateException}.
+	 *
+	 * @param journal the journal
+	 * @param scheduleId the schedule id
+	 * @param misfirePolicy the misfire policy
+	 * @return the scheduling task
+	 */
+	public SchedulingTask withJournal(ScheduleJournal journal, String scheduleId, MisfirePolicy misfirePolicy) {
+		assertNotClosed();
+		return new SchedulingTask(scheduler.withJournal(journal, scheduleId, misfirePolicy), asyncContext);
+	}
+
+	/**
+	 * Gets a new instance of SchedulingTask sharing the executors and the async
+	 * context of this, whose fixed rate and cron schedules handle the fire
+	 * times missed while a run is overrunning as per the given
+	 * {@link MisfirePolicy}, instead of running them all back-to-back. The
+	 * runs skipped and coalesced by the policy are counted in
+	 * {@link SchedulingTask#getSkippedRunCount()} and
+	 * {@link SchedulingTask#getCoalescedRunCount()} of the new instance. Closing
+	 * the new instance does not shut down the shared executors.
+	 *
+	 * @param misfirePolicy the misfire policy
+	 * @return the scheduling task
+	 */
+	public SchedulingTask withMisfirePolicy(MisfirePolicy misfirePolicy) {
+		assertNotClosed();
+		return new SchedulingTask(scheduler.withMisfirePolicy(misfirePolicy), asyncContext);
+	}
+
+	/**
+	 * Gets the number of the runs of the schedules of this, skipped by the
+	 * misfire policy.
+	 *
+	 * @return the skipped run count
+	 */
+	public long getSkippedRunCount() {
+		return scheduler.getSkippedRunCount();
+	}
+
+	/**
+	 * Gets the number of the runs of the schedules of this, coalesced into
+	 * another run by the misfire policy.
+	 *
+	 * @return the coalesced run count
+	 */
+	public long getCoalescedRunCount() {
+		return scheduler.getCoalescedRunCount();
+	}
+
 	/**
 	 * Schedules multiple tasks to be invoked sequentially (as per the
 	 * <code>initialDelay</code>, <code>delay</code> and
@@ -131,10 +243,11 @@ public final class SchedulingTask implements AutoCloseable{
 	 *            execution).
 	 * @param runnables
 	 *            the tasks to be scheduled sequentially
+	 * @return the schedule handle
 	 */
-	public void scheduleTasks(int initialDelay, int delay, TimeUnit unit, boolean waitForPreviousTask,
+	public ScheduleHandle scheduleTasks(int initialDelay, int delay, TimeUnit unit, boolean waitForPreviousTask,
 			Runnable... runnables) {
-		doScheduleTasks(initialDelay, delay, unit, waitForPreviousTask, runnables);
+		return doScheduleTasks(initialDelay, delay, unit, waitForPreviousTask, runnables);
 	}
 
 	/**
@@ -173,10 +286,51 @@ public final class SchedulingTask implements AutoCloseable{
 	 *            the tasks to be scheduled sequentially and rotated until
 	 *            notified using {@link AsyncContext#notifyFlag(String...)} or
 	 *            {@link AsyncContext#notifyAllFlag(String...)}
+	 * @return the schedule handle
 	 */
-	public void scheduleTasksUntilFlag(int initialDelay, int delay, TimeUnit unit, boolean waitForPreviousTask,
+	public ScheduleHandle scheduleTasksUntilFlag(int initialDelay, int delay, TimeUnit unit, boolean waitForPreviousTask,
 			String flag, Runnable... runnables) {
-		doScheduleTasksUntilFlag(initialDelay, delay, unit, waitForPreviousTask, runnables, flag);
+		return doScheduleTasksUntilFlag(initialDelay, delay, unit, waitForPreviousTask, runnables, flag);
+	}
+
+	/**
+	 * Schedules multiple tasks to be invoked sequentially, one at each fire
+	 * time of the cron expression.
+	 *
+	 * @param cronExpression
+	 *            the cron expression giving the fire times
+	 * @param runnables
+	 *            the tasks to be scheduled sequentially
+	 * @return the schedule handle
+	 */
+	public ScheduleHandle scheduleTasks(CronExpression cronExpression, Runnable... runnables) {
+		return doScheduleTasks(schedulingRunnables -> getScheduler().doScheduleFunction(cronExpression, schedulingRunnables),
+				runnables);
+	}
+
+	/**
+	 * Schedules multiple tasks to be invoked sequentially, one at each fire
+	 * time of the cron expression, and this scheduling tasks will be rotated
+	 * until a flag is notified using {@link AsyncContext#notifyFlag(String...)}
+	 * or {@link AsyncContext#notifyAllFlag(String...)} invocation with the same
+	 * flag, in same thread or different thread.
+	 *
+	 * @param cronExpression
+	 *            the cron expression giving the fire times
+	 * @param flag
+	 *            the flag with which the tasks will be rotated for scheduling,
+	 *            until notified using {@link AsyncContext#notifyFlag(String...)} or
+	 *            {@link AsyncContext#notifyAllFlag(String...)}
+	 * @param runnables
+	 *            the tasks to be scheduled sequentially and rotated until
+	 *            notified using {@link AsyncContext#notifyFlag(String...)} or
+	 *            {@link AsyncContext#notifyAllFlag(String...)}
+	 * @return the schedule handle
+	 */
+	public ScheduleHandle scheduleTasksUntilFlag(CronExpression cronExpression, String flag, Runnable... runnables) {
+		return doScheduleTasksUntilFlag(
+				schedulingRunnables -> getScheduler().doScheduleFunction(cronExpression, schedulingRunnables),
+				runnables, flag);
 	}
 
 	/**
@@ -215,10 +369,11 @@ public final class SchedulingTask implements AutoCloseable{
 	 *            the task to be scheduled repeatedly until notified using
 	 *            {@link AsyncContext#notifyFlag(String...)} or
 	 *            {@link AsyncContext#notifyAllFlag(String...)}
+	 * @return the schedule handle
 	 */
-	public void scheduleTaskUntilFlag(int initialDelay, int delay, TimeUnit unit, boolean waitForPreviousTask,
+	public ScheduleHandle scheduleTaskUntilFlag(int initialDelay, int delay, TimeUnit unit, boolean waitForPreviousTask,
 			String flag, Runnable runnable) {
-		scheduleTasksUntilFlag(initialDelay, delay, unit, waitForPreviousTask, flag, runnable);
+		return scheduleTasksUntilFlag(initialDelay, delay, unit, waitForPreviousTask, flag, runnable);
 	}
 
 	/**
@@ -275,26 +430,65 @@ public final class SchedulingTask implements AutoCloseable{
 	 *            the wait for previous task
 	 * @param runnables
 	 *            the runnables
-	 * @return the scheduled future
+	 * @return the schedule handle
 	 */
-	private ScheduledFuture<?> doScheduleTasks(int initialDelay, int delay, TimeUnit unit,
+	private ScheduleHandle doScheduleTasks(int initialDelay, int delay, TimeUnit unit,
 			boolean waitForPreviousTask, Runnable... runnables) {
+		return doScheduleTasks(schedulingRunnables -> getScheduler().doScheduleFunction(initialDelay, delay, unit,
+				waitForPreviousTask, schedulingRunnables), runnables);
+	}
+
+	/**
+	 * Do schedule tasks with the given scheduling.
+	 *
+	 * @param scheduling
+	 *            the scheduling of the function invoking the runnables
+	 * @param runnables
+	 *            the runnables
+	 * @return the schedule handle
+	 */
+	private ScheduleHandle doScheduleTasks(
+			Function<Scheduler.SchedulingFunction<Runnable, Void>, ScheduleHandle> scheduling,
+			Runnable... runnables) {
+		return doScheduleTasks(scheduling, runnables.length, index -> runnables[index]);
+	}
+
+	/**
+	 * Do schedule tasks with the given scheduling, running the task at each
+	 * index up to the given count. Only the count of the runs claimed so far is
+	 * kept, so that repeating a task any number of times takes constant space.
+	 *
+	 * @param scheduling
+	 *            the scheduling of the function invoking the runnables
+	 * @param count
+	 *            the number of runs
+	 * @param runnableAt
+	 *            the function giving the task for a run index
+	 * @return the schedule handle
+	 */
+	private ScheduleHandle doScheduleTasks(
+			Function<Scheduler.SchedulingFunction<Runnable, Void>, ScheduleHandle> scheduling, int count,
+			IntFunction<Runnable> runnableAt) {
 		Scheduler.SchedulingFunction<Runnable, Void> schedulingRunnables = new Scheduler.SchedulingFunction<Runnable, Void>() {
 			private AtomicInteger index = new AtomicInteger(0);
 
 			@Override
 			public boolean canRun() {
-				return index.get() < runnables.length;
+				return index.get() < count;
 			}
 
 			@Override
 			public boolean canCancel() {
-				return index.get() == runnables.length;
+				return index.get() >= count;
 			}
 
 			@Override
 			public Void invokeNextFunction() {
-				runnables[index.getAndIncrement()].run();
+				// Claims the next index, as the runs may overlap
+				int next = index.getAndIncrement();
+				if (next < count) {
+					runnableAt.apply(next).run();
+				}
 				return null;
 			}
 
@@ -303,8 +497,13 @@ public final class SchedulingTask implements AutoCloseable{
 				// Does nothing
 			}
 
+			@Override
+			public void restoreRunCount(long runCount) {
+				index.set((int) Math.min(count, runCount));
+			}
+
 		};
-		return getScheduler().doScheduleFunction(initialDelay, delay, unit, waitForPreviousTask, schedulingRunnables);
+		return scheduling.apply(schedulingRunnables);
 	}
 
 	/**
@@ -322,11 +521,38 @@ public final class SchedulingTask implements AutoCloseable{
 	 *            the runnables
 	 * @param flag
 	 *            the flag
-	 * @return the scheduled future
+	 * @return the schedule handle
 	 */
-	private ScheduledFuture<?> doScheduleTasksUntilFlag(int initialDelay, int delay, TimeUnit unit,
+	private ScheduleHandle doScheduleTasksUntilFlag(int initialDelay, int delay, TimeUnit unit,
 			boolean waitForPreviousTask, Runnable[] runnables, String flag) {
+		return doScheduleTasksUntilFlag(schedulingRunnables -> getScheduler().doScheduleFunction(initialDelay, delay,
+				unit, waitForPreviousTask, schedulingRunnables), runnables, flag);
+	}
+
+	/**
+	 * Do schedule tasks until flag with the given scheduling.
+	 *
+	 * @param scheduling
+	 *            the scheduling of the function invoking the runnables
+	 * @param runnables
+	 *            the runnables
+	 * @param flag
+	 *            the flag
+	 * @return the schedule handle
+	 */
+	private ScheduleHandle doScheduleTasksUntilFlag(
+			Function<Scheduler.SchedulingFunction<Runnable, Void>, ScheduleHandle> scheduling,
+			Runnable[] runnables, String flag) {
 		AtomicBoolean canCancel = new AtomicBoolean(false);
+		// The thread waiting for the flag, which is interrupted once the schedule is done without it
+		Thread waiter = VirtualThreads.newThread(() -> {
+			try {
+				getAsyncContext().waitForFlag(flag);
+			} catch (InterruptedException e) {
+				logger.config(e.getClass().getSimpleName() + ": " + e.getMessage());
+			}
+			canCancel.set(true);
+		});
 		Scheduler.SchedulingFunction<Runnable, Void> schedulingRunnables = new Scheduler.SchedulingFunction<Runnable, Void>() {
 			private AtomicInteger index = new AtomicInteger(0);
 
@@ -342,11 +568,8 @@ public final class SchedulingTask implements AutoCloseable{
 
 			@Override
 			public Void invokeNextFunction() {
-				if (index.get() == runnables.length) {
-					// Cycle again
-					index.set(0);
-				}
-				runnables[index.getAndIncrement()].run();
+				// Cycle again after the last one
+				runnables[index.getAndUpdate(i -> (i + 1) % runnables.length)].run();
 				return null;
 			}
 
@@ -355,18 +578,16 @@ public final class SchedulingTask implements AutoCloseable{
 				// Does nothing
 			}
 
+			@Override
+			public void onDone() {
+				waiter.interrupt();
+			}
+
 		};
 
-		AsyncTask.submitTaskInNewThread(() -> {
-			try {
-				getAsyncContext().waitForFlag(flag);
-			} catch (InterruptedException e) {
-				logger.config(e.getClass().getSimpleName() + ": " + e.getMessage());
-			}
-			canCancel.set(true);
-		});
+		waiter.start();
 
-		return getScheduler().doScheduleFunction(initialDelay, delay, unit, waitForPreviousTask, schedulingRunnables);
+		return scheduling.apply(schedulingRunnables);
 	}
 
 	/**
@@ -401,10 +622,12 @@ public final class SchedulingTask implements AutoCloseable{
 	 *            execution).
 	 * @param runnable            the task to be scheduled
 	 * @param times            the number of times the scheduling should be done for the task
+	 * @return the schedule handle
 	 */
-	public void scheduleTask(int initialDelay, int delay, TimeUnit unit, boolean waitForPreviousTask,
+	public ScheduleHandle scheduleTask(int initialDelay, int delay, TimeUnit unit, boolean waitForPreviousTask,
 			Runnable runnable, int times) {
-		scheduleTasks(initialDelay, delay, unit, waitForPreviousTask, AsyncContext.arrayOfTimes(runnable, times));
+		return doScheduleTasks(schedulingRunnables -> getScheduler().doScheduleFunction(initialDelay, delay, unit,
+				waitForPreviousTask, schedulingRunnables), times, index -> runnable);
 	}
 
 	/**
@@ -434,7 +657,11 @@ public final class SchedulingTask implements AutoCloseable{
 	 */
 	public void scheduleTaskAndWait(int initialDelay, int delay, TimeUnit unit, boolean waitForPreviousTask,
 			Runnable runnable, int times) {
-		scheduleTasksAndWait(initialDelay, delay, unit, waitForPreviousTask, AsyncContext.arrayOfTimes(runnable, times));
+		try {
+			scheduleTask(initialDelay, delay, unit, waitForPreviousTask, runnable, times).get();
+		} catch (InterruptedException | ExecutionException | CancellationException e) {
+			logger.config(e.getClass().getSimpleName() + ": " + e.getMessage());
+		}
 	}
 
 	/**
@@ -448,9 +675,10 @@ public final class SchedulingTask implements AutoCloseable{
 	 *            argument is used.
 	 * @param runnable
 	 *            the task to be scheduled
+	 * @return the schedule handle
 	 */
-	public void scheduleTask(int initialDelay, TimeUnit unit, Runnable runnable) {
-		scheduleTask(initialDelay, 1, unit, false, runnable, 1);
+	public ScheduleHandle scheduleTask(int initialDelay, TimeUnit unit, Runnable runnable) {
+		return scheduleTask(initialDelay, 1, unit, false, runnable, 1);
 	}
 
 	/**
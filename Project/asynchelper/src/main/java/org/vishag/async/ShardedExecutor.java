@@ -0,0 +1,276 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+
+ *   http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vishag.async;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The ShardedExecutor class, which is an {@link Executor} running the work
+ * submitted with keys serially in the order of submission per shard, where
+ * the shard is chosen by the hash of all the keys, or only by the hash of the
+ * first key, called the key tag, if sharded by key tag. The work of different
+ * shards runs in parallel in the thread pool, and the work without keys runs
+ * directly in the thread pool. <br>
+ * <br>
+ * Each shard is a mailbox drained by at most one thread of the pool at a
+ * time, which is handed over with a compare-and-set on the scheduled flag of
+ * the shard, so that no lock is taken while submitting or running the work.
+ * <br>
+ * <br>
+ * If a task waits through {@link Executor#await(Future)} for another
+ * task of its own shard which is still in the mailbox, the awaited task is
+ * taken out of the mailbox and run inline by the waiting task, as it would
+ * never start until the waiting task completes.
+ *
+ * @author Loganathan.S &lt;https://github.com/loganathan001&gt;
+ */
+class ShardedExecutor extends Executor {
+
+	/**
+	 * The max number of tasks run in a turn of a shard before giving the
+	 * thread back to the pool, so that a busy shard does not starve the others.
+	 */
+	private static final int MAX_TASKS_PER_TURN = 64;
+
+	/** The shard being run by the current thread. */
+	private static final ThreadLocal<Shard> RUNNING_SHARD = new ThreadLocal<>();
+
+	/** The shards. */
+	private final Shard[] shards;
+
+	/** Whether the shard is chosen only by the first key. */
+	private final boolean byKeyTag;
+
+	/**
+	 * Instantiates a new sharded executor.
+	 *
+	 * @param threadPool
+	 *            the thread pool
+	 * @param shardCount
+	 *            the shard count
+	 * @param byKeyTag
+	 *            whether the shard is chosen only by the first key
+	 */
+	ShardedExecutor(ExecutorService threadPool, int shardCount, boolean byKeyTag) {
+		super(threadPool);
+		if (shardCount < 1) {
+			throw new IllegalArgumentException("Invalid shard count " + shardCount);
+		}
+		this.byKeyTag = byKeyTag;
+		this.shards = new Shard[shardCount];
+		for (int i = 0; i < shardCount; i++) {
+			shards[i] = new Shard(threadPool);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.vishag.async.Executor#canRunInline()
+	 */
+	@Override
+	protected boolean canRunInline() {
+		// The work runs only as per the shards
+		return false;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.vishag.async.Executor#submit(java.util.concurrent.Callable,
+	 * java.lang.Object[])
+	 */
+	@Override
+	protected <T> Future<T> submit(Callable<T> callable, Object... keys) {
+		if (!isSharded(keys)) {
+			return super.submit(callable, keys);
+		}
+		assertNotClosed();
+		Shard shard = getShard(keys);
+		ShardTask<T> task = new ShardTask<>(shard, callable);
+		shard.enqueue(task);
+		return task;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.vishag.async.Executor#execute(java.lang.Runnable,
+	 * java.lang.Object[])
+	 */
+	@Override
+	protected void execute(Runnable runnable, Object... keys) {
+		if (!isSharded(keys)) {
+			super.execute(runnable, keys);
+		} else {
+			assertNotClosed();
+			getShard(keys).enqueue(runnable);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.vishag.async.Executor#runInline(java.util.concurrent.Future)
+	 */
+	@Override
+	protected <T> void runInline(Future<T> future) {
+		if (future instanceof ShardTask) {
+			ShardTask<T> task = (ShardTask<T>) future;
+			// The awaited task would never start while its shard waits for it
+			if (RUNNING_SHARD.get() == task.shard && task.shard.mailbox.remove(task)) {
+				task.run();
+			}
+		} else {
+			super.runInline(future);
+		}
+	}
+
+	/**
+	 * Checks whether the work submitted with the keys runs in a shard.
+	 *
+	 * @param keys
+	 *            the keys
+	 * @return true, if sharded
+	 */
+	private boolean isSharded(Object... keys) {
+		return keys != null && keys.length > 0 && (!byKeyTag || keys[0] != null);
+	}
+
+	/**
+	 * Gets the shard of the keys.
+	 *
+	 * @param keys
+	 *            the keys
+	 * @return the shard
+	 */
+	private Shard getShard(Object... keys) {
+		// Same as the hash of the ObjectsKey of the keys
+		int hash = byKeyTag ? keys[0].hashCode() : Arrays.hashCode(keys);
+		hash ^= hash >>> 16;
+		return shards[(hash & Integer.MAX_VALUE) % shards.length];
+	}
+
+	/**
+	 * The ShardTask, which is the future of a callable submitted to a shard,
+	 * so that {@link ShardedExecutor#runInline(Future)} can find its shard.
+	 *
+	 * @param <T>
+	 *            the generic type
+	 */
+	private static final class ShardTask<T> extends FutureTask<T> {
+
+		/** The shard. */
+		private final Shard shard;
+
+		/**
+		 * Instantiates a new shard task.
+		 *
+		 * @param shard
+		 *            the shard
+		 * @param callable
+		 *            the callable
+		 */
+		private ShardTask(Shard shard, Callable<T> callable) {
+			super(callable);
+			this.shard = shard;
+		}
+	}
+
+	/**
+	 * The Shard, which is a mailbox of tasks run serially in the thread pool.
+	 */
+	private static final class Shard implements Runnable {
+
+		/** The thread pool. */
+		private final ExecutorService threadPool;
+
+		/** The mailbox. */
+		private final Queue<Runnable> mailbox = new ConcurrentLinkedQueue<>();
+
+		/** The flag set while the shard is scheduled or running in the pool. */
+		private final AtomicBoolean scheduled = new AtomicBoolean();
+
+		/**
+		 * Instantiates a new shard.
+		 *
+		 * @param threadPool
+		 *            the thread pool
+		 */
+		private Shard(ExecutorService threadPool) {
+			this.threadPool = threadPool;
+		}
+
+		/**
+		 * Enqueues the task, and schedules the shard unless it is already.
+		 *
+		 * @param task
+		 *            the task
+		 */
+		private void enqueue(Runnable task) {
+			mailbox.offer(task);
+			schedule();
+		}
+
+		/**
+		 * Schedules the shard in the thread pool if it has any task and is not
+		 * already scheduled.
+		 */
+		private void schedule() {
+			if (!mailbox.isEmpty() && scheduled.compareAndSet(false, true)) {
+				try {
+					threadPool.execute(this);
+				} catch (RejectedExecutionException e) {
+					scheduled.set(false);
+					throw e;
+				}
+			}
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.lang.Runnable#run()
+		 */
+		@Override
+		public void run() {
+			Shard previous = RUNNING_SHARD.get();
+			RUNNING_SHARD.set(this);
+			try {
+				Runnable task;
+				for (int i = 0; i < MAX_TASKS_PER_TURN && (task = mailbox.poll()) != null; i++) {
+					task.run();
+				}
+			} finally {
+				RUNNING_SHARD.set(previous);
+				scheduled.set(false);
+				schedule();
+			}
+		}
+	}
+}
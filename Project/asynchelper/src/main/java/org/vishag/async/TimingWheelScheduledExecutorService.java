@@ -0,0 +1,752 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+
+ *   http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vishag.async;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RunnableScheduledFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The TimingWheelScheduledExecutorService class, which is a
+ * {@link ScheduledExecutorService} keeping the schedules in a hierarchical
+ * timing wheel instead of a delay queue heap, suitable for very large number
+ * of schedules. It can be used with
+ * {@link SchedulingSupplier#of(ScheduledExecutorService)} and
+ * {@link SchedulingTask#of(ScheduledExecutorService)} like any other scheduled
+ * executor service. <br>
+ * <br>
+ * Time is divided into ticks of a fixed duration. The wheel of each level has
+ * the same number of slots, and a slot of a level spans a full revolution of
+ * the level below. A schedule is linked into the slot of its deadline tick in
+ * the lowest level that covers it, and moved down a level when the level
+ * below wraps around, so that inserting and cancelling a schedule takes
+ * constant time, and all the schedules of a slot expire together on a tick.
+ * <br>
+ * <br>
+ * The wheel is owned by a single timer thread, which hands the expired
+ * schedules over to the worker thread pool. Other threads pass the new and
+ * cancelled schedules to the timer thread through lock-free queues. The timer
+ * thread parks while there is no schedule. The delay of the timer thread
+ * behind the tick time is reported as the tick lag. <br>
+ * <br>
+ * Note: A schedule fires on the first tick at or after its deadline, so it may
+ * be late by up to one tick duration plus the tick lag. On shut down the
+ * schedules not yet expired are cancelled.
+ *
+ * @author Loganathan.S &lt;https://github.com/loganathan001&gt;
+ */
+public final class TimingWheelScheduledExecutorService extends AbstractExecutorService
+		implements ScheduledExecutorService {
+
+	/** The default tick duration in nano seconds. */
+	private static final long DEFAULT_TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	/** The default number of slots of a wheel. */
+	private static final int DEFAULT_WHEEL_SIZE = 256;
+
+	/** The sequence of the schedules, to break the ties of the deadlines. */
+	private static final AtomicLong SEQUENCE = new AtomicLong();
+
+	/** The tick duration in nano seconds. */
+	private final long tickNanos;
+
+	/** The bits of the slot index of a wheel. */
+	private final int wheelBits;
+
+	/** The mask of the slot index of a wheel. */
+	private final long wheelMask;
+
+	/** The wheels by level, each having the heads of the slot lists. */
+	private final Timeout<?>[][] wheels;
+
+	/** The start time of the tick 0 in nano seconds. */
+	private final long startNanos = System.nanoTime();
+
+	/** The new schedules to be linked by the timer thread. */
+	private final Queue<Timeout<?>> added = new ConcurrentLinkedQueue<>();
+
+	/** The cancelled schedules to be unlinked by the timer thread. */
+	private final Queue<Timeout<?>> cancelled = new ConcurrentLinkedQueue<>();
+
+	/** The worker thread pool. */
+	private final ExecutorService workers;
+
+	/** The flag to shut down the worker thread pool along with this. */
+	private final boolean ownsWorkers;
+
+	/** The timer thread. */
+	private final Thread timer;
+
+	/** The number of the schedules linked in the wheels, owned by the timer thread. */
+	private int linkedCount;
+
+	/** The last processed tick, owned by the timer thread. */
+	private long processedTick;
+
+	/** The last tick lag in nano seconds. */
+	private volatile long lastTickLagNanos;
+
+	/** The max tick lag in nano seconds. */
+	private volatile long maxTickLagNanos;
+
+	/** The number of the expired schedules. */
+	private final AtomicLong expiredCount = new AtomicLong();
+
+	/** The flag telling the timer thread is parked without any schedule. */
+	private volatile boolean idle;
+
+	/** The shutdown flag. */
+	private volatile boolean shutdown;
+
+	/**
+	 * Instantiates a new timing wheel scheduled executor service.
+	 *
+	 * @param tickNanos
+	 *            the tick nanos
+	 * @param wheelSize
+	 *            the wheel size
+	 * @param workers
+	 *            the workers
+	 * @param ownsWorkers
+	 *            the owns workers
+	 */
+	private TimingWheelScheduledExecutorService(long tickNanos, int wheelSize, ExecutorService workers,
+			boolean ownsWorkers) {
+		if (tickNanos <= 0 || wheelSize < 2 || Integer.bitCount(wheelSize) != 1) {
+			throw new IllegalArgumentException(
+					"Invalid tick duration " + tickNanos + "ns or wheel size " + wheelSize + " (power of 2)");
+		}
+		this.tickNanos = tickNanos;
+		this.wheelBits = Integer.numberOfTrailingZeros(wheelSize);
+		this.wheelMask = wheelSize - 1;
+		// Enough levels to cover any delay in nano seconds
+		this.wheels = new Timeout<?>[(Long.SIZE + wheelBits - 1) / wheelBits][wheelSize];
+		this.workers = workers;
+		this.ownsWorkers = ownsWorkers;
+		this.timer = new Thread(this::runTimer, "timing-wheel-timer");
+		this.timer.setDaemon(true);
+		this.timer.start();
+	}
+
+	/**
+	 * Gets a new TimingWheelScheduledExecutorService with the tick duration of
+	 * 1 millisecond and 256 slots per wheel, running the schedules in its own
+	 * thread pool.
+	 *
+	 * @return the timing wheel scheduled executor service
+	 */
+	public static TimingWheelScheduledExecutorService newInstance() {
+		return of(DEFAULT_TICK_NANOS, TimeUnit.NANOSECONDS, DEFAULT_WHEEL_SIZE);
+	}
+
+	/**
+	 * Gets a new TimingWheelScheduledExecutorService with the given tick
+	 * duration and number of slots per wheel, running the schedules in its own
+	 * thread pool.
+	 *
+	 * @param tickDuration
+	 *            the tick duration
+	 * @param timeUnit
+	 *            the time unit
+	 * @param wheelSize
+	 *            the number of slots per wheel, which is a power of 2
+	 * @return the timing wheel scheduled executor service
+	 */
+	public static TimingWheelScheduledExecutorService of(long tickDuration, TimeUnit timeUnit, int wheelSize) {
+		return new TimingWheelScheduledExecutorService(timeUnit.toNanos(tickDuration), wheelSize,
+				Executors.newFixedThreadPool(ForkJoinPool.getCommonPoolParallelism(), newThreadFactory()), true);
+	}
+
+	/**
+	 * Gets a new TimingWheelScheduledExecutorService with the given tick
+	 * duration and number of slots per wheel, running the schedules in the
+	 * given thread pool, which is not shut down along with this.
+	 *
+	 * @param tickDuration
+	 *            the tick duration
+	 * @param timeUnit
+	 *            the time unit
+	 * @param wheelSize
+	 *            the number of slots per wheel, which is a power of 2
+	 * @param workers
+	 *            the workers
+	 * @return the timing wheel scheduled executor service
+	 */
+	public static TimingWheelScheduledExecutorService of(long tickDuration, TimeUnit timeUnit, int wheelSize,
+			ExecutorService workers) {
+		return new TimingWheelScheduledExecutorService(timeUnit.toNanos(tickDuration), wheelSize, workers, false);
+	}
+
+	/**
+	 * New thread factory creating daemon worker threads.
+	 *
+	 * @return the thread factory
+	 */
+	private static ThreadFactory newThreadFactory() {
+		AtomicInteger threadNumber = new AtomicInteger();
+		return runnable -> {
+			Thread thread = new Thread(runnable, "timing-wheel-worker-" + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	/**
+	 * The Timeout, which is a schedule linked into a slot of the wheels.
+	 *
+	 * @param <V>
+	 *            the value type
+	 */
+	private final class Timeout<V> extends FutureTask<V> implements RunnableScheduledFuture<V> {
+
+		/** The sequence number. */
+		private final long sequence = SEQUENCE.getAndIncrement();
+
+		/**
+		 * The period in nano seconds, positive for fixed rate, negative for
+		 * fixed delay and 0 for one-shot.
+		 */
+		private final long periodNanos;
+
+		/** The deadline in nano seconds. */
+		private volatile long deadlineNanos;
+
+		/** The previous in the slot list, owned by the timer thread. */
+		private Timeout<?> previous;
+
+		/** The next in the slot list, owned by the timer thread. */
+		private Timeout<?> next;
+
+		/** The slot list head holder, owned by the timer thread. */
+		private Timeout<?>[] wheel;
+
+		/** The slot index, owned by the timer thread. */
+		private int slot;
+
+		/**
+		 * Instantiates a new timeout.
+		 *
+		 * @param callable
+		 *            the callable
+		 * @param deadlineNanos
+		 *            the deadline nanos
+		 */
+		private Timeout(Callable<V> callable, long deadlineNanos) {
+			super(callable);
+			this.deadlineNanos = deadlineNanos;
+			this.periodNanos = 0L;
+		}
+
+		/**
+		 * Instantiates a new periodic timeout.
+		 *
+		 * @param runnable
+		 *            the runnable
+		 * @param deadlineNanos
+		 *            the deadline nanos
+		 * @param periodNanos
+		 *            the period nanos
+		 */
+		private Timeout(Runnable runnable, long deadlineNanos, long periodNanos) {
+			super(runnable, null);
+			this.deadlineNanos = deadlineNanos;
+			this.periodNanos = periodNanos;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.util.concurrent.RunnableScheduledFuture#isPeriodic()
+		 */
+		@Override
+		public boolean isPeriodic() {
+			return periodNanos != 0L;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.util.concurrent.Delayed#getDelay(java.util.concurrent.TimeUnit)
+		 */
+		@Override
+		public long getDelay(TimeUnit unit) {
+			return unit.convert(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.lang.Comparable#compareTo(java.lang.Object)
+		 */
+		@Override
+		public int compareTo(Delayed other) {
+			if (other == this) {
+				return 0;
+			}
+			if (other instanceof Timeout) {
+				Timeout<?> timeout = (Timeout<?>) other;
+				long diff = deadlineNanos - timeout.deadlineNanos;
+				return diff != 0 ? (diff < 0 ? -1 : 1) : Long.compare(sequence, timeout.sequence);
+			}
+			return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.util.concurrent.FutureTask#run()
+		 */
+		@Override
+		public void run() {
+			if (!isPeriodic()) {
+				super.run();
+			} else if (super.runAndReset()) {
+				deadlineNanos = periodNanos > 0 ? deadlineNanos + periodNanos : System.nanoTime() - periodNanos;
+				if (shutdown) {
+					cancel(false);
+				} else {
+					enqueue(this);
+				}
+			}
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.util.concurrent.FutureTask#cancel(boolean)
+		 */
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			boolean cancelledNow = super.cancel(mayInterruptIfRunning);
+			if (cancelledNow) {
+				cancelled.offer(this);
+			}
+			return cancelledNow;
+		}
+	}
+
+	/**
+	 * Enqueues the timeout to be linked by the timer thread.
+	 *
+	 * @param timeout
+	 *            the timeout
+	 */
+	private void enqueue(Timeout<?> timeout) {
+		added.offer(timeout);
+		if (idle) {
+			LockSupport.unpark(timer);
+		}
+	}
+
+	/**
+	 * Schedules the timeout.
+	 *
+	 * @param <V>
+	 *            the value type
+	 * @param timeout
+	 *            the timeout
+	 * @return the timeout
+	 */
+	private <V> Timeout<V> schedule(Timeout<V> timeout) {
+		if (shutdown) {
+			throw new RejectedExecutionException("Already shut down");
+		}
+		enqueue(timeout);
+		return timeout;
+	}
+
+	/**
+	 * Gets the deadline of the delay.
+	 *
+	 * @param delay
+	 *            the delay
+	 * @param unit
+	 *            the unit
+	 * @return the deadline in nano seconds
+	 */
+	private static long deadline(long delay, TimeUnit unit) {
+		return System.nanoTime() + Math.max(0L, unit.toNanos(delay));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.concurrent.ScheduledExecutorService#schedule(java.lang.Runnable, long, java.util.concurrent.TimeUnit)
+	 */
+	@Override
+	public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+		return schedule(new Timeout<>(Executors.callable(command), deadline(delay, unit)));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.concurrent.ScheduledExecutorService#schedule(java.util.concurrent.Callable, long, java.util.concurrent.TimeUnit)
+	 */
+	@Override
+	public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+		return schedule(new Timeout<>(callable, deadline(delay, unit)));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.concurrent.ScheduledExecutorService#scheduleAtFixedRate(java.lang.Runnable, long, long, java.util.concurrent.TimeUnit)
+	 */
+	@Override
+	public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+		if (period <= 0) {
+			throw new IllegalArgumentException("Invalid period " + period);
+		}
+		return schedule(new Timeout<>(command, deadline(initialDelay, unit), unit.toNanos(period)));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.concurrent.ScheduledExecutorService#scheduleWithFixedDelay(java.lang.Runnable, long, long, java.util.concurrent.TimeUnit)
+	 */
+	@Override
+	public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay,
+			TimeUnit unit) {
+		if (delay <= 0) {
+			throw new IllegalArgumentException("Invalid delay " + delay);
+		}
+		return schedule(new Timeout<>(command, deadline(initialDelay, unit), -unit.toNanos(delay)));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.concurrent.Executor#execute(java.lang.Runnable)
+	 */
+	@Override
+	public void execute(Runnable command) {
+		if (shutdown) {
+			throw new RejectedExecutionException("Already shut down");
+		}
+		workers.execute(command);
+	}
+
+	/**
+	 * Runs the timer thread, which processes the ticks as they come.
+	 */
+	private void runTimer() {
+		while (!shutdown) {
+			long now = System.nanoTime();
+			long currentTick = (now - startNanos) / tickNanos;
+			if (linkedCount == 0 && added.isEmpty()) {
+				// Nothing to expire in the ticks passed while idle
+				processedTick = Math.max(processedTick, currentTick - 1);
+			}
+			if (processedTick < currentTick) {
+				// Behind the time of the first tick not yet processed
+				lastTickLagNanos = now - (startNanos + (processedTick + 1) * tickNanos);
+				if (lastTickLagNanos > maxTickLagNanos) {
+					maxTickLagNanos = lastTickLagNanos;
+				}
+				while (processedTick < currentTick) {
+					processTick(++processedTick);
+				}
+			}
+			if (linkedCount == 0) {
+				unlinkCancelled();
+				idle = true;
+				if (added.isEmpty() && !shutdown) {
+					LockSupport.park(this);
+				}
+				idle = false;
+			} else {
+				LockSupport.parkNanos(this, startNanos + (processedTick + 1) * tickNanos - System.nanoTime());
+			}
+		}
+		cancelAll();
+	}
+
+	/**
+	 * Processes the tick, moving the schedules of the next revolution down the
+	 * levels and expiring the schedules of the tick.
+	 *
+	 * @param tick
+	 *            the tick
+	 */
+	private void processTick(long tick) {
+		unlinkCancelled();
+		linkAdded();
+		// Move down the slots of the next revolution of the levels wrapping
+		// around, from the lowest one
+		for (int level = 1; level < wheels.length && ((tick >>> ((level - 1) * wheelBits)) & wheelMask) == 0; level++) {
+			int slot = (int) ((tick >>> (level * wheelBits)) & wheelMask);
+			Timeout<?> timeout = wheels[level][slot];
+			wheels[level][slot] = null;
+			while (timeout != null) {
+				Timeout<?> next = timeout.next;
+				timeout.previous = timeout.next = null;
+				timeout.wheel = null;
+				linkedCount--;
+				link(timeout, tick);
+				timeout = next;
+			}
+		}
+
+		int slot = (int) (tick & wheelMask);
+		Timeout<?> timeout = wheels[0][slot];
+		wheels[0][slot] = null;
+		while (timeout != null) {
+			Timeout<?> next = timeout.next;
+			timeout.previous = timeout.next = null;
+			timeout.wheel = null;
+			linkedCount--;
+			expire(timeout);
+			timeout = next;
+		}
+	}
+
+	/**
+	 * Expires the timeout, handing it over to the workers.
+	 *
+	 * @param timeout
+	 *            the timeout
+	 */
+	private void expire(Timeout<?> timeout) {
+		if (timeout.isCancelled()) {
+			return;
+		}
+		expiredCount.incrementAndGet();
+		try {
+			workers.execute(timeout);
+		} catch (RejectedExecutionException e) {
+			timeout.cancel(false);
+		}
+	}
+
+	/**
+	 * Links the added schedules into the wheels.
+	 */
+	private void linkAdded() {
+		Timeout<?> timeout;
+		while ((timeout = added.poll()) != null) {
+			if (!timeout.isCancelled()) {
+				link(timeout, processedTick);
+			}
+		}
+	}
+
+	/**
+	 * Unlinks the cancelled schedules from the wheels.
+	 */
+	private void unlinkCancelled() {
+		Timeout<?> timeout;
+		while ((timeout = cancelled.poll()) != null) {
+			if (timeout.wheel != null) {
+				if (timeout.previous != null) {
+					timeout.previous.next = timeout.next;
+				} else {
+					timeout.wheel[timeout.slot] = timeout.next;
+				}
+				if (timeout.next != null) {
+					timeout.next.previous = timeout.previous;
+				}
+				timeout.previous = timeout.next = null;
+				timeout.wheel = null;
+				linkedCount--;
+			}
+		}
+	}
+
+	/**
+	 * Links the timeout into the slot of its deadline tick, in the level of the
+	 * highest block of ticks which differs from that of the current tick, so
+	 * that the slot is moved down or expired within the current revolution of
+	 * the level, not before the deadline.
+	 *
+	 * @param timeout
+	 *            the timeout
+	 * @param currentTick
+	 *            the tick being processed
+	 */
+	private void link(Timeout<?> timeout, long currentTick) {
+		long deadlineTick = Math.max(currentTick,
+				(timeout.deadlineNanos - startNanos + tickNanos - 1) / tickNanos);
+		int level = 0;
+		while (level < wheels.length - 1
+				&& (deadlineTick >>> ((level + 1) * wheelBits)) != (currentTick >>> ((level + 1) * wheelBits))) {
+			level++;
+		}
+		int slot = (int) ((deadlineTick >>> (level * wheelBits)) & wheelMask);
+		Timeout<?>[] wheel = wheels[level];
+		timeout.wheel = wheel;
+		timeout.slot = slot;
+		timeout.previous = null;
+		timeout.next = wheel[slot];
+		if (wheel[slot] != null) {
+			wheel[slot].previous = timeout;
+		}
+		wheel[slot] = timeout;
+		linkedCount++;
+	}
+
+	/**
+	 * Cancels all the schedules on shut down.
+	 */
+	private void cancelAll() {
+		Timeout<?> timeout;
+		while ((timeout = added.poll()) != null) {
+			timeout.cancel(false);
+		}
+		for (Timeout<?>[] wheel : wheels) {
+			for (int slot = 0; slot < wheel.length; slot++) {
+				for (timeout = wheel[slot]; timeout != null; timeout = timeout.next) {
+					timeout.cancel(false);
+				}
+				wheel[slot] = null;
+			}
+		}
+		linkedCount = 0;
+		cancelled.clear();
+	}
+
+	/**
+	 * Gets the delay of the timer thread behind the time of the first tick it
+	 * had not yet processed, when it last caught up with the ticks.
+	 *
+	 * @param timeUnit
+	 *            the time unit
+	 * @return the tick lag
+	 */
+	public long getTickLag(TimeUnit timeUnit) {
+		return timeUnit.convert(lastTickLagNanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Gets the max delay of the timer thread behind the tick time so far.
+	 *
+	 * @param timeUnit
+	 *            the time unit
+	 * @return the max tick lag
+	 */
+	public long getMaxTickLag(TimeUnit timeUnit) {
+		return timeUnit.convert(maxTickLagNanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Gets the tick duration.
+	 *
+	 * @param timeUnit
+	 *            the time unit
+	 * @return the tick duration
+	 */
+	public long getTickDuration(TimeUnit timeUnit) {
+		return timeUnit.convert(tickNanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Gets the number of the schedules expired so far.
+	 *
+	 * @return the expired count
+	 */
+	public long getExpiredCount() {
+		return expiredCount.get();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.concurrent.ExecutorService#shutdown()
+	 */
+	@Override
+	public void shutdown() {
+		if (!shutdown) {
+			shutdown = true;
+			LockSupport.unpark(timer);
+			if (ownsWorkers) {
+				workers.shutdown();
+			}
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.concurrent.ExecutorService#shutdownNow()
+	 */
+	@Override
+	public List<Runnable> shutdownNow() {
+		shutdown();
+		if (ownsWorkers) {
+			return workers.shutdownNow();
+		}
+		return new ArrayList<>();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.concurrent.ExecutorService#isShutdown()
+	 */
+	@Override
+	public boolean isShutdown() {
+		return shutdown;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.concurrent.ExecutorService#isTerminated()
+	 */
+	@Override
+	public boolean isTerminated() {
+		return shutdown && !timer.isAlive() && (!ownsWorkers || workers.isTerminated());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.concurrent.ExecutorService#awaitTermination(long, java.util.concurrent.TimeUnit)
+	 */
+	@Override
+	public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		timer.join(Math.max(1L, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+		if (ownsWorkers) {
+			return workers.awaitTermination(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)
+					&& !timer.isAlive();
+		}
+		return !timer.isAlive();
+	}
+}
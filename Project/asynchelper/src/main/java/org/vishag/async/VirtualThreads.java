@@ -0,0 +1,65 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+
+ *   http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vishag.async;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The VirtualThreads class. This is internally used to create the threads for
+ * the virtual thread execution mode. <br>
+ * <br>
+ * Note: This is the Java 8 version, used when virtual threads are not
+ * available, which falls back to platform threads. On JDK 21 or later the
+ * version from <code>META-INF/versions/21</code> of the multi-release jar is
+ * used instead, which creates virtual threads.
+ *
+ * @author Loganathan.S &lt;https://github.com/loganathan001&gt;
+ */
+final class VirtualThreads {
+
+	/**
+	 * Prevent instantiation.
+	 */
+	private VirtualThreads() {
+	}
+
+	/**
+	 * Creates an executor service that starts a new thread for each task. This
+	 * falls back to a cached thread pool of platform threads.
+	 *
+	 * @return the executor service
+	 */
+	static ExecutorService newThreadPerTaskExecutor() {
+		return Executors.newCachedThreadPool();
+	}
+
+	/**
+	 * Creates a new thread which is not yet started. This falls back to a
+	 * platform thread.
+	 *
+	 * @param runnable
+	 *            the runnable
+	 * @return the thread
+	 */
+	static Thread newThread(Runnable runnable) {
+		return new Thread(runnable);
+	}
+}
@@ -0,0 +1,128 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+
+ *   http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vishag.async;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+/**
+ * The class AdaptiveThreadPoolExecutorTest.
+ * 
+ * @author Loganathan.S &lt;https://github.com/loganathan001&gt;
+ */
+public class AdaptiveThreadPoolExecutorTest {
+
+	/** The watcher. */
+	@Rule
+	public TestRule watcher = new TestWatcherAndLogger();
+
+	/**
+	 * Test the pool grows for queueing blocking suppliers.
+	 *
+	 * @throws Exception
+	 *             the exception
+	 */
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testGrowsForBlockingSuppliers() throws Exception {
+		AdaptiveThreadPoolExecutor pool = AdaptiveThreadPoolExecutor.of(1, 32, 50, TimeUnit.MILLISECONDS);
+		try (AsyncSupplier asyncSupplier = AsyncSupplier.of(pool, AsyncContext.newInstance())) {
+			Supplier<Integer>[] resultSuppliers = asyncSupplier.submitSuppliers(
+					Stream.iterate(0, i -> i + 1).limit(400).map(i -> TestUtil.delayedSupplier(() -> i, 20))
+							.toArray(size -> new Supplier[size]));
+			int sum = Stream.of(resultSuppliers).mapToInt(Supplier::get).sum();
+			assertEquals(sum, 399 * 400 / 2);
+			assertTrue(pool.getLargestPoolSize() > Runtime.getRuntime().availableProcessors());
+			assertTrue(pool.getLargestPoolSize() <= 32);
+			assertTrue(pool.getBlockingRatio() > 0.5);
+			assertTrue(pool.getMeanServiceTime(TimeUnit.MILLISECONDS) >= 20);
+		}
+	}
+
+	/**
+	 * Test the pool stays near the number of cores for CPU-bound tasks.
+	 *
+	 * @throws Exception
+	 *             the exception
+	 */
+	@Test
+	public void testStaysSmallForCpuBoundTasks() throws Exception {
+		AdaptiveThreadPoolExecutor pool = AdaptiveThreadPoolExecutor.of(1, 64, 50, TimeUnit.MILLISECONDS);
+		try (AsyncTask asyncTask = AsyncTask.of(pool, AsyncContext.newInstance())) {
+			Runnable[] runnables = Stream.generate(() -> (Runnable) () -> {
+				long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(5);
+				while (System.nanoTime() < end) {
+					// Busy spin
+				}
+			}).limit(200).toArray(Runnable[]::new);
+			asyncTask.submitTasksAndWait(runnables);
+			assertTrue(pool.getBlockingRatio() < 0.5);
+			assertTrue(pool.getLargestPoolSize() < 64);
+		}
+	}
+
+	/**
+	 * Test the pool shrinks once idle.
+	 *
+	 * @throws Exception
+	 *             the exception
+	 */
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testShrinksWhenIdle() throws Exception {
+		AdaptiveThreadPoolExecutor pool = AdaptiveThreadPoolExecutor.of(1, 32, 50, TimeUnit.MILLISECONDS);
+		try (AsyncSupplier asyncSupplier = AsyncSupplier.of(pool, AsyncContext.newInstance())) {
+			Supplier<Integer>[] resultSuppliers = asyncSupplier.submitSuppliers(
+					Stream.iterate(0, i -> i + 1).limit(400).map(i -> TestUtil.delayedSupplier(() -> i, 20))
+							.toArray(size -> new Supplier[size]));
+			Stream.of(resultSuppliers).forEach(Supplier::get);
+			assertTrue(pool.getLargestPoolSize() > 1);
+
+			// The idle threads exit without any adjustment
+			Thread.sleep(500);
+			assertEquals(pool.getPoolSize(), 0);
+
+			// The adjustment after the first window measuring the light load
+			// shrinks the pool
+			for (int i = 0; i < 2; i++) {
+				assertEquals(asyncSupplier.submitAndGetSupplier(() -> 1).get(), Integer.valueOf(1));
+				Thread.sleep(100);
+			}
+			assertEquals(asyncSupplier.submitAndGetSupplier(() -> 1).get(), Integer.valueOf(1));
+			assertEquals(pool.getCorePoolSize(), 1);
+		}
+	}
+
+	/**
+	 * Test invalid pool sizes.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidPoolSizes() {
+		AdaptiveThreadPoolExecutor.of(4, 2);
+	}
+}
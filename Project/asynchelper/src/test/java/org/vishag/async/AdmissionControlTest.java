@@ -0,0 +1,252 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+
+ *   http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vishag.async;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.vishag.async.RejectedSubmissionException.Reason;
+
+/**
+ * The class AdmissionControlTest.
+ * 
+ * @author Loganathan.S &lt;https://github.com/loganathan001&gt;
+ */
+public class AdmissionControlTest {
+
+	/** The watcher. */
+	@Rule
+	public TestRule watcher = new TestWatcherAndLogger();
+
+	/** The latch released to unblock the single thread of the pool. */
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	/**
+	 * Blocks the single thread of the pool of the async supplier until
+	 * released.
+	 *
+	 * @param asyncSupplier
+	 *            the async supplier
+	 * @throws InterruptedException
+	 *             the interrupted exception
+	 */
+	private void blockPool(AsyncSupplier asyncSupplier) throws InterruptedException {
+		CountDownLatch started = new CountDownLatch(1);
+		asyncSupplier.submitSupplier(() -> {
+			started.countDown();
+			try {
+				return release.await(10, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				return false;
+			}
+		});
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+	}
+
+	/**
+	 * Test reject when the queue is full.
+	 *
+	 * @throws Exception
+	 *             the exception
+	 */
+	@Test
+	public void testReject() throws Exception {
+		List<RejectedSubmissionException> rejections = new CopyOnWriteArrayList<>();
+		AdmissionControl admissionControl = AdmissionControl.reject(2).onRejection(rejections::add);
+		try (AsyncSupplier asyncSupplier = AsyncSupplier.of(Executors.newFixedThreadPool(1), admissionControl,
+				AsyncContext.newInstance())) {
+			blockPool(asyncSupplier);
+			assertTrue(asyncSupplier.submitSupplierForSingleAccess(() -> 1, "key", 1));
+			assertTrue(asyncSupplier.submitSupplierForSingleAccess(() -> 2, "key", 2));
+			assertEquals(admissionControl.getQueueDepth(), 2);
+			try {
+				asyncSupplier.submitSupplierForSingleAccess(() -> 3, "key", 3);
+				fail();
+			} catch (RejectedSubmissionException e) {
+				assertEquals(e.getReason(), Reason.QUEUE_FULL);
+				assertEquals(e.getQueueDepth(), 2);
+			}
+			assertEquals(rejections.size(), 1);
+			assertEquals(admissionControl.getRejectedCount(Reason.QUEUE_FULL), 1L);
+			// Not run inline past the admission control either
+			assertFalse(asyncSupplier.submitAndGetSupplier(() -> 4).isPresent());
+			assertEquals(admissionControl.getRejectedCount(Reason.QUEUE_FULL), 2L);
+
+			release.countDown();
+			assertEquals(asyncSupplier.waitAndGetFromSupplier(Integer.class, "key", 1).get(), Integer.valueOf(1));
+			assertEquals(asyncSupplier.waitAndGetFromSupplier(Integer.class, "key", 2).get(), Integer.valueOf(2));
+			assertFalse(asyncSupplier.waitAndGetFromSupplier(Integer.class, "key", 3).isPresent());
+			assertEquals(admissionControl.getQueueDepth(), 0);
+			assertEquals(admissionControl.getAdmittedCount(), 3L);
+		}
+	}
+
+	/**
+	 * Test caller runs when the queue is full.
+	 *
+	 * @throws Exception
+	 *             the exception
+	 */
+	@Test
+	public void testCallerRuns() throws Exception {
+		AdmissionControl admissionControl = AdmissionControl.callerRuns(1);
+		try (AsyncSupplier asyncSupplier = AsyncSupplier.of(Executors.newFixedThreadPool(1), admissionControl,
+				AsyncContext.newInstance())) {
+			blockPool(asyncSupplier);
+			Supplier<String> queued = asyncSupplier.submitSupplier(() -> Thread.currentThread().getName());
+			Supplier<String> callerRun = asyncSupplier.submitSupplier(() -> Thread.currentThread().getName());
+			assertEquals(callerRun.get(), Thread.currentThread().getName());
+			assertEquals(admissionControl.getCallerRunsCount(), 1L);
+
+			assertEquals(admissionControl.getAdmittedCount(), 2L);
+			release.countDown();
+			assertTrue(queued.get() != null);
+		}
+	}
+
+	/**
+	 * Test the bulk task submissions go through the admission control.
+	 *
+	 * @throws Exception
+	 *             the exception
+	 */
+	@Test
+	public void testBulkTaskSubmissions() throws Exception {
+		AdmissionControl admissionControl = AdmissionControl.callerRuns(1);
+		try (AsyncTask asyncTask = AsyncTask.of(Executors.newFixedThreadPool(1), admissionControl)) {
+			AtomicInteger count = new AtomicInteger();
+			asyncTask.submitTasksAndWait(count::incrementAndGet, count::incrementAndGet, count::incrementAndGet,
+					count::incrementAndGet);
+			assertEquals(count.get(), 4);
+			assertEquals(admissionControl.getAdmittedCount() + admissionControl.getCallerRunsCount(), 4L);
+
+			// Along with the tasks getting and cancelling them
+			asyncTask.submitTasksAndWaitCancellable(() -> false, false, count::incrementAndGet,
+					count::incrementAndGet);
+			assertEquals(count.get(), 6);
+			assertEquals(admissionControl.getAdmittedCount() + admissionControl.getCallerRunsCount(), 8L);
+		}
+	}
+
+	/**
+	 * Test an exception thrown by an executed task reaches the uncaught
+	 * exception handler of the pool.
+	 *
+	 * @throws Exception
+	 *             the exception
+	 */
+	@Test
+	public void testExecutedTaskFailureIsUncaught() throws Exception {
+		CountDownLatch uncaught = new CountDownLatch(1);
+		ThreadFactory threadFactory = runnable -> {
+			Thread thread = new Thread(runnable);
+			thread.setUncaughtExceptionHandler((t, e) -> uncaught.countDown());
+			return thread;
+		};
+		AdmissionControl admissionControl = AdmissionControl.reject(2);
+		try (AsyncTask asyncTask = AsyncTask.of(Executors.newFixedThreadPool(1, threadFactory), admissionControl)) {
+			asyncTask.submitTask(() -> {
+				throw new IllegalStateException("Failed");
+			});
+			assertTrue(uncaught.await(5, TimeUnit.SECONDS));
+			assertEquals(admissionControl.getAdmittedCount(), 1L);
+			assertEquals(admissionControl.getQueueDepth(), 0);
+		}
+	}
+
+	/**
+	 * Test block with timeout when the queue is full.
+	 *
+	 * @throws Exception
+	 *             the exception
+	 */
+	@Test
+	public void testBlockWithTimeout() throws Exception {
+		AdmissionControl admissionControl = AdmissionControl.block(1, 100, TimeUnit.MILLISECONDS);
+		try (AsyncSupplier asyncSupplier = AsyncSupplier.of(Executors.newFixedThreadPool(1), admissionControl,
+				AsyncContext.newInstance())) {
+			blockPool(asyncSupplier);
+			asyncSupplier.submitSupplier(() -> 1);
+			long start = System.currentTimeMillis();
+			try {
+				asyncSupplier.submitSupplier(() -> 2);
+				fail();
+			} catch (RejectedSubmissionException e) {
+				assertEquals(e.getReason(), Reason.TIMED_OUT);
+				assertEquals(e.getQueueDepth(), 1);
+			}
+			assertTrue(System.currentTimeMillis() - start >= 100);
+
+			AsyncTask.submitTaskInNewThread(() -> {
+				TestUtil.delayedRunnable(() -> {
+				}, 20).run();
+				release.countDown();
+			});
+			AdmissionControl admissionControlWithRoom = AdmissionControl.block(1, 5, TimeUnit.SECONDS);
+			try (AsyncSupplier blockingSupplier = AsyncSupplier.of(Executors.newFixedThreadPool(1),
+					admissionControlWithRoom, AsyncContext.newInstance())) {
+				assertEquals(blockingSupplier.submitSupplier(() -> 3).get(), Integer.valueOf(3));
+			}
+			assertEquals(asyncSupplier.submitSupplier(() -> 4).get(), Integer.valueOf(4));
+		}
+	}
+
+	/**
+	 * Test drop oldest when the queue is full.
+	 *
+	 * @throws Exception
+	 *             the exception
+	 */
+	@Test
+	public void testDropOldest() throws Exception {
+		List<RejectedSubmissionException> rejections = new CopyOnWriteArrayList<>();
+		AdmissionControl admissionControl = AdmissionControl.dropOldest(2).onRejection(rejections::add);
+		try (AsyncSupplier asyncSupplier = AsyncSupplier.of(Executors.newFixedThreadPool(1), admissionControl,
+				AsyncContext.newInstance())) {
+			blockPool(asyncSupplier);
+			asyncSupplier.submitSupplierForSingleAccess(() -> 1, "key", 1);
+			asyncSupplier.submitSupplierForSingleAccess(() -> 2, "key", 2);
+			asyncSupplier.submitSupplierForSingleAccess(() -> 3, "key", 3);
+			assertEquals(admissionControl.getQueueDepth(), 2);
+			assertEquals(rejections.size(), 1);
+			assertEquals(rejections.get(0).getReason(), Reason.DROPPED_OLDEST);
+			assertEquals(admissionControl.getRejectedCount(), 1L);
+
+			release.countDown();
+			assertFalse(asyncSupplier.waitAndGetFromSupplier(Integer.class, "key", 1).isPresent());
+			assertEquals(asyncSupplier.waitAndGetFromSupplier(Integer.class, "key", 2).get(), Integer.valueOf(2));
+			assertEquals(asyncSupplier.waitAndGetFromSupplier(Integer.class, "key", 3).get(), Integer.valueOf(3));
+		}
+	}
+}
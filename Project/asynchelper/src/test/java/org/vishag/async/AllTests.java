@@ -30,6 +30,10 @@ import org.junit.runners.Suite.SuiteClasses;
  */
 @RunWith(Suite.class)
 @SuiteClasses({ ObjectsKeyTest.class, AsyncContextTest.class, AsyncTaskTest.class, AsyncSupplierTest.class,
-		SchedulingTaskTest.class, SchedulingSupplierTest.class })
+		SchedulingTaskTest.class, SchedulingSupplierTest.class, BulkheadsTest.class,
+		AdaptiveThreadPoolExecutorTest.class, AdmissionControlTest.class, AsyncScopeTest.class,
+		TimingWheelScheduledExecutorServiceTest.class, CronExpressionTest.class,
+		JitterTest.class,
+		ScheduleJournalTest.class })
 public class AllTests {
 }
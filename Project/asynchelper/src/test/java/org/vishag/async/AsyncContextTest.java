@@ -20,12 +20,20 @@
 package org.vishag.async;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Rule;
 import org.junit.Test;
@@ -118,6 +126,207 @@ public class AsyncContextTest {
 		assertEquals(retVal[0], 10);
 	}
 	
+	/**
+	 * Test notify all for hierarchical flag.
+	 *
+	 * @throws InterruptedException
+	 *             the interrupted exception
+	 */
+	@Test
+	public void testNotifyAllForHierarchicalFlag() throws InterruptedException {
+		CountDownLatch tenant7Released = new CountDownLatch(3);
+		CountDownLatch tenant8Released = new CountDownLatch(1);
+		for (String flag : new String[] { "tenant-7", "tenant-7/orders", "tenant-7/orders/poll" }) {
+			AsyncTask.submitTaskInNewThread(() -> {
+				try {
+					asyncContext.waitForFlag(flag);
+					tenant7Released.countDown();
+				} catch (InterruptedException e) {
+				}
+			});
+		}
+		AsyncTask.submitTaskInNewThread(() -> {
+			try {
+				asyncContext.waitForFlag("tenant-8/orders");
+				tenant8Released.countDown();
+			} catch (InterruptedException e) {
+			}
+		});
+		Thread.sleep(200);
+
+		asyncContext.notifyAllFlag("tenant-7");
+		assertTrue(tenant7Released.await(2, TimeUnit.SECONDS));
+		assertFalse(tenant8Released.await(200, TimeUnit.MILLISECONDS));
+
+		asyncContext.notifyAllFlag("tenant-8");
+		assertTrue(tenant8Released.await(2, TimeUnit.SECONDS));
+	}
+
+	/**
+	 * Test publish and subscribe.
+	 *
+	 * @throws InterruptedException
+	 *             the interrupted exception
+	 */
+	@Test
+	public void testPublishAndSubscribe() throws InterruptedException {
+		List<String> received = new CopyOnWriteArrayList<>();
+		List<Integer> receivedInts = new CopyOnWriteArrayList<>();
+		FlagSubscription<String> subscription = asyncContext.subscribe(String.class, received::add, "Bus", "FLAG");
+		FlagSubscription<Integer> intSubscription = asyncContext.subscribe(Integer.class, receivedInts::add, "Bus",
+				"FLAG");
+
+		assertEquals(asyncContext.publish("first", "Bus", "FLAG"), 1);
+		assertEquals(asyncContext.publish(10, "Bus", "FLAG"), 1);
+		assertEquals(received, Arrays.asList("first"));
+		assertEquals(receivedInts, Arrays.asList(10));
+
+		subscription.close();
+		assertTrue(subscription.isClosed());
+		assertEquals(asyncContext.publish("second", "Bus", "FLAG"), 0);
+		assertEquals(received, Arrays.asList("first"));
+		assertEquals(subscription.getDeliveredCount(), 1);
+		intSubscription.close();
+	}
+
+	/**
+	 * Test subscribing and unsubscribing concurrently for the same flag does
+	 * not lose the live subscriptions.
+	 *
+	 * @throws InterruptedException
+	 *             the interrupted exception
+	 */
+	@Test
+	public void testConcurrentSubscribeAndUnsubscribe() throws InterruptedException {
+		int threads = 4;
+		int rounds = 20_000;
+		CountDownLatch done = new CountDownLatch(threads);
+		List<String> failures = new CopyOnWriteArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			new Thread(() -> {
+				try {
+					for (int i = 0; i < rounds; i++) {
+						AtomicInteger received = new AtomicInteger();
+						FlagSubscription<Integer> subscription = asyncContext.subscribe(Integer.class,
+								value -> received.incrementAndGet(), "ChurnBus");
+						asyncContext.publish(i, "ChurnBus");
+						subscription.close();
+						if (received.get() == 0) {
+							failures.add("Lost subscription at round " + i);
+						}
+					}
+				} finally {
+					done.countDown();
+				}
+			}).start();
+		}
+		assertTrue(done.await(30, TimeUnit.SECONDS));
+		assertEquals(failures, Arrays.asList());
+		assertEquals(asyncContext.publish(0, "ChurnBus"), 0);
+	}
+
+	/**
+	 * Test publish releases the waiting thread.
+	 *
+	 * @throws InterruptedException
+	 *             the interrupted exception
+	 */
+	@Test
+	public void testPublishNotifiesWaitingThread() throws InterruptedException {
+		int[] retVal = new int[1];
+		asyncTask.submitTask(TestUtil.delayedRunnable(() -> {
+			retVal[0] = 10;
+			asyncContext.publish("done", "BusFLAG");
+		}, 200));
+		asyncContext.waitForFlag("BusFLAG");
+		assertEquals(retVal[0], 10);
+	}
+
+	/**
+	 * Test subscribe with bounded queue.
+	 *
+	 * @throws InterruptedException
+	 *             the interrupted exception
+	 */
+	@Test
+	public void testSubscribeWithBoundedQueue() throws InterruptedException {
+		CountDownLatch blocker = new CountDownLatch(1);
+		List<Integer> received = new CopyOnWriteArrayList<>();
+		FlagSubscription<Integer> subscription = asyncContext.subscribe(Integer.class, value -> {
+			try {
+				blocker.await();
+			} catch (InterruptedException e) {
+			}
+			received.add(value);
+		}, 2, "QueuedBus");
+
+		int accepted = 0;
+		for (int i = 0; i < 5; i++) {
+			accepted += asyncContext.publish(i, "QueuedBus");
+		}
+		// The first payload may have been taken out of the queue by the
+		// drainer when the rest are published
+		assertTrue(accepted == 2 || accepted == 3);
+		assertEquals(subscription.getDroppedCount(), 5 - accepted);
+
+		blocker.countDown();
+		for (int i = 0; i < 100 && received.size() < accepted; i++) {
+			Thread.sleep(20);
+		}
+		assertEquals(received.size(), accepted);
+		assertEquals(subscription.getPendingCount(), 0);
+		subscription.close();
+	}
+
+	/**
+	 * Test publish does not notify waiters of the flags under the flag.
+	 *
+	 * @throws InterruptedException
+	 *             the interrupted exception
+	 */
+	@Test
+	public void testPublishDoesNotNotifySubFlags() throws InterruptedException {
+		boolean[] released = new boolean[1];
+		Thread waiter = new Thread(() -> {
+			try {
+				asyncContext.waitForFlag("PubParent", "Child");
+				released[0] = true;
+			} catch (InterruptedException e) {
+			}
+		});
+		waiter.start();
+		Thread.sleep(100);
+		asyncContext.publish("data", "PubParent");
+		Thread.sleep(100);
+		assertFalse(released[0]);
+		asyncContext.notifyAllFlag("PubParent", "Child");
+		waiter.join(1000);
+		assertTrue(released[0]);
+	}
+
+	/**
+	 * Test subscribe with bounded queue delivering in the given executor
+	 * service.
+	 *
+	 * @throws InterruptedException
+	 *             the interrupted exception
+	 */
+	@Test
+	public void testSubscribeWithExecutorService() throws InterruptedException {
+		ExecutorService executorService = Executors.newSingleThreadExecutor(r -> new Thread(r, "bus-consumer"));
+		List<String> threads = new CopyOnWriteArrayList<>();
+		FlagSubscription<Integer> subscription = asyncContext.subscribe(Integer.class,
+				value -> threads.add(Thread.currentThread().getName()), 4, executorService, "ExecutorBus");
+		asyncContext.publish(1, "ExecutorBus");
+		asyncContext.publish(2, "ExecutorBus");
+		for (int i = 0; i < 100 && threads.size() < 2; i++) {
+			Thread.sleep(20);
+		}
+		assertEquals(threads, Arrays.asList("bus-consumer", "bus-consumer"));
+		subscription.close();
+		executorService.shutdown();
+	}
+
 	/**
 	 * Test close.
 	 *
@@ -0,0 +1,271 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+
+ *   http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vishag.async;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * The class AsyncScopeTest.
+ * 
+ * @author Loganathan.S &lt;https://github.com/loganathan001&gt;
+ */
+@RunWith(Parameterized.class)
+public class AsyncScopeTest {
+
+	/** The watcher. */
+	@Rule
+	public TestRule watcher = new TestWatcherAndLogger();
+
+	/** The async supplier. */
+	private AsyncSupplier asyncSupplier;
+
+	/**
+	 * Inputs.
+	 *
+	 * @return the collection
+	 */
+	@Parameters
+	public static Collection<Object[]> inputs() {
+		return Arrays.asList(new Object[][] { { AsyncSupplier.getDefault() },
+				{ AsyncSupplier.of(Executors.newFixedThreadPool(10), AsyncContext.newInstance()) } });
+	}
+
+	/**
+	 * Instantiates a new async scope test.
+	 *
+	 * @param asyncSupplier
+	 *            the async supplier
+	 */
+	public AsyncScopeTest(AsyncSupplier asyncSupplier) {
+		this.asyncSupplier = asyncSupplier;
+	}
+
+	/**
+	 * Gets a supplier which sleeps for the duration, counting the
+	 * interruptions.
+	 *
+	 * @param value
+	 *            the value
+	 * @param msecs
+	 *            the msecs
+	 * @param interruptions
+	 *            the interruptions
+	 * @return the supplier
+	 */
+	private static Supplier<Integer> sleepingSupplier(int value, long msecs, AtomicInteger interruptions) {
+		return () -> {
+			try {
+				Thread.sleep(msecs);
+			} catch (InterruptedException e) {
+				interruptions.incrementAndGet();
+				throw new IllegalStateException(e);
+			}
+			return value;
+		};
+	}
+
+	/**
+	 * Test all the forks complete on join.
+	 *
+	 * @throws Exception
+	 *             the exception
+	 */
+	@Test
+	public void testJoinAll() throws Exception {
+		try (AsyncScope scope = AsyncScope.shutdownOnFailure(asyncSupplier)) {
+			AtomicInteger interruptions = new AtomicInteger();
+			Supplier<Integer> first = scope.fork(sleepingSupplier(1, 50, interruptions));
+			Supplier<Integer> second = scope.fork(sleepingSupplier(2, 100, interruptions));
+			AtomicInteger counter = new AtomicInteger();
+			scope.forkTasks(counter::incrementAndGet, counter::incrementAndGet);
+			scope.join();
+			scope.throwIfFailed();
+			assertEquals(first.get(), Integer.valueOf(1));
+			assertEquals(second.get(), Integer.valueOf(2));
+			assertEquals(counter.get(), 2);
+			assertFalse(scope.isShutdown());
+		}
+	}
+
+	/**
+	 * Test the work forked while joining is also joined, with and without a
+	 * timeout.
+	 *
+	 * @throws Exception
+	 *             the exception
+	 */
+	@Test
+	public void testJoinForkedWhileJoining() throws Exception {
+		for (boolean timed : new boolean[] { false, true }) {
+			try (AsyncScope scope = AsyncScope.shutdownOnFailure(asyncSupplier)) {
+				AtomicInteger counter = new AtomicInteger();
+				scope.forkTasks(TestUtil.delayedRunnable(
+						() -> scope.forkTasks(TestUtil.delayedRunnable(counter::incrementAndGet, 100)), 50));
+				if (timed) {
+					assertTrue(scope.join(2, TimeUnit.SECONDS));
+				} else {
+					scope.join();
+				}
+				assertEquals(counter.get(), 1);
+				assertFalse(scope.isShutdown());
+			}
+		}
+	}
+
+	/**
+	 * Test the siblings are cancelled on the first failure.
+	 *
+	 * @throws Exception
+	 *             the exception
+	 */
+	@Test
+	public void testShutdownOnFailure() throws Exception {
+		AtomicInteger interruptions = new AtomicInteger();
+		long start = System.currentTimeMillis();
+		try (AsyncScope scope = AsyncScope.shutdownOnFailure(asyncSupplier)) {
+			Supplier<Integer> slow1 = scope.fork(sleepingSupplier(1, 3000, interruptions));
+			Supplier<Integer> slow2 = scope.fork(sleepingSupplier(2, 3000, interruptions));
+			Thread.sleep(50);
+			scope.fork(() -> {
+				throw new UnsupportedOperationException("failed");
+			});
+			scope.join();
+			assertTrue(scope.isShutdown());
+			try {
+				scope.throwIfFailed();
+				fail();
+			} catch (ExecutionException e) {
+				assertTrue(e.getCause() instanceof UnsupportedOperationException);
+			}
+			assertNull(slow1.get());
+			assertNull(slow2.get());
+			assertNull(scope.fork(() -> 3).get());
+		}
+		assertTrue(System.currentTimeMillis() - start < 2000);
+		long deadline = System.currentTimeMillis() + 2000;
+		while (interruptions.get() < 2 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(interruptions.get(), 2);
+	}
+
+	/**
+	 * Test an error thrown by a fork is a failure cancelling the siblings.
+	 *
+	 * @throws Exception
+	 *             the exception
+	 */
+	@Test
+	public void testShutdownOnFailureWithError() throws Exception {
+		AtomicInteger interruptions = new AtomicInteger();
+		try (AsyncScope scope = AsyncScope.shutdownOnFailure(asyncSupplier)) {
+			Supplier<Integer> slow = scope.fork(sleepingSupplier(1, 3000, interruptions));
+			Thread.sleep(50);
+			scope.fork(() -> {
+				throw new AssertionError("failed");
+			});
+			scope.join();
+			assertTrue(scope.isShutdown());
+			try {
+				scope.throwIfFailed();
+				fail();
+			} catch (ExecutionException e) {
+				assertTrue(e.getCause() instanceof AssertionError);
+			}
+			assertNull(slow.get());
+		}
+	}
+
+	/**
+	 * Test the rest are cancelled on the first success.
+	 *
+	 * @throws Exception
+	 *             the exception
+	 */
+	@Test
+	public void testShutdownOnSuccess() throws Exception {
+		AtomicInteger interruptions = new AtomicInteger();
+		long start = System.currentTimeMillis();
+		try (AsyncScope scope = AsyncScope.shutdownOnSuccess(asyncSupplier)) {
+			scope.fork(sleepingSupplier(1, 3000, interruptions));
+			scope.fork(sleepingSupplier(2, 50, interruptions));
+			scope.fork(sleepingSupplier(3, 3000, interruptions));
+			scope.join();
+			assertEquals(scope.getResult(Integer.class).get(), Integer.valueOf(2));
+			assertFalse(scope.getFailure().isPresent());
+		}
+		assertTrue(System.currentTimeMillis() - start < 2000);
+	}
+
+	/**
+	 * Test join with deadline shuts down the scope.
+	 *
+	 * @throws Exception
+	 *             the exception
+	 */
+	@Test
+	public void testJoinWithDeadline() throws Exception {
+		try (AsyncScope scope = AsyncScope.shutdownOnFailure(asyncSupplier)) {
+			Supplier<Integer> slow = scope.fork(sleepingSupplier(1, 3000, new AtomicInteger()));
+			long start = System.currentTimeMillis();
+			assertFalse(scope.join(100, TimeUnit.MILLISECONDS));
+			assertTrue(System.currentTimeMillis() - start < 1000);
+			assertTrue(scope.isShutdown());
+			assertNull(slow.get());
+			assertFalse(scope.getFailure().isPresent());
+		}
+	}
+
+	/**
+	 * Test close drops the keys of the scope.
+	 *
+	 * @throws Exception
+	 *             the exception
+	 */
+	@Test
+	public void testCloseDropsKeys() throws Exception {
+		try (AsyncScope scope = AsyncScope.shutdownOnFailure(asyncSupplier)) {
+			assertTrue(scope.fork(() -> "Value", "scopeKey", 1));
+			assertFalse(scope.fork(() -> "Other", "scopeKey", 1));
+			assertTrue(scope.join(5, TimeUnit.SECONDS));
+			assertEquals(asyncSupplier.waitAndGetFromSupplier(String.class, "scopeKey", 1).get(), "Value");
+		}
+		assertFalse(asyncSupplier.waitAndGetFromSupplier(String.class, "scopeKey", 1).isPresent());
+	}
+}
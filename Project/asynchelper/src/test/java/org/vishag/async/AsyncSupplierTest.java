@@ -27,7 +27,15 @@ import static org.junit.Assert.fail;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
@@ -440,6 +448,51 @@ public final class AsyncSupplierTest {
 
 	}
 	
+	/**
+	 * Test submit and get runs inline in the calling thread only with the
+	 * default thread pool, concurrently for multiple callers.
+	 *
+	 * @throws Exception
+	 *             the exception
+	 */
+	@Test
+	public void testSubmitAndGetInline() throws Exception {
+		String runner = asyncSupplier.submitAndGetSupplier(() -> Thread.currentThread().getName()).get();
+		assertEquals(runner.equals(Thread.currentThread().getName()), asyncSupplier == AsyncSupplier.getDefault());
+		assertFalse(asyncSupplier.submitAndGetCallable(() -> {
+			throw new IllegalStateException();
+		}).isPresent());
+
+		CountDownLatch bothCalling = new CountDownLatch(2);
+		Callable<Boolean> callable = () -> {
+			bothCalling.countDown();
+			return bothCalling.await(5, TimeUnit.SECONDS);
+		};
+		try (AsyncSupplier otherThreads = AsyncSupplier.ofVirtualThreads()) {
+			Supplier<Optional<Boolean>> otherCaller = otherThreads
+					.submitSupplier(() -> asyncSupplier.submitAndGetCallable(callable));
+			assertTrue(asyncSupplier.submitAndGetCallable(callable).get());
+			assertTrue(otherCaller.get().get());
+		}
+	}
+
+	/**
+	 * Test submit and get with timeout.
+	 */
+	@Test
+	public void testSubmitAndGetWithTimeout() {
+		assertEquals(asyncSupplier.submitAndGetSupplier(() -> "Value1", 5, TimeUnit.SECONDS).get(), "Value1");
+		long start = System.currentTimeMillis();
+		assertFalse(asyncSupplier
+				.submitAndGetSupplier(TestUtil.delayedSupplier(() -> "Value2", 2000), 50, TimeUnit.MILLISECONDS)
+				.isPresent());
+		assertFalse(asyncSupplier.submitAndGetCallable(() -> {
+			Thread.sleep(2000);
+			return "Value3";
+		}, 50, TimeUnit.MILLISECONDS).isPresent());
+		assertTrue(System.currentTimeMillis() - start < 2000);
+	}
+
 	/**
 	 * Test submit.
 	 *
@@ -1037,6 +1090,142 @@ public final class AsyncSupplierTest {
 		assertEquals(asyncSupplier.waitAndGetValue(Object.class, "Object2").get(), obj1);	
 	}
 	
+	/**
+	 * Test virtual threads with many concurrent blocking suppliers.
+	 *
+	 * @throws Exception the exception
+	 */
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testVirtualThreadsWithBlockingSuppliers() throws Exception {
+		try (AsyncSupplier virtualThreadsSupplier = AsyncSupplier.ofVirtualThreads(AsyncContext.newInstance())) {
+			long start = System.currentTimeMillis();
+			Supplier<Integer>[] resultSuppliers = virtualThreadsSupplier.submitSuppliers(
+					Stream.iterate(0, i -> i + 1).limit(500).map(i -> TestUtil.delayedSupplier(() -> i, 200))
+							.toArray(size -> new Supplier[size]));
+			int sum = Stream.of(resultSuppliers).mapToInt(Supplier::get).sum();
+			assertEquals(sum, 499 * 500 / 2);
+			assertTrue(System.currentTimeMillis() - start < 10000);
+		}
+	}
+
+	/**
+	 * Test nested waits on single threaded pools, which would starve the pool
+	 * if the waiting worker is blocked.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testNestedWaitOnSingleThreadedPool() throws Exception {
+		for (ExecutorService pool : new ExecutorService[] { Executors.newFixedThreadPool(1), new ForkJoinPool(1) }) {
+			try (AsyncSupplier singleThreadedSupplier = AsyncSupplier.of(pool, AsyncContext.newInstance())) {
+				singleThreadedSupplier.submitSupplierForSingleAccess(() -> {
+					singleThreadedSupplier.submitSupplierForSingleAccess(() -> "Inner", "inner");
+					return singleThreadedSupplier.waitAndGetFromSupplier(String.class, "inner").orElse(null) + "Outer";
+				}, "outer");
+				assertEquals(singleThreadedSupplier.waitAndGetFromSupplier(String.class, "outer").get(), "InnerOuter");
+				assertEquals(singleThreadedSupplier.submitAndGetSupplier(
+						() -> singleThreadedSupplier.submitAndGetSupplier(() -> 10).get() + 1).get(),
+						Integer.valueOf(11));
+			}
+		}
+	}
+
+	/**
+	 * Test a nested wait on a single threaded pool whose worker is started
+	 * before the pool is given, which is left with its own thread factory.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testNestedWaitOnPrestartedPool() throws Exception {
+		ThreadPoolExecutor pool = (ThreadPoolExecutor) Executors.newFixedThreadPool(1);
+		ThreadFactory threadFactory = pool.getThreadFactory();
+		pool.prestartAllCoreThreads();
+		try (AsyncSupplier singleThreadedSupplier = AsyncSupplier.of(pool, AsyncContext.newInstance())) {
+			singleThreadedSupplier.submitSupplierForSingleAccess(() -> {
+				singleThreadedSupplier.submitSupplierForSingleAccess(() -> "Inner", "inner");
+				return singleThreadedSupplier.waitAndGetFromSupplier(String.class, "inner").orElse(null) + "Outer";
+			}, "outer");
+			assertEquals(singleThreadedSupplier.waitAndGetFromSupplier(String.class, "outer").get(), "InnerOuter");
+			assertTrue(pool.getThreadFactory() == threadFactory);
+		}
+	}
+
+	/**
+	 * Test a wait from outside the pool does not take the queued supplier out
+	 * of the pool to run it inline.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testWaitOutsidePoolDoesNotRunInline() throws Exception {
+		try (AsyncSupplier singleThreadedSupplier = AsyncSupplier.of(Executors.newFixedThreadPool(1),
+				AsyncContext.newInstance())) {
+			CountDownLatch blocker = new CountDownLatch(1);
+			singleThreadedSupplier.submitSupplierForSingleAccess(() -> {
+				try {
+					return blocker.await(5, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					return false;
+				}
+			}, "blocker");
+			singleThreadedSupplier.submitSupplierForSingleAccess(Thread::currentThread, "runner");
+			AsyncTask.submitTaskInNewThread(TestUtil.delayedRunnable(blocker::countDown, 200));
+			Thread runner = singleThreadedSupplier.waitAndGetFromSupplier(Thread.class, "runner").get();
+			assertFalse(runner == Thread.currentThread());
+			assertTrue(singleThreadedSupplier.waitAndGetFromSupplier(Boolean.class, "blocker").get());
+		}
+	}
+
+	/**
+	 * Test sharded suppliers with the same first key run serially in the
+	 * order of submission.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testShardedSuppliersRunInSubmissionOrder() throws Exception {
+		try (AsyncSupplier shardedSupplier = AsyncSupplier.ofShardedByKeyTag(Executors.newFixedThreadPool(4), 4,
+				AsyncContext.newInstance())) {
+			// Not thread-safe, as the suppliers of the key never run concurrently
+			int[] counter = new int[1];
+			for (int i = 0; i < 500; i++) {
+				shardedSupplier.submitSupplierForSingleAccess(() -> counter[0]++, "counter", i);
+			}
+			for (int i = 0; i < 500; i++) {
+				assertEquals(shardedSupplier.waitAndGetFromSupplier(Integer.class, "counter", i).get(),
+						Integer.valueOf(i));
+			}
+		}
+	}
+
+	/**
+	 * Test a sharded supplier waiting for a supplier of its own shard runs it
+	 * inline.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testShardedSupplierWaitsForSupplierOfSameShard() throws Exception {
+		try (AsyncSupplier shardedSupplier = AsyncSupplier.ofSharded(Executors.newFixedThreadPool(2), 1,
+				AsyncContext.newInstance())) {
+			CountDownLatch submitted = new CountDownLatch(1);
+			shardedSupplier.submitSupplierForSingleAccess(() -> {
+				try {
+					submitted.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return shardedSupplier.waitAndGetFromSupplier(Integer.class, "counter", "second").get() + 1;
+			}, "counter", "first");
+			shardedSupplier.submitSupplierForSingleAccess(() -> 1, "counter", "second");
+			submitted.countDown();
+			assertEquals(shardedSupplier.waitAndGetFromSupplier(Integer.class, "counter", "first").get(),
+					Integer.valueOf(2));
+		}
+	}
+
 	/**
 	 * Test close.
 	 *
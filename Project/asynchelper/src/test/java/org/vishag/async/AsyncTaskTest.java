@@ -25,11 +25,20 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.junit.Rule;
 import org.junit.Test;
@@ -304,14 +313,165 @@ public class AsyncTaskTest {
 	@Test
 	public void testsubmitTaskInNewThread() throws InterruptedException {
 		int[] retVal = new int[1];
+		boolean[] daemon = new boolean[] { true };
 		AsyncTask.submitTaskInNewThread(TestUtil.delayedRunnable(() -> {
 			retVal[0] = 10;
+			daemon[0] = Thread.currentThread().isDaemon();
 		}, 10));
 
 		Thread.sleep(50);
 		assertEquals(retVal[0], 10);
+		// A platform thread, which keeps the JVM alive until the task completes
+		assertFalse(daemon[0]);
 	}
 	
+	/**
+	 * Test sharded tasks with the same first key run serially in the order of
+	 * submission.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testShardedTasksRunInSubmissionOrder() throws Exception {
+		try (AsyncTask shardedTask = AsyncTask.ofShardedByKeyTag(Executors.newFixedThreadPool(4), 8,
+				AsyncContext.newInstance())) {
+			Map<String, List<Integer>> results = new HashMap<>();
+			for (String account : new String[] { "account-1", "account-2", "account-3" }) {
+				// Not thread-safe, as the tasks of an account never run concurrently
+				List<Integer> result = new ArrayList<>();
+				results.put(account, result);
+				for (int i = 0; i < 200; i++) {
+					int index = i;
+					shardedTask.submitTask(() -> result.add(index), account, i);
+				}
+			}
+			for (String account : results.keySet()) {
+				for (int i = 0; i < 200; i++) {
+					shardedTask.waitForTask(account, i);
+				}
+				assertEquals(results.get(account),
+						IntStream.range(0, 200).boxed().collect(Collectors.toList()));
+			}
+		}
+	}
+
+	/**
+	 * Test sharded tasks of different shards run in parallel.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testShardedTasksOfDifferentShardsRunInParallel() throws Exception {
+		try (AsyncTask shardedTask = AsyncTask.ofShardedByKeyTag(Executors.newFixedThreadPool(2), 2,
+				AsyncContext.newInstance())) {
+			CountDownLatch latch = new CountDownLatch(2);
+			AtomicBoolean bothRunning = new AtomicBoolean();
+			Runnable runnable = () -> {
+				latch.countDown();
+				try {
+					bothRunning.compareAndSet(false, latch.await(5, TimeUnit.SECONDS));
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			};
+			shardedTask.submitTask(runnable, 0, "task");
+			shardedTask.submitTask(runnable, 1, "task");
+			shardedTask.waitForTask(0, "task");
+			shardedTask.waitForTask(1, "task");
+			assertTrue(bothRunning.get());
+		}
+	}
+
+	/**
+	 * Test a sharded task waiting for a task of its own shard runs it inline.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testShardedTaskWaitsForTaskOfSameShard() throws Exception {
+		try (AsyncTask shardedTask = AsyncTask.ofShardedByKeyTag(Executors.newFixedThreadPool(2), 1,
+				AsyncContext.newInstance())) {
+			List<String> result = new ArrayList<>();
+			CountDownLatch submitted = new CountDownLatch(1);
+			shardedTask.submitTask(() -> {
+				try {
+					submitted.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				shardedTask.waitForTask("account", "second");
+				result.add("first");
+			}, "account", "first");
+			shardedTask.submitTask(() -> result.add("second"), "account", "second");
+			submitted.countDown();
+			shardedTask.waitForTask("account", "first");
+			assertEquals(result, Arrays.asList("second", "first"));
+		}
+	}
+
+	/**
+	 * Test submit tasks and wait cancellable with a token cancelled by the
+	 * caller.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testSubmitTasksAndWaitCancellableWithToken() throws Exception {
+		CancellationToken cancellationToken = CancellationToken.newInstance();
+		AtomicBoolean completed = new AtomicBoolean();
+		AsyncTask.submitTaskInNewThread(() -> {
+			TestUtil.delayedRunnable(() -> {
+			}, 100).run();
+			cancellationToken.cancel();
+		});
+		long start = System.currentTimeMillis();
+		asyncTask.submitTasksAndWaitCancellable(cancellationToken, true,
+				TestUtil.delayedRunnable(() -> completed.set(true), 3000),
+				TestUtil.delayedRunnable(() -> completed.set(true), 3000));
+		assertTrue(System.currentTimeMillis() - start < 2000);
+		assertTrue(cancellationToken.isCancelled());
+		assertFalse(cancellationToken.cancel());
+		assertFalse(Thread.currentThread().isInterrupted());
+	}
+
+	/**
+	 * Test submit tasks and wait cancellable with a token whose condition is
+	 * evaluated as the tasks complete.
+	 *
+	 * @throws Exception the exception
+	 */
+	@Test
+	public void testSubmitTasksAndWaitCancellableWithCondition() throws Exception {
+		AtomicInteger completedCount = new AtomicInteger();
+		CancellationToken cancellationToken = CancellationToken.of(() -> completedCount.get() >= 3);
+		Runnable[] runnables = IntStream.range(1, 10).mapToObj(i -> (Runnable) () -> {
+			try {
+				Thread.sleep(i * 100);
+				completedCount.incrementAndGet();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}).toArray(Runnable[]::new);
+		long start = System.currentTimeMillis();
+		try (AsyncTask asyncTask = AsyncTask.of(Executors.newFixedThreadPool(10))) {
+			asyncTask.submitTasksAndWaitCancellable(cancellationToken, true, runnables);
+		}
+		assertTrue(System.currentTimeMillis() - start < 800);
+		assertTrue(cancellationToken.isCancelled());
+		assertTrue(completedCount.get() < 9);
+
+		CancellationToken cancelledToken = CancellationToken.newInstance();
+		cancelledToken.cancel();
+		AtomicBoolean callbackInvoked = new AtomicBoolean();
+		cancelledToken.onCancel(() -> callbackInvoked.set(true));
+		assertTrue(callbackInvoked.get());
+		start = System.currentTimeMillis();
+		asyncTask.submitTasksAndWaitCancellable(cancelledToken, false, TestUtil.delayedRunnable(() -> {
+		}, 500));
+		assertTrue(System.currentTimeMillis() - start < 400);
+		assertTrue(cancelledToken.evaluate());
+	}
+
 	/**
 	 * Test close.
 	 *
@@ -0,0 +1,162 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+
+ *   http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vishag.async;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BooleanSupplier;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+/**
+ * The class BulkheadsTest.
+ * 
+ * @author Loganathan.S &lt;https://github.com/loganathan001&gt;
+ */
+public class BulkheadsTest {
+
+	/** The watcher. */
+	@Rule
+	public TestRule watcher = new TestWatcherAndLogger();
+
+	/**
+	 * Test the work is routed to the bulkhead by the key tag.
+	 *
+	 * @throws Exception
+	 *             the exception
+	 */
+	@Test
+	public void testRoutingByKeyTag() throws Exception {
+		try (AsyncSupplier asyncSupplier = AsyncSupplier.of(
+				Bulkheads.newInstance().addBulkhead("inventory", 2, 10).addBulkhead(String.class, 1, 10),
+				AsyncContext.newInstance())) {
+			asyncSupplier.submitSupplierForSingleAccess(() -> Thread.currentThread().getName(), "inventory", 1);
+			asyncSupplier.submitSupplierForSingleAccess(() -> Thread.currentThread().getName(), "inventory/sku", 2);
+			asyncSupplier.submitSupplierForSingleAccess(() -> Thread.currentThread().getName(), String.class, 3);
+			asyncSupplier.submitSupplierForSingleAccess(() -> Thread.currentThread().getName(), "pricing", 4);
+
+			assertTrue(asyncSupplier.waitAndGetFromSupplier(String.class, "inventory", 1).get()
+					.startsWith("bulkhead-inventory-"));
+			assertTrue(asyncSupplier.waitAndGetFromSupplier(String.class, "inventory/sku", 2).get()
+					.startsWith("bulkhead-inventory-"));
+			assertTrue(asyncSupplier.waitAndGetFromSupplier(String.class, String.class, 3).get()
+					.startsWith("bulkhead-" + String.class + "-"));
+			assertFalse(asyncSupplier.waitAndGetFromSupplier(String.class, "pricing", 4).get()
+					.startsWith("bulkhead-"));
+		}
+	}
+
+	/**
+	 * Test a saturated bulkhead rejects its work without stalling the other
+	 * namespaces, and reports the saturation.
+	 *
+	 * @throws Exception
+	 *             the exception
+	 */
+	@Test
+	public void testSaturatedBulkheadDoesNotStallOthers() throws Exception {
+		Bulkheads bulkheads = Bulkheads.of(Executors.newFixedThreadPool(2)).addBulkhead("slow", 1, 1)
+				.addBulkhead("fast", 1, 1);
+		try (AsyncTask asyncTask = AsyncTask.of(bulkheads, AsyncContext.newInstance())) {
+			CountDownLatch release = new CountDownLatch(1);
+			Runnable slowTask = () -> {
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			};
+			assertTrue(asyncTask.submitTask(slowTask, "slow", 1));
+			assertTrue(asyncTask.submitTask(slowTask, "slow", 2));
+			waitUntil(() -> bulkheads.getBulkhead("slow").get().getActiveCount() == 1);
+			try {
+				asyncTask.submitTask(slowTask, "slow", 3);
+				fail();
+			} catch (RejectedExecutionException e) {
+				// Expected as the bulkhead is saturated
+			}
+
+			Bulkhead slow = bulkheads.getBulkhead("slow").get();
+			assertTrue(slow.isSaturated());
+			assertEquals(slow.getSaturation(), 1.0, 0.0);
+			assertEquals(slow.getQueuedCount(), 1);
+			assertEquals(slow.getRejectedCount(), 1L);
+
+			long start = System.currentTimeMillis();
+			assertTrue(asyncTask.submitTask(() -> {
+			}, "fast", 1));
+			asyncTask.waitForTask("fast", 1);
+			assertTrue(System.currentTimeMillis() - start < 1000);
+			assertFalse(bulkheads.getBulkhead("fast").get().isSaturated());
+
+			release.countDown();
+			asyncTask.waitForTask("slow", 1);
+			asyncTask.waitForTask("slow", 2);
+			waitUntil(() -> slow.getCompletedCount() == 2L);
+			assertEquals(slow.getSaturation(), 0.0, 0.0);
+		}
+	}
+
+	/**
+	 * Test invalid bulkheads.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testDuplicateBulkhead() {
+		try (Bulkheads bulkheads = Bulkheads.newInstance()) {
+			bulkheads.addBulkhead("inventory", 1, 1).addBulkhead("inventory", 2, 2);
+		}
+	}
+
+	/**
+	 * Test close shuts down the bulkheads.
+	 */
+	@Test(expected = IllegalStateException.class)
+	public void testClose() {
+		Bulkheads bulkheads = Bulkheads.newInstance().addBulkhead("inventory", 1, 1);
+		AsyncSupplier asyncSupplier = AsyncSupplier.of(bulkheads);
+		asyncSupplier.close();
+		assertTrue(bulkheads.getBulkhead("inventory").get().getThreadPool().isShutdown());
+		bulkheads.addBulkhead("pricing", 1, 1);
+	}
+
+	/**
+	 * Waits until the condition holds.
+	 *
+	 * @param condition
+	 *            the condition
+	 * @throws InterruptedException
+	 *             the interrupted exception
+	 */
+	private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (!condition.getAsBoolean()) {
+			assertTrue(System.currentTimeMillis() < deadline);
+			Thread.sleep(10);
+		}
+	}
+}
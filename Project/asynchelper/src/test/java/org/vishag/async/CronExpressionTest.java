@@ -0,0 +1,215 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+
+ *   http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vishag.async;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+/**
+ * The class CronExpressionTest.
+ * 
+ * @author Loganathan.S &lt;https://github.com/loganathan001&gt;
+ */
+public class CronExpressionTest {
+
+	/** The watcher. */
+	@Rule
+	public TestRule watcher = new TestWatcherAndLogger();
+
+	/** The zone with daylight saving. */
+	private static final ZoneId NEW_YORK = ZoneId.of("America/New_York");
+
+	/**
+	 * Gets the next fire time as local date time.
+	 *
+	 * @param cron
+	 *            the cron
+	 * @param from
+	 *            the from
+	 * @return the local date time
+	 */
+	private static LocalDateTime next(CronExpression cron, LocalDateTime from) {
+		long next = cron.next(from.atZone(cron.getZone()).toInstant().toEpochMilli());
+		return LocalDateTime.ofInstant(Instant.ofEpochMilli(next), cron.getZone());
+	}
+
+	/**
+	 * Test the fields, ranges, steps, lists and names.
+	 */
+	@Test
+	public void testFields() {
+		LocalDateTime from = LocalDateTime.of(2021, 6, 4, 10, 7, 30);
+		assertEquals(next(CronExpression.of("*/15 * * * *", NEW_YORK), from), LocalDateTime.of(2021, 6, 4, 10, 15));
+		assertEquals(next(CronExpression.of("*/10 * * * * *", NEW_YORK), from),
+				LocalDateTime.of(2021, 6, 4, 10, 7, 40));
+		// Friday evening to Monday morning
+		assertEquals(next(CronExpression.of("0 9-17 * * MON-FRI", NEW_YORK), LocalDateTime.of(2021, 6, 4, 17, 30)),
+				LocalDateTime.of(2021, 6, 7, 9, 0));
+		assertEquals(next(CronExpression.of("5,35 8/4 * JUN-AUG *", NEW_YORK), from),
+				LocalDateTime.of(2021, 6, 4, 12, 5));
+		assertEquals(next(CronExpression.of("0 0 1 JAN,jul ?", NEW_YORK), from), LocalDateTime.of(2021, 7, 1, 0, 0));
+		assertEquals(next(CronExpression.of("@weekly", NEW_YORK), from), LocalDateTime.of(2021, 6, 6, 0, 0));
+		assertEquals(next(CronExpression.of("0 0 * * 7", NEW_YORK), from), LocalDateTime.of(2021, 6, 6, 0, 0));
+		assertEquals(next(CronExpression.of("@yearly", NEW_YORK), from), LocalDateTime.of(2022, 1, 1, 0, 0));
+	}
+
+	/**
+	 * Test the day of month and day of week match either when both are
+	 * restricted, and the leap day.
+	 */
+	@Test
+	public void testDays() {
+		LocalDateTime from = LocalDateTime.of(2021, 8, 1, 0, 0);
+		CronExpression thirteenthOrFriday = CronExpression.of("0 0 13 * FRI", NEW_YORK);
+		assertEquals(next(thirteenthOrFriday, from), LocalDateTime.of(2021, 8, 6, 0, 0));
+		assertEquals(next(thirteenthOrFriday, LocalDateTime.of(2021, 8, 12, 0, 0)), LocalDateTime.of(2021, 8, 13, 0, 0));
+		assertEquals(next(CronExpression.of("0 0 29 2 *", NEW_YORK), from), LocalDateTime.of(2024, 2, 29, 0, 0));
+		assertEquals(next(CronExpression.of("0 0 31 * *", NEW_YORK), LocalDateTime.of(2021, 9, 1, 0, 0)),
+				LocalDateTime.of(2021, 10, 31, 0, 0));
+		assertEquals(CronExpression.of("0 0 30 2 *", NEW_YORK).next(0L), -1L);
+	}
+
+	/**
+	 * Test the daylight saving gap is skipped and the overlap fires once.
+	 */
+	@Test
+	public void testDaylightSaving() {
+		CronExpression cron = CronExpression.of("30 1,2 * * *", NEW_YORK);
+		// 2021-03-14 02:00 EST jumps to 03:00 EDT
+		ZonedDateTime gapDay = ZonedDateTime.of(2021, 3, 14, 1, 30, 0, 0, NEW_YORK);
+		long next = cron.next(gapDay.toInstant().toEpochMilli());
+		assertEquals(Instant.ofEpochMilli(next), ZonedDateTime.of(2021, 3, 15, 1, 30, 0, 0, NEW_YORK).toInstant());
+
+		// 2021-11-07 02:00 EDT falls back to 01:00 EST
+		ZonedDateTime overlapDay = ZonedDateTime.of(2021, 11, 7, 0, 0, 0, 0, NEW_YORK);
+		long first = cron.next(overlapDay.toInstant().toEpochMilli());
+		assertEquals(Instant.ofEpochMilli(first), overlapDay.withHour(1).withMinute(30).toInstant());
+		long second = cron.next(first);
+		assertEquals(Instant.ofEpochMilli(second),
+				ZonedDateTime.of(2021, 11, 7, 2, 30, 0, 0, NEW_YORK).toInstant());
+	}
+
+	/**
+	 * Test the fire times match a minute by minute scan over a year.
+	 */
+	@Test
+	public void testMatchesScan() {
+		ZoneId zone = ZoneId.of("Asia/Kolkata");
+		String[] expressions = { "0 9-17 * * MON-FRI", "*/7 */5 1-10,20 * *", "15 3 * FEB,NOV SUN,WED",
+				"0 0 13 * FRI" };
+		for (String expression : expressions) {
+			CronExpression cron = CronExpression.of(expression, zone);
+			String[] fields = expression.split(" ");
+			ZonedDateTime time = ZonedDateTime.of(2023, 1, 1, 0, 0, 0, 0, zone);
+			ZonedDateTime end = time.plusYears(1);
+			long fireTime = cron.next(time.toInstant().toEpochMilli() - 1);
+			int count = 0;
+			for (; time.isBefore(end); time = time.plus(1, ChronoUnit.MINUTES)) {
+				if (matches(fields, time)) {
+					assertEquals(Instant.ofEpochMilli(fireTime), time.toInstant());
+					fireTime = cron.next(fireTime);
+					count++;
+				}
+			}
+			assertTrue(count > 0);
+		}
+	}
+
+	/**
+	 * Checks if the time matches the fields, for the fields used in the scan.
+	 *
+	 * @param fields
+	 *            the fields
+	 * @param time
+	 *            the time
+	 * @return true, if matches
+	 */
+	private static boolean matches(String[] fields, ZonedDateTime time) {
+		switch (String.join(" ", fields)) {
+		case "0 9-17 * * MON-FRI":
+			return time.getMinute() == 0 && time.getHour() >= 9 && time.getHour() <= 17
+					&& time.getDayOfWeek().getValue() <= 5;
+		case "*/7 */5 1-10,20 * *":
+			return time.getMinute() % 7 == 0 && time.getHour() % 5 == 0
+					&& (time.getDayOfMonth() <= 10 || time.getDayOfMonth() == 20);
+		case "15 3 * FEB,NOV SUN,WED":
+			return time.getMinute() == 15 && time.getHour() == 3
+					&& (time.getMonthValue() == 2 || time.getMonthValue() == 11)
+					&& (time.getDayOfWeek().getValue() == 7 || time.getDayOfWeek().getValue() == 3);
+		default:
+			return time.getMinute() == 0 && time.getHour() == 0
+					&& (time.getDayOfMonth() == 13 || time.getDayOfWeek().getValue() == 5);
+		}
+	}
+
+	/**
+	 * Test invalid expressions.
+	 */
+	@Test
+	public void testInvalidExpressions() {
+		String[] expressions = { "* * * *", "60 * * * *", "* 24 * * *", "* * 0 * *", "* * * 13 *", "* * * * 8",
+				"5-1 * * * *", "*/0 * * * *", "x * * * *" };
+		for (String expression : expressions) {
+			try {
+				CronExpression.of(expression);
+				throw new AssertionError("Accepted " + expression);
+			} catch (IllegalArgumentException e) {
+				// Expected
+			}
+		}
+	}
+
+	/**
+	 * Test scheduling tasks and suppliers with a cron expression firing every
+	 * second.
+	 *
+	 * @throws Exception
+	 *             the exception
+	 */
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testScheduleWithCron() throws Exception {
+		CronExpression everySecond = CronExpression.of("* * * * * *");
+		List<Long> fireTimes = new CopyOnWriteArrayList<>();
+		SchedulingTask.getDefault().scheduleTasks(everySecond, () -> fireTimes.add(System.currentTimeMillis()),
+				() -> fireTimes.add(System.currentTimeMillis()));
+		Supplier<Long>[] results = SchedulingSupplier.getDefault().scheduleSuppliers(everySecond,
+				System::currentTimeMillis, System::currentTimeMillis);
+		long first = results[0].get();
+		long second = results[1].get();
+		assertTrue(second / 1000 - first / 1000 == 1);
+		Thread.sleep(100);
+		assertEquals(fireTimes.size(), 2);
+		assertTrue(fireTimes.get(1) / 1000 - fireTimes.get(0) / 1000 == 1);
+	}
+}
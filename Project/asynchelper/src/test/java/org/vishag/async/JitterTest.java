@@ -0,0 +1,119 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+
+ *   http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vishag.async;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+/**
+ * The class JitterTest.
+ * 
+ * @author Loganathan.S &lt;https://github.com/loganathan001&gt;
+ */
+public class JitterTest {
+
+	/** The watcher. */
+	@Rule
+	public TestRule watcher = new TestWatcherAndLogger();
+
+	/** The period in nano seconds. */
+	private static final long PERIOD = TimeUnit.SECONDS.toNanos(1);
+
+	/**
+	 * Test the phase by key is deterministic and spread evenly over the period.
+	 */
+	@Test
+	public void testPhaseByKey() {
+		assertEquals(Jitter.phaseByKey("orders", 7).getInitialOffset(PERIOD),
+				Jitter.phaseByKey("orders", 7).getInitialOffset(PERIOD));
+		int[] buckets = new int[10];
+		for (int i = 0; i < 10000; i++) {
+			long offset = Jitter.phaseByKey("tenant-" + i).getInitialOffset(PERIOD);
+			assertTrue(offset >= 0 && offset < PERIOD);
+			buckets[(int) (offset * 10 / PERIOD)]++;
+		}
+		for (int bucket : buckets) {
+			assertTrue(bucket > 850 && bucket < 1150);
+		}
+	}
+
+	/**
+	 * Test the random offset and the tick jitter stay within their bounds.
+	 */
+	@Test
+	public void testRandomOffsetAndTickJitter() {
+		Jitter jitter = Jitter.randomOffset().withTickJitter(0.2);
+		for (int i = 0; i < 1000; i++) {
+			long offset = jitter.getInitialOffset(PERIOD);
+			assertTrue(offset >= 0 && offset < PERIOD);
+			long tickJitter = jitter.getTickJitter(PERIOD);
+			assertTrue(tickJitter >= 0 && tickJitter < PERIOD / 5);
+		}
+		assertEquals(Jitter.none().getInitialOffset(PERIOD), 0L);
+		assertEquals(Jitter.none().getTickJitter(PERIOD), 0L);
+		assertEquals(Jitter.phaseByKey("a").getTickJitter(PERIOD), 0L);
+	}
+
+	/**
+	 * Test invalid tick jitter fraction.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidTickJitter() {
+		Jitter.none().withTickJitter(1.5);
+	}
+
+	/**
+	 * Test the schedules with the same period are spread by the phase of their
+	 * keys, keeping their period.
+	 *
+	 * @throws Exception
+	 *             the exception
+	 */
+	@Test
+	public void testScheduleWithPhaseByKey() throws Exception {
+		long periodMillis = 400;
+		long start = System.nanoTime();
+		List<Long> firstFires = new CopyOnWriteArrayList<>();
+		for (int i = 0; i < 2; i++) {
+			String key = "poll-" + i;
+			long offset = Jitter.phaseByKey(key).getInitialOffset(TimeUnit.MILLISECONDS.toNanos(periodMillis));
+			SchedulingTask schedulingTask = SchedulingTask.getDefault().withJitter(Jitter.phaseByKey(key));
+			List<Long> fires = new CopyOnWriteArrayList<>();
+			schedulingTask.scheduleTaskAndWait(0, (int) periodMillis, TimeUnit.MILLISECONDS, false,
+					() -> fires.add(System.nanoTime() - start), 2);
+			assertTrue(fires.get(0) >= offset);
+			long gap = TimeUnit.NANOSECONDS.toMillis(fires.get(1) - fires.get(0));
+			assertTrue(gap >= periodMillis - 10 && gap < periodMillis + 100);
+			firstFires.add(fires.get(0));
+			schedulingTask.close();
+		}
+		// The derived instances do not shut down the default executors
+		SchedulingTask.getDefault().scheduleTaskAndWait(1, TimeUnit.MILLISECONDS, () -> firstFires.add(0L));
+		assertEquals(firstFires.size(), 3);
+	}
+}
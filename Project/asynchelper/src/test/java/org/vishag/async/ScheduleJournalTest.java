@@ -0,0 +1,268 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+
+ *   http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vishag.async;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.rules.TestRule;
+
+/**
+ * The class ScheduleJournalTest.
+ * 
+ * @author Loganathan.S &lt;https://github.com/loganathan001&gt;
+ */
+public class ScheduleJournalTest {
+
+	/** The watcher. */
+	@Rule
+	public TestRule watcher = new TestWatcherAndLogger();
+
+	/** The temporary folder. */
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * Test the latest records survive reopening, and a torn record at the end
+	 * is ignored.
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	@Test
+	public void testRecordsSurviveReopen() throws IOException {
+		Path file = folder.getRoot().toPath().resolve("schedules.journal");
+		try (ScheduleJournal journal = ScheduleJournal.open(file)) {
+			journal.record("a", 1000L, 1L);
+			journal.record("b", 2000L, 5L);
+			journal.record("a", 3000L, 2L);
+			journal.record("c", 4000L, 1L);
+			journal.remove("c");
+		}
+
+		// A torn record after the last complete one: "a" is 25 bytes, "b" 25, "c" 25 twice
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+			channel.write((ByteBuffer) ByteBuffer.allocate(13).putInt(1).put((byte) 'd').putLong(5000L).flip(),
+					4 + 5 * 25);
+		}
+
+		try (ScheduleJournal journal = ScheduleJournal.open(file)) {
+			assertEquals(journal.getScheduleIds().size(), 2);
+			assertEquals(journal.getNextFireTime("a"), 3000L);
+			assertEquals(journal.getRunCount("a"), 2L);
+			assertEquals(journal.getNextFireTime("b"), 2000L);
+			assertEquals(journal.getRunCount("b"), 5L);
+			assertEquals(journal.getNextFireTime("c"), -1L);
+			assertEquals(journal.getNextFireTime("d"), -1L);
+			journal.record("e", 6000L, 1L);
+		}
+
+		try (ScheduleJournal journal = ScheduleJournal.open(file)) {
+			assertEquals(journal.getNextFireTime("e"), 6000L);
+		}
+	}
+
+	/**
+	 * Test the journal is compacted to the latest records when it is full.
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	@Test
+	public void testCompaction() throws IOException {
+		Path file = folder.getRoot().toPath().resolve("compacted.journal");
+		try (ScheduleJournal journal = ScheduleJournal.open(file, 256)) {
+			for (int i = 1; i <= 10_000; i++) {
+				journal.record("schedule-" + (i % 4), i, i);
+			}
+		}
+		assertTrue(Files.size(file) <= 1024);
+		try (ScheduleJournal journal = ScheduleJournal.open(file)) {
+			assertEquals(journal.getScheduleIds().size(), 4);
+			assertEquals(journal.getNextFireTime("schedule-0"), 10_000L);
+			assertEquals(journal.getRunCount("schedule-3"), 9_999L);
+		}
+	}
+
+	/**
+	 * Test a schedule is journaled, and restored from the journal after a
+	 * restart as per the misfire policies.
+	 *
+	 * @throws Exception
+	 *             the exception
+	 */
+	@Test
+	public void testRestoreWithMisfirePolicies() throws Exception {
+		Path file = folder.getRoot().toPath().resolve("restore.journal");
+		try (ScheduleJournal journal = ScheduleJournal.open(file)) {
+			int runs = runPoll(journal, MisfirePolicy.skip(), 20, 200);
+			assertTrue(runs > 2);
+			assertEquals(journal.getRunCount("poll"), (long) runs);
+			assertTrue(journal.getNextFireTime("poll") > 0);
+
+			// Fire all: 1 + 20000 / 1000 missed runs
+			assertEquals(restorePoll(journal, MisfirePolicy.fireAll(), 20_000, 1000, 500), 21);
+			// Coalesce: a single run for the missed ones
+			assertEquals(restorePoll(journal, MisfirePolicy.coalesce(), 10_000, 1000, 500), 1);
+			// Skip: the next fire time is after 500 ms
+			assertEquals(restorePoll(journal, MisfirePolicy.skip(), 2500, 1000, 200), 0);
+			// Not missed: the journaled next fire time is after 500 ms
+			assertEquals(restorePoll(journal, MisfirePolicy.fireAll(), -500, 1000, 200), 0);
+			assertEquals(journal.getRunCount("poll"), (long) runs);
+
+			journal.remove("poll");
+			assertEquals(journal.getNextFireTime("poll"), -1L);
+
+			// The completed schedule is removed from the journal
+			AsyncContext asyncContext = AsyncContext.newInstance();
+			try (SchedulingTask schedulingTask = SchedulingTask.of(Executors.newScheduledThreadPool(2),
+					asyncContext)) {
+				schedulingTask.withJournal(journal, "poll", MisfirePolicy.skip()).scheduleTasksUntilFlag(0, 10,
+						TimeUnit.MILLISECONDS, true, "TestRestoreWithMisfirePolicies", () -> {
+						});
+				Thread.sleep(100);
+				assertTrue(journal.getRunCount("poll") > 0);
+				asyncContext.notifyAllFlag("TestRestoreWithMisfirePolicies");
+				Thread.sleep(100);
+			}
+			assertEquals(journal.getNextFireTime("poll"), -1L);
+		}
+	}
+
+	/**
+	 * Test a schedule of a number of runs restored from the journal makes only
+	 * the remaining runs, and a journaled scheduling task takes a single
+	 * schedule.
+	 *
+	 * @throws Exception
+	 *             the exception
+	 */
+	@Test
+	public void testRestoreCountedSchedule() throws Exception {
+		Path file = folder.getRoot().toPath().resolve("counted.journal");
+		try (ScheduleJournal journal = ScheduleJournal.open(file)) {
+			AtomicInteger runs = new AtomicInteger();
+			try (SchedulingTask schedulingTask = SchedulingTask.of(Executors.newScheduledThreadPool(2),
+					AsyncContext.newInstance())) {
+				// Made 3 of the 5 runs, and missed 1 + 2500 / 1000 runs coalesced into one
+				journal.record("count", System.currentTimeMillis() - 2500, 3L);
+				SchedulingTask journaled = schedulingTask.withJournal(journal, "count", MisfirePolicy.coalesce());
+				ScheduleHandle handle = journaled.scheduleTask(0, 1000, TimeUnit.MILLISECONDS, true,
+						runs::incrementAndGet, 5);
+				handle.get(5, TimeUnit.SECONDS);
+				assertEquals(runs.get(), 2);
+				assertEquals(handle.getRunCount(), 5L);
+				assertEquals(journaled.getCoalescedRunCount(), 2L);
+				assertEquals(journal.getNextFireTime("count"), -1L);
+
+				try {
+					journaled.scheduleTask(0, 1000, TimeUnit.MILLISECONDS, true, runs::incrementAndGet, 5);
+					fail();
+				} catch (IllegalStateException e) {
+					assertEquals(runs.get(), 2);
+				}
+
+				// Made all the runs: completes without running
+				journal.record("count", System.currentTimeMillis() + 60_000, 5L);
+				handle = schedulingTask.withJournal(journal, "count", MisfirePolicy.fireAll()).scheduleTask(0, 1000,
+						TimeUnit.MILLISECONDS, true, runs::incrementAndGet, 5);
+				assertTrue(handle.isDone());
+				assertEquals(runs.get(), 2);
+				assertEquals(journal.getNextFireTime("count"), -1L);
+			}
+		}
+	}
+
+	/**
+	 * Restores the "poll" schedule as if it was last journaled to fire the
+	 * given time ago, and gets the number of its runs within the given wait.
+	 *
+	 * @param journal
+	 *            the journal
+	 * @param misfirePolicy
+	 *            the misfire policy
+	 * @param missedMillis
+	 *            the time since the journaled next fire time
+	 * @param delayMillis
+	 *            the delay of the schedule
+	 * @param waitMillis
+	 *            the wait
+	 * @return the number of runs
+	 * @throws InterruptedException
+	 *             the interrupted exception
+	 */
+	private int restorePoll(ScheduleJournal journal, MisfirePolicy misfirePolicy, long missedMillis,
+			int delayMillis, long waitMillis) throws InterruptedException {
+		long runCount = journal.getRunCount("poll");
+		journal.record("poll", System.currentTimeMillis() - missedMillis, runCount);
+		int runs = runPoll(journal, misfirePolicy, delayMillis, waitMillis);
+		assertEquals(journal.getRunCount("poll"), runCount + runs);
+		journal.record("poll", journal.getNextFireTime("poll"), runCount);
+		return runs;
+	}
+
+	/**
+	 * Runs the "poll" schedule with a long initial delay until the scheduling
+	 * task is closed after the given wait, as if the application is stopped,
+	 * and gets the number of its runs.
+	 *
+	 * @param journal
+	 *            the journal
+	 * @param misfirePolicy
+	 *            the misfire policy
+	 * @param delayMillis
+	 *            the delay of the schedule
+	 * @param waitMillis
+	 *            the wait
+	 * @return the number of runs
+	 * @throws InterruptedException
+	 *             the interrupted exception
+	 */
+	private int runPoll(ScheduleJournal journal, MisfirePolicy misfirePolicy, int delayMillis, long waitMillis)
+			throws InterruptedException {
+		AtomicInteger runs = new AtomicInteger();
+		AsyncContext asyncContext = AsyncContext.newInstance();
+		try (SchedulingTask schedulingTask = SchedulingTask.of(Executors.newScheduledThreadPool(2),
+				asyncContext)) {
+			schedulingTask.withJournal(journal, "poll", misfirePolicy).scheduleTasksUntilFlag(
+					journal.getScheduleIds().isEmpty() ? 0 : 60_000, delayMillis, TimeUnit.MILLISECONDS, true,
+					"Poll", runs::incrementAndGet);
+			Thread.sleep(waitMillis);
+		}
+		Thread.sleep(50);
+		// Releases the flag waiter after the schedule is stopped
+		asyncContext.notifyAllFlag("Poll");
+		return runs.get();
+	}
+}
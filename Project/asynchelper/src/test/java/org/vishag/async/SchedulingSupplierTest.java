@@ -20,14 +20,22 @@
 package org.vishag.async;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
@@ -68,7 +76,9 @@ public final class SchedulingSupplierTest {
 				{SchedulingSupplier.of(Executors
 						.newScheduledThreadPool(10))	},
 				{SchedulingSupplier.of(Executors
-						.newScheduledThreadPool(10), AsyncContext.newInstance())	}
+						.newScheduledThreadPool(10), AsyncContext.newInstance())	},
+				{SchedulingSupplier.of(TimingWheelScheduledExecutorService.newInstance(),
+						Executors.newCachedThreadPool(), AsyncContext.newInstance())	}
 			});
 	}
 	
@@ -81,6 +91,15 @@ public final class SchedulingSupplierTest {
  	public SchedulingSupplierTest(SchedulingSupplier schedulingSupplier) throws Exception {
 		 this.schedulingSupplier = schedulingSupplier;
 	 }
+
+	/**
+	 * Assumes the work executor runs more than one scheduled run at a time,
+	 * which the default one does not when the common pool parallelism is 1.
+	 */
+	private void assumeParallelWork() {
+		assumeTrue(schedulingSupplier != SchedulingSupplier.getDefault()
+				|| ForkJoinPool.getCommonPoolParallelism() > 1);
+	}
 	
 	
 
@@ -176,6 +195,39 @@ public final class SchedulingSupplierTest {
 		retVals.forEach(value -> assertEquals(val.addAndGet(10), (int) value));
 	}
 
+	/**
+	 * Test schedule supplier and wait for many times, streaming the results,
+	 * and closing the stream early to stop the scheduling.
+	 *
+	 * @throws InterruptedException
+	 *             the interrupted exception
+	 */
+	@Test
+	public void testScheduleSupplierAndWaitManyTimes() throws InterruptedException {
+		int times = 2_000;
+		AtomicInteger count = new AtomicInteger(0);
+		long sum = schedulingSupplier.scheduleSupplierAndWait(0, 1, TimeUnit.MICROSECONDS, false,
+				count::incrementAndGet, times).mapToLong(Integer::longValue).sum();
+		assertEquals(sum, (long) times * (times + 1) / 2);
+		assertEquals(count.get(), times);
+
+		// The null results are yielded too
+		List<Integer> withNulls = schedulingSupplier.scheduleSupplierAndWait(0, 10, TimeUnit.MILLISECONDS, true,
+				() -> (Integer) null, 3).collect(Collectors.toList());
+		assertEquals(withNulls, Arrays.asList(null, null, null));
+
+		AtomicInteger stopped = new AtomicInteger(0);
+		try (Stream<Integer> results = schedulingSupplier.scheduleSupplierAndWait(0, 10, TimeUnit.MILLISECONDS, true,
+				stopped::incrementAndGet, Integer.MAX_VALUE)) {
+			assertEquals(results.limit(3).count(), 3L);
+		}
+		Thread.sleep(100);
+		int runs = stopped.get();
+		Thread.sleep(100);
+		assertEquals(stopped.get(), runs);
+		assertTrue(runs < 10);
+	}
+
 	/**
 	 * Test schedule supplier and wait single time.
 	 *
@@ -351,7 +403,298 @@ public final class SchedulingSupplierTest {
 		TestUtil.print("" + result);
 
 	}
-	
+
+	/**
+	 * Test schedule latest value with change listeners.
+	 *
+	 * @throws InterruptedException
+	 *             the interrupted exception
+	 */
+	@Test
+	public void testScheduleLatestValue() throws InterruptedException {
+		AtomicInteger count = new AtomicInteger(0);
+		List<Integer> changes = new CopyOnWriteArrayList<>();
+		try (LatestValue<Integer> latestValue = schedulingSupplier.scheduleLatestValue(0, 5, TimeUnit.MILLISECONDS,
+				false, () -> count.getAndIncrement() / 3)) {
+			latestValue.onChange((previous, value) -> changes.add(value));
+			Thread.sleep(200);
+			int latest = latestValue.get();
+			assertTrue(latest > 3);
+			assertTrue(latest >= changes.get(changes.size() - 1));
+			for (int i = 1; i < changes.size(); i++) {
+				assertEquals((int) changes.get(i), changes.get(i - 1) + 1);
+			}
+		}
+		Thread.sleep(50);
+		int stopped = count.get();
+		Thread.sleep(50);
+		assertEquals(count.get(), stopped);
+	}
+
+	/**
+	 * Test schedule suppliers as futures, composed without blocking, and
+	 * completed exceptionally from a failing supplier.
+	 *
+	 * @throws Exception
+	 *             the exception
+	 */
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testScheduleSuppliersAsFutures() throws Exception {
+		CompletableFuture<Integer>[] results = schedulingSupplier.scheduleSuppliersAsFutures(10, 20,
+				TimeUnit.MILLISECONDS, true, () -> 1, () -> 2, () -> 3);
+		assertTrue(!results[2].isDone());
+		CompletableFuture<Integer> sum = CompletableFuture.allOf(results)
+				.thenApply(v -> Stream.of(results).mapToInt(CompletableFuture::join).sum());
+		assertEquals((int) sum.get(5, TimeUnit.SECONDS), 6);
+
+		CompletableFuture<Integer>[] failing = schedulingSupplier.scheduleSuppliersAsFutures(0, 10,
+				TimeUnit.MILLISECONDS, true, () -> 1, () -> {
+					throw new IllegalStateException("Failed");
+				}, () -> 3);
+		assertEquals((int) failing[0].get(5, TimeUnit.SECONDS), 1);
+		try {
+			failing[2].get(5, TimeUnit.SECONDS);
+			fail();
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+		assertTrue(failing[1].isCompletedExceptionally());
+	}
+
+	/**
+	 * Test schedule suppliers and wait in completion order, with overlapping
+	 * runs completing out of order, and in the order of the suppliers.
+	 */
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testScheduleSuppliersAndWaitInCompletionOrder() {
+		assumeParallelWork();
+		SchedulingSupplier overlapping = schedulingSupplier.withMisfirePolicy(MisfirePolicy.concurrent(3));
+		Supplier<Integer> slow = () -> {
+			try {
+				Thread.sleep(300);
+			} catch (InterruptedException e) {
+				e.printStackTrace();
+			}
+			return 1;
+		};
+
+		long start = System.nanoTime();
+		Iterator<Integer> completionOrder = overlapping
+				.scheduleSuppliersAndWaitInCompletionOrder(0, 20, TimeUnit.MILLISECONDS, false, slow, () -> 2, () -> 3)
+				.iterator();
+		assertEquals((int) completionOrder.next(), 2);
+		assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 250);
+		assertEquals((int) completionOrder.next(), 3);
+		assertEquals((int) completionOrder.next(), 1);
+		assertTrue(!completionOrder.hasNext());
+
+		List<Integer> inOrder = overlapping
+				.scheduleSuppliersAndWait(0, 20, TimeUnit.MILLISECONDS, false, slow, () -> 2, () -> 3)
+				.collect(Collectors.toList());
+		assertEquals(inOrder, Arrays.asList(1, 2, 3));
+
+		// The null results are yielded as in the order of the suppliers
+		List<Integer> withNulls = overlapping
+				.scheduleSuppliersAndWaitInCompletionOrder(0, 20, TimeUnit.MILLISECONDS, false, () -> null, () -> 2,
+						() -> null)
+				.collect(Collectors.toList());
+		assertEquals(withNulls, Arrays.asList(null, 2, null));
+	}
+
+	/**
+	 * Test schedule latest value with an adaptive interval, lengthening while
+	 * the results are unchanged and snapping back on changes.
+	 *
+	 * @throws InterruptedException
+	 *             the interrupted exception
+	 */
+	@Test
+	public void testScheduleLatestValueWithAdaptiveInterval() throws InterruptedException {
+		AtomicInteger unchangedCount = new AtomicInteger(0);
+		AdaptiveInterval<Integer> unchanged = AdaptiveInterval.<Integer>of(200, TimeUnit.MILLISECONDS)
+				.withComparator((previous, value) -> 0);
+		try (LatestValue<Integer> latestValue = schedulingSupplier.scheduleLatestValue(0, 5, TimeUnit.MILLISECONDS,
+				unchanged, unchangedCount::incrementAndGet)) {
+			Thread.sleep(600);
+			// Fixed delay would have polled about 120 times
+			assertTrue(unchangedCount.get() <= 15);
+			assertTrue(latestValue.get() > 0);
+		}
+
+		CountDownLatch changedPolls = new CountDownLatch(20);
+		AtomicInteger changedCount = new AtomicInteger(0);
+		try (LatestValue<Integer> latestValue = schedulingSupplier.scheduleLatestValue(0, 5, TimeUnit.MILLISECONDS,
+				AdaptiveInterval.of(1, TimeUnit.SECONDS), () -> {
+					changedPolls.countDown();
+					return changedCount.getAndIncrement();
+				})) {
+			// Without snapping back this would take more than 10 seconds
+			assertTrue(changedPolls.await(4, TimeUnit.SECONDS));
+		}
+	}
+
+	/**
+	 * Test schedule suppliers until flag retaining only the last results.
+	 *
+	 * @throws InterruptedException
+	 *             the interrupted exception
+	 */
+	@Test
+	public void testScheduleSuppliersUntilFlagWithRetention() throws InterruptedException {
+		AtomicInteger count = new AtomicInteger(0);
+		schedulingSupplier.scheduleSuppliersUntilFlag(0, 5, TimeUnit.MILLISECONDS, false,
+				"TestSuppliersUntilFlagWithRetention", 3, count::getAndIncrement);
+
+		Thread.sleep(200);
+		List<Integer> drained = schedulingSupplier
+				.drainRetainedResults(Integer.class, "TestSuppliersUntilFlagWithRetention")
+				.collect(Collectors.toList());
+		assertTrue(drained.size() <= 3 && drained.size() > 0);
+		for (int i = 1; i < drained.size(); i++) {
+			assertTrue(drained.get(i) == drained.get(i - 1) + 1);
+		}
+		assertTrue(drained.get(drained.size() - 1) > 10);
+
+		Thread.sleep(50);
+		List<Integer> result = schedulingSupplier
+				.notifyAndGetForFlag(Integer.class, "TestSuppliersUntilFlagWithRetention")
+				.collect(Collectors.toList());
+		assertTrue(result.size() <= 3 && result.size() > 0);
+		assertTrue(result.get(0) > drained.get(drained.size() - 1));
+		// Got once the last run is done
+		assertEquals((int) result.get(result.size() - 1), count.get() - 1);
+
+		// The schedule stops on the flag
+		Thread.sleep(50);
+		int stopped = count.get();
+		Thread.sleep(50);
+		assertEquals(count.get(), stopped);
+		assertEquals(schedulingSupplier.drainRetainedResults(Integer.class, "TestSuppliersUntilFlagWithRetention")
+				.count(), 0L);
+	}
+
+	/**
+	 * Test the results retained for a flag are released however the schedule
+	 * ends, and only one schedule at a time retains the results for a flag.
+	 *
+	 * @throws Exception
+	 *             the exception
+	 */
+	@Test
+	public void testScheduleSuppliersUntilFlagWithRetentionReleased() throws Exception {
+		String flag = "TestSuppliersUntilFlagWithRetentionReleased";
+		ScheduleHandle handle = schedulingSupplier.scheduleSuppliersUntilFlag(0, 5, TimeUnit.MILLISECONDS, false,
+				flag, 3, () -> 1);
+		try {
+			schedulingSupplier.scheduleSuppliersUntilFlag(0, 5, TimeUnit.MILLISECONDS, false, flag, 3, () -> 2);
+			fail();
+		} catch (IllegalStateException e) {
+			assertFalse(handle.isDone());
+		}
+
+		handle.cancel(false);
+		ScheduleHandle next = schedulingSupplier.scheduleSuppliersUntilFlag(0, 5, TimeUnit.MILLISECONDS, false,
+				flag, 3, () -> 2);
+		Thread.sleep(50);
+		assertTrue(schedulingSupplier.drainRetainedResults(Integer.class, flag).allMatch(i -> i == 2));
+		// Notified again in case the thread waiting for the flag is not yet waiting
+		for (int i = 0; i < 100 && !next.isDone(); i++) {
+			schedulingSupplier.notifyAllFlag(flag);
+			Thread.sleep(20);
+		}
+		next.get(5, TimeUnit.SECONDS);
+		// Released right after the schedule is done
+		Thread.sleep(50);
+		assertEquals(schedulingSupplier.drainRetainedResults(Integer.class, flag).count(), 0L);
+	}
+
+	/**
+	 * Test schedule supplier until flag as stream.
+	 *
+	 * @throws InterruptedException
+	 *             the interrupted exception
+	 */
+	@Test
+	public void testScheduleSupplierUntilFlagAsStream() throws InterruptedException {
+		AtomicInteger count = new AtomicInteger(0);
+		Stream<Integer> stream = schedulingSupplier.scheduleSupplierUntilFlagAsStream(10, 50, TimeUnit.MILLISECONDS,
+				true, "TestSupplierUntilFlagAsStream", count::getAndIncrement);
+		Iterator<Integer> iterator = stream.iterator();
+		for (int i = 0; i < 3; i++) {
+			assertEquals((int) iterator.next(), i);
+		}
+
+		schedulingSupplier.notifyAllFlag("TestSupplierUntilFlagAsStream");
+		int val = 3;
+		while (iterator.hasNext()) {
+			assertEquals((int) iterator.next(), val++);
+		}
+		assertTrue(val <= count.get());
+	}
+
+	/**
+	 * Test schedule suppliers until flag as stream closed.
+	 *
+	 * @throws InterruptedException
+	 *             the interrupted exception
+	 */
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testScheduleSuppliersUntilFlagAsStreamClosed() throws InterruptedException {
+		AtomicInteger count = new AtomicInteger(0);
+		List<Integer> result;
+		try (Stream<Integer> stream = schedulingSupplier.scheduleSuppliersUntilFlagAsStream(10, 50,
+				TimeUnit.MILLISECONDS, true, "TestSuppliersUntilFlagAsStreamClosed", () -> {
+					count.incrementAndGet();
+					return 0;
+				}, () -> {
+					count.incrementAndGet();
+					return 1;
+				})) {
+			result = stream.limit(4).collect(Collectors.toList());
+		}
+		assertEquals(result, Arrays.asList(0, 1, 0, 1));
+
+		Thread.sleep(200);
+		int countAfterClose = count.get();
+		Thread.sleep(200);
+		assertEquals(count.get(), countAfterClose);
+	}
+
+	/**
+	 * Test closing a stream of a schedule until flag stops only that schedule,
+	 * without notifying the other threads waiting for the same flag.
+	 *
+	 * @throws Exception
+	 *             the exception
+	 */
+	@Test
+	public void testScheduleSupplierUntilFlagAsStreamClosedKeepsFlag() throws Exception {
+		AsyncContext context = AsyncContext.newInstance();
+		String flag = "TestUntilFlagAsStreamClosedKeepsFlag";
+		try (SchedulingSupplier supplier = SchedulingSupplier.of(Executors.newScheduledThreadPool(2), context)) {
+			CountDownLatch released = new CountDownLatch(1);
+			AsyncTask.submitTaskInNewThread(() -> {
+				try {
+					context.waitForFlag(flag);
+				} catch (InterruptedException e) {
+				}
+				released.countDown();
+			});
+			try (Stream<Integer> stream = supplier.scheduleSupplierUntilFlagAsStream(0, 10, TimeUnit.MILLISECONDS,
+					false, flag, () -> 1)) {
+				assertEquals(stream.limit(3).count(), 3L);
+			}
+			assertFalse(released.await(200, TimeUnit.MILLISECONDS));
+			assertTrue(context.getOriginalKeys().containsKey(ObjectsKey.of(flag)));
+
+			context.notifyAllFlag(flag);
+			assertTrue(released.await(5, TimeUnit.SECONDS));
+		}
+	}
+
 	/**
 	 * Test close.
 	 *
@@ -20,12 +20,16 @@
 package org.vishag.async;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
 
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -63,7 +67,9 @@ public class SchedulingTaskTest {
 				{SchedulingTask.of(Executors
 						.newScheduledThreadPool(10))	},
 				{SchedulingTask.of(Executors
-						.newScheduledThreadPool(10), AsyncContext.newInstance())	}
+						.newScheduledThreadPool(10), AsyncContext.newInstance())	},
+				{SchedulingTask.of(TimingWheelScheduledExecutorService.newInstance(),
+						Executors.newCachedThreadPool(), AsyncContext.newInstance())	}
 			});
 	}
 	
@@ -76,6 +82,14 @@ public class SchedulingTaskTest {
  	public SchedulingTaskTest(SchedulingTask schedulingTask) throws Exception {
 		 this.schedulingTask = schedulingTask;
 	 }
+
+	/**
+	 * Assumes the work executor runs more than one scheduled run at a time,
+	 * which the default one does not when the common pool parallelism is 1.
+	 */
+	private void assumeParallelWork() {
+		assumeTrue(schedulingTask != SchedulingTask.getDefault() || ForkJoinPool.getCommonPoolParallelism() > 1);
+	}
 	
 
 	/**
@@ -271,6 +285,180 @@ public class SchedulingTaskTest {
 		assertArrayEquals(retVal, new int[] { 10, 20, 20 });
 	}
 	
+	/**
+	 * Test a slow task does not delay the other schedules.
+	 *
+	 * @throws InterruptedException
+	 *             the interrupted exception
+	 */
+	@Test
+	public void testSlowTaskDoesNotDelayOtherSchedules() throws InterruptedException {
+		assumeParallelWork();
+		schedulingTask.scheduleTask(0, 10, TimeUnit.MILLISECONDS, false, () -> {
+			try {
+				Thread.sleep(300);
+			} catch (InterruptedException e) {
+				e.printStackTrace();
+			}
+		}, 2);
+		AtomicInteger count = new AtomicInteger(0);
+		long start = System.nanoTime();
+		schedulingTask.scheduleTaskAndWait(5, 20, TimeUnit.MILLISECONDS, false, count::incrementAndGet, 10);
+		long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		assertTrue(count.get() == 10);
+		assertTrue(elapsed < 400);
+	}
+
+	/**
+	 * Test the misfire policies of an overrunning fixed rate schedule.
+	 *
+	 * @throws InterruptedException
+	 *             the interrupted exception
+	 */
+	@Test
+	public void testMisfirePolicies() throws InterruptedException {
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+		Runnable overrunning = () -> {
+			maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+			try {
+				Thread.sleep(50);
+			} catch (InterruptedException e) {
+				e.printStackTrace();
+			}
+			running.decrementAndGet();
+		};
+
+		SchedulingTask skipping = schedulingTask.withMisfirePolicy(MisfirePolicy.skip());
+		skipping.scheduleTaskAndWait(0, 10, TimeUnit.MILLISECONDS, false, overrunning, 5);
+		assertTrue(skipping.getSkippedRunCount() > 0);
+		assertEquals(skipping.getCoalescedRunCount(), 0L);
+
+		SchedulingTask coalescing = schedulingTask.withMisfirePolicy(MisfirePolicy.coalesce());
+		coalescing.scheduleTaskAndWait(0, 10, TimeUnit.MILLISECONDS, false, overrunning, 5);
+		assertTrue(coalescing.getCoalescedRunCount() > 0);
+		assertEquals(coalescing.getSkippedRunCount(), 0L);
+
+		SchedulingTask firingAll = schedulingTask.withMisfirePolicy(MisfirePolicy.fireAll());
+		firingAll.scheduleTaskAndWait(0, 10, TimeUnit.MILLISECONDS, false, overrunning, 5);
+		assertEquals(firingAll.getSkippedRunCount(), 0L);
+		assertEquals(firingAll.getCoalescedRunCount(), 0L);
+		assertEquals(maxRunning.get(), 1);
+
+		// The overlapping runs need more than one worker
+		assumeParallelWork();
+		SchedulingTask concurrent = schedulingTask.withMisfirePolicy(MisfirePolicy.concurrent(3));
+		concurrent.scheduleTaskAndWait(0, 10, TimeUnit.MILLISECONDS, false, overrunning, 12);
+		Thread.sleep(100);
+		assertTrue(maxRunning.get() > 1 && maxRunning.get() <= 3);
+		assertTrue(concurrent.getSkippedRunCount() > 0);
+	}
+
+	/**
+	 * Test the schedule handle pausing, resuming, changing the period, running
+	 * now and cancelling the fixed rate and fixed delay schedules.
+	 *
+	 * @throws InterruptedException
+	 *             the interrupted exception
+	 */
+	@Test
+	public void testScheduleHandle() throws InterruptedException {
+		for (boolean waitForPreviousTask : new boolean[] { false, true }) {
+			AtomicInteger count = new AtomicInteger(0);
+			String flag = "TestScheduleHandle" + waitForPreviousTask;
+			ScheduleHandle handle = schedulingTask.scheduleTasksUntilFlag(0, 10, TimeUnit.MILLISECONDS,
+					waitForPreviousTask, flag, count::incrementAndGet);
+			Thread.sleep(150);
+			assertTrue(count.get() > 3);
+
+			handle.pause();
+			assertTrue(handle.isPaused());
+			Thread.sleep(50);
+			int paused = count.get();
+			Thread.sleep(150);
+			assertEquals(count.get(), paused);
+
+			// Runs once, even if paused
+			handle.runNow();
+			Thread.sleep(50);
+			assertEquals(count.get(), paused + 1);
+			Thread.sleep(100);
+			assertEquals(count.get(), paused + 1);
+
+			// At the lengthened period, which would be about 30 runs at 10 ms
+			handle.setPeriod(100, TimeUnit.MILLISECONDS);
+			assertEquals(handle.getPeriod(TimeUnit.MILLISECONDS), 100L);
+			handle.resume();
+			assertTrue(!handle.isPaused());
+			Thread.sleep(320);
+			int resumed = count.get() - paused - 1;
+			assertTrue(resumed >= 1 && resumed <= 5);
+
+			assertEquals(handle.getRunCount(), (long) count.get());
+			assertTrue(handle.getMaxRunTime(TimeUnit.NANOSECONDS) >= handle.getLastRunTime(TimeUnit.NANOSECONDS));
+			assertTrue(handle.getLastRunTime(TimeUnit.NANOSECONDS) > 0);
+
+			assertTrue(handle.cancel());
+			assertTrue(handle.isCancelled());
+			Thread.sleep(50);
+			int cancelled = count.get();
+			Thread.sleep(150);
+			assertEquals(count.get(), cancelled);
+			schedulingTask.notifyAllFlag(flag);
+		}
+	}
+
+	/**
+	 * Test changing the period of a running schedule takes effect from the
+	 * next tick, without waiting for the trigger armed at the old period.
+	 *
+	 * @throws InterruptedException
+	 *             the interrupted exception
+	 */
+	@Test
+	public void testScheduleHandleSetPeriodWhileRunning() throws InterruptedException {
+		for (boolean waitForPreviousTask : new boolean[] { false, true }) {
+			AtomicInteger count = new AtomicInteger(0);
+			ScheduleHandle handle = schedulingTask.scheduleTasksUntilFlag(0, 10, TimeUnit.SECONDS,
+					waitForPreviousTask, "TestSetPeriodWhileRunning" + waitForPreviousTask, count::incrementAndGet);
+			Thread.sleep(100);
+			assertEquals(count.get(), 1);
+
+			handle.setPeriod(20, TimeUnit.MILLISECONDS);
+			Thread.sleep(300);
+			assertTrue(count.get() > 3);
+			assertTrue(handle.cancel());
+		}
+	}
+
+	/**
+	 * Test cancelling the handle of a schedule until flag releases the thread
+	 * waiting for the flag and forgets the flag.
+	 *
+	 * @throws Exception
+	 *             the exception
+	 */
+	@Test
+	public void testScheduleHandleCancelReleasesFlag() throws Exception {
+		AsyncContext context = AsyncContext.newInstance();
+		ObjectsKey flagKey = ObjectsKey.of("TestCancelReleasesFlag");
+		try (SchedulingTask task = SchedulingTask.of(Executors.newScheduledThreadPool(2), context)) {
+			ScheduleHandle handle = task.scheduleTasksUntilFlag(0, 10, TimeUnit.MILLISECONDS, false,
+					"TestCancelReleasesFlag", () -> {
+					});
+			for (int i = 0; i < 100 && !context.getOriginalKeys().containsKey(flagKey); i++) {
+				Thread.sleep(10);
+			}
+			assertTrue(context.getOriginalKeys().containsKey(flagKey));
+
+			assertTrue(handle.cancel());
+			for (int i = 0; i < 100 && context.getOriginalKeys().containsKey(flagKey); i++) {
+				Thread.sleep(10);
+			}
+			assertFalse(context.getOriginalKeys().containsKey(flagKey));
+		}
+	}
+
 	/**
 	 * Test close.
 	 *
@@ -0,0 +1,219 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+
+ *   http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.vishag.async;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+/**
+ * The class TimingWheelScheduledExecutorServiceTest.
+ * 
+ * @author Loganathan.S &lt;https://github.com/loganathan001&gt;
+ */
+public class TimingWheelScheduledExecutorServiceTest {
+
+	/** The watcher. */
+	@Rule
+	public TestRule watcher = new TestWatcherAndLogger();
+
+	/**
+	 * Test the one-shot schedules fire not before their delay, across the
+	 * levels of a small wheel.
+	 *
+	 * @throws Exception
+	 *             the exception
+	 */
+	@Test
+	public void testScheduleAcrossLevels() throws Exception {
+		TimingWheelScheduledExecutorService service = TimingWheelScheduledExecutorService.of(1,
+				TimeUnit.MILLISECONDS, 4);
+		try {
+			long start = System.nanoTime();
+			List<ScheduledFuture<Long>> futures = Stream.of(0, 1, 3, 5, 17, 70, 150, 300)
+					.map(delay -> service.schedule(() -> System.nanoTime() - start - TimeUnit.MILLISECONDS.toNanos(delay),
+							delay, TimeUnit.MILLISECONDS))
+					.collect(Collectors.toList());
+			for (ScheduledFuture<Long> future : futures) {
+				long late = future.get(5, TimeUnit.SECONDS);
+				assertTrue(late >= 0);
+				assertTrue(late < TimeUnit.MILLISECONDS.toNanos(200));
+			}
+			assertEquals(service.getExpiredCount(), 8L);
+			assertTrue(service.getTickLag(TimeUnit.NANOSECONDS) >= 0);
+			assertTrue(service.getMaxTickLag(TimeUnit.NANOSECONDS) >= service.getTickLag(TimeUnit.NANOSECONDS));
+		} finally {
+			service.shutdown();
+		}
+	}
+
+	/**
+	 * Test the tick lag reported while the timer thread is stalled by a
+	 * schedule running in it.
+	 *
+	 * @throws Exception
+	 *             the exception
+	 */
+	@Test
+	public void testTickLagOfStalledTimer() throws Exception {
+		CountDownLatch blocker = new CountDownLatch(1);
+		ThreadPoolExecutor workers = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+				new SynchronousQueue<>(), new ThreadPoolExecutor.CallerRunsPolicy());
+		workers.execute(() -> {
+			try {
+				blocker.await();
+			} catch (InterruptedException e) {
+			}
+		});
+		TimingWheelScheduledExecutorService service = TimingWheelScheduledExecutorService.of(1,
+				TimeUnit.MILLISECONDS, 64, workers);
+		try {
+			// Runs in the timer thread, as the only worker is busy
+			ScheduledFuture<Object> stalling = service.schedule(() -> {
+				Thread.sleep(100);
+				return null;
+			}, 10, TimeUnit.MILLISECONDS);
+			ScheduledFuture<?> next = service.schedule(() -> {
+			}, 20, TimeUnit.MILLISECONDS);
+			stalling.get(5, TimeUnit.SECONDS);
+			next.get(5, TimeUnit.SECONDS);
+			assertTrue(service.getMaxTickLag(TimeUnit.MILLISECONDS) >= 50);
+		} finally {
+			blocker.countDown();
+			service.shutdown();
+			workers.shutdown();
+		}
+	}
+
+	/**
+	 * Test many schedules with half of them cancelled.
+	 *
+	 * @throws Exception
+	 *             the exception
+	 */
+	@Test
+	public void testManySchedulesWithCancellation() throws Exception {
+		TimingWheelScheduledExecutorService service = TimingWheelScheduledExecutorService.newInstance();
+		try {
+			int count = 100_000;
+			Random random = new Random(7);
+			CountDownLatch latch = new CountDownLatch(count / 2);
+			AtomicInteger fired = new AtomicInteger();
+			ScheduledFuture<?>[] futures = new ScheduledFuture<?>[count];
+			for (int i = 0; i < count; i++) {
+				futures[i] = service.schedule(() -> {
+					fired.incrementAndGet();
+					latch.countDown();
+				}, 300 + random.nextInt(300), TimeUnit.MILLISECONDS);
+			}
+			for (int i = 1; i < count; i += 2) {
+				assertTrue(futures[i].cancel(false));
+			}
+			assertTrue(latch.await(10, TimeUnit.SECONDS));
+			Thread.sleep(100);
+			assertEquals(fired.get(), count / 2);
+			assertEquals(service.getExpiredCount(), (long) count / 2);
+		} finally {
+			service.shutdown();
+		}
+	}
+
+	/**
+	 * Test the periodic schedules at fixed rate and with fixed delay until
+	 * cancelled.
+	 *
+	 * @throws Exception
+	 *             the exception
+	 */
+	@Test
+	public void testPeriodicSchedules() throws Exception {
+		TimingWheelScheduledExecutorService service = TimingWheelScheduledExecutorService.newInstance();
+		try {
+			AtomicInteger atFixedRate = new AtomicInteger();
+			CountDownLatch rateLatch = new CountDownLatch(10);
+			CountDownLatch delayLatch = new CountDownLatch(10);
+			long start = System.nanoTime();
+			ScheduledFuture<?> rateFuture = service.scheduleAtFixedRate(() -> {
+				atFixedRate.incrementAndGet();
+				rateLatch.countDown();
+			}, 0, 10, TimeUnit.MILLISECONDS);
+			ScheduledFuture<?> delayFuture = service.scheduleWithFixedDelay(delayLatch::countDown, 0, 10,
+					TimeUnit.MILLISECONDS);
+			assertTrue(rateLatch.await(5, TimeUnit.SECONDS));
+			assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(90));
+			assertTrue(delayLatch.await(5, TimeUnit.SECONDS));
+			assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(90));
+			rateFuture.cancel(false);
+			delayFuture.cancel(false);
+			int rateCount = atFixedRate.get();
+			Thread.sleep(50);
+			assertEquals(atFixedRate.get(), rateCount);
+			assertTrue(rateFuture.isCancelled());
+		} finally {
+			service.shutdown();
+		}
+	}
+
+	/**
+	 * Test the service scheduling suppliers, and cancelling the pending
+	 * schedules on shut down.
+	 *
+	 * @throws Exception
+	 *             the exception
+	 */
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testWithSchedulingSupplier() throws Exception {
+		TimingWheelScheduledExecutorService service = TimingWheelScheduledExecutorService.newInstance();
+		try (SchedulingSupplier schedulingSupplier = SchedulingSupplier.of(service)) {
+			AtomicLong previous = new AtomicLong(System.nanoTime());
+			Stream<Long> gaps = schedulingSupplier.scheduleSuppliersAndWait(10, 20, TimeUnit.MILLISECONDS, false,
+					Stream.generate(() -> (Supplier<Long>) () -> {
+						long now = System.nanoTime();
+						return TimeUnit.NANOSECONDS.toMillis(now - previous.getAndSet(now));
+					}).limit(5).toArray(Supplier[]::new));
+			assertTrue(gaps.allMatch(gap -> gap >= 9));
+
+			ScheduledFuture<?> pending = service.schedule(() -> {
+			}, 1, TimeUnit.HOURS);
+			service.shutdown();
+			assertTrue(service.awaitTermination(5, TimeUnit.SECONDS));
+			assertTrue(pending.isCancelled());
+			assertFalse(pending.getDelay(TimeUnit.MINUTES) < 59);
+		}
+	}
+}